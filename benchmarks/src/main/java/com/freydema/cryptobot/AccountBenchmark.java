@@ -0,0 +1,70 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.Currency;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reservation of funds as done by a BUY: block then release. The contended variants have all the threads work on
+ * the EUR balance, the uncontended one gives each thread its own currency.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountBenchmark {
+
+    private static final long AMOUNT = 1_000_000;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private Account account;
+
+    @State(Scope.Thread)
+    public static class ThreadCurrency {
+
+        Currency currency;
+
+        @Setup
+        public void setup(AccountBenchmark benchmark) {
+            Currency[] currencies = Currency.values();
+            currency = currencies[benchmark.threadCount.getAndIncrement() % currencies.length];
+        }
+    }
+
+    @Setup
+    public void setup() {
+        account = new Account();
+        for(Currency currency : Currency.values()){
+            account.addAsset(currency, Long.MAX_VALUE / 2);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean blockUnblock() {
+        return blockUnblock(Currency.EUR);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean blockUnblockContended() {
+        return blockUnblock(Currency.EUR);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean blockUnblockPerCurrency(ThreadCurrency threadCurrency) {
+        return blockUnblock(threadCurrency.currency);
+    }
+
+    private boolean blockUnblock(Currency currency) {
+        boolean blocked = account.tryBlockAsset(currency, AMOUNT);
+        account.unblockAsset(currency, AMOUNT);
+        return blocked;
+    }
+}
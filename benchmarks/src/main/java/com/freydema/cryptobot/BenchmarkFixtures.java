@@ -0,0 +1,59 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.backtest.BacktestExchangeClient;
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+
+class BenchmarkFixtures {
+
+    static Configuration configuration(CurrencyPair pair) {
+        return Configuration.builder()
+                .currencyPair(pair)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+    }
+
+    static Account account(long eur) {
+        Account account = new Account();
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(eur)));
+        return account;
+    }
+
+    /** Simulated exchange filling the orders against the tickers it is given */
+    static BacktestExchangeClient exchange() {
+        BacktestExchangeClient exchange = new BacktestExchangeClient(Clock.systemUTC());
+        for(CurrencyPair pair : CurrencyPair.values()){
+            exchange.setFeePercentage(pair, configuration(pair).getTradeFeePercentage());
+        }
+        return exchange;
+    }
+
+    static CurrencyPairTrader trader(CurrencyPair pair, Account account, BacktestExchangeClient exchange) {
+        CurrencyPairTrader trader = new CurrencyPairTrader(configuration(pair), account, exchange);
+        trader.recover();
+        return trader;
+    }
+
+    /** Ask close enough to the 24h low to trigger a BUY */
+    static Ticker buyTrigger(CurrencyPair pair) {
+        return Ticker.of(pair, 11.9, 12, 10, 20);
+    }
+
+    /** Ask in the upper part of the 24h range: no BUY */
+    static Ticker noTrigger(CurrencyPair pair) {
+        return Ticker.of(pair, 15, 15.1, 10, 20);
+    }
+
+    /** Bid above the SELL limit, ask too high to trigger another BUY: fills the SELL */
+    static Ticker sellFill(CurrencyPair pair) {
+        return Ticker.of(pair, 12.2, 12.3, 10, 20);
+    }
+}
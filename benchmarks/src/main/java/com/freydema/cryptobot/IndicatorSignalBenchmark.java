@@ -0,0 +1,59 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.indicator.IndicatorSignal;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Update of all the indicators of a pair with a ticker, then the BUY check, as done by the trader on every tick in
+ * TRY_BUY. The allocation rate reported should be 0.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndicatorSignalBenchmark {
+
+    private IndicatorSignal signal;
+    private Ticker[] tickers;
+    private int next;
+
+    @Setup
+    public void setup() {
+        signal = IndicatorSignal.builder()
+                .emaFastPeriods(12)
+                .emaSlowPeriods(26)
+                .vwapWindow(500)
+                .minVwapDiscountPercentage(500_000)
+                .rsiPeriods(14)
+                .maxRsi(30_000_000)
+                .atrPeriods(14)
+                .maxVolatilityPercentage(2_000_000)
+                .build();
+        Random random = new Random(3);
+        tickers = new Ticker[1024];
+        long mid = 40_000_000_000L;
+        for(int i = 0; i < tickers.length; i++){
+            mid += random.nextInt(20_000_001) - 10_000_000;
+            tickers[i] = Ticker.builder()
+                    .bidPrice(mid - 500_000)
+                    .askPrice(mid + 500_000)
+                    .bidVolume(random.nextInt(1_000_000_000))
+                    .askVolume(random.nextInt(1_000_000_000))
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public boolean updateAndCheck() {
+        Ticker ticker = tickers[next];
+        next = (next + 1) & (tickers.length - 1);
+        signal.update(ticker);
+        return signal.allowsBuy(ticker);
+    }
+}
@@ -0,0 +1,55 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a Kraken Ticker response for the 16 built-in pairs, as polled by the feed. The allocations reported
+ * should be the tickers and the result map only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KrakenTickerParserBenchmark {
+
+    private KrakenTickerParser parser;
+    private byte[] response;
+
+    @Setup
+    public void setup() {
+        CurrencyPair[] pairs = CurrencyPair.values();
+        parser = new KrakenTickerParser(Arrays.asList(pairs));
+        StringBuilder json = new StringBuilder("{\"error\":[],\"result\":{");
+        for(int i = 0; i < pairs.length; i++){
+            if(i > 0){
+                json.append(',');
+            }
+            String price = (100 + i) + ".12345";
+            json.append('"').append(KrakenTickerParser.pairName(pairs[i])).append("\":{")
+                    .append("\"a\":[\"").append(price).append("\",\"1\",\"1.000\"],")
+                    .append("\"b\":[\"").append(price).append("\",\"12\",\"12.50000000\"],")
+                    .append("\"c\":[\"").append(price).append("\",\"0.10000000\"],")
+                    .append("\"v\":[\"1500.12345678\",\"3400.87654321\"],")
+                    .append("\"p\":[\"").append(price).append("\",\"").append(price).append("\"],")
+                    .append("\"t\":[1234,5678],")
+                    .append("\"l\":[\"").append(price).append("\",\"").append(price).append("\"],")
+                    .append("\"h\":[\"").append(price).append("\",\"").append(price).append("\"],")
+                    .append("\"o\":\"").append(price).append("\"}");
+        }
+        response = json.append("}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Map<CurrencyPair, Ticker> parse() {
+        return parser.parse(response, 0);
+    }
+}
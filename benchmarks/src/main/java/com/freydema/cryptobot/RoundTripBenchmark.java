@@ -0,0 +1,87 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.backtest.BacktestExchangeClient;
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full BUY -> SELL round trip through the trader state machine per trader and per operation, against a simulated
+ * exchange: a ticker triggering the BUY, filled right away at the ask (the SELL is then placed right away), and a
+ * ticker filling the SELL.
+ *
+ * A trader sells the whole base balance of its account, so the traders are spread over as many accounts as needed
+ * for each account to hold at most one trader per pair, each account with its own exchange. Each benchmark thread
+ * drives its own traders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    @State(Scope.Thread)
+    public static class Traders {
+
+        @Param({"1", "16", "500"})
+        public int pairs;
+
+        BacktestExchangeClient[] exchanges;
+        CurrencyPairTrader[] traders;
+        Ticker[] buyTriggers;
+        Ticker[] sellFills;
+
+        @Setup
+        public void setup() {
+            CurrencyPair[] values = CurrencyPair.values();
+            traders = new CurrencyPairTrader[pairs];
+            buyTriggers = new Ticker[pairs];
+            sellFills = new Ticker[pairs];
+            exchanges = new BacktestExchangeClient[pairs];
+            Account account = null;
+            BacktestExchangeClient exchange = null;
+            for(int i = 0; i < pairs; i++){
+                if(i % values.length == 0){
+                    account = BenchmarkFixtures.account(1_000_000_000);
+                    exchange = BenchmarkFixtures.exchange();
+                }
+                CurrencyPair pair = values[i % values.length];
+                traders[i] = BenchmarkFixtures.trader(pair, account, exchange);
+                exchanges[i] = exchange;
+                buyTriggers[i] = BenchmarkFixtures.buyTrigger(pair);
+                sellFills[i] = BenchmarkFixtures.sellFill(pair);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void roundTrip(Traders traders, Blackhole blackhole) {
+        run(traders, blackhole);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void roundTripMultiThreaded(Traders traders, Blackhole blackhole) {
+        run(traders, blackhole);
+    }
+
+    private static void run(Traders state, Blackhole blackhole) {
+        CurrencyPairTrader[] traders = state.traders;
+        for(int i = 0; i < traders.length; i++){
+            CurrencyPairTrader trader = traders[i];
+            BacktestExchangeClient exchange = state.exchanges[i];
+            CurrencyPair pair = trader.getPair();
+            exchange.setTicker(pair, state.buyTriggers[i]);
+            trader.onTicker(pair, state.buyTriggers[i]);
+            exchange.setTicker(pair, state.sellFills[i]);
+            trader.onTicker(pair, state.sellFills[i]);
+            blackhole.consume(trader.getState());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.simulator.SimulatedExchange;
+import com.freydema.cryptobot.simulator.SyntheticMarketFlow;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order events per second sustained by the {@link SimulatedExchange}: each operation is one event of a
+ * {@link SyntheticMarketFlow} (passive order, aggressive order or cancellation). Multi-threaded, each thread drives
+ * the flow of its own pair on the shared exchange.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulatedExchangeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Exchange {
+
+        final SimulatedExchange exchange = new SimulatedExchange(Clock.systemUTC());
+        final AtomicInteger nextPair = new AtomicInteger();
+    }
+
+    @State(Scope.Thread)
+    public static class Flow {
+
+        SyntheticMarketFlow flow;
+
+        @Setup
+        public void setup(Exchange state) {
+            CurrencyPair[] pairs = CurrencyPair.values();
+            CurrencyPair pair = pairs[state.nextPair.getAndIncrement() % pairs.length];
+            flow = new SyntheticMarketFlow(state.exchange, pair, Currency.EUR.toUnits(BigDecimal.valueOf(100)),
+                    Currency.EUR.toUnits(new BigDecimal("0.01")), pair.getBase().toUnits(BigDecimal.ONE), 10_000, 42);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void orderEvent(Flow flow) {
+        flow.flow.step();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void orderEventMultiThreaded(Flow flow) {
+        flow.flow.step();
+    }
+}
@@ -0,0 +1,53 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.feed.TickerPipeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sustained rate of the ticker pipeline: ticks of all the pairs pushed by the feed thread as fast as the stages
+ * accept them, to listeners doing nothing. Once the rings are full the time per tick is the one of the slowest stage.
+ * The allocation rate reported should be 0.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TickerPipelineBenchmark {
+
+    private TickerPipeline pipeline;
+    private CurrencyPair[] pairs;
+    private Ticker[] tickers;
+    private final AtomicLong received = new AtomicLong();
+    private int next;
+
+    @Setup
+    public void setup() {
+        pairs = CurrencyPair.values();
+        tickers = new Ticker[pairs.length];
+        pipeline = new TickerPipeline(2);
+        for(int i = 0; i < pairs.length; i++){
+            tickers[i] = BenchmarkFixtures.buyTrigger(pairs[i]);
+            pipeline.register(pairs[i], (pair, ticker) -> received.lazySet(ticker.getAskPrice()));
+        }
+        pipeline.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pipeline.close();
+    }
+
+    @Benchmark
+    public void onTicker() {
+        int index = next;
+        next = index + 1 == pairs.length ? 0 : index + 1;
+        pipeline.onTicker(pairs[index], tickers[index]);
+    }
+}
@@ -0,0 +1,55 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Ticker;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-tick BUY decision and of the BUY sizing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraderDecisionBenchmark {
+
+    private CurrencyPairTrader trader;
+    private Ticker buyTrigger;
+    private Ticker noTrigger;
+    private SizingModel sizing;
+    private long buyPrice;
+
+    @Setup
+    public void setup() {
+        trader = BenchmarkFixtures.trader(CurrencyPair.BTCEUR, BenchmarkFixtures.account(10000),
+                BenchmarkFixtures.exchange());
+        buyTrigger = BenchmarkFixtures.buyTrigger(CurrencyPair.BTCEUR);
+        noTrigger = BenchmarkFixtures.noTrigger(CurrencyPair.BTCEUR);
+        buyPrice = Currency.EUR.toUnits(BigDecimal.valueOf(12));
+        sizing = SizingModel.of(CurrencyPair.BTCEUR, Currency.EUR.toUnits(BigDecimal.TEN),
+                FixedPoint.of(BigDecimal.ONE, FixedPoint.RATIO_SCALE),
+                FixedPoint.of(BigDecimal.valueOf(0.26), FixedPoint.RATIO_SCALE));
+    }
+
+    @Benchmark
+    public boolean shouldBuyGivenTickerTriggered() {
+        return trader.shouldBuyGivenTicker(buyTrigger);
+    }
+
+    @Benchmark
+    public boolean shouldBuyGivenTickerNotTriggered() {
+        return trader.shouldBuyGivenTicker(noTrigger);
+    }
+
+    @Benchmark
+    public long buyQuantity() {
+        return sizing.quantityAt(buyPrice);
+    }
+}
@@ -0,0 +1,32 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A BUY a trader would place if given the capital, submitted to the {@link CapitalAllocator}.
+ */
+@Getter
+@ToString(exclude = "trader")
+public final class BuyCandidate {
+
+    private final CurrencyPairTrader trader;
+    private final CurrencyPair pair;
+    // Limit at the quote currency scale, quantity at the base currency scale
+    private final long price;
+    private final long quantity;
+    // Quote currency amount to block for the full quantity
+    private final long amount;
+    // Expected round trip profit per unit of quote currency blocked, at FixedPoint.RATIO_SCALE (100% = 100_000_000)
+    private final long expectedReturn;
+
+    BuyCandidate(CurrencyPairTrader trader, long price, long quantity, long amount, long expectedReturn) {
+        this.trader = trader;
+        this.pair = trader.getPair();
+        this.price = price;
+        this.quantity = quantity;
+        this.amount = amount;
+        this.expectedReturn = expectedReturn;
+    }
+}
@@ -0,0 +1,127 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.FixedPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Shares the quote currency funds of the {@link Account} between the pairs. Instead of blocking funds as soon as
+ * their BUY triggers, traders submit a {@link BuyCandidate}, and at each {@link #allocate()} pass the candidates of
+ * all the pairs are ranked by expected return per unit of capital and served in that order:
+ * <ul>
+ *     <li>each is given at most {@code maxPairPercentage} of the quote currency balance, the trader then reducing
+ *     its quantity</li>
+ *     <li>a candidate the available funds cannot cover is skipped, the next ones may still fit</li>
+ * </ul>
+ * A pair has at most one pending candidate, the latest submitted. A candidate no longer valid when served, e.g. the
+ * ticker moved away from the trigger since, is declined by its trader and its funds go to the next ones.
+ */
+public class CapitalAllocator implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CapitalAllocator.class);
+
+    private static final Comparator<BuyCandidate> BEST_FIRST = Comparator
+            .comparingLong(BuyCandidate::getExpectedReturn).reversed()
+            .thenComparingInt(candidate -> candidate.getPair().getId());
+
+    private final Account account;
+    private final long maxPairPercentage;
+    private final AtomicReferenceArray<BuyCandidate> candidates = new AtomicReferenceArray<>(CurrencyPair.count());
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param maxPairPercentage share of the quote currency balance a single BUY may block, at
+     *                          {@link FixedPoint#RATIO_SCALE}
+     */
+    public CapitalAllocator(Account account, long maxPairPercentage) {
+        if(maxPairPercentage <= 0 || maxPairPercentage > FixedPoint.ONE_HUNDRED_PERCENT){
+            throw new IllegalArgumentException("Invalid max pair percentage " + maxPairPercentage);
+        }
+        this.account = account;
+        this.maxPairPercentage = maxPairPercentage;
+    }
+
+    /**
+     * Submit a candidate, replacing the pending one of its pair.
+     */
+    public void submit(BuyCandidate candidate) {
+        candidates.set(candidate.getPair().getId(), candidate);
+    }
+
+    /**
+     * Run {@link #allocate()} periodically on a dedicated thread.
+     */
+    public synchronized void start(Duration period) {
+        if(scheduler != null){
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "capital-allocator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::allocateSafely, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if(scheduler != null){
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Serve the pending candidates, best first, in a single pass.
+     * @return the number of BUY orders funded
+     */
+    public int allocate() {
+        List<BuyCandidate> pending = new ArrayList<>();
+        for(int i = 0; i < candidates.length(); i++){
+            BuyCandidate candidate = candidates.getAndSet(i, null);
+            if(candidate != null){
+                pending.add(candidate);
+            }
+        }
+        pending.sort(BEST_FIRST);
+        int funded = 0;
+        for(BuyCandidate candidate : pending){
+            Currency quote = candidate.getPair().getQuote();
+            long cap = FixedPoint.mulDiv(account.getBalance(quote), maxPairPercentage, FixedPoint.ONE_HUNDRED_PERCENT,
+                    RoundingMode.DOWN);
+            long amount = Math.min(candidate.getAmount(), cap);
+            if(amount <= 0 || !account.tryBlockAsset(quote, amount)){
+                LOGGER.debug("Not enough available {} for {}", quote, candidate);
+                continue;
+            }
+            if(candidate.getTrader().onCapitalAllocated(candidate, amount)){
+                funded++;
+            } else {
+                account.unblockAsset(quote, amount);
+            }
+        }
+        return funded;
+    }
+
+    private void allocateSafely() {
+        try {
+            allocate();
+        } catch (RuntimeException e) {
+            LOGGER.error("Capital allocation failed", e);
+        }
+    }
+}
@@ -1,27 +1,113 @@
 package com.freydema.cryptobot;
 
+import com.freydema.cryptobot.domain.Currency;
 import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.FixedPoint;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 import java.math.BigDecimal;
-import static com.freydema.cryptobot.BigDecimalUtils.*;
 
-@Builder
+/**
+ * Ratios and percentages are {@link FixedPoint} values at {@link FixedPoint#RATIO_SCALE}, the target profit is
+ * expressed at the {@link Currency#EUR} scale. The builder also accepts {@link BigDecimal} values for convenience.
+ */
+@Builder(toBuilder = true)
 @Getter
 @ToString
+@EqualsAndHashCode
 public class Configuration {
 
     private final CurrencyPair currencyPair;
-    private final BigDecimal askPriceVsLast24HLowTriggerRatio;
-    private final BigDecimal targetRoundTripProfitInEUR;
-    private final BigDecimal targetPriceGrowthPercentage;
-    private final BigDecimal tradeFeePercentage;
+    private final long askPriceVsLast24HLowTriggerRatio;
+    private final long targetRoundTripProfitInEUR;
+    private final long targetPriceGrowthPercentage;
+    private final long tradeFeePercentage;
+    // When > 0 the BUY trigger uses the ask price extremes observed locally over this window instead of the
+    // exchange 24h low/high, and does not trigger before a whole window was observed
+    private final long priceWindowMillis;
+    // When > 1 the pair is traded by a LadderTrader: this many BUY levels, each this percentage below the previous
+    private final int ladderLevels;
+    private final long ladderSpacingPercentage;
 
 
     public void validate() {
-        if(targetPriceGrowthPercentage.compareTo(tradeFeePercentage.multiply(TWO)) <= 0){
-            throw new RuntimeException("Invalid configuration: Target Price Growth Percentage <=  2x TradeFee");
+        if(currencyPair != null && currencyPair.getQuote() != Currency.EUR){
+            // Sizing would read the EUR target as an amount of the quote currency
+            throw new RuntimeException("Invalid configuration: the target profit is in EUR, " + currencyPair
+                    + " is quoted in " + currencyPair.getQuote());
+        }
+        if(tradeFeePercentage < 0 || tradeFeePercentage >= FixedPoint.ONE_HUNDRED_PERCENT){
+            throw new RuntimeException("Invalid configuration: trade fee out of range");
+        }
+        if(!coversFees(targetPriceGrowthPercentage, tradeFeePercentage)){
+            throw new RuntimeException("Invalid configuration: Target Price Growth Percentage does not cover the BUY and SELL fees");
+        }
+        if(priceWindowMillis < 0){
+            throw new RuntimeException("Invalid configuration: negative price window");
+        }
+        if(ladderLevels > 1 && (ladderSpacingPercentage <= 0
+                || ladderSpacingPercentage * (ladderLevels - 1) >= FixedPoint.ONE_HUNDRED_PERCENT)){
+            throw new RuntimeException("Invalid configuration: ladder spacing out of range for " + ladderLevels + " levels");
+        }
+    }
+
+    /**
+     * @return true if a round trip selling at the target price growth makes a profit once the BUY and SELL fees are
+     * paid: k(1-f) > 1+f, slightly more than k > 1+2f
+     */
+    public static boolean coversFees(long targetPriceGrowthPercentage, long tradeFeePercentage) {
+        long p = FixedPoint.ONE_HUNDRED_PERCENT;
+        return Math.multiplyExact(p + targetPriceGrowthPercentage, p - tradeFeePercentage)
+                > Math.multiplyExact(p, p + tradeFeePercentage);
+    }
+
+    public static class ConfigurationBuilder {
+
+        public ConfigurationBuilder askPriceVsLast24HLowTriggerRatio(long askPriceVsLast24HLowTriggerRatio) {
+            this.askPriceVsLast24HLowTriggerRatio = askPriceVsLast24HLowTriggerRatio;
+            return this;
+        }
+
+        public ConfigurationBuilder askPriceVsLast24HLowTriggerRatio(BigDecimal askPriceVsLast24HLowTriggerRatio) {
+            return askPriceVsLast24HLowTriggerRatio(FixedPoint.of(askPriceVsLast24HLowTriggerRatio, FixedPoint.RATIO_SCALE));
+        }
+
+        public ConfigurationBuilder targetRoundTripProfitInEUR(long targetRoundTripProfitInEUR) {
+            this.targetRoundTripProfitInEUR = targetRoundTripProfitInEUR;
+            return this;
+        }
+
+        public ConfigurationBuilder targetRoundTripProfitInEUR(BigDecimal targetRoundTripProfitInEUR) {
+            return targetRoundTripProfitInEUR(Currency.EUR.toUnits(targetRoundTripProfitInEUR));
+        }
+
+        public ConfigurationBuilder targetPriceGrowthPercentage(long targetPriceGrowthPercentage) {
+            this.targetPriceGrowthPercentage = targetPriceGrowthPercentage;
+            return this;
+        }
+
+        public ConfigurationBuilder targetPriceGrowthPercentage(BigDecimal targetPriceGrowthPercentage) {
+            return targetPriceGrowthPercentage(FixedPoint.of(targetPriceGrowthPercentage, FixedPoint.RATIO_SCALE));
+        }
+
+        public ConfigurationBuilder tradeFeePercentage(long tradeFeePercentage) {
+            this.tradeFeePercentage = tradeFeePercentage;
+            return this;
+        }
+
+        public ConfigurationBuilder tradeFeePercentage(BigDecimal tradeFeePercentage) {
+            return tradeFeePercentage(FixedPoint.of(tradeFeePercentage, FixedPoint.RATIO_SCALE));
+        }
+
+        public ConfigurationBuilder ladderSpacingPercentage(long ladderSpacingPercentage) {
+            this.ladderSpacingPercentage = ladderSpacingPercentage;
+            return this;
+        }
+
+        public ConfigurationBuilder ladderSpacingPercentage(BigDecimal ladderSpacingPercentage) {
+            return ladderSpacingPercentage(FixedPoint.of(ladderSpacingPercentage, FixedPoint.RATIO_SCALE));
         }
     }
 }
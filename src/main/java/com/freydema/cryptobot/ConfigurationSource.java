@@ -0,0 +1,254 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Per-pair {@link Configuration}s read from a properties file, reloaded while trading when the file changes. Values
+ * are read from {@code <pair>.<field>}, then {@code default.<field>}, then the defaults given to the source:
+ * <pre>
+ * default.askPriceVsLast24HLowTriggerRatio=0.2
+ * default.tradeFeePercentage=0.26
+ * ETHEUR.targetPriceGrowthPercentage=1.5
+ * ETHEUR.priceWindowMillis=3600000
+ * </pre>
+ * Decimal fields are written as decimals, i.e. {@code 0.26} for 0.26%. The ladder fields are rejected, the live bot
+ * does not trade ladders.
+ *
+ * Every reload is parsed and validated, and the sizing of each pair compiled, by the watcher thread: an invalid file
+ * is logged and ignored as a whole, the traders keep the previous configurations. A valid one is published as an
+ * immutable {@link Snapshot} with a single volatile write, and picked up by each trader at its next update with a
+ * volatile read.
+ */
+public class ConfigurationSource implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationSource.class);
+
+    private static final String DEFAULT_PREFIX = "default";
+    // Time for the writer of the file to finish before it is read: a save often raises several events
+    private static final long SETTLE_MILLIS = 200;
+
+    private final Path file;
+    private final List<CurrencyPair> pairs;
+    private final Configuration defaults;
+    private volatile Snapshot snapshot;
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Load the file, or use the defaults if it does not exist.
+     *
+     * @param defaults values of the fields missing from the file, its pair is ignored
+     * @throws RuntimeException if the file is invalid
+     */
+    public ConfigurationSource(Path file, List<CurrencyPair> pairs, Configuration defaults) {
+        this.file = file;
+        this.pairs = pairs;
+        this.defaults = defaults;
+        this.snapshot = parse(read(), null);
+        LOGGER.info("Loaded configuration of {} pairs from {}", pairs.size(), file);
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Read the file again and publish it if valid.
+     *
+     * @return true if a new snapshot was published
+     */
+    public synchronized boolean reload() {
+        Snapshot previous = snapshot;
+        Snapshot next;
+        try {
+            next = parse(read(), previous);
+        } catch (RuntimeException e) {
+            LOGGER.error("Invalid configuration {} ignored: {}", file, e.getMessage());
+            return false;
+        }
+        snapshot = next;
+        LOGGER.info("Published configuration version {} from {}", next.version, file);
+        return true;
+    }
+
+    /**
+     * Watch the file, reloading it on every change.
+     */
+    public synchronized void start() {
+        if(watcher != null){
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        watcher = new Thread(this::watchLoop, "configuration-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        if(watcher == null){
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close the watch service of {}", file, e);
+        }
+        watcher.interrupt();
+        watcher = null;
+    }
+
+    private void watchLoop() {
+        Path name = file.getFileName();
+        try {
+            while(!Thread.currentThread().isInterrupted()){
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for(WatchEvent<?> event : key.pollEvents()){
+                    changed |= name.equals(event.context());
+                }
+                key.reset();
+                if(changed){
+                    Thread.sleep(SETTLE_MILLIS);
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private Properties read() {
+        Properties properties = new Properties();
+        try(Reader reader = Files.exists(file) ? Files.newBufferedReader(file) : new StringReader("")){
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return properties;
+    }
+
+    /**
+     * @param previous the current snapshot, whose sizing is reused for the pairs whose configuration did not change
+     */
+    private Snapshot parse(Properties properties, Snapshot previous) {
+        for(String key : properties.stringPropertyNames()){
+            String prefix = key.substring(0, Math.max(key.indexOf('.'), 0));
+            if(!DEFAULT_PREFIX.equals(prefix) && CurrencyPair.find(prefix) == null){
+                throw new IllegalArgumentException("Unknown pair in " + key);
+            }
+        }
+        int size = 0;
+        for(CurrencyPair pair : pairs){
+            size = Math.max(size, pair.getId() + 1);
+        }
+        SizingModel[] sizings = new SizingModel[size];
+        for(CurrencyPair pair : pairs){
+            Configuration.ConfigurationBuilder builder = defaults.toBuilder().currencyPair(pair);
+            apply(builder, properties, DEFAULT_PREFIX);
+            apply(builder, properties, pair.getName());
+            Configuration config = builder.build();
+            SizingModel current = previous != null ? previous.sizingOf(pair) : null;
+            sizings[pair.getId()] = current != null && current.getConfiguration().equals(config)
+                    ? current
+                    : SizingModel.compile(config);
+        }
+        return new Snapshot(previous != null ? previous.version + 1 : 1, sizings);
+    }
+
+    private static void apply(Configuration.ConfigurationBuilder builder, Properties properties, String prefix) {
+        for(String key : properties.stringPropertyNames()){
+            if(!key.startsWith(prefix + ".")){
+                continue;
+            }
+            String field = key.substring(prefix.length() + 1);
+            String value = properties.getProperty(key).trim();
+            try {
+                switch (field) {
+                    case "askPriceVsLast24HLowTriggerRatio":
+                        builder.askPriceVsLast24HLowTriggerRatio(new BigDecimal(value));
+                        break;
+                    case "targetRoundTripProfitInEUR":
+                        builder.targetRoundTripProfitInEUR(new BigDecimal(value));
+                        break;
+                    case "targetPriceGrowthPercentage":
+                        builder.targetPriceGrowthPercentage(new BigDecimal(value));
+                        break;
+                    case "tradeFeePercentage":
+                        builder.tradeFeePercentage(new BigDecimal(value));
+                        break;
+                    case "priceWindowMillis":
+                        builder.priceWindowMillis(Long.parseLong(value));
+                        break;
+                    case "ladderLevels":
+                    case "ladderSpacingPercentage":
+                        // The live bot only runs CurrencyPairTraders: a ladder would be silently ignored
+                        throw new IllegalArgumentException("Ladder mode is only supported by the backtester: " + key);
+                    default:
+                        throw new IllegalArgumentException("Unknown configuration field " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value of " + key + ": " + value);
+            }
+        }
+    }
+
+    /**
+     * Immutable configurations of all the pairs at one version of the file.
+     */
+    public static final class Snapshot {
+
+        private final long version;
+        // By pair id, null for the pairs not configured
+        private final SizingModel[] sizings;
+
+        private Snapshot(long version, SizingModel[] sizings) {
+            this.version = version;
+            this.sizings = sizings;
+        }
+
+        /**
+         * @return 1 for the initial load, incremented by every reload published
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the configuration of the pair, null if the pair is not configured
+         */
+        public Configuration getConfiguration(CurrencyPair pair) {
+            SizingModel sizing = sizingOf(pair);
+            return sizing != null ? sizing.getConfiguration() : null;
+        }
+
+        SizingModel sizingOf(CurrencyPair pair) {
+            return pair.getId() < sizings.length ? sizings[pair.getId()] : null;
+        }
+    }
+}
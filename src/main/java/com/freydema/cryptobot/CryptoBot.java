@@ -3,44 +3,197 @@ package com.freydema.cryptobot;
 import com.freydema.cryptobot.domain.Account;
 import com.freydema.cryptobot.domain.Currency;
 import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Instruments;
+import com.freydema.cryptobot.feed.AdaptivePollingTickerFeed;
+import com.freydema.cryptobot.feed.TickerPipeline;
+import com.freydema.cryptobot.journal.Journal;
+import com.freydema.cryptobot.journal.JournalState;
+import com.freydema.cryptobot.metrics.AccountMetrics;
+import com.freydema.cryptobot.metrics.InstrumentedExchangeClient;
+import com.freydema.cryptobot.metrics.LogMetricsExporter;
+import com.freydema.cryptobot.metrics.MetricsExporter;
+import com.freydema.cryptobot.metrics.MetricsRegistry;
+import com.freydema.cryptobot.metrics.TraderMetrics;
+import com.freydema.cryptobot.simulator.PaperExchangeClient;
+import com.freydema.cryptobot.store.TickRecorder;
+import com.freydema.cryptobot.tradelog.TradeEventLog;
+import com.freydema.cryptobot.tradelog.TradeLedger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class CryptoBot {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(CryptoBot.class);
 
+    // Kraken public endpoints budget: one batched ticker request at most every REQUEST_INTERVAL
+    private static final Duration REQUEST_INTERVAL = Duration.ofMillis(500);
+    private static final Duration MIN_POLL_INTERVAL = Duration.ofMillis(500);
+    private static final Duration MAX_POLL_INTERVAL = Duration.ofSeconds(10);
+    // Kraken API call counter: bursts of RATE_LIMIT_CAPACITY calls, then one call every RATE_LIMIT_TOKEN_INTERVAL
+    private static final int RATE_LIMIT_CAPACITY = 15;
+    private static final Duration RATE_LIMIT_TOKEN_INTERVAL = Duration.ofMillis(333);
+    private static final Duration RATE_LIMIT_MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration RATE_LIMIT_MAX_BACKOFF = Duration.ofSeconds(30);
+    private static final int RATE_LIMIT_MAX_RETRIES = 3;
+    private static final String TICK_STORE_DIRECTORY = "ticks";
+    private static final String JOURNAL_DIRECTORY = "journal";
+    private static final String INSTRUMENTS_FILE = "instruments.csv";
+    private static final String CONFIGURATION_FILE = "trading.properties";
+    private static final String TRADE_EVENT_LOG_FILE = "trades/events.bin";
+    // Share of the EUR balance a single BUY may block, and period of the allocation passes
+    private static final long MAX_PAIR_ALLOCATION_PERCENTAGE = 25 * FixedPoint.pow10(FixedPoint.RATIO_SCALE);
+    private static final Duration ALLOCATION_PERIOD = Duration.ofMillis(500);
+    private static final Duration METRICS_LOG_PERIOD = Duration.ofMinutes(1);
+
+    private final int strategyThreads;
+    private final TradeLedger tradeLedger = new TradeLedger();
+
+    public CryptoBot() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 2));
+    }
+
+    /**
+     * @param strategyThreads the number of threads the traders run on. Each trader is always updated by the same
+     *                        thread, the traders of different pairs run concurrently.
+     */
+    public CryptoBot(int strategyThreads) {
+        this.strategyThreads = strategyThreads;
+    }
 
     public void start(){
-        CurrencyPair[] pairs = CurrencyPair.values();
+        // Instruments are registered before anything sizes its per-pair and per-currency structures
+        CurrencyPair[] pairs = loadInstruments();
         List<CurrencyPairTrader> traders = new ArrayList<>();
         Account account = new Account();
-        ExchangeClient exchangeClient = new KrakenExchangeClient(pairs);
+        MetricsRegistry metrics = new MetricsRegistry();
+        // Trading parameters can be changed while running by editing the configuration file, missing values default
+        // to the ones below
+        Configuration defaults = Configuration.builder()
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+        // Kraken only provides the market data: the orders are filled on paper against its tickers, at its fee
+        PaperExchangeClient paperClient = new PaperExchangeClient(new KrakenExchangeClient(pairs), Clock.systemUTC());
         for(CurrencyPair pair : pairs){
-            Configuration configuration = Configuration.builder()
-                    .currencyPair(pair)
-                    .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
-                    .targetPriceGrowthPercentage(BigDecimal.ONE)
-                    .targetRoundTripProfitInEUR(BigDecimal.TEN)
-                    .tradeFeePercentage(BigDecimal.valueOf(0.26))
-                    .build();
-            account.addAsset(pair.getBase(), BigDecimal.ZERO);
-            traders.add(new CurrencyPairTrader(configuration, account, exchangeClient));
+            paperClient.setFeePercentage(pair, defaults.getTradeFeePercentage());
         }
-        account.addAsset(Currency.EUR, BigDecimal.valueOf(10000));
-        while(true){
-            try {
-                Thread.sleep(3000);
-                for(CurrencyPairTrader trader : traders){
-                    trader.update();
-                }
-            } catch (InterruptedException e){
-                Thread.currentThread().interrupt();
+        // Every request goes through the rate limit gateway, the metrics measure the exchange latency alone
+        ExchangeClient krakenClient = new RateLimitedExchangeClient(
+                new InstrumentedExchangeClient(paperClient, metrics), RATE_LIMIT_CAPACITY,
+                RATE_LIMIT_TOKEN_INTERVAL, RATE_LIMIT_MIN_BACKOFF, RATE_LIMIT_MAX_BACKOFF, RATE_LIMIT_MAX_RETRIES);
+        SnapshotExchangeClient exchangeClient = new SnapshotExchangeClient(krakenClient, Arrays.asList(pairs));
+        // Kraken only offers a REST ticker: poll it in batch and push the changed tickers to the traders, polling
+        // more often the pairs close to a trigger
+        AdaptivePollingTickerFeed tickerFeed = new AdaptivePollingTickerFeed(krakenClient, REQUEST_INTERVAL,
+                MIN_POLL_INTERVAL, MAX_POLL_INTERVAL);
+        tickerFeed.setMetrics(metrics);
+        // The tickers reach the traders through preallocated rings, from the feed thread to strategy threads
+        TickerPipeline tickerPipeline = new TickerPipeline(strategyThreads);
+        account.addListener(new AccountMetrics(metrics));
+        // The BUY funds go to the best opportunities across pairs rather than to the first pair triggering
+        CapitalAllocator capitalAllocator = new CapitalAllocator(account, MAX_PAIR_ALLOCATION_PERCENTAGE);
+        // Every observed ticker is recorded for backtests
+        TickRecorder tickRecorder = new TickRecorder(Paths.get(TICK_STORE_DIRECTORY));
+        // Account and trader changes are journaled so that a restart resumes with the open orders and blocked funds
+        Journal journal;
+        // The trading activity is logged in binary, see TradeEventLogRenderer to read it
+        TradeEventLog tradeEventLog;
+        try {
+            journal = new Journal(Paths.get(JOURNAL_DIRECTORY));
+            tradeEventLog = new TradeEventLog(Paths.get(TRADE_EVENT_LOG_FILE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        JournalState recoveredState = journal.getRecoveredState();
+        account.addListener(journal);
+        account.addListener(tradeEventLog);
+        ConfigurationSource configurationSource = new ConfigurationSource(Paths.get(CONFIGURATION_FILE),
+                Arrays.asList(pairs), defaults);
+        for(CurrencyPair pair : pairs){
+            CurrencyPairTrader trader = new CurrencyPairTrader(configurationSource.getSnapshot().getConfiguration(pair),
+                    account, exchangeClient);
+            trader.setConfigurationSource(configurationSource);
+            trader.addStateListener(journal);
+            trader.addStateListener(tradeEventLog);
+            trader.addExecutionListener(tradeEventLog);
+            trader.addExecutionListener(tradeLedger);
+            trader.setMetrics(new TraderMetrics(metrics, pair));
+            trader.setCapitalAllocator(capitalAllocator);
+            traders.add(trader);
+        }
+        // Trading without a journal would leave a restart unaware of the orders and fills
+        journal.addFailureListener(e -> {
+            LOGGER.error("Journal failed, stopping the traders");
+            traders.forEach(CurrencyPairTrader::stop);
+        });
+        if(recoveredState.isEmpty()){
+            for(CurrencyPair pair : pairs){
+                account.addAsset(pair.getBase(), 0);
             }
+            account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(10000)));
+        } else {
+            recoveredState.restore(account);
+        }
+        for(CurrencyPairTrader trader : traders){
+            recoveredState.restore(trader);
+            tickerFeed.subscribe(trader.getPair(), exchangeClient);
+            tickerFeed.subscribe(trader.getPair(), tickRecorder);
+            tickerPipeline.register(trader.getPair(), trader);
+            tickerFeed.subscribe(trader.getPair(), tickerPipeline);
+            tickerFeed.addTriggerDistance(trader.getPair(), trader);
         }
+        MetricsExporter metricsExporter = new LogMetricsExporter(metrics, METRICS_LOG_PERIOD);
+        metricsExporter.start();
+        capitalAllocator.start(ALLOCATION_PERIOD);
+        configurationSource.start();
+        tickerPipeline.start();
+        tickerFeed.start();
+    }
 
+    /**
+     * @return the fills of the traders, with the P&L, fees and exposure per pair, queryable while trading
+     */
+    public TradeLedger getTradeLedger() {
+        return tradeLedger;
+    }
 
+    /**
+     * @return the pairs listed in the instruments file if there is one, otherwise all the built-in pairs. Only the
+     * pairs quoted in EUR are traded: the target profit is configured in EUR.
+     */
+    private static CurrencyPair[] loadInstruments() {
+        Path file = Paths.get(INSTRUMENTS_FILE);
+        if(!Files.exists(file)){
+            return CurrencyPair.values();
+        }
+        List<CurrencyPair> pairs = new ArrayList<>();
+        try {
+            for(CurrencyPair pair : Instruments.load(file)){
+                if(pair.getQuote() == Currency.EUR){
+                    pairs.add(pair);
+                } else {
+                    LOGGER.warn("{} not traded: quoted in {}, the target profit is in EUR", pair, pair.getQuote());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return pairs.toArray(new CurrencyPair[0]);
     }
 
 }
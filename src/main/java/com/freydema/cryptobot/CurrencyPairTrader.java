@@ -1,61 +1,279 @@
 package com.freydema.cryptobot;
 
 import com.freydema.cryptobot.domain.*;
+import com.freydema.cryptobot.feed.TickerListener;
+import com.freydema.cryptobot.feed.TriggerDistance;
+import com.freydema.cryptobot.indicator.BuySignal;
+import com.freydema.cryptobot.indicator.RollingExtremes;
+import com.freydema.cryptobot.metrics.TraderMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
-import java.math.BigDecimal;
-import java.math.MathContext;
 import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
-import static com.freydema.cryptobot.BigDecimalUtils.*;
 
-public class CurrencyPairTrader {
+/**
+ * Trades one pair in BUY -> SELL round trips. Market data arrives as tickers, while orders are placed asynchronously
+ * on the {@link ExchangeClient} and the trader advances on their acceptance and executions, possibly partial.
+ *
+ * Tickers, executions and order acknowledgements may arrive on different threads: they are handled one at a time.
+ */
+public class CurrencyPairTrader implements TickerListener, ExecutionListener, TriggerDistance {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CurrencyPairTrader.class);
+    private static final int PRICE_WINDOW_BUCKETS = 1440;
 
 
     public enum State {
         START,
         TRY_BUY,
-        //WAIT_FOR_BUY_ORDER_PLACED,
+        WAIT_FOR_BUY_ORDER_PLACED,
         WAIT_FOR_BUY_ORDER_EXECUTED,
         TRY_SELL,
-        //WAIT_FOR_SELL_ORDER_PLACED,
+        WAIT_FOR_SELL_ORDER_PLACED,
         WAIT_FOR_SELL_ORDER_EXECUTED,
         END_ROUND_TRIP,
         STOP
     }
 
 
-    private final Configuration config;
+    // Configuration and its compiled sizing, swapped together on reconfiguration
+    private volatile SizingModel sizing;
     private final Account account;
     private final ExchangeClient exchangeClient;
     private final CurrencyPair pair;
+    private final Clock clock;
+    private final List<ExecutionListener> executionListeners = new ArrayList<>();
+    private final List<TraderStateListener> stateListeners = new ArrayList<>();
+    private RollingExtremes priceExtremes;
+    private TraderMetrics metrics;
+    private CapitalAllocator capitalAllocator;
+    private BuySignal buySignal;
+    private ConfigurationSource configurationSource;
+    // Snapshot of the source the configuration was last taken from
+    private ConfigurationSource.Snapshot configurationSnapshot;
+    // Latest BUY submitted to the capital allocator and not served yet
+    private BuyCandidate pendingCandidate;
 
     private State state;
     private Order buyOrder;
     private Order sellOrder;
+    // Executed quantity of the open order, in TRY_SELL the quantity left to sell
+    private long filledQuantity;
+    // Fee percentage the funds of the open BUY were reserved with: its executions release them at the same rate
+    private long buyFeePercentage;
+    private long stateEnteredNanos;
 
 
     public CurrencyPairTrader(Configuration config, Account account, ExchangeClient exchangeClient) {
-        this.config = config;
+        this(config, account, exchangeClient, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock time source of the orders and executions, simulated when backtesting
+     */
+    public CurrencyPairTrader(Configuration config, Account account, ExchangeClient exchangeClient, Clock clock) {
+        this.sizing = SizingModel.compile(config);
+        this.clock = clock;
         this.account = account;
         this.exchangeClient = exchangeClient;
         this.pair = config.getCurrencyPair();
         this.state = State.START;
-        config.validate();
-        // Check config
-        if(config.getTargetPriceGrowthPercentage().compareTo(config.getTradeFeePercentage().multiply(TWO)) <= 0){
-            throw new RuntimeException("Invalid config: Target Price Growth Percentage <=  2x TradeFee");
-        }
+        this.priceExtremes = priceExtremesFor(config);
+        exchangeClient.addExecutionListener(pair, this);
+    }
+
+    /**
+     * Register a listener notified of every BUY and SELL execution once the account has been updated.
+     * Must be called before the trader starts receiving tickers.
+     */
+    public void addExecutionListener(ExecutionListener listener) {
+        executionListeners.add(listener);
+    }
+
+    /**
+     * Register a listener notified of every state transition, typically a journal.
+     * Must be called before the trader starts receiving tickers.
+     */
+    public void addStateListener(TraderStateListener listener) {
+        stateListeners.add(listener);
+    }
+
+    /**
+     * Record the decision latencies and the time spent in each state. Instrumentation is disabled by default.
+     * Must be called before the trader starts receiving tickers.
+     */
+    public synchronized void setMetrics(TraderMetrics metrics) {
+        this.metrics = metrics;
+        stateEnteredNanos = System.nanoTime();
     }
 
-    public void recover() {
+    /**
+     * Have the BUY funds reserved by the allocator, competing with the other pairs, instead of blocking them as soon
+     * as the BUY triggers. Must be called before the trader starts receiving tickers.
+     */
+    public synchronized void setCapitalAllocator(CapitalAllocator capitalAllocator) {
+        this.capitalAllocator = capitalAllocator;
+    }
+
+    /**
+     * Gate the BUY on an additional signal, e.g. technical indicators, on top of the price range trigger.
+     * Must be called before the trader starts receiving tickers.
+     */
+    public synchronized void setBuySignal(BuySignal buySignal) {
+        this.buySignal = buySignal;
+    }
+
+    /**
+     * Follow the configuration of the pair published by the source, taken at the start of every update.
+     * Must be called before the trader starts receiving tickers.
+     */
+    public synchronized void setConfigurationSource(ConfigurationSource configurationSource) {
+        this.configurationSource = configurationSource;
+    }
+
+    public synchronized void recover() {
         moveToState(State.TRY_BUY);
     }
 
+    /**
+     * Stop trading for good, e.g. when the changes can no longer be journaled: the open order is cancelled and no
+     * order is placed any more. The executions received in the meantime are still settled in the account.
+     */
+    public synchronized void stop() {
+        Order openOrder;
+        switch (state) {
+            case STOP:
+                return;
+            case WAIT_FOR_BUY_ORDER_PLACED:
+            case WAIT_FOR_BUY_ORDER_EXECUTED:
+                openOrder = buyOrder;
+                break;
+            case WAIT_FOR_SELL_ORDER_PLACED:
+            case WAIT_FOR_SELL_ORDER_EXECUTED:
+                openOrder = sellOrder;
+                break;
+            default:
+                openOrder = null;
+        }
+        LOGGER.warn("{} stopped in state {}", pair, state);
+        moveToState(State.STOP);
+        if(openOrder != null){
+            exchangeClient.cancelOrder(openOrder);
+        }
+    }
+
+    /**
+     * Apply a new configuration of the pair while trading. It is validated first, and left unapplied if invalid.
+     * The open orders keep their price and quantity: the BUY trigger and sizing change from the next ticker, the SELL
+     * target from the next BUY execution. A change of price window restarts the observation of the extremes.
+     *
+     * @throws RuntimeException if the configuration is invalid or for another pair
+     */
+    public synchronized void reconfigure(Configuration config) {
+        if(config.getCurrencyPair() != pair){
+            throw new IllegalArgumentException("Configuration of " + config.getCurrencyPair() + " applied to " + pair);
+        }
+        apply(SizingModel.compile(config));
+    }
+
+    private void apply(SizingModel compiled) {
+        Configuration config = compiled.getConfiguration();
+        if(config.getPriceWindowMillis() != sizing.getConfiguration().getPriceWindowMillis()){
+            priceExtremes = priceExtremesFor(config);
+        }
+        sizing = compiled;
+        LOGGER.info("{} reconfigured: {}", pair, config);
+    }
+
+    public Configuration getConfiguration() {
+        return sizing.getConfiguration();
+    }
+
+    private static RollingExtremes priceExtremesFor(Configuration config) {
+        return config.getPriceWindowMillis() > 0
+                ? new RollingExtremes(config.getPriceWindowMillis(), (int) Math.min(PRICE_WINDOW_BUCKETS, config.getPriceWindowMillis()))
+                : null;
+    }
+
+    /**
+     * Resume from a previously recorded state and its open orders, e.g. replayed from a journal. The funds blocked
+     * for the orders are expected to be restored in the {@link Account} first.
+     *
+     * The exchange may no longer know the open order, e.g. a paper exchange starts empty: the order is cancelled in
+     * case it is still open, and what is left of it is handled again. A BUY not executed at all is placed again. A
+     * BUY partially executed is not completed: the funds blocked for the rest are released and the quantity bought
+     * is sold. What is left of a SELL is placed again.
+     *
+     * @param recoveredBuyFeePercentage fee the funds of the BUY were blocked with, negative if unknown: the current
+     *                                  one is then assumed
+     */
+    public synchronized void recover(State recoveredState, Order recoveredBuyOrder, Order recoveredSellOrder,
+                                     long recoveredFilledQuantity, long recoveredBuyFeePercentage) {
+        buyOrder = recoveredBuyOrder;
+        sellOrder = recoveredSellOrder;
+        filledQuantity = recoveredFilledQuantity;
+        buyFeePercentage = recoveredBuyFeePercentage >= 0
+                ? recoveredBuyFeePercentage
+                : sizing.getConfiguration().getTradeFeePercentage();
+        switch (recoveredState) {
+            case START:
+                moveToState(State.TRY_BUY);
+                break;
+            case WAIT_FOR_BUY_ORDER_PLACED:
+            case WAIT_FOR_BUY_ORDER_EXECUTED:
+                exchangeClient.cancelOrder(buyOrder);
+                if(filledQuantity == 0){
+                    // Same quantity and limit: the funds blocked cover it as they covered the original
+                    buyOrder = renew(buyOrder, buyOrder.getQuantity());
+                    LOGGER.info("{} placing again BUY {}", pair, buyOrder);
+                    moveToState(State.WAIT_FOR_BUY_ORDER_PLACED);
+                    placeOrder(buyOrder);
+                } else {
+                    long limit = buyOrder.getLimit();
+                    long unfilledAmount = blockedAmountFor(limit, buyOrder.getQuantity(), buyFeePercentage)
+                            - blockedAmountFor(limit, filledQuantity, buyFeePercentage);
+                    account.unblockAsset(pair.getQuote(), unfilledAmount);
+                    LOGGER.info("{} selling the {} {} bought by BUY {}", pair,
+                            pair.getBase().toBigDecimal(filledQuantity), pair.getBase(), buyOrder);
+                    moveToState(State.TRY_SELL);
+                }
+                break;
+            case WAIT_FOR_SELL_ORDER_PLACED:
+            case WAIT_FOR_SELL_ORDER_EXECUTED:
+                exchangeClient.cancelOrder(sellOrder);
+                // The quantity not sold yet is still blocked
+                sellOrder = renew(sellOrder, sellOrder.getQuantity() - filledQuantity);
+                filledQuantity = 0;
+                LOGGER.info("{} placing again SELL {}", pair, sellOrder);
+                moveToState(State.WAIT_FOR_SELL_ORDER_PLACED);
+                placeOrder(sellOrder);
+                break;
+            default:
+                moveToState(recoveredState);
+        }
+        advance();
+    }
+
+    /**
+     * @return a new order of the side and limit of the given one, for the given quantity
+     */
+    private Order renew(Order order, long quantity) {
+        return Order.builder()
+                .id(UUID.randomUUID().toString())
+                .pair(pair)
+                .side(order.getSide())
+                .quantity(quantity)
+                .limit(order.getLimit())
+                .createdAt(LocalDateTime.now(clock))
+                .build();
+    }
+
 
     public CurrencyPair getPair() {
         return pair;
@@ -65,41 +283,116 @@ public class CurrencyPairTrader {
         return account;
     }
 
-    public State getState() {
+    public synchronized State getState() {
         return state;
     }
 
-    public Order getBuyOrder() {
+    public synchronized Order getBuyOrder() {
         return buyOrder;
     }
 
-    public Order getSellOrder() {
+    public synchronized Order getSellOrder() {
         return sellOrder;
     }
 
-    protected void update() {
+    public synchronized long getFilledQuantity() {
+        return filledQuantity;
+    }
 
+    /**
+     * Called by the {@link com.freydema.cryptobot.feed.TickerFeed} each time a new ticker arrives for the pair.
+     * States that do not depend on market data are then advanced right away instead of waiting for the next ticker.
+     */
+    @Override
+    public synchronized void onTicker(CurrencyPair pair, Ticker ticker) {
+        long start = metrics != null ? System.nanoTime() : 0;
+        update(ticker);
+        advance();
+        if(metrics != null){
+            metrics.recordDecision(System.nanoTime() - start);
+            if(ticker.getTimestamp() != 0){
+                metrics.recordTickerAge(clock.millis() - ticker.getTimestamp());
+            }
+        }
+    }
+
+    /**
+     * Called by the {@link ExchangeClient} for each (partial) execution of an order of the pair.
+     */
+    @Override
+    public synchronized void onExecution(Execution execution) {
+        if(buyOrder != null && sellOrder == null && buyOrder.getId().equals(execution.getOrderId())){
+            onBuyExecution(execution);
+        } else if(sellOrder != null && sellOrder.getId().equals(execution.getOrderId())){
+            onSellExecution(execution);
+        } else {
+            LOGGER.warn("Ignoring execution of an order no longer open: {}", execution);
+            return;
+        }
+        if(metrics != null){
+            metrics.recordExecution();
+        }
+        advance();
+    }
+
+    protected synchronized void update() {
+        long start = metrics != null ? System.nanoTime() : 0;
+        update(state == State.TRY_BUY ? exchangeClient.getTicker(pair) : null);
+        if(metrics != null){
+            metrics.recordDecision(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Advance the states not depending on market data right away instead of waiting for the next ticker, unless a
+     * step leaves the state unchanged (e.g. a SELL order rejected on placement, retried on the next ticker).
+     */
+    private void advance() {
+        State previous = null;
+        while((state == State.TRY_SELL || state == State.END_ROUND_TRIP) && state != previous){
+            previous = state;
+            update(null);
+        }
+    }
+
+    private void update(Ticker ticker) {
+        if(configurationSource != null){
+            ConfigurationSource.Snapshot latest = configurationSource.getSnapshot();
+            if(latest != configurationSnapshot){
+                configurationSnapshot = latest;
+                SizingModel compiled = latest.sizingOf(pair);
+                if(compiled != null && compiled != sizing){
+                    apply(compiled);
+                }
+            }
+        }
+        if(ticker == null && state == State.TRY_BUY){
+            LOGGER.debug("No ticker available for {} in state {}", pair, state);
+            return;
+        }
+        if(ticker != null && priceExtremes != null){
+            priceExtremes.update(ticker.getTimestamp() != 0 ? ticker.getTimestamp() : clock.millis(), ticker.getAskPrice());
+        }
+        if(ticker != null && buySignal != null){
+            buySignal.update(ticker);
+        }
         switch (state) {
             case START:
                 // do nothing
                 break;
             case TRY_BUY:
-                tryBuy();
+                tryBuy(ticker);
                 break;
-//            case WAIT_FOR_BUY_ORDER_PLACED:
-//                waitForBuyOrderPlaced();
-//                break;
+            case WAIT_FOR_BUY_ORDER_PLACED:
             case WAIT_FOR_BUY_ORDER_EXECUTED:
-                waitForBuyOrderExecuted();
+                // advanced by the order acknowledgement and executions
                 break;
             case TRY_SELL:
                 trySell();
                 break;
-//            case WAIT_FOR_SELL_ORDER_PLACED:
-//                waitForSellOrderPlaced();
-//                break;
+            case WAIT_FOR_SELL_ORDER_PLACED:
             case WAIT_FOR_SELL_ORDER_EXECUTED:
-                waitForSellOrderExecuted();
+                // advanced by the order acknowledgement and executions
                 break;
             case END_ROUND_TRIP:
                 endRoundTrip();
@@ -110,143 +403,339 @@ public class CurrencyPairTrader {
         }
     }
 
-    private void tryBuy() {
-        BigDecimal balance = account.getBalance(pair.getQuote());
-        BigDecimal blocked = account.getBlocked(pair.getQuote());
-        BigDecimal available = balance.subtract(blocked);
-        if(available.compareTo(BigDecimal.ZERO) == 0){
-            LOGGER.info("No available fund for trading left");
-            moveToState(State.STOP);
-        }
-        Ticker ticker = exchangeClient.getTicker(pair);
-        if(shouldBuyGivenTicker(ticker)) {
-           BigDecimal buyPrice = ticker.getAskPrice();
-           BigDecimal quantity = calculateBuyQuantityGiven(
-                   buyPrice,
-                   config.getTargetRoundTripProfitInEUR(),
-                   config.getTargetPriceGrowthPercentage(),
-                   config.getTradeFeePercentage());
-           buyOrder = Order.builder()
-                   .id(UUID.randomUUID().toString())
-                   .pair(pair)
-                   .side(OrderSide.BUY)
-                   .quantity(quantity)
-                   .limit(buyPrice)
-                   .build();
-           LOGGER.info("Placed BUY {}", buyOrder);
-           BigDecimal blockedAmount = buyPrice.multiply(quantity);
-           account.blockAsset(pair.getQuote(), blockedAmount);
-           LOGGER.info("Blocked {} {}", blockedAmount, pair.getQuote());
-           printAccountBalance();
-           moveToState(State.WAIT_FOR_BUY_ORDER_EXECUTED);
+    private void tryBuy(Ticker ticker) {
+        Currency quote = pair.getQuote();
+        if(account.getAvailable(quote) <= 0){
+            // Reserved by the other traders for now: retried on the next ticker
+            LOGGER.debug("No {} available for {}", quote, pair);
+            return;
+        }
+        if(!shouldBuyGivenTicker(ticker) || (buySignal != null && !buySignal.allowsBuy(ticker))) {
+            // A candidate submitted on a previous ticker is declined if served
+            pendingCandidate = null;
+            return;
+        }
+        long buyPrice = ticker.getAskPrice();
+        long quantity = sizing.quantityAt(buyPrice);
+        long feePercentage = sizing.getConfiguration().getTradeFeePercentage();
+        long blockedAmount = blockedAmountFor(buyPrice, quantity, feePercentage);
+        if(capitalAllocator != null){
+            pendingCandidate = new BuyCandidate(this, buyPrice, quantity, blockedAmount, expectedReturn(ticker));
+            capitalAllocator.submit(pendingCandidate);
+            return;
+        }
+        // Reserve the funds before placing the order: other traders compete for the same quote currency
+        if(!account.tryBlockAsset(quote, blockedAmount)){
+            if(LOGGER.isDebugEnabled()){
+                LOGGER.debug("Not enough available {} to block {}", quote, quote.toBigDecimal(blockedAmount));
+            }
+            return;
+        }
+        placeBuyOrder(buyPrice, quantity, blockedAmount, feePercentage);
+    }
+
+    /**
+     * Called by the {@link CapitalAllocator} once it blocked funds for a candidate, possibly less than requested.
+     * @return false if the candidate is no longer the trader's pending one, the allocator then releases the funds
+     */
+    synchronized boolean onCapitalAllocated(BuyCandidate candidate, long allocatedAmount) {
+        if(state != State.TRY_BUY || candidate != pendingCandidate){
+            return false;
+        }
+        pendingCandidate = null;
+        long price = candidate.getPrice();
+        long quantity = candidate.getQuantity();
+        long feePercentage = sizing.getConfiguration().getTradeFeePercentage();
+        if(allocatedAmount < blockedAmountFor(price, quantity, feePercentage)){
+            // Capped: buy what the allocated amount covers, fee included
+            int quoteScale = pair.getQuote().getScale();
+            long amount = FixedPoint.mulDiv(allocatedAmount, FixedPoint.ONE_HUNDRED_PERCENT,
+                    FixedPoint.ONE_HUNDRED_PERCENT + feePercentage, RoundingMode.DOWN);
+            quantity = FixedPoint.divide(amount, quoteScale, price, quoteScale, pair.getBase().getScale(),
+                    RoundingMode.DOWN);
+            while(quantity > 0 && blockedAmountFor(price, quantity, feePercentage) > allocatedAmount){
+                quantity--;
+            }
+        }
+        if(quantity <= 0){
+            return false;
+        }
+        long blockedAmount = blockedAmountFor(price, quantity, feePercentage);
+        if(allocatedAmount > blockedAmount){
+            account.unblockAsset(pair.getQuote(), allocatedAmount - blockedAmount);
+        }
+        placeBuyOrder(price, quantity, blockedAmount, feePercentage);
+        return true;
+    }
+
+    private void placeBuyOrder(long buyPrice, long quantity, long blockedAmount, long feePercentage) {
+        Currency quote = pair.getQuote();
+        buyOrder = Order.builder()
+                .id(UUID.randomUUID().toString())
+                .pair(pair)
+                .side(OrderSide.BUY)
+                .quantity(quantity)
+                .limit(buyPrice)
+                .createdAt(LocalDateTime.now(clock))
+                .build();
+        filledQuantity = 0;
+        buyFeePercentage = feePercentage;
+        if(LOGGER.isDebugEnabled()){
+            LOGGER.debug("Blocked {} {}", quote.toBigDecimal(blockedAmount), quote);
+            LOGGER.debug("Placing BUY {}", buyOrder);
+            printAccountBalance();
+        }
+        moveToState(State.WAIT_FOR_BUY_ORDER_PLACED);
+        placeOrder(buyOrder);
+    }
+
+    /**
+     * Expected profit of a round trip per unit of quote currency blocked, at {@link FixedPoint#RATIO_SCALE}: the
+     * target profit net of fees, weighted by the share of the target price move the price range already reached,
+     * i.e. discounted when the high of the range is below the SELL target.
+     */
+    private long expectedReturn(Ticker ticker) {
+        SizingModel sizing = this.sizing;
+        long netReturn = sizing.getNetReturnPercentage();
+        long askPrice = ticker.getAskPrice();
+        long high = priceExtremes != null ? priceExtremes.getMax() : ticker.getLast24HHigh();
+        long targetMove = sizing.sellPriceFor(askPrice) - askPrice;
+        long headroom = high - askPrice;
+        if(headroom <= 0){
+            return 0;
+        }
+        if(headroom >= targetMove){
+            return netReturn;
+        }
+        return FixedPoint.mulDiv(netReturn, headroom, targetMove, RoundingMode.DOWN);
+    }
+
+    /**
+     * How far the ticker is from the trigger of the current state: the ask price from the BUY trigger in TRY_BUY,
+     * the ask price from the BUY limit or the bid price from the SELL limit while an order is open.
+     */
+    @Override
+    public synchronized long getTriggerDistance(Ticker ticker) {
+        switch (state) {
+            case TRY_BUY:
+                return distanceAbove(ticker.getAskPrice(), buyTriggerPrice(ticker));
+            case WAIT_FOR_BUY_ORDER_PLACED:
+            case WAIT_FOR_BUY_ORDER_EXECUTED:
+                return distanceAbove(ticker.getAskPrice(), buyOrder.getLimit());
+            case WAIT_FOR_SELL_ORDER_PLACED:
+            case WAIT_FOR_SELL_ORDER_EXECUTED:
+                return distanceAbove(sellOrder.getLimit(), ticker.getBidPrice());
+            default:
+                // Not waiting for the market
+                return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @return the highest ask price triggering a BUY given the ticker, -1 if there is no price range to trigger in
+     */
+    private long buyTriggerPrice(Ticker ticker) {
+        long low;
+        long high;
+        if(priceExtremes != null){
+            // Until then, e.g. after a restart or a change of window, the range would be that of a few ticks
+            if(!priceExtremes.coversWindow()){
+                return -1;
+            }
+            low = priceExtremes.getMin();
+            high = priceExtremes.getMax();
+        } else {
+            low = ticker.getLast24HLow();
+            high = ticker.getLast24HHigh();
+        }
+        if(high - low <= 0){
+            return -1;
+        }
+        return low + FixedPoint.mulDiv(high - low, sizing.getConfiguration().getAskPriceVsLast24HLowTriggerRatio(),
+                FixedPoint.pow10(FixedPoint.RATIO_SCALE), RoundingMode.DOWN);
+    }
+
+    /**
+     * @return the gap between price and a lower target, relative to price, at {@link FixedPoint#RATIO_SCALE}
+     */
+    private static long distanceAbove(long price, long target) {
+        if(price <= 0 || target < 0){
+            return Long.MAX_VALUE;
         }
+        if(price <= target){
+            return 0;
+        }
+        return FixedPoint.mulDiv(price - target, FixedPoint.pow10(FixedPoint.RATIO_SCALE), price, RoundingMode.DOWN);
     }
 
     protected boolean shouldBuyGivenTicker(Ticker ticker){
-        BigDecimal askPrice = ticker.getAskPrice();
-        BigDecimal last24HLow = ticker.getLast24HLow();
-        BigDecimal last24HHigh = ticker.getLast24HHigh();
-        BigDecimal last24HDelta = last24HHigh.subtract(last24HLow);
-        BigDecimal askPriceDelta = askPrice.subtract(last24HLow);
-        BigDecimal ratio = askPriceDelta.divide(last24HDelta);
-        return ratio.compareTo(config.getAskPriceVsLast24HLowTriggerRatio()) <= 0;
-    }
-
-    protected static BigDecimal calculateBuyQuantityGiven(BigDecimal buyPrice,
-                                                          BigDecimal targetProfit,
-                                                          BigDecimal targetPriceMovePercentage,
-                                                          BigDecimal feePercentage){
-        LOGGER.info("Calculating BUY quantity given: buyPrice={}, targetProfit={}, targetPriceMove={}%, fee={}%",
-                buyPrice, targetProfit, targetPriceMovePercentage, feePercentage);
-        BigDecimal f = feePercentage.divide(HUNDRED);
-        BigDecimal k = HUNDRED.add(targetPriceMovePercentage).divide(HUNDRED);
-        /*
-
-            If k < (1+f)/1-f) then the calculated quantity will be systematically negative.
-            That's because it's a necessary condition to meet the targetProfit requirement.
-            Meaning that will would be systematically making loss if that same quantity would be positive
-
-            Therefore we MUST choose k and f so that K > (1+f)/(1-f)  !!!
-
-            If you think about it that's because if we have for example 0.25% of fee (f)  we sell after the price has
-            moved by +0.2% (k) then the fees payed (2x 0.25%) are greater than the price move. So we lose money in fees
-
-         */
-
-        // q = targetProfit / buyPrice(k(1-f)-(1+f))
-        BigDecimal q = targetProfit
-                .divide(
-                    buyPrice.multiply(
-                        k.multiply(ONE.subtract(f)).subtract(ONE.add(f))
-                    ), new MathContext(6, RoundingMode.HALF_EVEN)
-                );
-        LOGGER.info("BUY quantity = {}", q);
-        return q;
-    }
-
-    private void waitForBuyOrderExecuted() {
-        Ticker ticker = exchangeClient.getTicker(pair);
-        BigDecimal buyOrderLimit = buyOrder.getLimit();
-        if(ticker.getAskPrice().compareTo(buyOrderLimit) > 0){
-            LOGGER.info("BUY order limit= {} vs ticker ask price= {} => assuming BUY order executed", buyOrderLimit, ticker.getAskPrice());
-            // If the current ask price is above the buyOrder limit, assume that the order was executed
-            // TODO introduce the execution price. For now Assume order has been executed at the order limit price
-            //  exactly (in real the executed price could be different)
-            BigDecimal executedAmount = buyOrder.getQuantity().multiply(buyOrderLimit); // NOT CORRECT
-            BigDecimal blockedAmount = buyOrder.getQuantity().multiply(buyOrderLimit); // CORRECT
-            BigDecimal fee = executedAmount.multiply(config.getTradeFeePercentage()).divide(HUNDRED);
-            BigDecimal buyCost = executedAmount.add(fee);
+        long askPrice = ticker.getAskPrice();
+        long last24HLow;
+        long last24HHigh;
+        if(priceExtremes != null){
+            if(!priceExtremes.coversWindow()){
+                return false;
+            }
+            last24HLow = priceExtremes.getMin();
+            last24HHigh = priceExtremes.getMax();
+        } else {
+            last24HLow = ticker.getLast24HLow();
+            last24HHigh = ticker.getLast24HHigh();
+        }
+        long last24HDelta = last24HHigh - last24HLow;
+        if(last24HDelta <= 0){
+            // No range to position the ask price in
+            return false;
+        }
+        long askPriceDelta = askPrice - last24HLow;
+        // Rounding the ratio up keeps the comparison exact: ceil(x) <= trigger <=> x <= trigger
+        long ratio = FixedPoint.mulDiv(askPriceDelta, FixedPoint.pow10(FixedPoint.RATIO_SCALE), last24HDelta, RoundingMode.CEILING);
+        return ratio <= sizing.getConfiguration().getAskPriceVsLast24HLowTriggerRatio();
+    }
+
+    /**
+     * @param buyPrice at the quote currency scale
+     * @param targetProfit at the quote currency scale
+     * @param targetPriceMovePercentage at {@link FixedPoint#RATIO_SCALE}
+     * @param feePercentage at {@link FixedPoint#RATIO_SCALE}
+     * @return the quantity at the base currency scale, rounded down
+     */
+    protected static long calculateBuyQuantityGiven(CurrencyPair pair,
+                                                    long buyPrice,
+                                                    long targetProfit,
+                                                    long targetPriceMovePercentage,
+                                                    long feePercentage){
+        return SizingModel.of(pair, targetProfit, targetPriceMovePercentage, feePercentage).quantityAt(buyPrice);
+    }
+
+    /**
+     * @return the funds reserved for a BUY, covering its amount and its fee at the given percentage
+     */
+    private long blockedAmountFor(long price, long quantity, long feePercentage) {
+        return SizingModel.reserveFor(pair, price, quantity, feePercentage);
+    }
+
+    private void placeOrder(Order order) {
+        exchangeClient.placeOrder(order).whenComplete((placed, failure) -> onOrderPlaced(order, failure));
+    }
+
+    /**
+     * Acknowledgement of an order placement. Executions may have been received already: an order may even be
+     * completely executed, and the trader moved on, by the time it is acknowledged.
+     */
+    private synchronized void onOrderPlaced(Order order, Throwable failure) {
+        boolean buy = order.getSide() == OrderSide.BUY;
+        State placing = buy ? State.WAIT_FOR_BUY_ORDER_PLACED : State.WAIT_FOR_SELL_ORDER_PLACED;
+        if(state != placing || order != (buy ? buyOrder : sellOrder)){
+            return;
+        }
+        if(failure == null){
+            LOGGER.debug("Placed {} {}", order.getSide(), order);
+            moveToState(buy ? State.WAIT_FOR_BUY_ORDER_EXECUTED : State.WAIT_FOR_SELL_ORDER_EXECUTED);
+            return;
+        }
+        LOGGER.error("{} order rejected: {}", order.getSide(), order, failure);
+        if(buy){
+            long blockedAmount = blockedAmountFor(order.getLimit(), order.getQuantity(), buyFeePercentage)
+                    - blockedAmountFor(order.getLimit(), filledQuantity, buyFeePercentage);
             account.unblockAsset(pair.getQuote(), blockedAmount);
-            account.removeAsset(pair.getQuote(), buyCost);
-            account.addAsset(pair.getBase(), buyOrder.getQuantity());
-            LOGGER.info("BUY fee = {} {}", fee, pair.getQuote());
-            LOGGER.info("Unblocked {} {}", blockedAmount, pair.getQuote());
-            LOGGER.info("Removed {} {}", buyCost, pair.getQuote());
-            LOGGER.info("Added {} {}", buyOrder.getQuantity(), pair.getBase());
+            buyOrder = null;
+            filledQuantity = 0;
+            moveToState(State.TRY_BUY);
+        } else {
+            account.unblockAsset(pair.getBase(), order.getQuantity() - filledQuantity);
+            sellOrder = null;
+            // Retried on the next ticker for the quantity not sold yet
+            filledQuantity = order.getQuantity() - filledQuantity;
+            moveToState(State.TRY_SELL);
+        }
+    }
+
+    private void onBuyExecution(Execution execution) {
+        Currency quote = pair.getQuote();
+        Currency base = pair.getBase();
+        long buyOrderLimit = buyOrder.getLimit();
+        long filledBefore = filledQuantity;
+        filledQuantity += execution.getQuantity();
+        // Release the share of the blocked amount covering the executed quantity: the shares add up to the amount
+        // blocked for the whole order, the part of a share not spent (better price, lower fee) is available again
+        long blockedAmount = blockedAmountFor(buyOrderLimit, filledQuantity, buyFeePercentage)
+                - blockedAmountFor(buyOrderLimit, filledBefore, buyFeePercentage);
+        long buyCost = execution.getAmount() + execution.getFee();
+        account.settleBlockedAsset(quote, blockedAmount, buyCost);
+        account.addAsset(base, execution.getQuantity());
+        if(LOGGER.isDebugEnabled()){
+            LOGGER.debug("BUY executed {} {} at {} {} ({} of {})", base.toBigDecimal(execution.getQuantity()), base,
+                    quote.toBigDecimal(execution.getPrice()), quote, base.toBigDecimal(filledQuantity),
+                    base.toBigDecimal(buyOrder.getQuantity()));
+            LOGGER.debug("BUY fee = {} {}", quote.toBigDecimal(execution.getFee()), quote);
+            LOGGER.debug("Unblocked {} {}", quote.toBigDecimal(blockedAmount), quote);
+            LOGGER.debug("Removed {} {}", quote.toBigDecimal(buyCost), quote);
+            LOGGER.debug("Added {} {}", base.toBigDecimal(execution.getQuantity()), base);
             printAccountBalance();
+        }
+        notifyExecution(execution);
+        if(filledQuantity >= buyOrder.getQuantity()){
+            // The filled quantity is kept, and journaled, as the quantity to sell
             moveToState(State.TRY_SELL);
+        } else {
+            notifyStateListeners();
         }
     }
 
     private void trySell() {
-        BigDecimal sellPrice = buyOrder.getLimit().multiply(HUNDRED.add(
-                config.getTargetPriceGrowthPercentage()).divide(HUNDRED));
-        BigDecimal quantity = account.getBalance(pair.getBase());
+        Currency base = pair.getBase();
+        long sellPrice = sizing.sellPriceFor(buyOrder.getLimit());
+        // Only what this trader bought: the rest of the balance may belong to traders of pairs sharing the currency
+        long quantity = filledQuantity;
         sellOrder = Order.builder()
                 .id(UUID.randomUUID().toString())
                 .pair(pair)
                 .side(OrderSide.SELL)
                 .quantity(quantity)
                 .limit(sellPrice)
+                .createdAt(LocalDateTime.now(clock))
                 .build();
-        LOGGER.info("Placed SELL {}", sellOrder);
-        //BigDecimal blockedAmount = sellPrice.multiply(quantity);
-        account.blockAsset(pair.getBase(), quantity);
-        LOGGER.info("Blocked {} {}", quantity, pair.getBase());
-        moveToState(State.WAIT_FOR_SELL_ORDER_EXECUTED);
-    }
-
-    private void waitForSellOrderExecuted() {
-        Ticker ticker = exchangeClient.getTicker(pair);
-        BigDecimal sellOrderLimit = sellOrder.getLimit();
-        if(ticker.getBidPrice().compareTo(sellOrderLimit) < 0){
-            LOGGER.info("SELL order limit= {} vs ticker bid price= {} => assuming SELL order executed", sellOrderLimit, ticker.getBidPrice());
-            // If the current bid price is below the sellOrder limit, assume that the order was executed
-            // TODO introduce the execution price. For now Assume order has been executed at the order limit price
-            //  exactly (in real the executed price could be different)
-            BigDecimal executedAmount = sellOrder.getQuantity(); // NOT CORRECT
-            BigDecimal blockedAmount = sellOrder.getQuantity(); // CORRECT
-            BigDecimal fee = executedAmount.multiply(sellOrder.getLimit()).multiply(config.getTradeFeePercentage()).divide(HUNDRED);
-            BigDecimal quoteCurrencyAmount = executedAmount.multiply(sellOrder.getLimit()).subtract(fee);
-            account.unblockAsset(pair.getBase(), blockedAmount);
-            account.removeAsset(pair.getBase(), executedAmount);
-            account.addAsset(pair.getQuote(), quoteCurrencyAmount);
-            LOGGER.info("SELL fee = {} {}", fee, pair.getQuote());
-            LOGGER.info("Unblocked {} {}", blockedAmount, pair.getBase());
-            LOGGER.info("Removed {} {} ", executedAmount, pair.getBase());
-            LOGGER.info("Added {} {} (fee = {} {}}", quoteCurrencyAmount, pair.getQuote(), fee, pair.getQuote());
+        filledQuantity = 0;
+        account.blockAsset(base, quantity);
+        if(LOGGER.isDebugEnabled()){
+            LOGGER.debug("Placing SELL {}", sellOrder);
+            LOGGER.debug("Blocked {} {}", base.toBigDecimal(quantity), base);
+        }
+        moveToState(State.WAIT_FOR_SELL_ORDER_PLACED);
+        placeOrder(sellOrder);
+    }
+
+    private void onSellExecution(Execution execution) {
+        Currency quote = pair.getQuote();
+        Currency base = pair.getBase();
+        long executedQuantity = execution.getQuantity();
+        filledQuantity += executedQuantity;
+        long quoteCurrencyAmount = execution.getAmount() - execution.getFee();
+        account.settleBlockedAsset(base, executedQuantity, executedQuantity);
+        account.addAsset(quote, quoteCurrencyAmount);
+        if(LOGGER.isDebugEnabled()){
+            LOGGER.debug("SELL executed {} {} at {} {} ({} of {})", base.toBigDecimal(executedQuantity), base,
+                    quote.toBigDecimal(execution.getPrice()), quote, base.toBigDecimal(filledQuantity),
+                    base.toBigDecimal(sellOrder.getQuantity()));
+            LOGGER.debug("SELL fee = {} {}", quote.toBigDecimal(execution.getFee()), quote);
+            LOGGER.debug("Unblocked {} {}", base.toBigDecimal(executedQuantity), base);
+            LOGGER.debug("Removed {} {} ", base.toBigDecimal(executedQuantity), base);
+            LOGGER.debug("Added {} {} (fee = {} {}}", quote.toBigDecimal(quoteCurrencyAmount), quote, quote.toBigDecimal(execution.getFee()), quote);
             printAccountBalance();
+        }
+        notifyExecution(execution);
+        if(filledQuantity >= sellOrder.getQuantity()){
+            filledQuantity = 0;
             moveToState(State.END_ROUND_TRIP);
+        } else {
+            notifyStateListeners();
+        }
+    }
+
+    private void notifyExecution(Execution execution) {
+        for(ExecutionListener listener : executionListeners){
+            listener.onExecution(execution);
         }
     }
 
@@ -257,14 +746,32 @@ public class CurrencyPairTrader {
     }
 
     private void moveToState(State newState){
-        LOGGER.info("{} -> {}", state, newState);
+        if(state == State.STOP){
+            // Final, whatever the executions of an order still open
+            return;
+        }
+        LOGGER.debug("{} {} -> {}", pair, state, newState);
+        if(metrics != null){
+            long now = System.nanoTime();
+            metrics.recordTransition(state, newState, now - stateEnteredNanos);
+            stateEnteredNanos = now;
+        }
         state = newState;
+        notifyStateListeners();
+    }
+
+    private void notifyStateListeners() {
+        for(TraderStateListener listener : stateListeners){
+            listener.onStateChanged(pair, state, buyOrder, sellOrder, filledQuantity, buyFeePercentage);
+        }
     }
 
     private void printAccountBalance(){
-        LOGGER.info("Account balance {}: {} ({} blocked), {}: {} ({} blocked)",
-                pair.getQuote(), account.getBalance(pair.getQuote()), account.getBlocked(pair.getQuote()),
-                pair.getBase(), account.getBalance(pair.getBase()), account.getBlocked(pair.getBase())
+        Currency quote = pair.getQuote();
+        Currency base = pair.getBase();
+        LOGGER.debug("Account balance {}: {} ({} blocked), {}: {} ({} blocked)",
+                quote, quote.toBigDecimal(account.getBalance(quote)), quote.toBigDecimal(account.getBlocked(quote)),
+                base, base.toBigDecimal(account.getBalance(base)), base.toBigDecimal(account.getBlocked(base))
         );
     }
 
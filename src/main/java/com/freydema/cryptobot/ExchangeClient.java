@@ -1,11 +1,28 @@
 package com.freydema.cryptobot;
 
 import com.freydema.cryptobot.domain.CurrencyPair;
-import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.domain.Order;
 
-public interface ExchangeClient {
+import java.util.concurrent.CompletableFuture;
 
-    Ticker getTicker(CurrencyPair pair);
+public interface ExchangeClient extends MarketDataClient {
 
+    /**
+     * Submit a limit order. The returned future completes once the exchange has accepted the order, or
+     * exceptionally if it was rejected. Its fills are delivered separately, as {@link com.freydema.cryptobot.domain.Execution}s,
+     * to the execution listeners of its pair, possibly before the future completes.
+     */
+    CompletableFuture<Order> placeOrder(Order order);
+
+    /**
+     * Cancel the unfilled part of an order.
+     * @return a future completing with true if something was cancelled, false if the order was already filled
+     */
+    CompletableFuture<Boolean> cancelOrder(Order order);
+
+    /**
+     * Register a listener of the executions, partial or not, of the orders of the pair.
+     */
+    void addExecutionListener(CurrencyPair pair, ExecutionListener listener);
 
 }
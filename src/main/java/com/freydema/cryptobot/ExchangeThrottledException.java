@@ -0,0 +1,14 @@
+package com.freydema.cryptobot;
+
+/**
+ * Thrown, or used to complete a future exceptionally, by an {@link ExchangeClient} when the exchange refused a
+ * request because its rate limit was exceeded. The request had no effect and can be retried later.
+ */
+public class ExchangeThrottledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ExchangeThrottledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.Execution;
+
+@FunctionalInterface
+public interface ExecutionListener {
+
+    void onExecution(Execution execution);
+
+}
@@ -3,14 +3,97 @@ package com.freydema.cryptobot;
 import com.freydema.cryptobot.domain.CurrencyPair;
 import com.freydema.cryptobot.domain.Ticker;
 
-public class KrakenExchangeClient implements ExchangeClient{
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Market data of Kraken, from its public REST endpoints. The private order endpoints are not used: the bot trades on
+ * paper against these tickers, see {@link com.freydema.cryptobot.simulator.PaperExchangeClient}.
+ */
+public class KrakenExchangeClient implements MarketDataClient {
+
+    public static final URI API_URI = URI.create("https://api.kraken.com");
+    private static final String TICKER_PATH = "/0/public/Ticker";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final URI apiUri;
+    private final HttpClient httpClient;
+    private final KrakenTickerParser tickerParser;
+    private final Clock clock;
 
     public KrakenExchangeClient(CurrencyPair[] pairs) {
+        this(API_URI, pairs, Clock.systemUTC());
+    }
+
+    /**
+     * @param apiUri root of the Kraken REST API
+     * @param pairs the pairs requested, the tickers of other pairs are ignored
+     * @param clock timestamps the tickers on reception
+     */
+    public KrakenExchangeClient(URI apiUri, CurrencyPair[] pairs, Clock clock) {
+        this.apiUri = apiUri;
+        this.tickerParser = new KrakenTickerParser(Arrays.asList(pairs));
+        this.clock = clock;
+        // The client keeps its connections open between requests
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
     }
 
 
     @Override
     public Ticker getTicker(CurrencyPair pair) {
-        return null;
+        return getTickers(Collections.singletonList(pair)).get(pair);
+    }
+
+    @Override
+    public Map<CurrencyPair, Ticker> getTickers(Collection<CurrencyPair> pairs) {
+        try {
+            return getTickersAsync(pairs).join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Kraken ticker request failed", e.getCause());
+        }
+    }
+
+    /**
+     * Fetch the tickers without blocking: the Kraken Ticker endpoint accepts a comma separated list of pairs, all of
+     * them are fetched in one call. The future fails with an {@link ExchangeThrottledException} when Kraken reports
+     * its rate limit as exceeded.
+     */
+    public CompletableFuture<Map<CurrencyPair, Ticker>> getTickersAsync(Collection<CurrencyPair> pairs) {
+        StringJoiner names = new StringJoiner(",");
+        for(CurrencyPair pair : pairs){
+            names.add(KrakenTickerParser.pairName(pair));
+        }
+        HttpRequest request = HttpRequest.newBuilder(apiUri.resolve(TICKER_PATH + "?pair=" + names))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if(response.statusCode() == TOO_MANY_REQUESTS){
+                        throw new ExchangeThrottledException("Kraken HTTP status " + response.statusCode());
+                    }
+                    if(response.statusCode() != 200){
+                        throw new IllegalStateException("Kraken HTTP status " + response.statusCode());
+                    }
+                    return tickerParser.parse(response.body(), clock.millis());
+                });
     }
 }
@@ -0,0 +1,364 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses the response of the Kraken public Ticker endpoint in a single pass over its bytes:
+ * <pre>
+ * {"error":[],"result":{"XXBTZEUR":{"a":["3400.50000","1","1.000"],"b":[...],"c":[...],"v":[...],"p":[...],
+ *  "t":[...],"l":["3350.0","3301.2"],"h":["3460.1","3480.0"],"o":"3390.0"}}}
+ * </pre>
+ * Only the ask and bid prices and lot volumes and the 24 hours low and high are read (see the fields documented in
+ * {@link Ticker}), straight from their digits into scaled longs: no tree, no intermediate string or BigDecimal. Pair
+ * keys are matched against the byte encoding of the expected names, other fields and unknown pairs are skipped.
+ *
+ * Kraken names Bitcoin XBT, and keys the legacy pairs by their asset codes prefixed with X for crypto-currencies and
+ * Z for fiat ones, e.g. XXBTZEUR for XBTEUR: both forms are accepted.
+ *
+ * Immutable, and so thread safe.
+ */
+final class KrakenTickerParser {
+
+    private static final Set<String> FIAT_CURRENCIES = Set.of("EUR", "USD", "GBP", "JPY", "CAD", "CHF", "AUD");
+    private static final String RATE_LIMIT_ERROR = "EAPI:Rate limit exceeded";
+    private static final String TOO_MANY_REQUESTS_ERROR = "EGeneral:Too many requests";
+
+    private final byte[][] keys;
+    private final CurrencyPair[] keyPairs;
+
+    KrakenTickerParser(Collection<CurrencyPair> pairs) {
+        List<byte[]> keyList = new ArrayList<>();
+        List<CurrencyPair> pairList = new ArrayList<>();
+        for(CurrencyPair pair : pairs){
+            keyList.add(pairName(pair).getBytes(StandardCharsets.US_ASCII));
+            pairList.add(pair);
+            keyList.add(legacyPairName(pair).getBytes(StandardCharsets.US_ASCII));
+            pairList.add(pair);
+        }
+        keys = keyList.toArray(new byte[0][]);
+        keyPairs = pairList.toArray(new CurrencyPair[0]);
+    }
+
+    /**
+     * @return the name of the pair in Kraken requests, e.g. XBTEUR
+     */
+    static String pairName(CurrencyPair pair) {
+        return assetName(pair.getBase()) + assetName(pair.getQuote());
+    }
+
+    private static String legacyPairName(CurrencyPair pair) {
+        return legacyAssetName(pair.getBase()) + legacyAssetName(pair.getQuote());
+    }
+
+    private static String assetName(Currency currency) {
+        return currency == Currency.BTC ? "XBT" : currency.getName();
+    }
+
+    private static String legacyAssetName(Currency currency) {
+        return (FIAT_CURRENCIES.contains(currency.getName()) ? "Z" : "X") + assetName(currency);
+    }
+
+    /**
+     * @param timestamp stamped on the tickers, as the response carries none
+     * @return the tickers of the known pairs in the response
+     * @throws ExchangeThrottledException if Kraken reports its rate limit as exceeded
+     * @throws IllegalStateException if Kraken reports another error or the response is malformed
+     */
+    Map<CurrencyPair, Ticker> parse(byte[] json, long timestamp) {
+        return new Cursor(json).parseResponse(timestamp);
+    }
+
+    private final class Cursor {
+
+        private final byte[] json;
+        private int position;
+
+        private Cursor(byte[] json) {
+            this.json = json;
+        }
+
+        private Map<CurrencyPair, Ticker> parseResponse(long timestamp) {
+            Map<CurrencyPair, Ticker> tickers = new HashMap<>();
+            expect('{');
+            if(tryConsume('}')){
+                return tickers;
+            }
+            do {
+                int keyStart = readStringBounds();
+                int keyEnd = position - 1;
+                expect(':');
+                if(fieldIs(keyStart, keyEnd, "error")){
+                    parseErrors();
+                } else if(fieldIs(keyStart, keyEnd, "result")){
+                    parseResult(tickers, timestamp);
+                } else {
+                    skipValue();
+                }
+            } while(tryConsume(','));
+            expect('}');
+            return tickers;
+        }
+
+        private void parseErrors() {
+            expect('[');
+            if(tryConsume(']')){
+                return;
+            }
+            List<String> errors = new ArrayList<>();
+            do {
+                int start = readStringBounds();
+                errors.add(new String(json, start, position - 1 - start, StandardCharsets.UTF_8));
+            } while(tryConsume(','));
+            expect(']');
+            if(errors.contains(RATE_LIMIT_ERROR) || errors.contains(TOO_MANY_REQUESTS_ERROR)){
+                throw new ExchangeThrottledException(String.join(", ", errors));
+            }
+            throw new IllegalStateException("Kraken error: " + String.join(", ", errors));
+        }
+
+        private void parseResult(Map<CurrencyPair, Ticker> tickers, long timestamp) {
+            expect('{');
+            if(tryConsume('}')){
+                return;
+            }
+            do {
+                int keyStart = readStringBounds();
+                CurrencyPair pair = findPair(keyStart, position - 1);
+                expect(':');
+                if(pair == null){
+                    skipValue();
+                } else {
+                    tickers.put(pair, parseTicker(pair, timestamp));
+                }
+            } while(tryConsume(','));
+            expect('}');
+        }
+
+        private Ticker parseTicker(CurrencyPair pair, long timestamp) {
+            int priceScale = pair.getQuote().getScale();
+            int volumeScale = pair.getBase().getScale();
+            Ticker.TickerBuilder ticker = Ticker.builder().timestamp(timestamp);
+            expect('{');
+            if(tryConsume('}')){
+                return ticker.build();
+            }
+            do {
+                int keyStart = readStringBounds();
+                int keyEnd = position - 1;
+                expect(':');
+                byte field = keyEnd - keyStart == 1 ? json[keyStart] : 0;
+                switch (field) {
+                    case 'a':
+                        // price, whole lot volume, lot volume
+                        expect('[');
+                        ticker.askPrice(readDecimal(priceScale));
+                        expect(',');
+                        skipValue();
+                        expect(',');
+                        ticker.askVolume(readDecimal(volumeScale));
+                        skipRemainingElements();
+                        break;
+                    case 'b':
+                        expect('[');
+                        ticker.bidPrice(readDecimal(priceScale));
+                        expect(',');
+                        skipValue();
+                        expect(',');
+                        ticker.bidVolume(readDecimal(volumeScale));
+                        skipRemainingElements();
+                        break;
+                    case 'l':
+                        // today, last 24 hours
+                        expect('[');
+                        skipValue();
+                        expect(',');
+                        ticker.last24HLow(readDecimal(priceScale));
+                        skipRemainingElements();
+                        break;
+                    case 'h':
+                        expect('[');
+                        skipValue();
+                        expect(',');
+                        ticker.last24HHigh(readDecimal(priceScale));
+                        skipRemainingElements();
+                        break;
+                    default:
+                        skipValue();
+                }
+            } while(tryConsume(','));
+            expect('}');
+            return ticker.build();
+        }
+
+        private CurrencyPair findPair(int start, int end) {
+            int length = end - start;
+            for(int i = 0; i < keys.length; i++){
+                byte[] key = keys[i];
+                if(key.length != length){
+                    continue;
+                }
+                int j = 0;
+                while(j < length && key[j] == json[start + j]){
+                    j++;
+                }
+                if(j == length){
+                    return keyPairs[i];
+                }
+            }
+            return null;
+        }
+
+        private boolean fieldIs(int start, int end, String name) {
+            if(end - start != name.length()){
+                return false;
+            }
+            for(int i = 0; i < name.length(); i++){
+                if(json[start + i] != name.charAt(i)){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Read a decimal number, quoted as Kraken does or not, as units at the scale. Extra decimals are rounded
+         * half up.
+         */
+        private long readDecimal(int scale) {
+            skipWhitespace();
+            boolean quoted = tryConsume('"');
+            boolean negative = tryConsume('-');
+            long units = 0;
+            int decimals = -1;
+            boolean roundUp = false;
+            boolean digits = false;
+            while(position < json.length){
+                byte c = json[position];
+                if(c >= '0' && c <= '9'){
+                    digits = true;
+                    if(decimals < scale){
+                        units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                        if(decimals >= 0){
+                            decimals++;
+                        }
+                    } else if(decimals == scale){
+                        roundUp = c >= '5';
+                        decimals++;
+                    }
+                } else if(c == '.' && decimals < 0){
+                    decimals = 0;
+                } else {
+                    break;
+                }
+                position++;
+            }
+            if(!digits){
+                throw malformed("number");
+            }
+            for(int i = Math.max(decimals, 0); i < scale; i++){
+                units = Math.multiplyExact(units, 10);
+            }
+            if(roundUp){
+                units++;
+            }
+            if(quoted){
+                expect('"');
+            }
+            return negative ? -units : units;
+        }
+
+        private void skipRemainingElements() {
+            while(tryConsume(',')){
+                skipValue();
+            }
+            expect(']');
+        }
+
+        private void skipValue() {
+            skipWhitespace();
+            if(position >= json.length){
+                throw malformed("value");
+            }
+            byte c = json[position];
+            if(c == '"'){
+                readStringBounds();
+            } else if(c == '{' || c == '['){
+                char close = c == '{' ? '}' : ']';
+                position++;
+                if(tryConsume(close)){
+                    return;
+                }
+                do {
+                    if(c == '{'){
+                        readStringBounds();
+                        expect(':');
+                    }
+                    skipValue();
+                } while(tryConsume(','));
+                expect(close);
+            } else {
+                // Number, true, false or null
+                while(position < json.length && ",}] \t\r\n".indexOf(json[position]) < 0){
+                    position++;
+                }
+            }
+        }
+
+        /**
+         * Read a string up to its closing quote, escapes are skipped but not decoded.
+         * @return the position of its first character, its end is the current position - 1
+         */
+        private int readStringBounds() {
+            expect('"');
+            int start = position;
+            while(position < json.length){
+                byte c = json[position++];
+                if(c == '\\'){
+                    position++;
+                } else if(c == '"'){
+                    return start;
+                }
+            }
+            throw malformed("string");
+        }
+
+        private void expect(char c) {
+            if(!tryConsume(c)){
+                throw malformed("'" + c + "'");
+            }
+        }
+
+        private boolean tryConsume(char c) {
+            skipWhitespace();
+            if(position < json.length && json[position] == c){
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while(position < json.length){
+                byte c = json[position];
+                if(c != ' ' && c != '\n' && c != '\r' && c != '\t'){
+                    return;
+                }
+                position++;
+            }
+        }
+
+        private IllegalStateException malformed(String expected) {
+            return new IllegalStateException("Malformed Kraken response: expected " + expected + " at " + position);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.OrderLadder.Level;
+import com.freydema.cryptobot.OrderLadder.LevelState;
+import com.freydema.cryptobot.domain.*;
+import com.freydema.cryptobot.feed.TickerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Trades one pair in several concurrent round trips, a ladder of {@link Configuration#getLadderLevels()} levels.
+ * When the BUY triggers, as for the {@link CurrencyPairTrader}, a BUY limit is placed at the ask price and at each
+ * level {@link Configuration#getLadderSpacingPercentage()} below the previous one. Each level targets its share of
+ * the round trip profit: once its BUY is filled, a SELL of the quantity bought is placed at the target price growth,
+ * and once that SELL is filled, the level BUY is placed again as soon as the ask is back above its price.
+ *
+ * When the ask rises a further target price growth above the SELL price of the top level while no level holds
+ * anything, the market moved away from the ladder: its BUY orders are cancelled and a new ladder is laid on the next
+ * trigger.
+ *
+ * Tickers, executions and order acknowledgements may arrive on different threads: they are handled one at a time.
+ */
+public class LadderTrader implements TickerListener, ExecutionListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LadderTrader.class);
+
+    private SizingModel sizing;
+    private final Account account;
+    private final ExchangeClient exchangeClient;
+    private final CurrencyPair pair;
+    private final Clock clock;
+    private final List<ExecutionListener> executionListeners = new ArrayList<>();
+
+    private boolean started;
+    // Null until the BUY triggers
+    private OrderLadder ladder;
+    // Fee percentage the funds of the ladder BUYs are reserved with
+    private long ladderFeePercentage;
+    private boolean resetting;
+    private int roundTrips;
+
+    public LadderTrader(Configuration config, Account account, ExchangeClient exchangeClient) {
+        this(config, account, exchangeClient, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock time source of the orders, simulated when backtesting
+     */
+    public LadderTrader(Configuration config, Account account, ExchangeClient exchangeClient, Clock clock) {
+        this.sizing = compile(config);
+        this.account = account;
+        this.exchangeClient = exchangeClient;
+        this.pair = config.getCurrencyPair();
+        this.clock = clock;
+        exchangeClient.addExecutionListener(pair, this);
+    }
+
+    /**
+     * Register a listener notified of every BUY and SELL execution once the account has been updated.
+     * Must be called before the trader starts receiving tickers.
+     */
+    public void addExecutionListener(ExecutionListener listener) {
+        executionListeners.add(listener);
+    }
+
+    /**
+     * Start trading on the next ticker.
+     */
+    public synchronized void recover() {
+        started = true;
+    }
+
+    /**
+     * Apply a new configuration of the pair while trading, validated first. The levels already laid keep their
+     * prices and quantities: the new ones apply to the next ladder.
+     *
+     * @throws RuntimeException if the configuration is invalid or for another pair
+     */
+    public synchronized void reconfigure(Configuration config) {
+        if(config.getCurrencyPair() != pair){
+            throw new IllegalArgumentException("Configuration of " + config.getCurrencyPair() + " applied to " + pair);
+        }
+        sizing = compile(config);
+        LOGGER.info("{} reconfigured: {}", pair, config);
+    }
+
+    public synchronized Configuration getConfiguration() {
+        return sizing.getConfiguration();
+    }
+
+    public CurrencyPair getPair() {
+        return pair;
+    }
+
+    /**
+     * @return the number of orders open, including the ones being placed or cancelled
+     */
+    public synchronized int getOpenOrders() {
+        return ladder != null ? ladder.openOrders() : 0;
+    }
+
+    /**
+     * @return the number of levels whose SELL was completely filled
+     */
+    public synchronized int getRoundTrips() {
+        return roundTrips;
+    }
+
+    @Override
+    public synchronized void onTicker(CurrencyPair pair, Ticker ticker) {
+        if(!started){
+            return;
+        }
+        if(ladder == null){
+            if(shouldBuyGivenTicker(ticker)){
+                ladder = layLadder(ticker.getAskPrice());
+                for(int i = 0; i < ladder.size(); i++){
+                    placeBuy(ladder.get(i));
+                }
+            }
+            return;
+        }
+        if(resetting){
+            return;
+        }
+        if(isAwayFromTheMarket(ticker)){
+            reset();
+            return;
+        }
+        int firstBelowAsk = ladder.firstLevelBelow(ticker.getAskPrice());
+        for(int i = 0; i < ladder.size(); i++){
+            Level level = ladder.get(i);
+            if(level.state == LevelState.IDLE && level.filledQuantity > 0){
+                // SELL rejected on placement, retried
+                placeSell(level, level.filledQuantity);
+            } else if(level.state == LevelState.IDLE && i >= firstBelowAsk){
+                placeBuy(level);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onExecution(Execution execution) {
+        Level level = ladder != null ? ladder.findByOrderId(execution.getOrderId()) : null;
+        if(level == null){
+            LOGGER.warn("Ignoring execution of an order no longer open: {}", execution);
+            return;
+        }
+        if(execution.getSide() == OrderSide.BUY){
+            onBuyExecution(level, execution);
+        } else {
+            onSellExecution(level, execution);
+        }
+    }
+
+    private OrderLadder layLadder(long askPrice) {
+        Configuration config = sizing.getConfiguration();
+        int levels = config.getLadderLevels();
+        long p = FixedPoint.ONE_HUNDRED_PERCENT;
+        Currency quote = pair.getQuote();
+        long[] buyPrices = new long[levels];
+        long[] sellPrices = new long[levels];
+        long[] quantities = new long[levels];
+        for(int i = 0; i < levels; i++){
+            long buyPrice = FixedPoint.mulDiv(askPrice, p - i * config.getLadderSpacingPercentage(), p, RoundingMode.DOWN);
+            if(i > 0 && buyPrice >= buyPrices[i - 1]){
+                // Spacing below the price unit
+                buyPrice = buyPrices[i - 1] - 1;
+            }
+            buyPrices[i] = buyPrice;
+            sellPrices[i] = sizing.sellPriceFor(buyPrice);
+            quantities[i] = sizing.levelQuantityAt(buyPrice);
+        }
+        ladderFeePercentage = config.getTradeFeePercentage();
+        if(LOGGER.isDebugEnabled()){
+            LOGGER.debug("{} ladder of {} levels from {} {}", pair, levels, quote.toBigDecimal(askPrice), quote);
+        }
+        return new OrderLadder(buyPrices, sellPrices, quantities);
+    }
+
+    private boolean shouldBuyGivenTicker(Ticker ticker) {
+        long last24HDelta = ticker.getLast24HHigh() - ticker.getLast24HLow();
+        if(last24HDelta <= 0){
+            return false;
+        }
+        long ratio = FixedPoint.mulDiv(ticker.getAskPrice() - ticker.getLast24HLow(),
+                FixedPoint.pow10(FixedPoint.RATIO_SCALE), last24HDelta, RoundingMode.CEILING);
+        return ratio <= sizing.getConfiguration().getAskPriceVsLast24HLowTriggerRatio();
+    }
+
+    /**
+     * @return true if the ask is a target price growth above the top level SELL price while no level holds base
+     * currency
+     */
+    private boolean isAwayFromTheMarket(Ticker ticker) {
+        long awayPrice = sizing.sellPriceFor(ladder.get(0).sellPrice);
+        if(ticker.getAskPrice() < awayPrice){
+            return false;
+        }
+        for(int i = 0; i < ladder.size(); i++){
+            Level level = ladder.get(i);
+            if(level.state == LevelState.SELLING || level.filledQuantity > 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reset() {
+        LOGGER.debug("{} ladder away from the market, cancelling its BUY orders", pair);
+        resetting = true;
+        // Cancellations may complete synchronously, emptying the ladder: mark them all before sending any
+        List<Level> cancelling = new ArrayList<>();
+        for(int i = 0; i < ladder.size(); i++){
+            Level level = ladder.get(i);
+            if(level.state == LevelState.BUYING){
+                level.state = LevelState.CANCELLING;
+                cancelling.add(level);
+            }
+        }
+        for(Level level : cancelling){
+            Order order = level.order;
+            exchangeClient.cancelOrder(order).whenComplete((cancelled, failure) -> onCancelled(level, order, cancelled, failure));
+        }
+        if(ladder != null){
+            completeReset();
+        }
+    }
+
+    private synchronized void onCancelled(Level level, Order order, Boolean cancelled, Throwable failure) {
+        if(level.order != order || level.state != LevelState.CANCELLING){
+            // Filled in the meantime
+            return;
+        }
+        if(failure != null){
+            LOGGER.error("BUY order cancellation failed: {}", order, failure);
+            level.state = LevelState.BUYING;
+            resetting = false;
+            return;
+        }
+        if(cancelled){
+            account.unblockAsset(pair.getQuote(),
+                    blockedAmountFor(order.getLimit(), order.getQuantity()) - blockedAmountFor(order.getLimit(), level.filledQuantity));
+            if(level.filledQuantity > 0){
+                placeSell(level, level.filledQuantity);
+            } else {
+                ladder.close(level);
+            }
+        }
+        completeReset();
+    }
+
+    private void completeReset() {
+        if(resetting && ladder.openOrders() == 0){
+            ladder = null;
+            resetting = false;
+        }
+    }
+
+    private void placeBuy(Level level) {
+        Currency quote = pair.getQuote();
+        long blockedAmount = blockedAmountFor(level.buyPrice, level.quantity);
+        if(!account.tryBlockAsset(quote, blockedAmount)){
+            if(LOGGER.isDebugEnabled()){
+                LOGGER.debug("Not enough available {} to block {}", quote, quote.toBigDecimal(blockedAmount));
+            }
+            return;
+        }
+        Order order = order(OrderSide.BUY, level.quantity, level.buyPrice);
+        ladder.open(level, order, LevelState.BUYING);
+        LOGGER.debug("Placing BUY {}", order);
+        placeOrder(level, order);
+    }
+
+    private void placeSell(Level level, long quantity) {
+        account.blockAsset(pair.getBase(), quantity);
+        Order order = order(OrderSide.SELL, quantity, level.sellPrice);
+        ladder.open(level, order, LevelState.SELLING);
+        LOGGER.debug("Placing SELL {}", order);
+        placeOrder(level, order);
+    }
+
+    private Order order(OrderSide side, long quantity, long limit) {
+        return Order.builder()
+                .id(UUID.randomUUID().toString())
+                .pair(pair)
+                .side(side)
+                .quantity(quantity)
+                .limit(limit)
+                .createdAt(LocalDateTime.now(clock))
+                .build();
+    }
+
+    private void placeOrder(Level level, Order order) {
+        exchangeClient.placeOrder(order).whenComplete((placed, failure) -> onOrderPlaced(level, order, failure));
+    }
+
+    /**
+     * A rejected BUY frees its level, a rejected SELL is placed again on the next ticker.
+     */
+    private synchronized void onOrderPlaced(Level level, Order order, Throwable failure) {
+        if(failure == null || level.order != order){
+            return;
+        }
+        LOGGER.error("{} order rejected: {}", order.getSide(), order, failure);
+        long filled = level.filledQuantity;
+        if(order.getSide() == OrderSide.BUY){
+            account.unblockAsset(pair.getQuote(),
+                    blockedAmountFor(order.getLimit(), order.getQuantity()) - blockedAmountFor(order.getLimit(), filled));
+            ladder.close(level);
+            if(filled > 0){
+                placeSell(level, filled);
+            }
+        } else {
+            account.unblockAsset(pair.getBase(), order.getQuantity() - filled);
+            ladder.close(level);
+            // Remaining quantity to sell, see onTicker
+            level.filledQuantity = order.getQuantity() - filled;
+        }
+    }
+
+    private void onBuyExecution(Level level, Execution execution) {
+        Order order = level.order;
+        long filledBefore = level.filledQuantity;
+        level.filledQuantity += execution.getQuantity();
+        // Release the share of the blocked amount covering the executed quantity
+        long blockedAmount = blockedAmountFor(order.getLimit(), level.filledQuantity)
+                - blockedAmountFor(order.getLimit(), filledBefore);
+        account.settleBlockedAsset(pair.getQuote(), blockedAmount, execution.getAmount() + execution.getFee());
+        account.addAsset(pair.getBase(), execution.getQuantity());
+        notifyExecution(execution);
+        if(level.filledQuantity >= order.getQuantity()){
+            resetting = false;
+            placeSell(level, level.filledQuantity);
+        }
+    }
+
+    private void onSellExecution(Level level, Execution execution) {
+        level.filledQuantity += execution.getQuantity();
+        account.settleBlockedAsset(pair.getBase(), execution.getQuantity(), execution.getQuantity());
+        account.addAsset(pair.getQuote(), execution.getAmount() - execution.getFee());
+        notifyExecution(execution);
+        if(level.filledQuantity >= level.order.getQuantity()){
+            ladder.close(level);
+            roundTrips++;
+        }
+    }
+
+    private void notifyExecution(Execution execution) {
+        for(ExecutionListener listener : executionListeners){
+            listener.onExecution(execution);
+        }
+    }
+
+    private static SizingModel compile(Configuration config) {
+        if(config.getLadderLevels() < 2){
+            throw new RuntimeException("Invalid config: a ladder needs at least 2 levels");
+        }
+        return SizingModel.compile(config);
+    }
+
+    /**
+     * @return the funds reserved for a BUY of the ladder, covering its amount and its fee
+     */
+    private long blockedAmountFor(long price, long quantity) {
+        return SizingModel.reserveFor(pair, price, quantity, ladderFeePercentage);
+    }
+}
@@ -0,0 +1,31 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Source of the tickers of an exchange, without access to its order endpoints.
+ */
+public interface MarketDataClient {
+
+    Ticker getTicker(CurrencyPair pair);
+
+    /**
+     * Fetch the tickers of several pairs at once. Clients able to serve all pairs in a single round-trip should
+     * override this, the default falls back to one {@link #getTicker(CurrencyPair)} call per pair.
+     */
+    default Map<CurrencyPair, Ticker> getTickers(Collection<CurrencyPair> pairs) {
+        Map<CurrencyPair, Ticker> tickers = new HashMap<>();
+        for(CurrencyPair pair : pairs){
+            Ticker ticker = getTicker(pair);
+            if(ticker != null) {
+                tickers.put(pair, ticker);
+            }
+        }
+        return tickers;
+    }
+}
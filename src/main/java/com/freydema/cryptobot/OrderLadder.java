@@ -0,0 +1,111 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.Order;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The price levels of a {@link LadderTrader} and their open orders. Levels are kept sorted by BUY price, highest
+ * first, so that the levels below a price are found by binary search, and the open orders are indexed by id so that
+ * an execution finds its level in constant time however many orders are open.
+ *
+ * Not thread safe: guarded by the trader.
+ */
+final class OrderLadder {
+
+    enum LevelState {
+        IDLE,
+        BUYING,
+        SELLING,
+        CANCELLING
+    }
+
+    static final class Level {
+
+        final long buyPrice;
+        final long sellPrice;
+        final long quantity;
+        LevelState state = LevelState.IDLE;
+        Order order;
+        // Executed quantity of the open order
+        long filledQuantity;
+
+        private Level(long buyPrice, long sellPrice, long quantity) {
+            this.buyPrice = buyPrice;
+            this.sellPrice = sellPrice;
+            this.quantity = quantity;
+        }
+    }
+
+    private final Level[] levels;
+    private final Map<String, Level> levelsByOrderId = new HashMap<>();
+
+    /**
+     * @param buyPrices strictly decreasing
+     * @param sellPrices the take-profit price of each level
+     * @param quantities the quantity bought, then sold, at each level
+     */
+    OrderLadder(long[] buyPrices, long[] sellPrices, long[] quantities) {
+        levels = new Level[buyPrices.length];
+        for(int i = 0; i < buyPrices.length; i++){
+            if(i > 0 && buyPrices[i] >= buyPrices[i - 1]){
+                throw new IllegalArgumentException("Ladder BUY prices must be decreasing");
+            }
+            levels[i] = new Level(buyPrices[i], sellPrices[i], quantities[i]);
+        }
+    }
+
+    int size() {
+        return levels.length;
+    }
+
+    Level get(int index) {
+        return levels[index];
+    }
+
+    /**
+     * @return the index of the highest level with a BUY price strictly below the price, {@link #size()} if none
+     */
+    int firstLevelBelow(long price) {
+        int low = 0;
+        int high = levels.length;
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(levels[middle].buyPrice >= price){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    Level findByOrderId(String orderId) {
+        return levelsByOrderId.get(orderId);
+    }
+
+    void open(Level level, Order order, LevelState state) {
+        close(level);
+        level.order = order;
+        level.state = state;
+        level.filledQuantity = 0;
+        levelsByOrderId.put(order.getId(), level);
+    }
+
+    void close(Level level) {
+        if(level.order != null){
+            levelsByOrderId.remove(level.order.getId());
+        }
+        level.order = null;
+        level.state = LevelState.IDLE;
+        level.filledQuantity = 0;
+    }
+
+    /**
+     * @return the number of levels with an order open or being cancelled
+     */
+    int openOrders() {
+        return levelsByOrderId.size();
+    }
+}
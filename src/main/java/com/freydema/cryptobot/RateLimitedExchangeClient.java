@@ -0,0 +1,252 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the requests sent to an {@link ExchangeClient} within the exchange rate limit. Every request takes a token
+ * from a single {@link TokenBucket} shared by all pairs, and waits for one when the bucket is empty:
+ * <ul>
+ *     <li>order placements and cancellations go first: while one is waiting, ticker requests do not take tokens.
+ *     They never block the caller, queued ones are sent in submission order by the gateway thread once a token is
+ *     available</li>
+ *     <li>ticker requests block the caller. Concurrent {@link #getTicker(CurrencyPair)} calls for the same pair
+ *     share the result of a single request</li>
+ *     <li>when the exchange reports the limit as exceeded with an {@link ExchangeThrottledException}, all requests
+ *     are suspended for an exponential backoff with jitter, then the throttled one is retried, up to
+ *     {@code maxRetries} times</li>
+ * </ul>
+ */
+public class RateLimitedExchangeClient implements ExchangeClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RateLimitedExchangeClient.class);
+
+    private final ExchangeClient delegate;
+    private final long minBackoffNanos;
+    private final long maxBackoffNanos;
+    private final int maxRetries;
+    private final ExecutorService orderSender;
+    private final Map<CurrencyPair, CompletableFuture<Ticker>> inFlightTickers = new ConcurrentHashMap<>();
+    private final AtomicLong throttled = new AtomicLong();
+
+    private final Object lock = new Object();
+    // Guarded by lock
+    private final TokenBucket bucket;
+    private int queuedOrderActions;
+    private long pausedUntil;
+
+    /**
+     * @param capacity maximum number of requests sent in a burst
+     * @param tokenInterval time for the exchange to give back one request, i.e. the sustained request interval
+     * @param minBackoff suspension after a first throttled request, doubled on each retry up to maxBackoff
+     */
+    public RateLimitedExchangeClient(ExchangeClient delegate, int capacity, Duration tokenInterval, Duration minBackoff,
+                                     Duration maxBackoff, int maxRetries) {
+        this.delegate = delegate;
+        this.bucket = new TokenBucket(capacity, tokenInterval.toNanos(), System.nanoTime());
+        this.minBackoffNanos = minBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.maxRetries = maxRetries;
+        this.orderSender = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "exchange-gateway");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Ticker getTicker(CurrencyPair pair) {
+        CompletableFuture<Ticker> request = new CompletableFuture<>();
+        CompletableFuture<Ticker> inFlight = inFlightTickers.putIfAbsent(pair, request);
+        if(inFlight != null){
+            return join(inFlight);
+        }
+        try {
+            Ticker ticker = sendMarketDataRequest(() -> delegate.getTicker(pair));
+            request.complete(ticker);
+            return ticker;
+        } catch (RuntimeException e) {
+            request.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightTickers.remove(pair, request);
+        }
+    }
+
+    @Override
+    public Map<CurrencyPair, Ticker> getTickers(Collection<CurrencyPair> pairs) {
+        return sendMarketDataRequest(() -> delegate.getTickers(pairs));
+    }
+
+    @Override
+    public CompletableFuture<Order> placeOrder(Order order) {
+        CompletableFuture<Order> result = new CompletableFuture<>();
+        sendOrderAction(() -> delegate.placeOrder(order), 0, result);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelOrder(Order order) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        sendOrderAction(() -> delegate.cancelOrder(order), 0, result);
+        return result;
+    }
+
+    @Override
+    public void addExecutionListener(CurrencyPair pair, ExecutionListener listener) {
+        delegate.addExecutionListener(pair, listener);
+    }
+
+    /**
+     * @return the number of requests the exchange refused because of its rate limit
+     */
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    private <T> T sendMarketDataRequest(Supplier<T> request) {
+        for(int attempt = 0; ; attempt++){
+            acquire(false);
+            try {
+                return request.get();
+            } catch (ExchangeThrottledException e) {
+                if(attempt >= maxRetries){
+                    throw e;
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    private <T> void sendOrderAction(Supplier<CompletableFuture<T>> action, int attempt, CompletableFuture<T> result) {
+        boolean sendNow;
+        synchronized (lock){
+            long now = System.nanoTime();
+            // Nothing queued ahead and a token available: send from the caller thread
+            sendNow = queuedOrderActions == 0 && now >= pausedUntil && bucket.tryAcquire(now);
+            if(!sendNow){
+                queuedOrderActions++;
+            }
+        }
+        if(sendNow){
+            send(action, attempt, result);
+            return;
+        }
+        orderSender.execute(() -> {
+            try {
+                acquire(true);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            send(action, attempt, result);
+        });
+    }
+
+    private <T> void send(Supplier<CompletableFuture<T>> action, int attempt, CompletableFuture<T> result) {
+        CompletableFuture<T> future;
+        try {
+            future = action.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, failure) -> {
+            if(failure == null){
+                result.complete(value);
+                return;
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            if(cause instanceof ExchangeThrottledException && attempt < maxRetries){
+                backOff(attempt);
+                sendOrderAction(action, attempt + 1, result);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * Wait for a token. An order action was queued by {@link #sendOrderAction} and is only waited for by the gateway
+     * thread, a ticker request also waits for the queued order actions to be sent.
+     */
+    private void acquire(boolean orderAction) {
+        synchronized (lock){
+            try {
+                while(true){
+                    long now = System.nanoTime();
+                    long wait;
+                    if(now < pausedUntil){
+                        wait = pausedUntil - now;
+                    } else if(!orderAction && queuedOrderActions > 0){
+                        // Woken up once the queued order actions got their token
+                        lock.wait();
+                        continue;
+                    } else {
+                        wait = bucket.nanosUntilAvailable(now);
+                        if(wait == 0){
+                            bucket.tryAcquire(now);
+                            if(orderAction){
+                                queuedOrderActions--;
+                                lock.notifyAll();
+                            }
+                            return;
+                        }
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(lock, wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if(orderAction){
+                    queuedOrderActions--;
+                    lock.notifyAll();
+                }
+                throw new IllegalStateException("Interrupted while waiting for the exchange rate limit", e);
+            }
+        }
+    }
+
+    /**
+     * Suspend all the requests for an exponential backoff, randomized between half and all of it so that the
+     * waiting requests do not hit the exchange again at the same instant.
+     */
+    private void backOff(int attempt) {
+        throttled.incrementAndGet();
+        long backoff = Math.min(maxBackoffNanos, minBackoffNanos << Math.min(attempt, 30));
+        long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        LOGGER.warn("Exchange rate limit exceeded, requests suspended for {} ms", TimeUnit.NANOSECONDS.toMillis(jittered));
+        synchronized (lock){
+            long now = System.nanoTime();
+            // The exchange counter is ahead of ours: resume with an empty bucket
+            bucket.drain(now);
+            pausedUntil = Math.max(pausedUntil, now + jittered);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.FixedPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.RoundingMode;
+
+/**
+ * BUY sizing and SELL pricing of a trader, compiled once from its {@link Configuration}.
+ *
+ * The quantity to buy at price P for a target profit T, a target price growth k and a fee f is
+ * q = T / P(k(1-f)-(1+f)): everything but P is constant for a configuration, so the notional T / (k(1-f)-(1+f))
+ * is computed here once and sizing a BUY is a single multiply-divide by the price.
+ *
+ * Immutable: a configuration change compiles a new model (see {@link CurrencyPairTrader#reconfigure(Configuration)}).
+ */
+final class SizingModel {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SizingModel.class);
+
+    private final Configuration config;
+    private final long baseUnit;
+    // Quote amount to buy for the target profit of a round trip, and of one ladder level
+    private final long notional;
+    private final long levelNotional;
+    private final long sellMultiplier;
+    private final long netReturnPercentage;
+
+    private SizingModel(Configuration config, CurrencyPair pair, long targetProfit, long targetPriceGrowthPercentage,
+                        long tradeFeePercentage, int levels) {
+        this.config = config;
+        long p = FixedPoint.ONE_HUNDRED_PERCENT;
+        // k(1-f)-(1+f) with percentages P (100% = ONE_HUNDRED_PERCENT): [(P+move)(P-fee) - P(P+fee)] / P^2
+        long denominator = Math.subtractExact(
+                Math.multiplyExact(p + targetPriceGrowthPercentage, p - tradeFeePercentage),
+                Math.multiplyExact(p, p + tradeFeePercentage));
+        if(denominator <= 0){
+            // k <= (1+f)/(1-f): the fees paid on the BUY and the SELL exceed the price move, every round trip loses
+            throw new IllegalArgumentException("Target price move too small to cover the fees");
+        }
+        this.baseUnit = FixedPoint.pow10(pair.getBase().getScale());
+        this.notional = FixedPoint.mulDiv(targetProfit, Math.multiplyExact(p, p), denominator, RoundingMode.HALF_EVEN);
+        this.levelNotional = levels > 1
+                ? FixedPoint.mulDiv(targetProfit / levels, Math.multiplyExact(p, p), denominator, RoundingMode.HALF_EVEN)
+                : notional;
+        this.sellMultiplier = p + targetPriceGrowthPercentage;
+        this.netReturnPercentage = denominator / p;
+    }
+
+    /**
+     * Validate the configuration and compile its sizing.
+     *
+     * @throws RuntimeException if the configuration is invalid (see {@link Configuration#validate()})
+     */
+    static SizingModel compile(Configuration config) {
+        config.validate();
+        CurrencyPair pair = config.getCurrencyPair();
+        // Validated as quoted in EUR: the target profit is an amount of the quote currency
+        long targetProfit = config.getTargetRoundTripProfitInEUR();
+        SizingModel model = new SizingModel(config, pair, targetProfit, config.getTargetPriceGrowthPercentage(),
+                config.getTradeFeePercentage(), Math.max(config.getLadderLevels(), 1));
+        if(LOGGER.isDebugEnabled()){
+            LOGGER.debug("{} BUY notional {} {}", pair, pair.getQuote().toBigDecimal(model.notional), pair.getQuote());
+        }
+        return model;
+    }
+
+    /**
+     * Sizing of an arbitrary target, without configuration.
+     */
+    static SizingModel of(CurrencyPair pair, long targetProfit, long targetPriceGrowthPercentage, long tradeFeePercentage) {
+        return new SizingModel(null, pair, targetProfit, targetPriceGrowthPercentage, tradeFeePercentage, 1);
+    }
+
+    /**
+     * @return the quote amount to reserve for a BUY: its amount and the fee charged on it at the given percentage,
+     * both rounded up so that the reserve always covers the execution
+     */
+    static long reserveFor(CurrencyPair pair, long price, long quantity, long feePercentage) {
+        int quoteScale = pair.getQuote().getScale();
+        long amount = FixedPoint.multiply(quantity, pair.getBase().getScale(), price, quoteScale, quoteScale,
+                RoundingMode.UP);
+        return amount + FixedPoint.percentOf(amount, feePercentage, RoundingMode.UP);
+    }
+
+    Configuration getConfiguration() {
+        return config;
+    }
+
+    /**
+     * @return the quantity, at the base currency scale, to buy at the given price for the target profit
+     */
+    long quantityAt(long buyPrice) {
+        return FixedPoint.mulDiv(notional, baseUnit, buyPrice, RoundingMode.DOWN);
+    }
+
+    /**
+     * @return the quantity to buy at the given price for the share of the target profit of one ladder level
+     */
+    long levelQuantityAt(long buyPrice) {
+        return FixedPoint.mulDiv(levelNotional, baseUnit, buyPrice, RoundingMode.DOWN);
+    }
+
+    /**
+     * @return the SELL limit of a BUY at the given price: the price grown by the target percentage, rounded up
+     */
+    long sellPriceFor(long buyPrice) {
+        return FixedPoint.mulDiv(buyPrice, sellMultiplier, FixedPoint.ONE_HUNDRED_PERCENT, RoundingMode.UP);
+    }
+
+    /**
+     * @return the return of a round trip net of fees, k(1-f)-(1+f), at {@link FixedPoint#RATIO_SCALE}
+     */
+    long getNetReturnPercentage() {
+        return netReturnPercentage;
+    }
+}
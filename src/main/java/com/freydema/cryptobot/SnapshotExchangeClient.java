@@ -0,0 +1,84 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.feed.TickerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves tickers from an in-memory snapshot of all the configured pairs. The snapshot is fetched with a single
+ * batched {@link ExchangeClient#getTickers(Collection)} call on each {@link #refresh()}, so the number of exchange
+ * round-trips per cycle no longer grows with the number of pairs. When subscribed to a
+ * {@link com.freydema.cryptobot.feed.TickerFeed} the snapshot is kept up to date from the pushed tickers instead.
+ * Orders and executions go straight to the delegate.
+ */
+public class SnapshotExchangeClient implements ExchangeClient, TickerListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotExchangeClient.class);
+
+    private final ExchangeClient delegate;
+    private final List<CurrencyPair> pairs;
+    private final Map<CurrencyPair, Ticker> snapshot;
+
+    public SnapshotExchangeClient(ExchangeClient delegate, Collection<CurrencyPair> pairs) {
+        this.delegate = delegate;
+        this.pairs = List.copyOf(pairs);
+        this.snapshot = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Replace the current snapshot with freshly fetched tickers. Pairs missing from the exchange response are
+     * absent from the new snapshot rather than served stale.
+     */
+    public void refresh() {
+        Map<CurrencyPair, Ticker> tickers = delegate.getTickers(pairs);
+        if(tickers.size() < pairs.size()){
+            LOGGER.warn("Ticker snapshot incomplete: {} of {} pairs received", tickers.size(), pairs.size());
+        }
+        snapshot.putAll(tickers);
+        snapshot.keySet().retainAll(tickers.keySet());
+    }
+
+    @Override
+    public void onTicker(CurrencyPair pair, Ticker ticker) {
+        snapshot.put(pair, ticker);
+    }
+
+    @Override
+    public Ticker getTicker(CurrencyPair pair) {
+        return snapshot.get(pair);
+    }
+
+    @Override
+    public Map<CurrencyPair, Ticker> getTickers(Collection<CurrencyPair> pairs) {
+        Map<CurrencyPair, Ticker> tickers = new HashMap<>();
+        for(CurrencyPair pair : pairs){
+            Ticker ticker = snapshot.get(pair);
+            if(ticker != null) {
+                tickers.put(pair, ticker);
+            }
+        }
+        return tickers;
+    }
+
+    @Override
+    public CompletableFuture<Order> placeOrder(Order order) {
+        return delegate.placeOrder(order);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelOrder(Order order) {
+        return delegate.cancelOrder(order);
+    }
+
+    @Override
+    public void addExecutionListener(CurrencyPair pair, ExecutionListener listener) {
+        delegate.addExecutionListener(pair, listener);
+    }
+}
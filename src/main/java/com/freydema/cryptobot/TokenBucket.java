@@ -0,0 +1,71 @@
+package com.freydema.cryptobot;
+
+/**
+ * Token bucket modelled on the Kraken API call counter: each request takes a token, tokens come back at a fixed
+ * rate, and at most {@code capacity} of them accumulate, which bounds the burst allowed after an idle period.
+ *
+ * Not thread safe, times are {@link System#nanoTime()} readings passed by the caller.
+ */
+class TokenBucket {
+
+    private final int capacity;
+    private final long nanosPerToken;
+    private int tokens;
+    private long lastRefill;
+
+    /**
+     * @param nanosPerToken time for one token to come back
+     * @param now the current time, the bucket starts full
+     */
+    TokenBucket(int capacity, long nanosPerToken, long now) {
+        if(capacity <= 0 || nanosPerToken <= 0){
+            throw new IllegalArgumentException("Invalid token bucket capacity " + capacity + " or rate " + nanosPerToken);
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = nanosPerToken;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * @return true if a token was taken, false if the bucket is empty
+     */
+    boolean tryAcquire(long now) {
+        refill(now);
+        if(tokens == 0){
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    /**
+     * @return the time until a token is available, 0 if one is available now
+     */
+    long nanosUntilAvailable(long now) {
+        refill(now);
+        return tokens > 0 ? 0 : lastRefill + nanosPerToken - now;
+    }
+
+    /**
+     * Empty the bucket, e.g. when the exchange reports the limit as exceeded: its counter is ahead of ours.
+     */
+    void drain(long now) {
+        refill(now);
+        tokens = 0;
+    }
+
+    private void refill(long now) {
+        long refilled = (now - lastRefill) / nanosPerToken;
+        if(refilled <= 0){
+            return;
+        }
+        if(tokens + refilled >= capacity){
+            tokens = capacity;
+            lastRefill = now;
+        } else {
+            tokens += refilled;
+            lastRefill += refilled * nanosPerToken;
+        }
+    }
+}
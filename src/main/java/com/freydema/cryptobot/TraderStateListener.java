@@ -0,0 +1,21 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Order;
+
+/**
+ * Notified of every state transition of a {@link CurrencyPairTrader}, with the orders it holds once in the new
+ * state, and of every partial execution of its open order. Called on the trader's thread.
+ */
+@FunctionalInterface
+public interface TraderStateListener {
+
+    /**
+     * @param filledQuantity executed quantity of the open order, at the base currency scale
+     * @param buyFeePercentage at {@link com.freydema.cryptobot.domain.FixedPoint#RATIO_SCALE}, the fee the funds of
+     *                         the BUY were reserved with
+     */
+    void onStateChanged(CurrencyPair pair, CurrencyPairTrader.State state, Order buyOrder, Order sellOrder,
+                        long filledQuantity, long buyFeePercentage);
+
+}
@@ -0,0 +1,185 @@
+package com.freydema.cryptobot.backtest;
+
+import com.freydema.cryptobot.ExchangeClient;
+import com.freydema.cryptobot.ExecutionListener;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Execution;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.OrderSide;
+import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.feed.TickerListener;
+
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Exchange answering with the tick currently replayed by the backtest for each pair, and filling the orders against
+ * it: orders are accepted right away and matched against the top of the book of the current ticker.
+ *
+ * An order crossing the ticker when placed is filled at the ticker price (taker), a resting order is filled at its
+ * limit once a later ticker crosses it (maker). When the ticker carries a volume, the fills of a ticker are capped
+ * by it, which produces partial fills. Fees are charged on the executed amount at the fee set for the pair.
+ *
+ * Not thread-safe: the backtest drives it from a single thread, and executions are delivered synchronously.
+ */
+public class BacktestExchangeClient implements ExchangeClient, TickerListener {
+
+    private final Clock clock;
+    private final Ticker[] currentTickers = new Ticker[CurrencyPair.count()];
+    private final long[] feePercentages = new long[CurrencyPair.count()];
+    private final List<List<RestingOrder>> restingOrders = new ArrayList<>();
+    private final List<List<ExecutionListener>> listeners = new ArrayList<>();
+
+    /**
+     * @param clock timestamps the executions
+     */
+    public BacktestExchangeClient(Clock clock) {
+        this.clock = clock;
+        for(int i = 0; i < CurrencyPair.count(); i++){
+            restingOrders.add(new ArrayList<>());
+            listeners.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * @param feePercentage at {@link FixedPoint#RATIO_SCALE}
+     */
+    public void setFeePercentage(CurrencyPair pair, long feePercentage) {
+        feePercentages[pair.getId()] = feePercentage;
+    }
+
+    /**
+     * Move the market of the pair to the ticker, filling the resting orders it crosses.
+     */
+    public void setTicker(CurrencyPair pair, Ticker ticker) {
+        currentTickers[pair.getId()] = ticker;
+        List<RestingOrder> orders = restingOrders.get(pair.getId());
+        if(orders.isEmpty()){
+            return;
+        }
+        long askVolume = ticker.getAskVolume() > 0 ? ticker.getAskVolume() : Long.MAX_VALUE;
+        long bidVolume = ticker.getBidVolume() > 0 ? ticker.getBidVolume() : Long.MAX_VALUE;
+        // Executions are delivered once matching is done: listeners may place new orders
+        int restingCount = orders.size();
+        List<RestingOrder> filled = null;
+        long[] quantities = null;
+        Iterator<RestingOrder> iterator = orders.iterator();
+        while(iterator.hasNext()){
+            RestingOrder resting = iterator.next();
+            Order order = resting.order;
+            long quantity;
+            if(order.getSide() == OrderSide.BUY && ticker.getAskPrice() <= order.getLimit()){
+                quantity = Math.min(resting.remaining, askVolume);
+                askVolume -= quantity;
+            } else if(order.getSide() == OrderSide.SELL && ticker.getBidPrice() >= order.getLimit()){
+                quantity = Math.min(resting.remaining, bidVolume);
+                bidVolume -= quantity;
+            } else {
+                continue;
+            }
+            if(quantity == 0){
+                continue;
+            }
+            resting.remaining -= quantity;
+            if(resting.remaining == 0){
+                iterator.remove();
+            }
+            if(filled == null){
+                filled = new ArrayList<>();
+                quantities = new long[restingCount];
+            }
+            quantities[filled.size()] = quantity;
+            filled.add(resting);
+        }
+        if(filled != null){
+            for(int i = 0; i < filled.size(); i++){
+                Order order = filled.get(i).order;
+                execute(order, quantities[i], order.getLimit());
+            }
+        }
+    }
+
+    @Override
+    public void onTicker(CurrencyPair pair, Ticker ticker) {
+        setTicker(pair, ticker);
+    }
+
+    @Override
+    public Ticker getTicker(CurrencyPair pair) {
+        return currentTickers[pair.getId()];
+    }
+
+    @Override
+    public CompletableFuture<Order> placeOrder(Order order) {
+        if(order.getQuantity() <= 0){
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid order quantity: " + order));
+        }
+        long quantity = 0;
+        long price = 0;
+        Ticker ticker = currentTickers[order.getPair().getId()];
+        if(ticker != null){
+            boolean buy = order.getSide() == OrderSide.BUY;
+            price = buy ? ticker.getAskPrice() : ticker.getBidPrice();
+            long volume = buy ? ticker.getAskVolume() : ticker.getBidVolume();
+            if(buy ? price <= order.getLimit() : price >= order.getLimit()){
+                quantity = volume > 0 ? Math.min(order.getQuantity(), volume) : order.getQuantity();
+            }
+        }
+        if(quantity < order.getQuantity()){
+            RestingOrder resting = new RestingOrder(order);
+            resting.remaining = order.getQuantity() - quantity;
+            restingOrders.get(order.getPair().getId()).add(resting);
+        }
+        if(quantity > 0){
+            execute(order, quantity, price);
+        }
+        return CompletableFuture.completedFuture(order);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelOrder(Order order) {
+        return CompletableFuture.completedFuture(
+                restingOrders.get(order.getPair().getId()).removeIf(resting -> resting.order.equals(order)));
+    }
+
+    @Override
+    public void addExecutionListener(CurrencyPair pair, ExecutionListener listener) {
+        listeners.get(pair.getId()).add(listener);
+    }
+
+    private void execute(Order order, long quantity, long price) {
+        CurrencyPair pair = order.getPair();
+        int quoteScale = pair.getQuote().getScale();
+        long amount = FixedPoint.multiply(quantity, pair.getBase().getScale(), price, quoteScale, quoteScale,
+                RoundingMode.HALF_EVEN);
+        Execution execution = Execution.builder()
+                .orderId(order.getId())
+                .pair(pair)
+                .side(order.getSide())
+                .quantity(quantity)
+                .price(price)
+                .amount(amount)
+                .fee(FixedPoint.percentOf(amount, feePercentages[pair.getId()], RoundingMode.UP))
+                .timestamp(clock.millis())
+                .build();
+        for(ExecutionListener listener : listeners.get(pair.getId())){
+            listener.onExecution(execution);
+        }
+    }
+
+
+    private static final class RestingOrder {
+
+        private final Order order;
+        private long remaining;
+
+        private RestingOrder(Order order) {
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.freydema.cryptobot.backtest;
+
+import com.freydema.cryptobot.ExecutionListener;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Execution;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.OrderSide;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a backtest. Amounts are at the quote currency scale.
+ */
+@Getter
+@ToString
+public class BacktestReport {
+
+    private final List<PairResult> pairResults;
+    private final long ticks;
+    private final long elapsedNanos;
+
+    BacktestReport(List<PairResult> pairResults, long ticks, long elapsedNanos) {
+        this.pairResults = Collections.unmodifiableList(pairResults);
+        this.ticks = ticks;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRealizedProfit() {
+        long profit = 0;
+        for(PairResult result : pairResults){
+            profit += result.realizedProfit;
+        }
+        return profit;
+    }
+
+    public long getFees() {
+        long fees = 0;
+        for(PairResult result : pairResults){
+            fees += result.fees;
+        }
+        return fees;
+    }
+
+    public int getRoundTrips() {
+        int roundTrips = 0;
+        for(PairResult result : pairResults){
+            roundTrips += result.roundTrips;
+        }
+        return roundTrips;
+    }
+
+    /**
+     * Per pair statistics, accumulated from the executions of its trader. Only completed round trips contribute to
+     * the realized profit: the cost of a BUY not yet sold at the end of the backtest is reported as open cost.
+     * A SELL is charged the average cost of the quantity held, as a {@link com.freydema.cryptobot.LadderTrader} may
+     * hold the quantities of several BUYs when one of its levels sells.
+     *
+     * A round trip is counted once its SELL order is completely filled, possibly over several executions: the SELL
+     * orders are reported by {@link #onSellPlaced(Order)}.
+     */
+    @Getter
+    @ToString
+    public static class PairResult implements ExecutionListener {
+
+        private final CurrencyPair pair;
+        private int roundTrips;
+        private long realizedProfit;
+        private long fees;
+        private long openCost;
+        private long openQuantity;
+        // Quantity left to fill of each SELL order placed
+        @Getter(AccessLevel.NONE)
+        @ToString.Exclude
+        private final Map<String, Long> unfilledSells = new HashMap<>();
+
+        PairResult(CurrencyPair pair) {
+            this.pair = pair;
+        }
+
+        /**
+         * Called before the SELL order is placed: it may be filled as soon as it is.
+         */
+        void onSellPlaced(Order order) {
+            unfilledSells.put(order.getId(), order.getQuantity());
+        }
+
+        void onSellRejected(Order order) {
+            unfilledSells.remove(order.getId());
+        }
+
+        @Override
+        public void onExecution(Execution execution) {
+            fees += execution.getFee();
+            if(execution.getSide() == OrderSide.BUY){
+                openCost += execution.getAmount() + execution.getFee();
+                openQuantity += execution.getQuantity();
+            } else {
+                long soldQuantity = Math.min(execution.getQuantity(), openQuantity);
+                long cost = soldQuantity == openQuantity ? openCost
+                        : FixedPoint.mulDiv(openCost, soldQuantity, openQuantity, RoundingMode.HALF_EVEN);
+                realizedProfit += execution.getAmount() - execution.getFee() - cost;
+                openCost -= cost;
+                openQuantity -= soldQuantity;
+                Long unfilled = unfilledSells.get(execution.getOrderId());
+                if(unfilled != null){
+                    if(unfilled <= execution.getQuantity()){
+                        unfilledSells.remove(execution.getOrderId());
+                        roundTrips++;
+                    } else {
+                        unfilledSells.put(execution.getOrderId(), unfilled - execution.getQuantity());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.freydema.cryptobot.backtest;
+
+import com.freydema.cryptobot.Configuration;
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.ExchangeClient;
+import com.freydema.cryptobot.ExecutionListener;
+import com.freydema.cryptobot.LadderTrader;
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.OrderSide;
+import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.feed.TickerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Replays a {@link TickHistory} through real {@link CurrencyPairTrader} instances, or {@link LadderTrader}s for the
+ * pairs configured with ladder levels, as fast as possible: the ticks
+ * of all the pairs are merged in timestamp order on the calling thread and the traders' clock follows the replayed
+ * time. The traders share one {@link Account}, funded with the given initial quote balance, and their orders are
+ * filled by a {@link BacktestExchangeClient} against the replayed ticks.
+ */
+public class Backtester {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Backtester.class);
+
+    private final TickHistory history;
+    private final Map<CurrencyPair, Configuration> configurations;
+    private final Currency quoteCurrency;
+    private final long initialQuoteBalance;
+
+    public Backtester(TickHistory history, Map<CurrencyPair, Configuration> configurations, long initialEURBalance) {
+        this(history, configurations, Currency.EUR, initialEURBalance);
+    }
+
+    public Backtester(TickHistory history, Map<CurrencyPair, Configuration> configurations,
+                      Currency quoteCurrency, long initialQuoteBalance) {
+        this.history = history;
+        this.configurations = configurations;
+        this.quoteCurrency = quoteCurrency;
+        this.initialQuoteBalance = initialQuoteBalance;
+    }
+
+    public BacktestReport run() {
+        long start = System.nanoTime();
+        SimulatedClock clock = new SimulatedClock();
+        BacktestExchangeClient exchangeClient = new BacktestExchangeClient(clock);
+        Account account = new Account();
+        account.addAsset(quoteCurrency, initialQuoteBalance);
+
+        List<CurrencyPair> pairs = new ArrayList<>();
+        List<BacktestReport.PairResult> results = new ArrayList<>();
+        TickerListener[] traders = new TickerListener[CurrencyPair.count()];
+        for(CurrencyPair pair : history.getPairs()){
+            Configuration configuration = configurations.get(pair);
+            if(configuration == null){
+                continue;
+            }
+            exchangeClient.setFeePercentage(pair, configuration.getTradeFeePercentage());
+            BacktestReport.PairResult result = new BacktestReport.PairResult(pair);
+            ExchangeClient traderClient = new SellReportingExchangeClient(exchangeClient, result);
+            if(configuration.getLadderLevels() > 1){
+                LadderTrader trader = new LadderTrader(configuration, account, traderClient, clock);
+                trader.addExecutionListener(result);
+                trader.recover();
+                traders[pair.getId()] = trader;
+            } else {
+                CurrencyPairTrader trader = new CurrencyPairTrader(configuration, account, traderClient, clock);
+                trader.addExecutionListener(result);
+                trader.recover();
+                traders[pair.getId()] = trader;
+            }
+            pairs.add(pair);
+            results.add(result);
+        }
+
+        TickMerger merger = new TickMerger(history, pairs);
+        long ticks = 0;
+        while(merger.hasNext()){
+            CurrencyPair pair = pairs.get(merger.nextPairIndex());
+            int index = merger.next();
+            Ticker ticker = history.getTicker(pair, index);
+            clock.setMillis(ticker.getTimestamp());
+            exchangeClient.setTicker(pair, ticker);
+            traders[pair.getId()].onTicker(pair, ticker);
+            ticks++;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        BacktestReport report = new BacktestReport(results, ticks, elapsedNanos);
+        LOGGER.info("Backtest replayed {} ticks in {} ms: {} round trips, profit {} {}, fees {} {}",
+                ticks, elapsedNanos / 1_000_000, report.getRoundTrips(),
+                quoteCurrency.toBigDecimal(report.getRealizedProfit()), quoteCurrency,
+                quoteCurrency.toBigDecimal(report.getFees()), quoteCurrency);
+        return report;
+    }
+
+    /**
+     * Reports the SELL orders of a trader to its result, which counts a round trip once one is completely filled.
+     */
+    private static final class SellReportingExchangeClient implements ExchangeClient {
+
+        private final ExchangeClient delegate;
+        private final BacktestReport.PairResult result;
+
+        private SellReportingExchangeClient(ExchangeClient delegate, BacktestReport.PairResult result) {
+            this.delegate = delegate;
+            this.result = result;
+        }
+
+        @Override
+        public Ticker getTicker(CurrencyPair pair) {
+            return delegate.getTicker(pair);
+        }
+
+        @Override
+        public CompletableFuture<Order> placeOrder(Order order) {
+            if(order.getSide() != OrderSide.SELL){
+                return delegate.placeOrder(order);
+            }
+            result.onSellPlaced(order);
+            return delegate.placeOrder(order).whenComplete((placed, failure) -> {
+                if(failure != null){
+                    result.onSellRejected(order);
+                }
+            });
+        }
+
+        @Override
+        public CompletableFuture<Boolean> cancelOrder(Order order) {
+            return delegate.cancelOrder(order);
+        }
+
+        @Override
+        public void addExecutionListener(CurrencyPair pair, ExecutionListener listener) {
+            delegate.addExecutionListener(pair, listener);
+        }
+    }
+
+    /**
+     * K-way merge of the per pair tick series by timestamp, using a binary min-heap of pair indexes.
+     * Ties are broken by pair index so that the replay order is deterministic.
+     */
+    static final class TickMerger {
+
+        private final TickHistory history;
+        private final List<CurrencyPair> pairs;
+        private final int[] cursors;
+        private final int[] heap;
+        private int heapSize;
+
+        TickMerger(TickHistory history, List<CurrencyPair> pairs) {
+            this.history = history;
+            this.pairs = pairs;
+            this.cursors = new int[pairs.size()];
+            this.heap = new int[pairs.size()];
+            for(int i = 0; i < pairs.size(); i++){
+                if(history.size(pairs.get(i)) > 0){
+                    heap[heapSize++] = i;
+                    siftUp(heapSize - 1);
+                }
+            }
+        }
+
+        boolean hasNext() {
+            return heapSize > 0;
+        }
+
+        int nextPairIndex() {
+            return heap[0];
+        }
+
+        /**
+         * @return the index, in its pair series, of the next tick (the one of the pair returned by nextPairIndex)
+         */
+        int next() {
+            int pairIndex = heap[0];
+            int index = cursors[pairIndex]++;
+            if(cursors[pairIndex] == history.size(pairs.get(pairIndex))){
+                heap[0] = heap[--heapSize];
+            }
+            if(heapSize > 0){
+                siftDown(0);
+            }
+            return index;
+        }
+
+        private long key(int pairIndex) {
+            return history.getTimestamp(pairs.get(pairIndex), cursors[pairIndex]);
+        }
+
+        private boolean less(int a, int b) {
+            long keyA = key(heap[a]);
+            long keyB = key(heap[b]);
+            return keyA < keyB || (keyA == keyB && heap[a] < heap[b]);
+        }
+
+        private void siftUp(int i) {
+            while(i > 0){
+                int parent = (i - 1) / 2;
+                if(!less(i, parent)){
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while(true){
+                int left = 2 * i + 1;
+                if(left >= heapSize){
+                    return;
+                }
+                int smallest = left + 1 < heapSize && less(left + 1, left) ? left + 1 : left;
+                if(!less(smallest, i)){
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.freydema.cryptobot.backtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Indexed set of {@link SweepPoint}s. Points are computed from their index on demand, so even very large spaces are
+ * never materialized and can be split between workers by index range.
+ */
+public interface ParameterSpace {
+
+    int size();
+
+    SweepPoint get(int index);
+
+    /**
+     * Cartesian product of the given values (FixedPoint units, see {@link com.freydema.cryptobot.Configuration}).
+     */
+    static ParameterSpace grid(long[] askPriceVsLast24HLowTriggerRatios,
+                               long[] targetRoundTripProfitsInEUR,
+                               long[] targetPriceGrowthPercentages,
+                               long[] tradeFeePercentages) {
+        return new Grid(askPriceVsLast24HLowTriggerRatios, targetRoundTripProfitsInEUR,
+                targetPriceGrowthPercentages, tradeFeePercentages);
+    }
+
+    /**
+     * Points drawn uniformly between the min and max of each field (inclusive). The same seed and index always give
+     * the same point.
+     */
+    static ParameterSpace random(SweepPoint min, SweepPoint max, int size, long seed) {
+        return new Random(min, max, size, seed);
+    }
+
+
+    final class Grid implements ParameterSpace {
+
+        private final long[][] values;
+        private final int size;
+
+        private Grid(long[]... values) {
+            this.values = values;
+            long size = 1;
+            for(long[] fieldValues : values){
+                size *= fieldValues.length;
+            }
+            this.size = Math.toIntExact(size);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public SweepPoint get(int index) {
+            // Mixed radix decoding of the index, last field varying fastest
+            long[] point = new long[values.length];
+            for(int field = values.length - 1; field >= 0; field--){
+                point[field] = values[field][index % values[field].length];
+                index /= values[field].length;
+            }
+            return SweepPoint.builder()
+                    .askPriceVsLast24HLowTriggerRatio(point[0])
+                    .targetRoundTripProfitInEUR(point[1])
+                    .targetPriceGrowthPercentage(point[2])
+                    .tradeFeePercentage(point[3])
+                    .build();
+        }
+    }
+
+    final class Random implements ParameterSpace {
+
+        private final SweepPoint min;
+        private final SweepPoint max;
+        private final int size;
+        private final long seed;
+
+        private Random(SweepPoint min, SweepPoint max, int size, long seed) {
+            this.min = min;
+            this.max = max;
+            this.size = size;
+            this.seed = seed;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public SweepPoint get(int index) {
+            SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+            return SweepPoint.builder()
+                    .askPriceVsLast24HLowTriggerRatio(draw(random, min.getAskPriceVsLast24HLowTriggerRatio(), max.getAskPriceVsLast24HLowTriggerRatio()))
+                    .targetRoundTripProfitInEUR(draw(random, min.getTargetRoundTripProfitInEUR(), max.getTargetRoundTripProfitInEUR()))
+                    .targetPriceGrowthPercentage(draw(random, min.getTargetPriceGrowthPercentage(), max.getTargetPriceGrowthPercentage()))
+                    .tradeFeePercentage(draw(random, min.getTradeFeePercentage(), max.getTradeFeePercentage()))
+                    .build();
+        }
+
+        private static long draw(SplittableRandom random, long min, long max) {
+            return min == max ? min : random.nextLong(min, max + 1);
+        }
+    }
+}
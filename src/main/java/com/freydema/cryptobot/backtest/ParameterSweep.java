@@ -0,0 +1,96 @@
+package com.freydema.cryptobot.backtest;
+
+import com.freydema.cryptobot.Configuration;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Backtests every point of a {@link ParameterSpace} against the same {@link TickHistory}, on a fork/join pool.
+ *
+ * The history is immutable and shared by all the workers; each point runs in its own {@link Backtester} with its own
+ * account, traders and clock. Results are pushed to the listener as they complete, so stopping a long sweep early
+ * keeps everything computed so far.
+ */
+public class ParameterSweep {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParameterSweep.class);
+
+    private final TickHistory history;
+    private final long initialEURBalance;
+    private final ForkJoinPool pool;
+    private volatile boolean stopped;
+
+    public ParameterSweep(TickHistory history, long initialEURBalance) {
+        this(history, initialEURBalance, ForkJoinPool.commonPool());
+    }
+
+    public ParameterSweep(TickHistory history, long initialEURBalance, ForkJoinPool pool) {
+        this.history = history;
+        this.initialEURBalance = initialEURBalance;
+        this.pool = pool;
+    }
+
+    /**
+     * Run the sweep and block until every point has been evaluated or {@link #stop()} is called.
+     */
+    public void run(ParameterSpace space, SweepListener listener) {
+        LOGGER.info("Sweeping {} parameter combinations over {} ticks", space.size(), history.size());
+        pool.invoke(new SweepTask(space, listener, 0, space.size()));
+    }
+
+    /**
+     * Stop the sweep: backtests in progress complete, the remaining points are skipped.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    private SweepResult evaluate(int index, SweepPoint point) {
+        Map<CurrencyPair, Configuration> configurations = new HashMap<>();
+        for(CurrencyPair pair : history.getPairs()){
+            configurations.put(pair, point.toConfiguration(pair));
+        }
+        return new SweepResult(index, point, new Backtester(history, configurations, initialEURBalance).run());
+    }
+
+    private class SweepTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ParameterSpace space;
+        private final SweepListener listener;
+        private final int from;
+        private final int to;
+
+        private SweepTask(ParameterSpace space, SweepListener listener, int from, int to) {
+            this.space = space;
+            this.listener = listener;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(stopped){
+                return;
+            }
+            if(to - from > 1){
+                int middle = (from + to) >>> 1;
+                invokeAll(new SweepTask(space, listener, from, middle), new SweepTask(space, listener, middle, to));
+                return;
+            }
+            SweepPoint point = space.get(from);
+            if(!point.isValid()){
+                LOGGER.debug("Skipping invalid combination {}", point);
+                return;
+            }
+            listener.onResult(evaluate(from, point));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.freydema.cryptobot.backtest;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Clock whose time is moved forward explicitly, by the backtest, to the timestamp of the tick being replayed.
+ */
+public class SimulatedClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile long millis;
+
+    public SimulatedClock() {
+        this(ZoneOffset.UTC, 0);
+    }
+
+    private SimulatedClock(ZoneId zone, long millis) {
+        this.zone = zone;
+        this.millis = millis;
+    }
+
+    public void setMillis(long millis) {
+        this.millis = millis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new SimulatedClock(zone, millis);
+    }
+}
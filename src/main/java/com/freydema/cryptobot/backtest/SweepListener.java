@@ -0,0 +1,11 @@
+package com.freydema.cryptobot.backtest;
+
+/**
+ * Receives the sweep results as soon as each backtest completes, from the worker threads.
+ */
+@FunctionalInterface
+public interface SweepListener {
+
+    void onResult(SweepResult result);
+
+}
@@ -0,0 +1,40 @@
+package com.freydema.cryptobot.backtest;
+
+import com.freydema.cryptobot.Configuration;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One combination of the tunable {@link Configuration} fields, applied to every pair of a sweep.
+ */
+@Builder
+@Getter
+@ToString
+@EqualsAndHashCode
+public class SweepPoint {
+
+    private final long askPriceVsLast24HLowTriggerRatio;
+    private final long targetRoundTripProfitInEUR;
+    private final long targetPriceGrowthPercentage;
+    private final long tradeFeePercentage;
+
+    public Configuration toConfiguration(CurrencyPair pair) {
+        return Configuration.builder()
+                .currencyPair(pair)
+                .askPriceVsLast24HLowTriggerRatio(askPriceVsLast24HLowTriggerRatio)
+                .targetRoundTripProfitInEUR(targetRoundTripProfitInEUR)
+                .targetPriceGrowthPercentage(targetPriceGrowthPercentage)
+                .tradeFeePercentage(tradeFeePercentage)
+                .build();
+    }
+
+    /**
+     * @return false when the combination would be rejected by the trader (see {@link Configuration#validate()})
+     */
+    public boolean isValid() {
+        return Configuration.coversFees(targetPriceGrowthPercentage, tradeFeePercentage);
+    }
+}
@@ -0,0 +1,45 @@
+package com.freydema.cryptobot.backtest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Best results seen so far, by decreasing realized profit. Updated by the sweep workers and readable at any time,
+ * including while the sweep is running or after it has been stopped.
+ */
+public class SweepRanking implements SweepListener {
+
+    private static final Comparator<SweepResult> BY_PROFIT = Comparator
+            .comparingLong(SweepResult::getRealizedProfit).reversed()
+            .thenComparingInt(SweepResult::getIndex);
+
+    private final int capacity;
+    private final TreeSet<SweepResult> best = new TreeSet<>(BY_PROFIT);
+    private long count;
+
+    public SweepRanking(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void onResult(SweepResult result) {
+        count++;
+        best.add(result);
+        if(best.size() > capacity){
+            best.pollLast();
+        }
+    }
+
+    public synchronized List<SweepResult> getBest() {
+        return new ArrayList<>(best);
+    }
+
+    /**
+     * @return the number of results received, ranked or not
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+}
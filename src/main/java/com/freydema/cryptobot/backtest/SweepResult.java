@@ -0,0 +1,23 @@
+package com.freydema.cryptobot.backtest;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class SweepResult {
+
+    private final int index;
+    private final SweepPoint point;
+    private final BacktestReport report;
+
+    SweepResult(int index, SweepPoint point, BacktestReport report) {
+        this.index = index;
+        this.point = point;
+        this.report = report;
+    }
+
+    public long getRealizedProfit() {
+        return report.getRealizedProfit();
+    }
+}
@@ -0,0 +1,52 @@
+package com.freydema.cryptobot.backtest;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Ticker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads recorded ticks from a CSV file, one tick per line:
+ *
+ *   timestamp(epoch ms),pair,bidPrice,bidVolume,askPrice,askVolume,last24HLow,last24HHigh
+ *
+ * Lines starting with # are ignored.
+ */
+public class TickCsvReader {
+
+    public static TickHistory read(Path path) throws IOException {
+        TickHistory.Builder builder = TickHistory.builder();
+        try(BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)){
+            String line;
+            int lineNumber = 0;
+            while((line = reader.readLine()) != null){
+                lineNumber++;
+                if(line.isEmpty() || line.startsWith("#")){
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if(fields.length != 8){
+                    throw new IOException("Invalid tick at line " + lineNumber + ": " + line);
+                }
+                CurrencyPair pair = CurrencyPair.valueOf(fields[1]);
+                int quoteScale = pair.getQuote().getScale();
+                int baseScale = pair.getBase().getScale();
+                builder.add(pair, Ticker.builder()
+                        .timestamp(Long.parseLong(fields[0]))
+                        .bidPrice(FixedPoint.parse(fields[2], quoteScale))
+                        .bidVolume(FixedPoint.parse(fields[3], baseScale))
+                        .askPrice(FixedPoint.parse(fields[4], quoteScale))
+                        .askVolume(FixedPoint.parse(fields[5], baseScale))
+                        .last24HLow(FixedPoint.parse(fields[6], quoteScale))
+                        .last24HHigh(FixedPoint.parse(fields[7], quoteScale))
+                        .build());
+            }
+        }
+        return builder.build();
+    }
+}
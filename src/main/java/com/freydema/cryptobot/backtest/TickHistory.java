@@ -0,0 +1,160 @@
+package com.freydema.cryptobot.backtest;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, memory resident tick history. Ticks are stored per pair, in timestamp order, in one primitive array per
+ * {@link Ticker} field: a tick costs 56 bytes and the dataset can be shared by any number of threads without copy.
+ */
+public final class TickHistory {
+
+    private final Series[] series;
+    private final List<CurrencyPair> pairs;
+    private final long size;
+
+    private TickHistory(Series[] series) {
+        this.series = series;
+        List<CurrencyPair> pairs = new ArrayList<>();
+        long size = 0;
+        for(CurrencyPair pair : CurrencyPair.values()){
+            Series pairSeries = series[pair.getId()];
+            if(pairSeries != null && pairSeries.size > 0){
+                pairs.add(pair);
+                size += pairSeries.size;
+            }
+        }
+        this.pairs = Collections.unmodifiableList(pairs);
+        this.size = size;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<CurrencyPair> getPairs() {
+        return pairs;
+    }
+
+    /**
+     * @return the total number of ticks, all pairs included
+     */
+    public long size() {
+        return size;
+    }
+
+    public int size(CurrencyPair pair) {
+        Series pairSeries = series[pair.getId()];
+        return pairSeries != null ? pairSeries.size : 0;
+    }
+
+    public long getTimestamp(CurrencyPair pair, int index) {
+        return series[pair.getId()].timestamp[index];
+    }
+
+    public Ticker getTicker(CurrencyPair pair, int index) {
+        Series pairSeries = series[pair.getId()];
+        return Ticker.builder()
+                .timestamp(pairSeries.timestamp[index])
+                .bidPrice(pairSeries.bidPrice[index])
+                .bidVolume(pairSeries.bidVolume[index])
+                .askPrice(pairSeries.askPrice[index])
+                .askVolume(pairSeries.askVolume[index])
+                .last24HLow(pairSeries.last24HLow[index])
+                .last24HHigh(pairSeries.last24HHigh[index])
+                .build();
+    }
+
+
+    private static final class Series {
+
+        private long[] timestamp;
+        private long[] bidPrice;
+        private long[] bidVolume;
+        private long[] askPrice;
+        private long[] askVolume;
+        private long[] last24HLow;
+        private long[] last24HHigh;
+        private int size;
+
+        private Series(int capacity) {
+            resize(capacity);
+        }
+
+        private void add(long timestamp, long bidPrice, long bidVolume, long askPrice, long askVolume,
+                         long last24HLow, long last24HHigh) {
+            if(size == this.timestamp.length){
+                resize(Math.max(16, size * 2));
+            }
+            this.timestamp[size] = timestamp;
+            this.bidPrice[size] = bidPrice;
+            this.bidVolume[size] = bidVolume;
+            this.askPrice[size] = askPrice;
+            this.askVolume[size] = askVolume;
+            this.last24HLow[size] = last24HLow;
+            this.last24HHigh[size] = last24HHigh;
+            size++;
+        }
+
+        private void resize(int capacity) {
+            timestamp = timestamp == null ? new long[capacity] : Arrays.copyOf(timestamp, capacity);
+            bidPrice = bidPrice == null ? new long[capacity] : Arrays.copyOf(bidPrice, capacity);
+            bidVolume = bidVolume == null ? new long[capacity] : Arrays.copyOf(bidVolume, capacity);
+            askPrice = askPrice == null ? new long[capacity] : Arrays.copyOf(askPrice, capacity);
+            askVolume = askVolume == null ? new long[capacity] : Arrays.copyOf(askVolume, capacity);
+            last24HLow = last24HLow == null ? new long[capacity] : Arrays.copyOf(last24HLow, capacity);
+            last24HHigh = last24HHigh == null ? new long[capacity] : Arrays.copyOf(last24HHigh, capacity);
+        }
+    }
+
+    public static final class Builder {
+
+        private final Series[] series = new Series[CurrencyPair.count()];
+        private boolean built;
+
+        private Builder() {
+        }
+
+        /**
+         * @throws IllegalArgumentException when the ticker is older than the previous one of the same pair
+         */
+        public Builder add(CurrencyPair pair, Ticker ticker) {
+            return add(pair, ticker.getTimestamp(), ticker.getBidPrice(), ticker.getBidVolume(),
+                    ticker.getAskPrice(), ticker.getAskVolume(), ticker.getLast24HLow(), ticker.getLast24HHigh());
+        }
+
+        /**
+         * @throws IllegalArgumentException when the tick is older than the previous one of the same pair
+         */
+        public Builder add(CurrencyPair pair, long timestamp, long bidPrice, long bidVolume, long askPrice,
+                           long askVolume, long last24HLow, long last24HHigh) {
+            if(built){
+                throw new IllegalStateException("TickHistory already built");
+            }
+            Series pairSeries = series[pair.getId()];
+            if(pairSeries == null){
+                pairSeries = new Series(1024);
+                series[pair.getId()] = pairSeries;
+            } else if(timestamp < pairSeries.timestamp[pairSeries.size - 1]){
+                throw new IllegalArgumentException("Ticks of " + pair + " must be added in timestamp order");
+            }
+            pairSeries.add(timestamp, bidPrice, bidVolume, askPrice, askVolume, last24HLow, last24HHigh);
+            return this;
+        }
+
+        public TickHistory build() {
+            built = true;
+            for(Series pairSeries : series){
+                if(pairSeries != null){
+                    pairSeries.resize(pairSeries.size);
+                }
+            }
+            return new TickHistory(series);
+        }
+    }
+}
@@ -3,64 +3,171 @@ package com.freydema.cryptobot.domain;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * Balances shared by all the traders. Every currency is guarded by its own lock so that traders of different pairs
+ * only contend when they share a currency (typically the EUR quote), and every check-then-act sequence on a currency
+ * is performed atomically.
+ *
+ * Amounts are {@link FixedPoint} units at the scale of their currency. Holdings are indexed by currency id: the
+ * currencies must be registered before the account is created.
+ */
 public class Account {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Account.class);
 
-    private Map<Currency, BigDecimal> balance;
-    private Map<Currency, BigDecimal> blocked;
+    private final Holding[] holdings;
+    private volatile AccountListener[] listeners = new AccountListener[0];
 
     public Account() {
-        balance = new HashMap<>();
-        blocked = new HashMap<>();
+        holdings = new Holding[Currency.count()];
+        for(Currency currency : Currency.values()){
+            holdings[currency.getId()] = new Holding(currency);
+        }
     }
 
-    public void addAsset(Currency currency, BigDecimal amount) {
-        BigDecimal currentAmount = balance.get(currency);
-        if(currentAmount == null) {
-            currentAmount = BigDecimal.ZERO;
-        }
-        balance.put(currency, currentAmount.add(amount));
+    /**
+     * Register a listener notified of every balance or blocked amount change, typically a journal or metrics.
+     */
+    public synchronized void addListener(AccountListener listener) {
+        AccountListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
     }
 
-    public void removeAsset(Currency currency, BigDecimal amount) {
-        BigDecimal currentAmount = balance.get(currency);
-        currentAmount = currentAmount.subtract(amount);
-//        if(currentAmount.signum() < 0){
-//            currentAmount = BigDecimal.ZERO;
-//        }
-        balance.put(currency, currentAmount);
+    /**
+     * Reset a holding to previously recorded amounts, when recovering from a journal.
+     */
+    public void restore(Currency currency, long balance, long blocked) {
+        holdings[currency.getId()].restore(balance, blocked);
     }
 
-    public void blockAsset(Currency currency, BigDecimal amount) {
-        BigDecimal currentAmount = blocked.get(currency);
-        if(currentAmount == null) {
-            currentAmount = BigDecimal.ZERO;
-        }
-        blocked.put(currency, currentAmount.add(amount));
+    public void addAsset(Currency currency, long amount) {
+        holdings[currency.getId()].add(amount);
     }
 
-    public void unblockAsset(Currency currency, BigDecimal amount) {
-        BigDecimal currentAmount = blocked.get(currency);
-        currentAmount = currentAmount.subtract(amount);
-        if(currentAmount.signum() < 0){
-            currentAmount = BigDecimal.ZERO;
-        }
-        blocked.put(currency, currentAmount);
+    public void removeAsset(Currency currency, long amount) {
+        holdings[currency.getId()].remove(amount);
+    }
+
+    public void blockAsset(Currency currency, long amount) {
+        holdings[currency.getId()].block(amount);
+    }
+
+    /**
+     * Atomically block the given amount if at least that much is available (balance - blocked).
+     * @return false, without blocking anything, when the available amount is insufficient
+     */
+    public boolean tryBlockAsset(Currency currency, long amount) {
+        return holdings[currency.getId()].tryBlock(amount);
+    }
+
+    public void unblockAsset(Currency currency, long amount) {
+        holdings[currency.getId()].unblock(amount);
+    }
+
+    /**
+     * Atomically release a blocked amount and remove what was actually spent from the balance, so that no other
+     * trader can observe the funds as available in between.
+     */
+    public void settleBlockedAsset(Currency currency, long blockedAmount, long spentAmount) {
+        holdings[currency.getId()].settle(blockedAmount, spentAmount);
+    }
+
+    public long getBalance(Currency currency) {
+        return holdings[currency.getId()].getBalance();
     }
 
-    public BigDecimal getBalance(Currency currency) {
-        BigDecimal amount = balance.get(currency);
-        return amount != null ? amount: BigDecimal.ZERO;
+    public long getBlocked(Currency currency) {
+        return holdings[currency.getId()].getBlocked();
     }
 
-    public BigDecimal getBlocked(Currency currency) {
-        BigDecimal amount = blocked.get(currency);
-        return amount != null ? amount: BigDecimal.ZERO;
+    public long getAvailable(Currency currency) {
+        return holdings[currency.getId()].getAvailable();
+    }
+
+
+    private class Holding {
+
+        private final Currency currency;
+        private long balance;
+        private long blocked;
+
+        private Holding(Currency currency) {
+            this.currency = currency;
+        }
+
+        synchronized void add(long amount) {
+            balance = Math.addExact(balance, amount);
+            changed();
+        }
+
+        synchronized void remove(long amount) {
+            balance = Math.subtractExact(balance, amount);
+            changed();
+        }
+
+        synchronized void block(long amount) {
+            blocked = Math.addExact(blocked, amount);
+            changed();
+        }
+
+        synchronized boolean tryBlock(long amount) {
+            if(balance - blocked < amount){
+                return false;
+            }
+            blocked += amount;
+            changed();
+            return true;
+        }
+
+        synchronized void unblock(long amount) {
+            releaseBlocked(amount);
+            changed();
+        }
+
+        synchronized void settle(long blockedAmount, long spentAmount) {
+            if(spentAmount > balance){
+                // The reservation did not cover the spend: the funds of other traders were used
+                LOGGER.warn("{} spent {} out of a balance of {}", currency, currency.toBigDecimal(spentAmount),
+                        currency.toBigDecimal(balance));
+            }
+            releaseBlocked(blockedAmount);
+            balance = Math.subtractExact(balance, spentAmount);
+            changed();
+        }
+
+        synchronized void restore(long balance, long blocked) {
+            this.balance = balance;
+            this.blocked = blocked;
+            changed();
+        }
+
+        private void releaseBlocked(long amount) {
+            blocked -= amount;
+            if(blocked < 0){
+                blocked = 0;
+            }
+        }
+
+        private void changed() {
+            for(AccountListener listener : listeners){
+                listener.onHoldingChanged(currency, balance, blocked);
+            }
+        }
+
+        synchronized long getBalance() {
+            return balance;
+        }
+
+        synchronized long getBlocked() {
+            return blocked;
+        }
+
+        synchronized long getAvailable() {
+            return balance - blocked;
+        }
     }
 
 }
@@ -0,0 +1,14 @@
+package com.freydema.cryptobot.domain;
+
+/**
+ * Notified of every change of a currency holding of an {@link Account}, with the resulting absolute amounts.
+ *
+ * Called while the holding lock is held: the notifications of a currency are received in the order of its changes.
+ * Implementations must therefore be quick and must not call back into the account.
+ */
+@FunctionalInterface
+public interface AccountListener {
+
+    void onHoldingChanged(Currency currency, long balance, long blocked);
+
+}
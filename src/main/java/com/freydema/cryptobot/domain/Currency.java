@@ -1,32 +1,140 @@
 package com.freydema.cryptobot.domain;
 
-public enum  Currency {
-
-    BTC("Bitcoin"),
-    ETH("Ethereum"),
-    XRP("Ripple"),
-    BCH("Bitcoin Cash"),
-    LTC("Litecoin"),
-    ADA("Cardano"),
-    EOS("EOS"),
-    REP("Augur"),
-    XLM("Stellar"),
-    BSV("BitcoinSV"),
-    XMR("Monero"),
-    QTUM("Qtum"),
-    ETC("Ethereum Classic"),
-    ZEC("Zcash"),
-    DASH("Dash"),
-    GNO("Gnosis"),
-    EUR("Euro");
-
-    private String realName;
-
-    Currency(String realName) {
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A currency, interned in a registry: there is a single instance per name, compared by identity, and each instance
+ * has a dense id usable as an array index.
+ *
+ * The currencies below are always registered, with the ids they had as enum constants. Others are registered at
+ * startup, typically by {@link Instruments}, before creating the components sizing arrays with {@link #count()}.
+ */
+public final class Currency {
+
+    private static final Map<String, Currency> BY_NAME = new ConcurrentHashMap<>();
+    private static volatile Currency[] byId = new Currency[0];
+
+    public static final Currency BTC = register("BTC", "Bitcoin", 8);
+    public static final Currency ETH = register("ETH", "Ethereum", 8);
+    public static final Currency XRP = register("XRP", "Ripple", 8);
+    public static final Currency BCH = register("BCH", "Bitcoin Cash", 8);
+    public static final Currency LTC = register("LTC", "Litecoin", 8);
+    public static final Currency ADA = register("ADA", "Cardano", 8);
+    public static final Currency EOS = register("EOS", "EOS", 8);
+    public static final Currency REP = register("REP", "Augur", 8);
+    public static final Currency XLM = register("XLM", "Stellar", 8);
+    public static final Currency BSV = register("BSV", "BitcoinSV", 8);
+    public static final Currency XMR = register("XMR", "Monero", 8);
+    public static final Currency QTUM = register("QTUM", "Qtum", 8);
+    public static final Currency ETC = register("ETC", "Ethereum Classic", 8);
+    public static final Currency ZEC = register("ZEC", "Zcash", 8);
+    public static final Currency DASH = register("DASH", "Dash", 8);
+    public static final Currency GNO = register("GNO", "Gnosis", 8);
+    public static final Currency EUR = register("EUR", "Euro", 6);
+
+    private final int id;
+    private final String name;
+    private final String realName;
+    private final int scale;
+
+    private Currency(int id, String name, String realName, int scale) {
+        this.id = id;
+        this.name = name;
         this.realName = realName;
+        this.scale = scale;
+    }
+
+    /**
+     * Register a currency, or return the one already registered under that name.
+     * @throws IllegalArgumentException if a currency of that name is registered with another scale
+     */
+    public static synchronized Currency register(String name, String realName, int scale) {
+        Currency existing = BY_NAME.get(name);
+        if(existing != null){
+            if(existing.scale != scale){
+                throw new IllegalArgumentException("Currency " + name + " already registered with scale " + existing.scale);
+            }
+            return existing;
+        }
+        if(scale < 0 || scale > 18){
+            throw new IllegalArgumentException("Unsupported scale " + scale + " for currency " + name);
+        }
+        Currency currency = new Currency(byId.length, name, realName, scale);
+        Currency[] updated = Arrays.copyOf(byId, byId.length + 1);
+        updated[currency.id] = currency;
+        byId = updated;
+        BY_NAME.put(name, currency);
+        return currency;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no currency of that name is registered
+     */
+    public static Currency valueOf(String name) {
+        Currency currency = BY_NAME.get(name);
+        if(currency == null){
+            throw new IllegalArgumentException("Unknown currency " + name);
+        }
+        return currency;
+    }
+
+    /**
+     * @return the currency of that name, null if none is registered
+     */
+    public static Currency find(String name) {
+        return BY_NAME.get(name);
+    }
+
+    public static Currency byId(int id) {
+        return byId[id];
+    }
+
+    /**
+     * @return the registered currencies, by id
+     */
+    public static Currency[] values() {
+        return byId.clone();
+    }
+
+    /**
+     * @return the number of registered currencies, ids range from 0 to count - 1
+     */
+    public static int count() {
+        return byId.length;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
     }
 
     public String getRealName() {
         return realName;
     }
+
+    /**
+     * Number of decimals of the {@link FixedPoint} amounts and prices expressed in this currency
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    public long toUnits(BigDecimal amount) {
+        return FixedPoint.of(amount, scale);
+    }
+
+    public BigDecimal toBigDecimal(long units) {
+        return FixedPoint.toBigDecimal(units, scale);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
 }
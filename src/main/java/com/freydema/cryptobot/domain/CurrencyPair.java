@@ -1,34 +1,127 @@
 package com.freydema.cryptobot.domain;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static com.freydema.cryptobot.domain.Currency.*;
 
-public enum CurrencyPair {
-
-    BTCEUR(BTC, EUR),
-    ETHEUR(ETH, EUR),
-    XRPEUR(XRP, EUR),
-    BCHEUR(BCH, EUR),
-    LTCEUR(LTC, EUR),
-    ADAPEUR(ADA, EUR),
-    EOSEUR(EOS, EUR),
-    REPEUR(REP, EUR),
-    XLMEUR(XLM, EUR),
-    BSVEUR(BSV, EUR),
-    XMREUR(XMR, EUR),
-    QTUMEUR(QTUM, EUR),
-    ETCEUR(ETC, EUR),
-    ZECEUR(ZEC, EUR),
-    DASHEUR(DASH, EUR),
-    GNOEUR(GNO, EUR);
-
-    private Currency baseCurrency;
-    private Currency quoteCurrency;
-
-    CurrencyPair(Currency baseCurrency, Currency quoteCurrency) {
+/**
+ * A tradable pair of currencies, interned in a registry like {@link Currency}: a single instance per name, compared
+ * by identity, with a dense id usable as an array index.
+ *
+ * The EUR pairs below are always registered, with the ids they had as enum constants. Others, including pairs quoted
+ * in other currencies, are registered at startup, typically by {@link Instruments}.
+ */
+public final class CurrencyPair {
+
+    private static final Map<String, CurrencyPair> BY_NAME = new ConcurrentHashMap<>();
+    private static volatile CurrencyPair[] byId = new CurrencyPair[0];
+
+    public static final CurrencyPair BTCEUR = register("BTCEUR", BTC, EUR);
+    public static final CurrencyPair ETHEUR = register("ETHEUR", ETH, EUR);
+    public static final CurrencyPair XRPEUR = register("XRPEUR", XRP, EUR);
+    public static final CurrencyPair BCHEUR = register("BCHEUR", BCH, EUR);
+    public static final CurrencyPair LTCEUR = register("LTCEUR", LTC, EUR);
+    public static final CurrencyPair ADAPEUR = register("ADAPEUR", ADA, EUR);
+    public static final CurrencyPair EOSEUR = register("EOSEUR", EOS, EUR);
+    public static final CurrencyPair REPEUR = register("REPEUR", REP, EUR);
+    public static final CurrencyPair XLMEUR = register("XLMEUR", XLM, EUR);
+    public static final CurrencyPair BSVEUR = register("BSVEUR", BSV, EUR);
+    public static final CurrencyPair XMREUR = register("XMREUR", XMR, EUR);
+    public static final CurrencyPair QTUMEUR = register("QTUMEUR", QTUM, EUR);
+    public static final CurrencyPair ETCEUR = register("ETCEUR", ETC, EUR);
+    public static final CurrencyPair ZECEUR = register("ZECEUR", ZEC, EUR);
+    public static final CurrencyPair DASHEUR = register("DASHEUR", DASH, EUR);
+    public static final CurrencyPair GNOEUR = register("GNOEUR", GNO, EUR);
+
+    private final int id;
+    private final String name;
+    private final Currency baseCurrency;
+    private final Currency quoteCurrency;
+
+    private CurrencyPair(int id, String name, Currency baseCurrency, Currency quoteCurrency) {
+        this.id = id;
+        this.name = name;
         this.baseCurrency = baseCurrency;
         this.quoteCurrency = quoteCurrency;
     }
 
+    /**
+     * Register a pair, or return the one already registered under that name.
+     * @throws IllegalArgumentException if a pair of that name is registered with other currencies
+     */
+    public static synchronized CurrencyPair register(String name, Currency base, Currency quote) {
+        CurrencyPair existing = BY_NAME.get(name);
+        if(existing != null){
+            if(existing.baseCurrency != base || existing.quoteCurrency != quote){
+                throw new IllegalArgumentException("Currency pair " + name + " already registered as "
+                        + existing.baseCurrency + "/" + existing.quoteCurrency);
+            }
+            return existing;
+        }
+        if(base == quote){
+            throw new IllegalArgumentException("Currency pair " + name + " of a single currency");
+        }
+        CurrencyPair pair = new CurrencyPair(byId.length, name, base, quote);
+        CurrencyPair[] updated = Arrays.copyOf(byId, byId.length + 1);
+        updated[pair.id] = pair;
+        byId = updated;
+        BY_NAME.put(name, pair);
+        return pair;
+    }
+
+    /**
+     * Register the pair named after its currencies, e.g. BTCEUR.
+     */
+    public static CurrencyPair register(Currency base, Currency quote) {
+        return register(base.getName() + quote.getName(), base, quote);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no pair of that name is registered
+     */
+    public static CurrencyPair valueOf(String name) {
+        CurrencyPair pair = BY_NAME.get(name);
+        if(pair == null){
+            throw new IllegalArgumentException("Unknown currency pair " + name);
+        }
+        return pair;
+    }
+
+    /**
+     * @return the pair of that name, null if none is registered
+     */
+    public static CurrencyPair find(String name) {
+        return BY_NAME.get(name);
+    }
+
+    public static CurrencyPair byId(int id) {
+        return byId[id];
+    }
+
+    /**
+     * @return the registered pairs, by id
+     */
+    public static CurrencyPair[] values() {
+        return byId.clone();
+    }
+
+    /**
+     * @return the number of registered pairs, ids range from 0 to count - 1
+     */
+    public static int count() {
+        return byId.length;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
     public Currency getBase() {
         return baseCurrency;
     }
@@ -36,4 +129,9 @@ public enum CurrencyPair {
     public Currency getQuote() {
         return quoteCurrency;
     }
+
+    @Override
+    public String toString() {
+        return name;
+    }
 }
@@ -0,0 +1,26 @@
+package com.freydema.cryptobot.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A (possibly partial) fill of an {@link Order}.
+ */
+@Builder
+@Getter
+@ToString
+public class Execution {
+
+    private final String orderId;
+    private final CurrencyPair pair;
+    private final OrderSide side;
+    // Quantity at the base currency scale, price, amount and fee at the quote currency scale (see FixedPoint)
+    private final long quantity;
+    private final long price;
+    private final long amount;
+    private final long fee;
+    // Epoch milliseconds
+    private final long timestamp;
+
+}
@@ -0,0 +1,166 @@
+package com.freydema.cryptobot.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Arithmetic on scaled longs: a value {@code v} at scale {@code s} is stored as the long {@code v * 10^s}.
+ *
+ * Amounts and prices use the scale of the {@link Currency} they are expressed in (a price is an amount of quote
+ * currency per unit of base currency), ratios and percentages use {@link #RATIO_SCALE}.
+ *
+ * Intermediate products are computed on 128 bits so that no operation allocates or silently overflows: results
+ * are exact up to the final rounding, which is always explicit. An {@link ArithmeticException} is thrown when a
+ * result does not fit in a long or when {@link RoundingMode#UNNECESSARY} is requested for an inexact result.
+ */
+public final class FixedPoint {
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for(int i = 1; i < POWERS_OF_TEN.length; i++){
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /** Scale of dimensionless values: ratios and percentages. */
+    public static final int RATIO_SCALE = 6;
+    public static final long ONE_HUNDRED_PERCENT = 100 * pow10(RATIO_SCALE);
+
+    private FixedPoint() {
+    }
+
+    public static long pow10(int exponent) {
+        if(exponent < 0 || exponent > 18){
+            throw new IllegalArgumentException("Unsupported power of ten: " + exponent);
+        }
+        return POWERS_OF_TEN[exponent];
+    }
+
+    // Conversions: only used at the boundaries (exchange, configuration, display)
+
+    public static long of(BigDecimal value, int scale) {
+        return of(value, scale, RoundingMode.HALF_EVEN);
+    }
+
+    public static long of(BigDecimal value, int scale, RoundingMode roundingMode) {
+        return value.setScale(scale, roundingMode).unscaledValue().longValueExact();
+    }
+
+    public static long parse(String value, int scale) {
+        return of(new BigDecimal(value), scale);
+    }
+
+    public static BigDecimal toBigDecimal(long units, int scale) {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    // Arithmetic
+
+    public static long rescale(long units, int fromScale, int toScale, RoundingMode roundingMode) {
+        if(toScale >= fromScale){
+            return Math.multiplyExact(units, pow10(toScale - fromScale));
+        }
+        return mulDiv(units, 1, pow10(fromScale - toScale), roundingMode);
+    }
+
+    /**
+     * @return a * b expressed at resultScale
+     */
+    public static long multiply(long a, int scaleA, long b, int scaleB, int resultScale, RoundingMode roundingMode) {
+        int exponent = scaleA + scaleB - resultScale;
+        if(exponent >= 0){
+            return mulDiv(a, b, pow10(exponent), roundingMode);
+        }
+        return Math.multiplyExact(mulDiv(a, b, 1, roundingMode), pow10(-exponent));
+    }
+
+    /**
+     * @return a / b expressed at resultScale
+     */
+    public static long divide(long a, int scaleA, long b, int scaleB, int resultScale, RoundingMode roundingMode) {
+        int exponent = scaleB + resultScale - scaleA;
+        if(exponent >= 0){
+            return mulDiv(a, pow10(exponent), b, roundingMode);
+        }
+        return mulDiv(a, 1, Math.multiplyExact(b, pow10(-exponent)), roundingMode);
+    }
+
+    /**
+     * @return the given percentage (at {@link #RATIO_SCALE}) of an amount, at the amount's scale
+     */
+    public static long percentOf(long amount, long percentage, RoundingMode roundingMode) {
+        return mulDiv(amount, percentage, ONE_HUNDRED_PERCENT, roundingMode);
+    }
+
+    /**
+     * @return a * b / c, computed with a 128 bits intermediate product and rounded once
+     */
+    public static long mulDiv(long a, long b, long c, RoundingMode roundingMode) {
+        if(c == 0){
+            throw new ArithmeticException("Division by zero");
+        }
+        if(a == Long.MIN_VALUE || b == Long.MIN_VALUE || c == Long.MIN_VALUE){
+            throw new ArithmeticException("Overflow");
+        }
+        boolean negative = (a < 0) ^ (b < 0) ^ (c < 0);
+        long x = Math.abs(a);
+        long y = Math.abs(b);
+        long divisor = Math.abs(c);
+        long high = Math.multiplyHigh(x, y);
+        long low = x * y;
+        long quotient;
+        long remainder;
+        if(high == 0 && low >= 0){
+            quotient = low / divisor;
+            remainder = low % divisor;
+        } else {
+            if(high >= divisor){
+                throw new ArithmeticException("Overflow");
+            }
+            // Binary long division of the 128 bits product (high < divisor, so the quotient fits on 64 bits)
+            remainder = high;
+            quotient = 0;
+            for(int i = 63; i >= 0; i--){
+                remainder = (remainder << 1) | ((low >>> i) & 1);
+                quotient <<= 1;
+                if(Long.compareUnsigned(remainder, divisor) >= 0){
+                    remainder -= divisor;
+                    quotient |= 1;
+                }
+            }
+            if(quotient < 0){
+                throw new ArithmeticException("Overflow");
+            }
+        }
+        if(remainder != 0 && roundAwayFromZero(quotient, remainder, divisor, negative, roundingMode)){
+            quotient = Math.addExact(quotient, 1);
+        }
+        return negative ? -quotient : quotient;
+    }
+
+    private static boolean roundAwayFromZero(long quotient, long remainder, long divisor, boolean negative,
+                                             RoundingMode roundingMode) {
+        int half = Long.compare(remainder, divisor - remainder);
+        switch (roundingMode) {
+            case UP:
+                return true;
+            case DOWN:
+                return false;
+            case CEILING:
+                return !negative;
+            case FLOOR:
+                return negative;
+            case HALF_UP:
+                return half >= 0;
+            case HALF_DOWN:
+                return half > 0;
+            case HALF_EVEN:
+                return half > 0 || (half == 0 && (quotient & 1) == 1);
+            case UNNECESSARY:
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.freydema.cryptobot.domain;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers the currencies and pairs listed in a configuration file, so that markets can be added without
+ * recompiling. One instrument per line, comma separated, {@code #} starting a comment:
+ * <pre>
+ * # currency,name,real name,scale
+ * currency,USD,US Dollar,6
+ * # pair,name,base,quote
+ * pair,BTCUSD,BTC,USD
+ * pair,ETHBTC,ETH,BTC
+ * </pre>
+ * A currency must be listed before the pairs using it, unless it is already registered.
+ */
+public final class Instruments {
+
+    private Instruments() {
+    }
+
+    /**
+     * @return the pairs listed, in the order of the file
+     */
+    public static List<CurrencyPair> load(Path file) throws IOException {
+        try(BufferedReader reader = Files.newBufferedReader(file)){
+            return load(reader);
+        }
+    }
+
+    /**
+     * @return the pairs listed, in the order of the input
+     * @throws IllegalArgumentException on a malformed line or an unknown currency
+     */
+    public static List<CurrencyPair> load(Reader input) throws IOException {
+        BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+        List<CurrencyPair> pairs = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while((line = reader.readLine()) != null){
+            lineNumber++;
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#")){
+                continue;
+            }
+            String[] fields = line.split(",");
+            for(int i = 0; i < fields.length; i++){
+                fields[i] = fields[i].trim();
+            }
+            if("currency".equals(fields[0]) && fields.length == 4){
+                Currency.register(fields[1], fields[2], parseScale(fields[3], lineNumber));
+            } else if("pair".equals(fields[0]) && fields.length == 4){
+                pairs.add(CurrencyPair.register(fields[1], Currency.valueOf(fields[2]), Currency.valueOf(fields[3])));
+            } else {
+                throw new IllegalArgumentException("Invalid instrument at line " + lineNumber + ": " + line);
+            }
+        }
+        return pairs;
+    }
+
+    private static int parseScale(String value, int lineNumber) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid scale at line " + lineNumber + ": " + value);
+        }
+    }
+}
@@ -6,7 +6,6 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Getter
@@ -18,18 +17,19 @@ public class Order {
     private final String id;
 
     private final CurrencyPair pair;
-    private final BigDecimal quantity;
-    private final BigDecimal limit;
+    // Quantity at the base currency scale, limit at the quote currency scale (see FixedPoint)
+    private final long quantity;
+    private final long limit;
     private final OrderSide side;
     private final LocalDateTime createdAt;
 
     @Builder
-    private Order(String id, CurrencyPair pair, BigDecimal quantity, BigDecimal limit, OrderSide side) {
+    private Order(String id, CurrencyPair pair, long quantity, long limit, OrderSide side, LocalDateTime createdAt) {
         this.id = id;
         this.pair = pair;
         this.quantity = quantity;
         this.limit = limit;
         this.side = side;
-        createdAt = LocalDateTime.now();
+        this.createdAt = createdAt != null ? createdAt : LocalDateTime.now();
     }
 }
@@ -1,33 +1,66 @@
 package com.freydema.cryptobot.domain;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 
 import java.math.BigDecimal;
 
+/**
+ * Immutable. Its getters may be overridden by views reusing one instance for several tickers, such as the pooled
+ * tickers of the {@link com.freydema.cryptobot.feed.TickerPipeline}.
+ */
 @Builder
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @Getter
 @ToString
+@EqualsAndHashCode
 public class Ticker {
 
-    private BigDecimal askPrice;
-    private BigDecimal askVolume;
-    private BigDecimal bidPrice;
-    private BigDecimal bidVolume;
-    private BigDecimal last24HLow;
-    private BigDecimal last24HHigh;
+    // Prices at the quote currency scale, volumes at the base currency scale (see FixedPoint)
+    private final long askPrice;
+    private final long askVolume;
+    private final long bidPrice;
+    private final long bidVolume;
+    private final long last24HLow;
+    private final long last24HHigh;
+    // Epoch milliseconds of the observation, 0 when unknown
+    private final long timestamp;
+
+    /**
+     * Empty ticker, for the views overriding the getters.
+     */
+    protected Ticker() {
+        this(0, 0, 0, 0, 0, 0, 0);
+    }
 
 
-    public static Ticker of(double bidPrice, double askPrice, double last24HLow, double last24HHigh){
+    public static Ticker of(CurrencyPair pair, double bidPrice, double askPrice, double last24HLow, double last24HHigh){
+        Currency quote = pair.getQuote();
         return Ticker.builder()
-                .askPrice(BigDecimal.valueOf(askPrice))
-                .bidPrice(BigDecimal.valueOf(bidPrice))
-                .last24HLow(BigDecimal.valueOf(last24HLow))
-                .last24HHigh(BigDecimal.valueOf(last24HHigh))
+                .askPrice(quote.toUnits(BigDecimal.valueOf(askPrice)))
+                .bidPrice(quote.toUnits(BigDecimal.valueOf(bidPrice)))
+                .last24HLow(quote.toUnits(BigDecimal.valueOf(last24HLow)))
+                .last24HHigh(quote.toUnits(BigDecimal.valueOf(last24HHigh)))
                 .build();
     }
 
+    /**
+     * @return true if the other ticker has the same prices, volumes and 24h range, whatever its timestamp
+     */
+    public boolean sameMarketAs(Ticker other) {
+        return other != null
+                && getAskPrice() == other.getAskPrice()
+                && getAskVolume() == other.getAskVolume()
+                && getBidPrice() == other.getBidPrice()
+                && getBidVolume() == other.getBidVolume()
+                && getLast24HLow() == other.getLast24HLow()
+                && getLast24HHigh() == other.getLast24HHigh();
+    }
+
     /*
 
     From Kraken api
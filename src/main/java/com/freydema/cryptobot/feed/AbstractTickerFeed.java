@@ -0,0 +1,51 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public abstract class AbstractTickerFeed implements TickerFeed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTickerFeed.class);
+
+    private final Map<CurrencyPair, List<TickerListener>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void subscribe(CurrencyPair pair, TickerListener listener) {
+        listeners.computeIfAbsent(pair, p -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void unsubscribe(CurrencyPair pair, TickerListener listener) {
+        listeners.computeIfPresent(pair, (p, pairListeners) -> {
+            pairListeners.remove(listener);
+            return pairListeners.isEmpty() ? null : pairListeners;
+        });
+    }
+
+    protected Set<CurrencyPair> getSubscribedPairs() {
+        return listeners.keySet();
+    }
+
+    protected void publish(CurrencyPair pair, Ticker ticker) {
+        List<TickerListener> pairListeners = listeners.get(pair);
+        if(pairListeners == null) {
+            return;
+        }
+        for(TickerListener listener : pairListeners){
+            try {
+                listener.onTicker(pair, ticker);
+            } catch (RuntimeException e){
+                // One failing listener must not prevent the others from receiving the ticker
+                LOGGER.error("Ticker listener failed for {}", pair, e);
+            }
+        }
+    }
+}
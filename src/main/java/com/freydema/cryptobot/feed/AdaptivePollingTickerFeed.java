@@ -0,0 +1,121 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.ExchangeClient;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link PollingTickerFeed} polling each pair at its own pace: the closer its last ticker was to the prices its
+ * subscribers act upon, as told by their {@link TriggerDistance}, the sooner it is polled again. Pairs far from any
+ * trigger are polled every {@code maxInterval}, pairs at or beyond it every {@code minInterval}, linearly in between.
+ *
+ * The request rate stays within a global budget whatever the number of pairs: at most one batched request is sent
+ * every {@code requestInterval}, with the most overdue pairs first when more are due than a request can carry. No
+ * request is sent when no pair is due.
+ */
+public class AdaptivePollingTickerFeed extends PollingTickerFeed {
+
+    /** Trigger distance from which pairs are polled every maxInterval: 5% */
+    public static final long DEFAULT_FAR_DISTANCE = 50_000;
+    public static final int DEFAULT_MAX_PAIRS_PER_REQUEST = 100;
+
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final long farDistance;
+    private final int maxPairsPerRequest;
+    private final Clock clock;
+    private final Map<CurrencyPair, List<TriggerDistance>> distances = new ConcurrentHashMap<>();
+    // By pair id, only accessed by the polling thread
+    private long[] nextPolls = new long[CurrencyPair.count()];
+
+    public AdaptivePollingTickerFeed(ExchangeClient exchangeClient, Duration requestInterval, Duration minInterval,
+                                     Duration maxInterval) {
+        this(exchangeClient, requestInterval, minInterval, maxInterval, DEFAULT_FAR_DISTANCE,
+                DEFAULT_MAX_PAIRS_PER_REQUEST, Clock.systemUTC());
+    }
+
+    /**
+     * @param requestInterval minimum delay between two requests: the request rate budget
+     * @param farDistance trigger distance, at {@link com.freydema.cryptobot.domain.FixedPoint#RATIO_SCALE}, from which
+     *                    pairs are polled every maxInterval
+     * @param maxPairsPerRequest number of pairs fetched in one batched request
+     */
+    public AdaptivePollingTickerFeed(ExchangeClient exchangeClient, Duration requestInterval, Duration minInterval,
+                                     Duration maxInterval, long farDistance, int maxPairsPerRequest, Clock clock) {
+        super(exchangeClient, requestInterval);
+        if(minInterval.compareTo(maxInterval) > 0 || farDistance <= 0 || maxPairsPerRequest <= 0){
+            throw new IllegalArgumentException("Invalid adaptive polling settings");
+        }
+        this.minIntervalMillis = minInterval.toMillis();
+        this.maxIntervalMillis = maxInterval.toMillis();
+        this.farDistance = farDistance;
+        this.maxPairsPerRequest = maxPairsPerRequest;
+        this.clock = clock;
+    }
+
+    /**
+     * Register how far the pair is from triggering for a subscriber. The pair is polled at the pace of its nearest
+     * registered distance, every minInterval while none is registered.
+     */
+    public void addTriggerDistance(CurrencyPair pair, TriggerDistance distance) {
+        distances.computeIfAbsent(pair, p -> new CopyOnWriteArrayList<>()).add(distance);
+    }
+
+    @Override
+    protected List<CurrencyPair> selectPairs() {
+        long now = clock.millis();
+        if(nextPolls.length < CurrencyPair.count()){
+            nextPolls = Arrays.copyOf(nextPolls, CurrencyPair.count());
+        }
+        List<CurrencyPair> due = new ArrayList<>();
+        for(CurrencyPair pair : getSubscribedPairs()){
+            if(nextPolls[pair.getId()] <= now){
+                due.add(pair);
+            }
+        }
+        if(due.size() > maxPairsPerRequest){
+            due.sort(Comparator.comparingLong(pair -> nextPolls[pair.getId()]));
+            due = new ArrayList<>(due.subList(0, maxPairsPerRequest));
+        }
+        return due;
+    }
+
+    @Override
+    protected void onPolled(List<CurrencyPair> pairs, Map<CurrencyPair, Ticker> tickers) {
+        long now = clock.millis();
+        for(CurrencyPair pair : pairs){
+            Ticker ticker = tickers != null ? tickers.get(pair) : null;
+            // Failed requests and missing tickers are retried at the slowest pace
+            long interval = ticker != null ? intervalFor(pair, ticker) : maxIntervalMillis;
+            nextPolls[pair.getId()] = now + interval;
+        }
+    }
+
+    /**
+     * @return the poll interval of the pair given its last ticker, in milliseconds
+     */
+    long intervalFor(CurrencyPair pair, Ticker ticker) {
+        List<TriggerDistance> pairDistances = distances.get(pair);
+        if(pairDistances == null){
+            return minIntervalMillis;
+        }
+        long distance = Long.MAX_VALUE;
+        for(TriggerDistance triggerDistance : pairDistances){
+            distance = Math.min(distance, triggerDistance.getTriggerDistance(ticker));
+        }
+        if(distance >= farDistance){
+            return maxIntervalMillis;
+        }
+        return minIntervalMillis + (maxIntervalMillis - minIntervalMillis) * Math.max(0, distance) / farDistance;
+    }
+}
@@ -0,0 +1,122 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.ExchangeClient;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.metrics.LatencyHistogram;
+import com.freydema.cryptobot.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adapts a request/response {@link ExchangeClient} to the {@link TickerFeed} model: all subscribed pairs are fetched in
+ * one batched call per poll, and only the tickers that changed since the previous poll are pushed to the listeners.
+ */
+public class PollingTickerFeed extends AbstractTickerFeed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PollingTickerFeed.class);
+
+    private final ExchangeClient exchangeClient;
+    private final Duration pollInterval;
+    private final Map<CurrencyPair, Ticker> lastTickers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private LatencyHistogram pollLatency;
+    private LongAdder overruns;
+
+    public PollingTickerFeed(ExchangeClient exchangeClient, Duration pollInterval) {
+        this.exchangeClient = exchangeClient;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Record the duration of each poll ({@code cryptobot_feed_poll_seconds}) and count the polls overrunning the
+     * poll interval ({@code cryptobot_feed_poll_overruns_total}), which delay the next one.
+     * Must be called before the feed is started.
+     */
+    public synchronized void setMetrics(MetricsRegistry registry) {
+        pollLatency = registry.histogram("cryptobot_feed_poll_seconds", TimeUnit.NANOSECONDS);
+        overruns = registry.counter("cryptobot_feed_poll_overruns_total");
+    }
+
+    @Override
+    public synchronized void start() {
+        if(scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "ticker-poller"));
+        scheduler.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if(scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    protected void poll() {
+        long start = System.nanoTime();
+        try {
+            pollAndPublish();
+        } catch (RuntimeException e) {
+            // Escaping the scheduled task, it would cancel the next polls without a trace
+            LOGGER.error("Ticker poll failed", e);
+        } finally {
+            if(pollLatency != null){
+                long duration = System.nanoTime() - start;
+                pollLatency.record(duration);
+                if(duration > pollInterval.toNanos()){
+                    overruns.increment();
+                }
+            }
+        }
+    }
+
+    private void pollAndPublish() {
+        List<CurrencyPair> pairs = selectPairs();
+        if(pairs.isEmpty()) {
+            return;
+        }
+        Map<CurrencyPair, Ticker> tickers;
+        try {
+            tickers = exchangeClient.getTickers(pairs);
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to poll tickers", e);
+            onPolled(pairs, null);
+            return;
+        }
+        for(Map.Entry<CurrencyPair, Ticker> entry : tickers.entrySet()){
+            Ticker previous = lastTickers.put(entry.getKey(), entry.getValue());
+            // Tickers are stamped on reception: only a market change makes a ticker new
+            if(!entry.getValue().sameMarketAs(previous)) {
+                publish(entry.getKey(), entry.getValue());
+            }
+        }
+        onPolled(pairs, tickers);
+    }
+
+    /**
+     * @return the pairs to fetch in this poll, by default all the subscribed ones
+     */
+    protected List<CurrencyPair> selectPairs() {
+        return new ArrayList<>(getSubscribedPairs());
+    }
+
+    /**
+     * Called once the tickers of a poll are published.
+     * @param tickers the tickers fetched, null if the request failed
+     */
+    protected void onPolled(List<CurrencyPair> pairs, Map<CurrencyPair, Ticker> tickers) {
+    }
+}
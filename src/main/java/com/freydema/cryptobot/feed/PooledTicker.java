@@ -0,0 +1,64 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.domain.Ticker;
+
+/**
+ * Mutable view of a tick slot, reused by a strategy thread of the {@link TickerPipeline} for every tick it delivers
+ * instead of allocating a {@link Ticker}: only valid during the listener call it is passed to.
+ */
+final class PooledTicker extends Ticker {
+
+    private long askPrice;
+    private long askVolume;
+    private long bidPrice;
+    private long bidVolume;
+    private long last24HLow;
+    private long last24HHigh;
+    private long timestamp;
+
+    void overwrite(long askPrice, long askVolume, long bidPrice, long bidVolume, long last24HLow, long last24HHigh,
+                   long timestamp) {
+        this.askPrice = askPrice;
+        this.askVolume = askVolume;
+        this.bidPrice = bidPrice;
+        this.bidVolume = bidVolume;
+        this.last24HLow = last24HLow;
+        this.last24HHigh = last24HHigh;
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public long getAskPrice() {
+        return askPrice;
+    }
+
+    @Override
+    public long getAskVolume() {
+        return askVolume;
+    }
+
+    @Override
+    public long getBidPrice() {
+        return bidPrice;
+    }
+
+    @Override
+    public long getBidVolume() {
+        return bidVolume;
+    }
+
+    @Override
+    public long getLast24HLow() {
+        return last24HLow;
+    }
+
+    @Override
+    public long getLast24HHigh() {
+        return last24HHigh;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,71 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Offline feed replaying recorded tickers in the order they were added. Tickers are published on the thread calling
+ * {@link #replay()}, which makes it suitable to drive traders deterministically in tests and simulations.
+ */
+public class ReplayTickerFeed extends AbstractTickerFeed {
+
+    private final Queue<Event> events = new ArrayDeque<>();
+    private volatile boolean running;
+
+    public ReplayTickerFeed add(CurrencyPair pair, Ticker ticker) {
+        events.offer(new Event(pair, ticker));
+        return this;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Publish the next recorded ticker.
+     * @return false when there is nothing left to replay or the feed is stopped
+     */
+    public boolean replayNext() {
+        if(!running) {
+            return false;
+        }
+        Event event = events.poll();
+        if(event == null) {
+            return false;
+        }
+        publish(event.pair, event.ticker);
+        return true;
+    }
+
+    /**
+     * Publish all the remaining recorded tickers.
+     * @return the number of tickers published
+     */
+    public int replay() {
+        int count = 0;
+        while(replayNext()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static class Event {
+
+        private final CurrencyPair pair;
+        private final Ticker ticker;
+
+        private Event(CurrencyPair pair, Ticker ticker) {
+            this.pair = pair;
+            this.ticker = ticker;
+        }
+    }
+}
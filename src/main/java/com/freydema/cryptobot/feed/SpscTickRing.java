@@ -0,0 +1,129 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.domain.Ticker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue of ticks between exactly one producer thread and one consumer thread. The ticks are stored in
+ * preallocated primitive columns, one slot per tick, reused as the positions wrap around: passing a tick allocates
+ * nothing.
+ *
+ * The producer {@link #claim()}s a slot, fills it and {@link #publish()}es it, the consumer {@link #peek()}s the
+ * oldest slot, reads it and {@link #release()}s it. Each side only writes its own position, with an ordered store,
+ * and caches the other side's one: the shared positions are read again only when the ring looks full or empty.
+ */
+final class SpscTickRing {
+
+    private final int mask;
+    final int[] pairIds;
+    final long[] askPrices;
+    final long[] askVolumes;
+    final long[] bidPrices;
+    final long[] bidVolumes;
+    final long[] lows;
+    final long[] highs;
+    final long[] timestamps;
+    // Next position to read, only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Next position to write, only written by the producer
+    private final AtomicLong tail = new AtomicLong();
+    // Only accessed by the producer
+    private long producerTail;
+    private long cachedHead;
+    // Only accessed by the consumer
+    private long consumerHead;
+    private long cachedTail;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    SpscTickRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        pairIds = new int[size];
+        askPrices = new long[size];
+        askVolumes = new long[size];
+        bidPrices = new long[size];
+        bidVolumes = new long[size];
+        lows = new long[size];
+        highs = new long[size];
+        timestamps = new long[size];
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the slot to fill, -1 if the ring is full
+     */
+    int claim() {
+        if(producerTail - cachedHead > mask){
+            cachedHead = head.get();
+            if(producerTail - cachedHead > mask){
+                return -1;
+            }
+        }
+        return (int) producerTail & mask;
+    }
+
+    /**
+     * Hand the claimed slot to the consumer.
+     */
+    void publish() {
+        producerTail++;
+        tail.lazySet(producerTail);
+    }
+
+    /**
+     * @return the oldest published slot, -1 if the ring is empty
+     */
+    int peek() {
+        if(consumerHead == cachedTail){
+            cachedTail = tail.get();
+            if(consumerHead == cachedTail){
+                return -1;
+            }
+        }
+        return (int) consumerHead & mask;
+    }
+
+    /**
+     * Give the peeked slot back to the producer.
+     */
+    void release() {
+        consumerHead++;
+        head.lazySet(consumerHead);
+    }
+
+    void write(int slot, int pairId, Ticker ticker) {
+        pairIds[slot] = pairId;
+        askPrices[slot] = ticker.getAskPrice();
+        askVolumes[slot] = ticker.getAskVolume();
+        bidPrices[slot] = ticker.getBidPrice();
+        bidVolumes[slot] = ticker.getBidVolume();
+        lows[slot] = ticker.getLast24HLow();
+        highs[slot] = ticker.getLast24HHigh();
+        timestamps[slot] = ticker.getTimestamp();
+    }
+
+    void copy(int slot, SpscTickRing target, int targetSlot) {
+        target.pairIds[targetSlot] = pairIds[slot];
+        target.askPrices[targetSlot] = askPrices[slot];
+        target.askVolumes[targetSlot] = askVolumes[slot];
+        target.bidPrices[targetSlot] = bidPrices[slot];
+        target.bidVolumes[targetSlot] = bidVolumes[slot];
+        target.lows[targetSlot] = lows[slot];
+        target.highs[targetSlot] = highs[slot];
+        target.timestamps[targetSlot] = timestamps[slot];
+    }
+
+    /**
+     * Overwrite a pooled ticker with the slot.
+     */
+    void read(int slot, PooledTicker ticker) {
+        ticker.overwrite(askPrices[slot], askVolumes[slot], bidPrices[slot], bidVolumes[slot], lows[slot], highs[slot],
+                timestamps[slot]);
+    }
+}
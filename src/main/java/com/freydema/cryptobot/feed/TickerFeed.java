@@ -0,0 +1,19 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+
+/**
+ * Push based source of market data: listeners are called each time a new {@link com.freydema.cryptobot.domain.Ticker}
+ * is available for the pair they subscribed to.
+ */
+public interface TickerFeed {
+
+    void subscribe(CurrencyPair pair, TickerListener listener);
+
+    void unsubscribe(CurrencyPair pair, TickerListener listener);
+
+    void start();
+
+    void stop();
+
+}
@@ -0,0 +1,11 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+
+@FunctionalInterface
+public interface TickerListener {
+
+    void onTicker(CurrencyPair pair, Ticker ticker);
+
+}
@@ -0,0 +1,243 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers the tickers of a feed to the per-pair listeners, typically the traders, through stages connected by
+ * single-producer/single-consumer rings ({@link SpscTickRing}) of preallocated tick slots:
+ * <ol>
+ *     <li>ingest: the feed thread calling {@link #onTicker(CurrencyPair, Ticker)} copies the ticker into a slot</li>
+ *     <li>normalize: a thread discards the ticks of unregistered pairs and the invalid ones (no bid, crossed book),
+ *     stamps the ones without a timestamp, and routes each to the strategy thread of its pair</li>
+ *     <li>strategy: a few threads, each pair pinned to one so that its ticks are handled in order, call the
+ *     listener with a pooled, feed-private view of a {@link Ticker} overwritten for every tick</li>
+ * </ol>
+ * The orders placed by the listeners then go through the exchange client, e.g. the gateway thread of a
+ * {@link com.freydema.cryptobot.RateLimitedExchangeClient}.
+ *
+ * No stage allocates per tick. A stage waits for work, or for room in the next ring, spinning first and then parking
+ * for longer and longer, up to a millisecond: a burst is handled within microseconds, an idle stage wakes up about a
+ * thousand times a second. A full ring holds up the stage before it, down to the feed, rather than dropping ticks;
+ * those waits are counted as stalls.
+ *
+ * The listeners must not keep the tickers they are passed: the instance is overwritten by the next tick.
+ */
+public class TickerPipeline implements TickerListener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TickerPipeline.class);
+
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private static final int SPINS = 1_000;
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Clock clock;
+    private final SpscTickRing ingestRing;
+    private final SpscTickRing[] strategyRings;
+    // By pair id, set before the pipeline starts
+    private final TickerListener[] listeners = new TickerListener[CurrencyPair.count()];
+    private final int[] strategyOf = new int[CurrencyPair.count()];
+    private final AtomicLong stalls = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private int registered;
+    private Thread[] threads;
+    private volatile boolean closed;
+
+    public TickerPipeline(int strategyThreads) {
+        this(DEFAULT_CAPACITY, strategyThreads, Clock.systemUTC());
+    }
+
+    /**
+     * @param capacity number of tick slots of each ring, rounded up to a power of two
+     * @param clock stamps the tickers without a timestamp
+     */
+    public TickerPipeline(int capacity, int strategyThreads, Clock clock) {
+        if(strategyThreads <= 0){
+            throw new IllegalArgumentException("Invalid number of strategy threads: " + strategyThreads);
+        }
+        this.clock = clock;
+        ingestRing = new SpscTickRing(capacity);
+        strategyRings = new SpscTickRing[strategyThreads];
+        for(int i = 0; i < strategyThreads; i++){
+            strategyRings[i] = new SpscTickRing(capacity);
+        }
+    }
+
+    /**
+     * Register the listener of the pair's tickers, one per pair. Must be called before the pipeline starts.
+     */
+    public synchronized void register(CurrencyPair pair, TickerListener listener) {
+        if(threads != null){
+            throw new IllegalStateException("Pipeline already started");
+        }
+        if(listeners[pair.getId()] != null){
+            throw new IllegalArgumentException("Listener already registered for " + pair);
+        }
+        listeners[pair.getId()] = listener;
+        strategyOf[pair.getId()] = registered++ % strategyRings.length;
+    }
+
+    public synchronized void start() {
+        if(threads != null){
+            return;
+        }
+        threads = new Thread[strategyRings.length + 1];
+        threads[0] = new Thread(this::normalizeLoop, "ticker-normalizer");
+        for(int i = 0; i < strategyRings.length; i++){
+            SpscTickRing ring = strategyRings[i];
+            threads[i + 1] = new Thread(() -> strategyLoop(ring), "ticker-strategy-" + i);
+        }
+        for(Thread thread : threads){
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Ingest stage: must always be called from the same thread, the feed's.
+     */
+    @Override
+    public void onTicker(CurrencyPair pair, Ticker ticker) {
+        int slot = claim(ingestRing);
+        if(slot < 0){
+            return;
+        }
+        ingestRing.write(slot, pair.getId(), ticker);
+        ingestRing.publish();
+    }
+
+    /**
+     * @return the number of times a stage waited for room in the next ring
+     */
+    public long getStalls() {
+        return stalls.get();
+    }
+
+    /**
+     * @return the number of ticks discarded by the normalize stage
+     */
+    public long getDiscarded() {
+        return discarded.get();
+    }
+
+    /**
+     * Stop the stages. The ticks still in the rings are not delivered.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if(threads == null){
+            return;
+        }
+        for(Thread thread : threads){
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void normalizeLoop() {
+        int idle = 0;
+        while(!closed){
+            int slot = ingestRing.peek();
+            if(slot < 0){
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+            int pairId = ingestRing.pairIds[slot];
+            if(listeners[pairId] == null || !isValid(slot)){
+                discarded.incrementAndGet();
+                ingestRing.release();
+                continue;
+            }
+            if(ingestRing.timestamps[slot] == 0){
+                ingestRing.timestamps[slot] = clock.millis();
+            }
+            SpscTickRing target = strategyRings[strategyOf[pairId]];
+            int targetSlot = claim(target);
+            if(targetSlot < 0){
+                return;
+            }
+            ingestRing.copy(slot, target, targetSlot);
+            target.publish();
+            ingestRing.release();
+        }
+    }
+
+    private boolean isValid(int slot) {
+        long bidPrice = ingestRing.bidPrices[slot];
+        return bidPrice > 0 && ingestRing.askPrices[slot] >= bidPrice;
+    }
+
+    private void strategyLoop(SpscTickRing ring) {
+        PooledTicker ticker = new PooledTicker();
+        int idle = 0;
+        while(!closed){
+            int slot = ring.peek();
+            if(slot < 0){
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+            int pairId = ring.pairIds[slot];
+            ring.read(slot, ticker);
+            // The tick is copied: the slot can be refilled while the listener runs
+            ring.release();
+            CurrencyPair pair = CurrencyPair.byId(pairId);
+            try {
+                listeners[pairId].onTicker(pair, ticker);
+            } catch (RuntimeException e) {
+                // One failing listener must not stop the ticks of the other pairs
+                LOGGER.error("Ticker listener failed for {}", pair, e);
+            }
+        }
+    }
+
+    /**
+     * @return a slot of the ring, waiting for one to be free, -1 if the pipeline was closed meanwhile
+     */
+    private int claim(SpscTickRing ring) {
+        int slot = ring.claim();
+        if(slot >= 0){
+            return slot;
+        }
+        stalls.incrementAndGet();
+        int idle = 0;
+        while(!closed){
+            slot = ring.claim();
+            if(slot >= 0){
+                return slot;
+            }
+            idle = idle(idle);
+        }
+        return -1;
+    }
+
+    /**
+     * @param idle number of rounds the stage has been waiting
+     */
+    private static int idle(int idle) {
+        if(idle < SPINS){
+            Thread.onSpinWait();
+            return idle + 1;
+        }
+        // Each park twice as long as the previous one
+        int parks = idle - SPINS;
+        LockSupport.parkNanos(parks < 5 ? MIN_PARK_NANOS << parks : MAX_PARK_NANOS);
+        return parks < 5 ? idle + 1 : idle;
+    }
+}
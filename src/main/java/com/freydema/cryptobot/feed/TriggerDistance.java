@@ -0,0 +1,19 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.domain.Ticker;
+
+/**
+ * How far a pair's market is from the prices a subscriber acts upon, e.g. a trader's buy trigger or the limit of its
+ * open order. Used by {@link AdaptivePollingTickerFeed} to poll the pairs about to trigger more often.
+ */
+@FunctionalInterface
+public interface TriggerDistance {
+
+    /**
+     * @return the relative move of the ticker prices needed to reach the nearest such price, at
+     * {@link com.freydema.cryptobot.domain.FixedPoint#RATIO_SCALE} (10000 for 1%), 0 if already reached, and
+     * {@link Long#MAX_VALUE} if no price move would trigger anything
+     */
+    long getTriggerDistance(Ticker ticker);
+
+}
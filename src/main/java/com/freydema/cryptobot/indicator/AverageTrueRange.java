@@ -0,0 +1,44 @@
+package com.freydema.cryptobot.indicator;
+
+/**
+ * Average true range over a number of ticks, with Wilder's smoothing. A tick has no high and low of its own: its
+ * range is the bid-ask spread, extended to the previous mid price when the market jumped past it.
+ *
+ * Not thread safe: meant to be owned by the trader of one pair.
+ */
+public class AverageTrueRange {
+
+    private final int periods;
+    private long previousMid;
+    private long count;
+    // With Ema.EXTRA_BITS more bits of precision
+    private long average;
+
+    public AverageTrueRange(int periods) {
+        if(periods <= 0){
+            throw new IllegalArgumentException("Invalid ATR periods: " + periods);
+        }
+        this.periods = periods;
+    }
+
+    public void update(long bidPrice, long askPrice) {
+        long low = Math.min(bidPrice, askPrice);
+        long high = Math.max(bidPrice, askPrice);
+        if(count > 0){
+            low = Math.min(low, previousMid);
+            high = Math.max(high, previousMid);
+        }
+        long range = (high - low) << Ema.EXTRA_BITS;
+        count++;
+        average += (range - average) / Math.min(count, periods);
+        previousMid = bidPrice + (askPrice - bidPrice) / 2;
+    }
+
+    public boolean isReady() {
+        return count >= periods;
+    }
+
+    public long getValue() {
+        return average >> Ema.EXTRA_BITS;
+    }
+}
@@ -0,0 +1,19 @@
+package com.freydema.cryptobot.indicator;
+
+import com.freydema.cryptobot.domain.Ticker;
+
+/**
+ * Additional condition on the BUY of a {@link com.freydema.cryptobot.CurrencyPairTrader}, on top of its price range
+ * trigger. Fed with every ticker of the pair, whatever the trader state, and consulted in TRY_BUY only: updates
+ * should be incremental, without allocation.
+ */
+public interface BuySignal {
+
+    void update(Ticker ticker);
+
+    /**
+     * @param ticker the last ticker passed to {@link #update(Ticker)}
+     * @return true if a BUY at the ask price of the ticker is allowed
+     */
+    boolean allowsBuy(Ticker ticker);
+}
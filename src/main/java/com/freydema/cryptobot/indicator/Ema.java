@@ -0,0 +1,44 @@
+package com.freydema.cryptobot.indicator;
+
+/**
+ * Exponential moving average over a number of ticks, smoothing factor 2 / (periods + 1), seeded with the first value.
+ * Values are scaled longs, the average is kept with {@link #EXTRA_BITS} more bits of precision so that the integer
+ * divisions do not bias it.
+ *
+ * Not thread safe: meant to be owned by the trader of one pair.
+ */
+public class Ema {
+
+    static final int EXTRA_BITS = 16;
+
+    private final int periods;
+    private long scaledAverage;
+    private long count;
+
+    public Ema(int periods) {
+        if(periods <= 0){
+            throw new IllegalArgumentException("Invalid EMA periods: " + periods);
+        }
+        this.periods = periods;
+    }
+
+    public void update(long value) {
+        long scaled = value << EXTRA_BITS;
+        if(count++ == 0){
+            scaledAverage = scaled;
+        } else {
+            scaledAverage += (scaled - scaledAverage) * 2 / (periods + 1);
+        }
+    }
+
+    /**
+     * @return true once updated with at least periods values
+     */
+    public boolean isReady() {
+        return count >= periods;
+    }
+
+    public long getValue() {
+        return scaledAverage >> EXTRA_BITS;
+    }
+}
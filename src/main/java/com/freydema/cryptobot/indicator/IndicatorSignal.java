@@ -0,0 +1,101 @@
+package com.freydema.cryptobot.indicator;
+
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Ticker;
+import lombok.Builder;
+
+import java.math.RoundingMode;
+
+/**
+ * {@link BuySignal} combining technical indicators of the mid price, all maintained incrementally per tick. Each
+ * condition is enabled by its periods or window being set, and a BUY is allowed once all the enabled indicators are
+ * warmed up and all the conditions hold:
+ * <ul>
+ *     <li>trend: the fast EMA is at or above the slow one</li>
+ *     <li>discount: the ask is at least {@code minVwapDiscountPercentage} below the VWAP of the window</li>
+ *     <li>momentum: the RSI is at most {@code maxRsi}</li>
+ *     <li>volatility: the ATR, and the standard deviation of the VWAP window, are at most
+ *     {@code maxVolatilityPercentage} of the ask</li>
+ * </ul>
+ * Percentages are at {@link FixedPoint#RATIO_SCALE}, periods and windows are numbers of ticks. The VWAP is weighted by
+ * the volume offered at the top of the book.
+ *
+ * Not thread safe: meant to be owned by the trader of one pair.
+ */
+public class IndicatorSignal implements BuySignal {
+
+    private final Ema fastEma;
+    private final Ema slowEma;
+    private final RollingVwap vwap;
+    private final long minVwapDiscountPercentage;
+    private final Rsi rsi;
+    private final long maxRsi;
+    private final AverageTrueRange atr;
+    private final long maxVolatilityPercentage;
+
+    @Builder
+    private IndicatorSignal(int emaFastPeriods, int emaSlowPeriods, int vwapWindow, long minVwapDiscountPercentage,
+                            int rsiPeriods, long maxRsi, int atrPeriods, long maxVolatilityPercentage) {
+        if((emaFastPeriods > 0) != (emaSlowPeriods > 0) || (emaFastPeriods > 0 && emaFastPeriods >= emaSlowPeriods)){
+            throw new IllegalArgumentException("Invalid EMA periods: fast " + emaFastPeriods + ", slow " + emaSlowPeriods);
+        }
+        this.fastEma = emaFastPeriods > 0 ? new Ema(emaFastPeriods) : null;
+        this.slowEma = emaSlowPeriods > 0 ? new Ema(emaSlowPeriods) : null;
+        this.vwap = vwapWindow > 0 ? new RollingVwap(vwapWindow) : null;
+        this.minVwapDiscountPercentage = minVwapDiscountPercentage;
+        this.rsi = rsiPeriods > 0 ? new Rsi(rsiPeriods) : null;
+        this.maxRsi = maxRsi;
+        this.atr = atrPeriods > 0 ? new AverageTrueRange(atrPeriods) : null;
+        this.maxVolatilityPercentage = maxVolatilityPercentage;
+    }
+
+    @Override
+    public void update(Ticker ticker) {
+        long mid = ticker.getBidPrice() + (ticker.getAskPrice() - ticker.getBidPrice()) / 2;
+        if(fastEma != null){
+            fastEma.update(mid);
+            slowEma.update(mid);
+        }
+        if(vwap != null){
+            vwap.update(mid, ticker.getAskVolume() + ticker.getBidVolume());
+        }
+        if(rsi != null){
+            rsi.update(mid);
+        }
+        if(atr != null){
+            atr.update(ticker.getBidPrice(), ticker.getAskPrice());
+        }
+    }
+
+    @Override
+    public boolean allowsBuy(Ticker ticker) {
+        long askPrice = ticker.getAskPrice();
+        if(fastEma != null && (!slowEma.isReady() || fastEma.getValue() < slowEma.getValue())){
+            return false;
+        }
+        if(vwap != null){
+            if(!vwap.isReady()){
+                return false;
+            }
+            long limit = FixedPoint.mulDiv(vwap.getVwap(), FixedPoint.ONE_HUNDRED_PERCENT - minVwapDiscountPercentage,
+                    FixedPoint.ONE_HUNDRED_PERCENT, RoundingMode.DOWN);
+            if(askPrice > limit){
+                return false;
+            }
+            if(maxVolatilityPercentage > 0 && exceedsVolatility(vwap.getStandardDeviation(), askPrice)){
+                return false;
+            }
+        }
+        if(rsi != null && (!rsi.isReady() || rsi.getValue() > maxRsi)){
+            return false;
+        }
+        if(atr != null && (!atr.isReady() || (maxVolatilityPercentage > 0 && exceedsVolatility(atr.getValue(), askPrice)))){
+            return false;
+        }
+        return true;
+    }
+
+    private boolean exceedsVolatility(long deviation, long price) {
+        return FixedPoint.mulDiv(deviation, FixedPoint.ONE_HUNDRED_PERCENT, price, RoundingMode.UP) > maxVolatilityPercentage;
+    }
+}
@@ -0,0 +1,155 @@
+package com.freydema.cryptobot.indicator;
+
+/**
+ * Minimum and maximum of a price over a sliding time window, maintained incrementally.
+ *
+ * Time is divided in buckets of window / bucketCount milliseconds. Two monotonic deques (increasing for the minimum,
+ * decreasing for the maximum) hold at most one entry per bucket in ring buffers of bucketCount + 1 slots: an update
+ * is O(1) amortized, a query O(1), and memory is bounded whatever the tick rate. Buckets leave the window as a whole,
+ * so the extremes cover between window - bucket width and window of history, once that much history has been
+ * observed: see {@link #coversWindow()}.
+ *
+ * Not thread safe: meant to be owned by the trader of one pair.
+ */
+public class RollingExtremes {
+
+    private final long bucketWidthMillis;
+    private final int bucketCount;
+    private final MonotonicDeque minima;
+    private final MonotonicDeque maxima;
+    private long firstBucket = Long.MIN_VALUE;
+    private long currentBucket = Long.MIN_VALUE;
+    private long currentMin;
+    private long currentMax;
+
+    public RollingExtremes(long windowMillis, int bucketCount) {
+        if(windowMillis <= 0 || bucketCount <= 0 || windowMillis < bucketCount){
+            throw new IllegalArgumentException("Invalid window: " + windowMillis + " ms in " + bucketCount + " buckets");
+        }
+        this.bucketWidthMillis = windowMillis / bucketCount;
+        this.bucketCount = bucketCount;
+        this.minima = new MonotonicDeque(bucketCount + 1, false);
+        this.maxima = new MonotonicDeque(bucketCount + 1, true);
+    }
+
+    /**
+     * @param timestamp epoch milliseconds, non decreasing from one call to the next
+     */
+    public void update(long timestamp, long price) {
+        long bucket = Math.floorDiv(timestamp, bucketWidthMillis);
+        if(bucket != currentBucket){
+            if(firstBucket == Long.MIN_VALUE){
+                firstBucket = bucket;
+            }
+            currentBucket = bucket;
+            currentMin = price;
+            currentMax = price;
+            minima.push(bucket, price);
+            maxima.push(bucket, price);
+        } else {
+            if(price < currentMin){
+                currentMin = price;
+                minima.push(bucket, price);
+            }
+            if(price > currentMax){
+                currentMax = price;
+                maxima.push(bucket, price);
+            }
+        }
+        expire(bucket);
+    }
+
+    public boolean isEmpty() {
+        return minima.isEmpty();
+    }
+
+    /**
+     * @return whether the updates observed span every bucket of the window, i.e. the extremes are not those of a
+     * shorter history, as right after the first update
+     */
+    public boolean coversWindow() {
+        return !isEmpty() && currentBucket - firstBucket >= bucketCount - 1;
+    }
+
+    /**
+     * @return the minimum over the window ending at the last update; undefined when {@link #isEmpty()}
+     */
+    public long getMin() {
+        return minima.firstValue();
+    }
+
+    /**
+     * @return the maximum over the window ending at the last update; undefined when {@link #isEmpty()}
+     */
+    public long getMax() {
+        return maxima.firstValue();
+    }
+
+    /**
+     * Drop what is older than the window ending at the given time, without recording a price.
+     */
+    public void advanceTo(long timestamp) {
+        expire(Math.floorDiv(timestamp, bucketWidthMillis));
+    }
+
+    private void expire(long bucket) {
+        long oldest = bucket - bucketCount + 1;
+        minima.removeBefore(oldest);
+        maxima.removeBefore(oldest);
+    }
+
+
+    /**
+     * Deque of (bucket, value) in a ring buffer, values kept monotonic by dropping from the back every entry that can
+     * no longer be the extreme once a better one is pushed.
+     */
+    private static final class MonotonicDeque {
+
+        private final long[] buckets;
+        private final long[] values;
+        private final boolean keepMaximum;
+        private int head;
+        private int size;
+
+        private MonotonicDeque(int capacity, boolean keepMaximum) {
+            this.buckets = new long[capacity];
+            this.values = new long[capacity];
+            this.keepMaximum = keepMaximum;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long firstValue() {
+            return values[head];
+        }
+
+        void push(long bucket, long value) {
+            while(size > 0){
+                int last = index(size - 1);
+                boolean dominated = keepMaximum ? values[last] <= value : values[last] >= value;
+                if(!dominated){
+                    break;
+                }
+                size--;
+            }
+            int slot = index(size);
+            buckets[slot] = bucket;
+            values[slot] = value;
+            size++;
+        }
+
+        void removeBefore(long bucket) {
+            while(size > 0 && buckets[head] < bucket){
+                head = index(1);
+                size--;
+            }
+        }
+
+        private int index(int offset) {
+            int index = head + offset;
+            return index >= buckets.length ? index - buckets.length : index;
+        }
+    }
+}
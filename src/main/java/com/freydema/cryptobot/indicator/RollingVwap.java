@@ -0,0 +1,97 @@
+package com.freydema.cryptobot.indicator;
+
+/**
+ * Volume weighted average price over the last ticks, and the standard deviation of the price over the same ticks.
+ * Each update replaces the oldest tick of a ring buffer of primitives, and the sums are adjusted instead of being
+ * recomputed: updates and queries are O(1).
+ *
+ * Products of scaled prices and volumes do not fit in a long, the sums are kept in doubles. Prices are accumulated as
+ * differences to the first price observed, which keeps the sum of their squares, and so the variance, accurate.
+ *
+ * Not thread safe: meant to be owned by the trader of one pair.
+ */
+public class RollingVwap {
+
+    private final long[] prices;
+    private final long[] volumes;
+    private int next;
+    private int size;
+    private long reference;
+    private double volumeSum;
+    private double weightedSum;
+    private double deviationSum;
+    private double squaredDeviationSum;
+
+    /**
+     * @param window number of ticks averaged
+     */
+    public RollingVwap(int window) {
+        if(window <= 0){
+            throw new IllegalArgumentException("Invalid VWAP window: " + window);
+        }
+        prices = new long[window];
+        volumes = new long[window];
+    }
+
+    /**
+     * @param volume weight of the price, at any scale as long as it is always the same
+     */
+    public void update(long price, long volume) {
+        if(size == 0 && next == 0){
+            reference = price;
+        }
+        if(size == prices.length){
+            remove(prices[next], volumes[next]);
+        } else {
+            size++;
+        }
+        prices[next] = price;
+        volumes[next] = volume;
+        double deviation = price - reference;
+        volumeSum += volume;
+        weightedSum += deviation * volume;
+        deviationSum += deviation;
+        squaredDeviationSum += deviation * deviation;
+        next = next + 1 == prices.length ? 0 : next + 1;
+    }
+
+    /**
+     * @return true once the window is full
+     */
+    public boolean isReady() {
+        return size == prices.length;
+    }
+
+    /**
+     * @return the volume weighted average price, the plain average when no volume was observed
+     */
+    public long getVwap() {
+        if(size == 0){
+            return 0;
+        }
+        if(volumeSum <= 0){
+            return reference + Math.round(deviationSum / size);
+        }
+        return reference + Math.round(weightedSum / volumeSum);
+    }
+
+    /**
+     * @return the population standard deviation of the prices
+     */
+    public long getStandardDeviation() {
+        if(size == 0){
+            return 0;
+        }
+        double mean = deviationSum / size;
+        double variance = squaredDeviationSum / size - mean * mean;
+        return variance > 0 ? Math.round(Math.sqrt(variance)) : 0;
+    }
+
+    private void remove(long price, long volume) {
+        double deviation = price - reference;
+        volumeSum -= volume;
+        weightedSum -= deviation * volume;
+        deviationSum -= deviation;
+        squaredDeviationSum -= deviation * deviation;
+    }
+}
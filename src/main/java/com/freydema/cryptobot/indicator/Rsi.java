@@ -0,0 +1,63 @@
+package com.freydema.cryptobot.indicator;
+
+import com.freydema.cryptobot.domain.FixedPoint;
+
+import java.math.RoundingMode;
+
+/**
+ * Relative strength index over a number of ticks, with Wilder's smoothing of the average gain and loss:
+ * 100 * gain / (gain + loss), at {@link FixedPoint#RATIO_SCALE} (i.e. 100% = {@link FixedPoint#ONE_HUNDRED_PERCENT}).
+ *
+ * Not thread safe: meant to be owned by the trader of one pair.
+ */
+public class Rsi {
+
+    private final int periods;
+    private long previous;
+    private long count;
+    // Averages with Ema.EXTRA_BITS more bits of precision
+    private long averageGain;
+    private long averageLoss;
+
+    public Rsi(int periods) {
+        if(periods <= 0){
+            throw new IllegalArgumentException("Invalid RSI periods: " + periods);
+        }
+        this.periods = periods;
+    }
+
+    public void update(long value) {
+        if(count++ > 0){
+            long change = (value - previous) << Ema.EXTRA_BITS;
+            long gain = Math.max(change, 0);
+            long loss = Math.max(-change, 0);
+            if(count <= periods){
+                // Warm up: simple average of the first changes
+                averageGain += (gain - averageGain) / (count - 1);
+                averageLoss += (loss - averageLoss) / (count - 1);
+            } else {
+                averageGain += (gain - averageGain) / periods;
+                averageLoss += (loss - averageLoss) / periods;
+            }
+        }
+        previous = value;
+    }
+
+    /**
+     * @return true once periods changes were observed
+     */
+    public boolean isReady() {
+        return count > periods;
+    }
+
+    /**
+     * @return the index at {@link FixedPoint#RATIO_SCALE}, 50% when the price did not move
+     */
+    public long getValue() {
+        long total = averageGain + averageLoss;
+        if(total == 0){
+            return FixedPoint.ONE_HUNDRED_PERCENT / 2;
+        }
+        return FixedPoint.mulDiv(FixedPoint.ONE_HUNDRED_PERCENT, averageGain, total, RoundingMode.HALF_EVEN);
+    }
+}
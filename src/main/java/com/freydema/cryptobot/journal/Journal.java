@@ -0,0 +1,363 @@
+package com.freydema.cryptobot.journal;
+
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.TraderStateListener;
+import com.freydema.cryptobot.domain.AccountListener;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Durable write-ahead journal of the {@link com.freydema.cryptobot.domain.Account} holdings and of the trader states
+ * and open orders. Registered as a listener of both, it records every change in an append-only file, and the state
+ * they rebuild is recovered when the journal is opened again.
+ *
+ * The listeners only enqueue the change: a single writer thread appends whatever accumulated since its last write
+ * and syncs it with one fsync (group commit), so journaling never blocks the ticker handling. {@link #sync()} waits
+ * until everything journaled so far is durable.
+ *
+ * Once the journal file exceeds a threshold the writer compacts it into a snapshot of the latest state and starts
+ * over, so that recovery loads the snapshot and replays a short tail. Each record is framed with its length and a
+ * CRC32: a record torn by a crash is detected and dropped on recovery.
+ *
+ * A write failure stops the journaling for good. The listeners are called while their state is being changed, they
+ * never see it: the failure is recorded and reported to the failure listeners, which are expected to stop trading.
+ */
+public class Journal implements AccountListener, TraderStateListener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Journal.class);
+
+    public static final long DEFAULT_SNAPSHOT_THRESHOLD = 4 << 20;
+
+    static final String JOURNAL_FILE = "journal.log";
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    static final String SNAPSHOT_TEMPORARY_FILE = "snapshot.tmp";
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 4096;
+    private static final long POLL_MILLIS = 50;
+
+    private final Path directory;
+    private final long snapshotThreshold;
+    private final JournalState recoveredState;
+    private final BlockingQueue<JournalRecord> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong appended = new AtomicLong();
+    private final List<Consumer<IOException>> failureListeners = new CopyOnWriteArrayList<>();
+    private final Thread writer;
+
+    // Only accessed by the writer thread once started
+    private final JournalState state;
+    private final FileChannel channel;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DataOutputStream output = new DataOutputStream(buffer);
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream recordOutput = new DataOutputStream(recordBuffer);
+    private final CRC32 crc = new CRC32();
+    private long journalSize;
+
+    // Guarded by this
+    private long durable;
+
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    public Journal(Path directory) throws IOException {
+        this(directory, DEFAULT_SNAPSHOT_THRESHOLD);
+    }
+
+    /**
+     * Open the journal of the directory, recovering the state it contains.
+     * @param snapshotThreshold size of the journal file, in bytes, above which it is compacted into a snapshot
+     */
+    public Journal(Path directory, long snapshotThreshold) throws IOException {
+        this.directory = directory;
+        this.snapshotThreshold = snapshotThreshold;
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        state = new JournalState();
+        int snapshotRecords = loadSnapshot();
+        channel = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int journalRecords = replayJournal();
+        recoveredState = state.copy();
+        LOGGER.info("Recovered {} snapshot and {} journal records from {} in {} ms", snapshotRecords, journalRecords,
+                directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        writer = new Thread(this::writeLoop, "journal-writer");
+        writer.start();
+    }
+
+    /**
+     * @return the state recovered when the journal was opened, empty for a new journal
+     */
+    public JournalState getRecoveredState() {
+        return recoveredState;
+    }
+
+    /**
+     * Register a listener notified once if the journal fails, on the writer thread, or right away if it already did.
+     */
+    public void addFailureListener(Consumer<IOException> listener) {
+        failureListeners.add(listener);
+        IOException failure = this.failure;
+        if(failure != null){
+            listener.accept(failure);
+        }
+    }
+
+    /**
+     * @return true once a write failed: the changes are no longer journaled
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    @Override
+    public void onHoldingChanged(Currency currency, long balance, long blocked) {
+        append(new JournalRecord.Holding(currency, balance, blocked));
+    }
+
+    @Override
+    public void onStateChanged(CurrencyPair pair, CurrencyPairTrader.State state, Order buyOrder, Order sellOrder,
+                               long filledQuantity, long buyFeePercentage) {
+        append(new JournalRecord.Trader(pair, state, buyOrder, sellOrder, filledQuantity, buyFeePercentage));
+    }
+
+    /**
+     * Called by the account and the traders in the middle of a change: never throws, the change is dropped once the
+     * journal is closed or failed.
+     */
+    private void append(JournalRecord record) {
+        if(failure != null){
+            return;
+        }
+        if(closed){
+            LOGGER.warn("Journal closed, change dropped");
+            return;
+        }
+        appended.incrementAndGet();
+        queue.add(record);
+    }
+
+    /**
+     * Wait until every change journaled before the call is durable.
+     * @throws UncheckedIOException if the journal could not be written
+     */
+    public void sync() {
+        long target = appended.get();
+        synchronized (this) {
+            while(durable < target && failure == null){
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if(failure != null){
+                throw new UncheckedIOException("Journal failed", failure);
+            }
+        }
+    }
+
+    /**
+     * Stop journaling once every pending change is durable.
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed){
+            return;
+        }
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if(failure != null){
+            throw failure;
+        }
+    }
+
+    private void writeLoop() {
+        List<JournalRecord> batch = new ArrayList<>();
+        try {
+            while(true){
+                JournalRecord first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if(first == null){
+                    if(closed && queue.isEmpty()){
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch);
+                batch.clear();
+                if(journalSize >= snapshotThreshold){
+                    snapshot();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Journal write failed, journaling stopped", e);
+            failure = e;
+            for(Consumer<IOException> listener : failureListeners){
+                listener.accept(e);
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBatch(List<JournalRecord> batch) throws IOException {
+        buffer.reset();
+        for(JournalRecord record : batch){
+            frame(record);
+            record.applyTo(state);
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while(bytes.hasRemaining()){
+            channel.write(bytes);
+        }
+        // One fsync for the whole batch
+        channel.force(false);
+        journalSize += bytes.limit();
+        synchronized (this) {
+            durable += batch.size();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Append the framed record to the buffer: payload length, payload CRC32, payload.
+     */
+    private void frame(JournalRecord record) throws IOException {
+        recordBuffer.reset();
+        record.write(recordOutput);
+        byte[] payload = recordBuffer.toByteArray();
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        output.writeInt(payload.length);
+        output.writeInt((int) crc.getValue());
+        output.write(payload);
+    }
+
+    /**
+     * Write the current state to a new snapshot, atomically replacing the previous one, then empty the journal.
+     * Records carry absolute values, so a crash before the journal is emptied only replays records already
+     * reflected in the snapshot.
+     */
+    private void snapshot() throws IOException {
+        buffer.reset();
+        for(JournalRecord record : state.toRecords()){
+            frame(record);
+        }
+        Path temporary = directory.resolve(SNAPSHOT_TEMPORARY_FILE);
+        try(FileChannel snapshotChannel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while(bytes.hasRemaining()){
+                snapshotChannel.write(bytes);
+            }
+            snapshotChannel.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        LOGGER.debug("Compacted {} journal bytes into a snapshot", journalSize);
+        journalSize = 0;
+    }
+
+    private int loadSnapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if(!Files.exists(path)){
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        int[] count = new int[1];
+        int valid = readRecords(path, bytes, count);
+        if(valid != bytes.length){
+            // Snapshots are written aside and moved in place: a corrupt one is not the result of a crash
+            throw new IOException("Corrupt journal snapshot " + path);
+        }
+        return count[0];
+    }
+
+    private int replayJournal() throws IOException {
+        Path path = directory.resolve(JOURNAL_FILE);
+        byte[] bytes = Files.readAllBytes(path);
+        int[] count = new int[1];
+        int valid = readRecords(path, bytes, count);
+        if(valid != bytes.length){
+            LOGGER.warn("Dropping {} bytes of torn journal tail", bytes.length - valid);
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        channel.position(valid);
+        journalSize = valid;
+        return count[0];
+    }
+
+    /**
+     * Apply the framed records to the state, up to the first incomplete or corrupt one.
+     * @return the number of bytes of valid records
+     * @throws IOException if an intact record cannot be read, e.g. its instrument is no longer registered
+     */
+    private int readRecords(Path path, byte[] bytes, int[] count) throws IOException {
+        ByteBuffer frames = ByteBuffer.wrap(bytes);
+        while(frames.remaining() >= FRAME_HEADER_BYTES){
+            int start = frames.position();
+            int length = frames.getInt();
+            int checksum = frames.getInt();
+            if(length <= 0 || length > frames.remaining()){
+                return start;
+            }
+            crc.reset();
+            crc.update(bytes, frames.position(), length);
+            if((int) crc.getValue() != checksum){
+                return start;
+            }
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes, frames.position(), length));
+            JournalRecord record;
+            try {
+                record = JournalRecord.read(input);
+            } catch (IOException e) {
+                throw new IOException("Unreadable record at offset " + start + " of " + path + ": " + e.getMessage(),
+                        e);
+            }
+            record.applyTo(state);
+            frames.position(frames.position() + length);
+            count[0]++;
+        }
+        return frames.position();
+    }
+}
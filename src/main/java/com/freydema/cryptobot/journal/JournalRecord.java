@@ -0,0 +1,153 @@
+package com.freydema.cryptobot.journal;
+
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.OrderSide;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A journaled change. Records carry absolute values rather than deltas: replaying a record twice, or replaying
+ * records already covered by a snapshot, leaves the state unchanged.
+ *
+ * Currencies, pairs, states and sides are written by name so that reordering an enum does not corrupt a journal.
+ */
+abstract class JournalRecord {
+
+    private static final byte HOLDING = 1;
+    // Trader records journaled before the BUY fee was: the current fee is assumed on recovery
+    private static final byte TRADER_WITHOUT_FEE = 2;
+    private static final byte TRADER = 3;
+
+    abstract void write(DataOutput output) throws IOException;
+
+    abstract void applyTo(JournalState state);
+
+    /**
+     * @throws IOException if the record is of an unknown type, or refers to an unknown instrument or state
+     */
+    static JournalRecord read(DataInput input) throws IOException {
+        try {
+            return readRecord(input);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static JournalRecord readRecord(DataInput input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case HOLDING:
+                return new Holding(Currency.valueOf(input.readUTF()), input.readLong(), input.readLong());
+            case TRADER_WITHOUT_FEE:
+                return new Trader(CurrencyPair.valueOf(input.readUTF()),
+                        CurrencyPairTrader.State.valueOf(input.readUTF()), readOrder(input), readOrder(input),
+                        input.readLong(), -1);
+            case TRADER:
+                return new Trader(CurrencyPair.valueOf(input.readUTF()),
+                        CurrencyPairTrader.State.valueOf(input.readUTF()), readOrder(input), readOrder(input),
+                        input.readLong(), input.readLong());
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    private static void writeOrder(DataOutput output, Order order) throws IOException {
+        output.writeBoolean(order != null);
+        if(order == null){
+            return;
+        }
+        output.writeUTF(order.getId());
+        output.writeUTF(order.getPair().getName());
+        output.writeUTF(order.getSide().name());
+        output.writeLong(order.getQuantity());
+        output.writeLong(order.getLimit());
+        output.writeLong(order.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+        output.writeInt(order.getCreatedAt().getNano());
+    }
+
+    private static Order readOrder(DataInput input) throws IOException {
+        if(!input.readBoolean()){
+            return null;
+        }
+        return Order.builder()
+                .id(input.readUTF())
+                .pair(CurrencyPair.valueOf(input.readUTF()))
+                .side(OrderSide.valueOf(input.readUTF()))
+                .quantity(input.readLong())
+                .limit(input.readLong())
+                .createdAt(LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC))
+                .build();
+    }
+
+
+    static final class Holding extends JournalRecord {
+
+        private final Currency currency;
+        private final long balance;
+        private final long blocked;
+
+        Holding(Currency currency, long balance, long blocked) {
+            this.currency = currency;
+            this.balance = balance;
+            this.blocked = blocked;
+        }
+
+        @Override
+        void write(DataOutput output) throws IOException {
+            output.writeByte(HOLDING);
+            output.writeUTF(currency.getName());
+            output.writeLong(balance);
+            output.writeLong(blocked);
+        }
+
+        @Override
+        void applyTo(JournalState state) {
+            state.applyHolding(currency, balance, blocked);
+        }
+    }
+
+
+    static final class Trader extends JournalRecord {
+
+        private final CurrencyPair pair;
+        private final CurrencyPairTrader.State state;
+        private final Order buyOrder;
+        private final Order sellOrder;
+        private final long filledQuantity;
+        // Negative if unknown
+        private final long buyFeePercentage;
+
+        Trader(CurrencyPair pair, CurrencyPairTrader.State state, Order buyOrder, Order sellOrder,
+               long filledQuantity, long buyFeePercentage) {
+            this.pair = pair;
+            this.state = state;
+            this.buyOrder = buyOrder;
+            this.sellOrder = sellOrder;
+            this.filledQuantity = filledQuantity;
+            this.buyFeePercentage = buyFeePercentage;
+        }
+
+        @Override
+        void write(DataOutput output) throws IOException {
+            output.writeByte(TRADER);
+            output.writeUTF(pair.getName());
+            output.writeUTF(state.name());
+            writeOrder(output, buyOrder);
+            writeOrder(output, sellOrder);
+            output.writeLong(filledQuantity);
+            output.writeLong(buyFeePercentage);
+        }
+
+        @Override
+        void applyTo(JournalState journalState) {
+            journalState.applyTrader(pair, state, buyOrder, sellOrder, filledQuantity, buyFeePercentage);
+        }
+    }
+}
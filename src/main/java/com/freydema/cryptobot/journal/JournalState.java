@@ -0,0 +1,143 @@
+package com.freydema.cryptobot.journal;
+
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The latest journaled holding of every currency and state of every trader: what a snapshot contains and what
+ * replaying a journal rebuilds.
+ */
+public class JournalState {
+
+    private final Holding[] holdings = new Holding[Currency.count()];
+    private final Trader[] traders = new Trader[CurrencyPair.count()];
+
+    JournalState() {
+    }
+
+    private JournalState(JournalState other) {
+        System.arraycopy(other.holdings, 0, holdings, 0, holdings.length);
+        System.arraycopy(other.traders, 0, traders, 0, traders.length);
+    }
+
+    JournalState copy() {
+        return new JournalState(this);
+    }
+
+    void applyHolding(Currency currency, long balance, long blocked) {
+        holdings[currency.getId()] = new Holding(balance, blocked);
+    }
+
+    void applyTrader(CurrencyPair pair, CurrencyPairTrader.State state, Order buyOrder, Order sellOrder,
+                     long filledQuantity, long buyFeePercentage) {
+        traders[pair.getId()] = new Trader(state, buyOrder, sellOrder, filledQuantity, buyFeePercentage);
+    }
+
+    /**
+     * @return one record per known currency and trader
+     */
+    List<JournalRecord> toRecords() {
+        List<JournalRecord> records = new ArrayList<>();
+        for(Currency currency : Currency.values()){
+            Holding holding = holdings[currency.getId()];
+            if(holding != null){
+                records.add(new JournalRecord.Holding(currency, holding.balance, holding.blocked));
+            }
+        }
+        for(CurrencyPair pair : CurrencyPair.values()){
+            Trader trader = traders[pair.getId()];
+            if(trader != null){
+                records.add(new JournalRecord.Trader(pair, trader.state, trader.buyOrder, trader.sellOrder,
+                        trader.filledQuantity, trader.buyFeePercentage));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return true when nothing was journaled yet, i.e. on the very first start
+     */
+    public boolean isEmpty() {
+        for(Holding holding : holdings){
+            if(holding != null){
+                return false;
+            }
+        }
+        for(Trader trader : traders){
+            if(trader != null){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the journaled state of the trader of the pair, null if it never moved
+     */
+    public CurrencyPairTrader.State getTraderState(CurrencyPair pair) {
+        Trader trader = traders[pair.getId()];
+        return trader != null ? trader.state : null;
+    }
+
+    /**
+     * Restore the balances and blocked amounts of every journaled currency.
+     */
+    public void restore(Account account) {
+        for(Currency currency : Currency.values()){
+            Holding holding = holdings[currency.getId()];
+            if(holding != null){
+                account.restore(currency, holding.balance, holding.blocked);
+            }
+        }
+    }
+
+    /**
+     * Resume the trader in its journaled state with its open orders, or from scratch if it was never journaled. The
+     * account is expected to be restored first: the trader may release funds blocked for its orders.
+     */
+    public void restore(CurrencyPairTrader trader) {
+        Trader journaled = traders[trader.getPair().getId()];
+        if(journaled == null){
+            trader.recover();
+        } else {
+            trader.recover(journaled.state, journaled.buyOrder, journaled.sellOrder, journaled.filledQuantity,
+                    journaled.buyFeePercentage);
+        }
+    }
+
+
+    private static final class Holding {
+
+        private final long balance;
+        private final long blocked;
+
+        private Holding(long balance, long blocked) {
+            this.balance = balance;
+            this.blocked = blocked;
+        }
+    }
+
+    private static final class Trader {
+
+        private final CurrencyPairTrader.State state;
+        private final Order buyOrder;
+        private final Order sellOrder;
+        private final long filledQuantity;
+        private final long buyFeePercentage;
+
+        private Trader(CurrencyPairTrader.State state, Order buyOrder, Order sellOrder, long filledQuantity,
+                       long buyFeePercentage) {
+            this.state = state;
+            this.buyOrder = buyOrder;
+            this.sellOrder = sellOrder;
+            this.filledQuantity = filledQuantity;
+            this.buyFeePercentage = buyFeePercentage;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.freydema.cryptobot.metrics;
+
+import com.freydema.cryptobot.domain.AccountListener;
+import com.freydema.cryptobot.domain.Currency;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the {@link com.freydema.cryptobot.domain.Account} mutations per currency
+ * ({@code cryptobot_account_mutations_total}): the shared quote currency is where the traders contend.
+ */
+public class AccountMetrics implements AccountListener {
+
+    private final LongAdder[] mutations = new LongAdder[Currency.count()];
+
+    public AccountMetrics(MetricsRegistry registry) {
+        for(Currency currency : Currency.values()){
+            mutations[currency.getId()] = registry.counter("cryptobot_account_mutations_total",
+                    "currency", currency.getName());
+        }
+    }
+
+    @Override
+    public void onHoldingChanged(Currency currency, long balance, long blocked) {
+        mutations[currency.getId()].increment();
+    }
+}
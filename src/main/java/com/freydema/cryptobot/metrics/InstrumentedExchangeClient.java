@@ -0,0 +1,132 @@
+package com.freydema.cryptobot.metrics;
+
+import com.freydema.cryptobot.ExchangeClient;
+import com.freydema.cryptobot.ExecutionListener;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.Ticker;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorates an {@link ExchangeClient} with the latency of its calls per pair
+ * ({@code cryptobot_exchange_request_seconds}, labelled by operation) and their failures
+ * ({@code cryptobot_exchange_failures_total}). Order placements and cancellations are timed until their future
+ * completes, i.e. until the exchange acknowledged them.
+ */
+public class InstrumentedExchangeClient implements ExchangeClient {
+
+    private static final String GET_TICKER = "getTicker";
+    private static final String PLACE_ORDER = "placeOrder";
+    private static final String CANCEL_ORDER = "cancelOrder";
+
+    private final ExchangeClient delegate;
+    private final LatencyHistogram getTickersLatency;
+    private final LongAdder getTickersFailures;
+    private final LatencyHistogram[] getTickerLatencies = new LatencyHistogram[CurrencyPair.count()];
+    private final LongAdder[] getTickerFailures = new LongAdder[CurrencyPair.count()];
+    private final LatencyHistogram[] placeOrderLatencies = new LatencyHistogram[CurrencyPair.count()];
+    private final LongAdder[] placeOrderFailures = new LongAdder[CurrencyPair.count()];
+    private final LatencyHistogram[] cancelOrderLatencies = new LatencyHistogram[CurrencyPair.count()];
+    private final LongAdder[] cancelOrderFailures = new LongAdder[CurrencyPair.count()];
+
+    public InstrumentedExchangeClient(ExchangeClient delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        getTickersLatency = latency(registry, "getTickers");
+        getTickersFailures = failures(registry, "getTickers");
+        for(CurrencyPair pair : CurrencyPair.values()){
+            int index = pair.getId();
+            getTickerLatencies[index] = latency(registry, GET_TICKER, "pair", pair.getName());
+            getTickerFailures[index] = failures(registry, GET_TICKER, "pair", pair.getName());
+            placeOrderLatencies[index] = latency(registry, PLACE_ORDER, "pair", pair.getName());
+            placeOrderFailures[index] = failures(registry, PLACE_ORDER, "pair", pair.getName());
+            cancelOrderLatencies[index] = latency(registry, CANCEL_ORDER, "pair", pair.getName());
+            cancelOrderFailures[index] = failures(registry, CANCEL_ORDER, "pair", pair.getName());
+        }
+    }
+
+    @Override
+    public Ticker getTicker(CurrencyPair pair) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTicker(pair);
+        } catch (RuntimeException e) {
+            getTickerFailures[pair.getId()].increment();
+            throw e;
+        } finally {
+            getTickerLatencies[pair.getId()].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Map<CurrencyPair, Ticker> getTickers(Collection<CurrencyPair> pairs) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTickers(pairs);
+        } catch (RuntimeException e) {
+            getTickersFailures.increment();
+            throw e;
+        } finally {
+            getTickersLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Order> placeOrder(Order order) {
+        int index = order.getPair().getId();
+        long start = System.nanoTime();
+        return timed(delegate.placeOrder(order), start, placeOrderLatencies[index], placeOrderFailures[index]);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelOrder(Order order) {
+        int index = order.getPair().getId();
+        long start = System.nanoTime();
+        return timed(delegate.cancelOrder(order), start, cancelOrderLatencies[index], cancelOrderFailures[index]);
+    }
+
+    @Override
+    public void addExecutionListener(CurrencyPair pair, ExecutionListener listener) {
+        delegate.addExecutionListener(pair, listener);
+    }
+
+    private static <T> CompletableFuture<T> timed(CompletableFuture<T> future, long start, LatencyHistogram latency,
+                                                  LongAdder failures) {
+        if(future.isDone()){
+            // Synchronous exchanges (backtest, simulator): no callback to register
+            latency.record(System.nanoTime() - start);
+            if(future.isCompletedExceptionally()){
+                failures.increment();
+            }
+            return future;
+        }
+        future.whenComplete((result, failure) -> {
+            latency.record(System.nanoTime() - start);
+            if(failure != null){
+                failures.increment();
+            }
+        });
+        return future;
+    }
+
+    private static LatencyHistogram latency(MetricsRegistry registry, String operation, String... labels) {
+        return registry.histogram("cryptobot_exchange_request_seconds", TimeUnit.NANOSECONDS,
+                withOperation(operation, labels));
+    }
+
+    private static LongAdder failures(MetricsRegistry registry, String operation, String... labels) {
+        return registry.counter("cryptobot_exchange_failures_total", withOperation(operation, labels));
+    }
+
+    private static String[] withOperation(String operation, String[] labels) {
+        String[] result = new String[labels.length + 2];
+        result[0] = "operation";
+        result[1] = operation;
+        System.arraycopy(labels, 0, result, 2, labels.length);
+        return result;
+    }
+}
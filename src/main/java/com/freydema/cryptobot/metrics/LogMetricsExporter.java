@@ -0,0 +1,67 @@
+package com.freydema.cryptobot.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically logs one line per metric that was recorded: the counters' values, and the histograms' count, median,
+ * 99th percentile and max.
+ */
+public class LogMetricsExporter implements MetricsExporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogMetricsExporter.class);
+
+    private final MetricsRegistry registry;
+    private final Duration period;
+    private ScheduledExecutorService scheduler;
+
+    public LogMetricsExporter(MetricsRegistry registry, Duration period) {
+        this.registry = registry;
+        this.period = period;
+    }
+
+    @Override
+    public synchronized void start() {
+        if(scheduler != null){
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::dump, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if(scheduler != null){
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    void dump() {
+        for(MetricsRegistry.Metric metric : registry.getMetrics()){
+            if(!metric.isHistogram()){
+                long value = metric.getCounter().sum();
+                if(value != 0){
+                    LOGGER.info("{}{{}} {}", metric.getName(), metric.getLabels(), value);
+                }
+                continue;
+            }
+            LatencyHistogram histogram = metric.getHistogram();
+            if(histogram.getCount() != 0){
+                TimeUnit unit = histogram.getUnit();
+                LOGGER.info("{}{{}} count={} p50={}us p99={}us max={}us", metric.getName(), metric.getLabels(),
+                        histogram.getCount(), unit.toMicros(histogram.getValueAtPercentile(50)),
+                        unit.toMicros(histogram.getValueAtPercentile(99)), unit.toMicros(histogram.getMax()));
+            }
+        }
+    }
+}
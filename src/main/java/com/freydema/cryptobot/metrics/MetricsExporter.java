@@ -0,0 +1,16 @@
+package com.freydema.cryptobot.metrics;
+
+import java.io.Closeable;
+
+/**
+ * Publishes the metrics of a {@link MetricsRegistry} outside of the process, e.g. {@link PrometheusHttpExporter} or
+ * {@link LogMetricsExporter}. Exporters only read the metrics, on their own thread.
+ */
+public interface MetricsExporter extends Closeable {
+
+    void start();
+
+    @Override
+    void close();
+
+}
@@ -0,0 +1,110 @@
+package com.freydema.cryptobot.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named histograms and counters, each optionally qualified by labels (e.g. the pair and the state), read by the
+ * {@link MetricsExporter}s.
+ *
+ * Looking a metric up is meant to be done once, when wiring the components: they then record into the returned
+ * instance directly, which costs no lookup nor allocation on the hot path.
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentSkipListMap<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param labels label names and values, alternated
+     * @return the histogram of that name and labels, created on first use
+     */
+    public LatencyHistogram histogram(String name, TimeUnit unit, String... labels) {
+        Metric metric = metrics.computeIfAbsent(key(name, labels),
+                key -> new Metric(name, formatLabels(labels), new LatencyHistogram(unit)));
+        if(!(metric.value instanceof LatencyHistogram)){
+            throw new IllegalArgumentException("Not a histogram: " + metric.name);
+        }
+        return (LatencyHistogram) metric.value;
+    }
+
+    /**
+     * @param labels label names and values, alternated
+     * @return the counter of that name and labels, created on first use
+     */
+    public LongAdder counter(String name, String... labels) {
+        Metric metric = metrics.computeIfAbsent(key(name, labels),
+                key -> new Metric(name, formatLabels(labels), new LongAdder()));
+        if(!(metric.value instanceof LongAdder)){
+            throw new IllegalArgumentException("Not a counter: " + metric.name);
+        }
+        return (LongAdder) metric.value;
+    }
+
+    /**
+     * @return the metrics sorted by name, then labels
+     */
+    public Collection<Metric> getMetrics() {
+        return Collections.unmodifiableCollection(metrics.values());
+    }
+
+    private static String key(String name, String[] labels) {
+        return name + '{' + formatLabels(labels) + '}';
+    }
+
+    private static String formatLabels(String[] labels) {
+        if(labels.length % 2 != 0){
+            throw new IllegalArgumentException("Labels must be name and value pairs");
+        }
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < labels.length; i += 2){
+            if(i > 0){
+                builder.append(',');
+            }
+            builder.append(labels[i]).append("=\"").append(labels[i + 1]).append('"');
+        }
+        return builder.toString();
+    }
+
+
+    /**
+     * A registered metric: a {@link LatencyHistogram} or a {@link LongAdder} counter.
+     */
+    public static final class Metric {
+
+        private final String name;
+        private final String labels;
+        private final Object value;
+
+        private Metric(String name, String labels, Object value) {
+            this.name = name;
+            this.labels = labels;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the labels in the Prometheus text format, e.g. {@code pair="BTCEUR",state="TRY_BUY"}, empty if none
+         */
+        public String getLabels() {
+            return labels;
+        }
+
+        public boolean isHistogram() {
+            return value instanceof LatencyHistogram;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return (LatencyHistogram) value;
+        }
+
+        public LongAdder getCounter() {
+            return (LongAdder) value;
+        }
+    }
+}
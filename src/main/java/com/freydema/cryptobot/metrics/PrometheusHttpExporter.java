@@ -0,0 +1,83 @@
+package com.freydema.cryptobot.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the metrics in the Prometheus text format on {@code http://<address>/metrics}, with the HTTP server of the
+ * JDK on a single daemon thread.
+ */
+public class PrometheusHttpExporter implements MetricsExporter {
+
+    public static final String PATH = "/metrics";
+
+    private final MetricsRegistry registry;
+    private final InetSocketAddress address;
+    private HttpServer server;
+
+    /**
+     * @param address typically a loopback address, port 0 picks a free port
+     */
+    public PrometheusHttpExporter(MetricsRegistry registry, InetSocketAddress address) {
+        this.registry = registry;
+        this.address = address;
+    }
+
+    @Override
+    public synchronized void start() {
+        if(server != null){
+            return;
+        }
+        try {
+            server = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot serve metrics on " + address, e);
+        }
+        server.createContext(PATH, this::handle);
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    /**
+     * @return the address the server is bound to, null if not started
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return server != null ? server.getAddress() : null;
+    }
+
+    @Override
+    public synchronized void close() {
+        if(server != null){
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if(!"GET".equals(exchange.getRequestMethod())){
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = PrometheusTextFormat.format(registry).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusTextFormat.CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try(OutputStream output = exchange.getResponseBody()){
+                output.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.freydema.cryptobot.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders a {@link MetricsRegistry} in the Prometheus text exposition format. Counters are exported as counters and
+ * histograms as summaries in seconds, with a few quantiles, their count, sum and max.
+ */
+public final class PrometheusTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private PrometheusTextFormat() {
+    }
+
+    public static String format(MetricsRegistry registry) {
+        StringBuilder builder = new StringBuilder();
+        String previousName = null;
+        for(MetricsRegistry.Metric metric : registry.getMetrics()){
+            String name = metric.getName();
+            if(!name.equals(previousName)){
+                builder.append("# TYPE ").append(name).append(metric.isHistogram() ? " summary\n" : " counter\n");
+                previousName = name;
+            }
+            String labels = metric.getLabels();
+            if(!metric.isHistogram()){
+                sample(builder, name, labels, null, metric.getCounter().sum());
+                continue;
+            }
+            LatencyHistogram histogram = metric.getHistogram();
+            TimeUnit unit = histogram.getUnit();
+            for(double quantile : QUANTILES){
+                sample(builder, name, labels, "quantile=\"" + quantile + '"',
+                        seconds(histogram.getValueAtPercentile(quantile * 100), unit));
+            }
+            sample(builder, name + "_count", labels, null, histogram.getCount());
+            sample(builder, name + "_sum", labels, null, seconds(histogram.getSum(), unit));
+            sample(builder, name + "_max", labels, null, seconds(histogram.getMax(), unit));
+        }
+        return builder.toString();
+    }
+
+    static double seconds(long value, TimeUnit unit) {
+        return (double) unit.toNanos(value) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static void sample(StringBuilder builder, String name, String labels, String extraLabel, Object value) {
+        builder.append(name);
+        if(!labels.isEmpty() || extraLabel != null){
+            builder.append('{').append(labels);
+            if(extraLabel != null){
+                builder.append(labels.isEmpty() ? "" : ",").append(extraLabel);
+            }
+            builder.append('}');
+        }
+        builder.append(' ').append(value).append('\n');
+    }
+}
@@ -0,0 +1,63 @@
+package com.freydema.cryptobot.metrics;
+
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.domain.CurrencyPair;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instruments of one {@link CurrencyPairTrader}, resolved once from the registry:
+ * <ul>
+ *     <li>{@code cryptobot_trader_decision_seconds}: handling of a ticker, from its arrival in the trader to the
+ *     decision and the resulting order placement</li>
+ *     <li>{@code cryptobot_trader_ticker_age_seconds}: age of the tickers carrying an exchange timestamp when the
+ *     decision is taken, including the polling and dispatching delays</li>
+ *     <li>{@code cryptobot_trader_state_seconds} and {@code cryptobot_trader_transitions_total}: time spent in each
+ *     state, and the transitions into each state</li>
+ *     <li>{@code cryptobot_trader_executions_total}: executions received</li>
+ * </ul>
+ */
+public class TraderMetrics {
+
+    private final LatencyHistogram decision;
+    private final LatencyHistogram tickerAge;
+    private final LongAdder executions;
+    private final LatencyHistogram[] stateTimes;
+    private final LongAdder[] transitions;
+
+    public TraderMetrics(MetricsRegistry registry, CurrencyPair pair) {
+        decision = registry.histogram("cryptobot_trader_decision_seconds", TimeUnit.NANOSECONDS, "pair", pair.getName());
+        tickerAge = registry.histogram("cryptobot_trader_ticker_age_seconds", TimeUnit.MILLISECONDS, "pair", pair.getName());
+        executions = registry.counter("cryptobot_trader_executions_total", "pair", pair.getName());
+        CurrencyPairTrader.State[] states = CurrencyPairTrader.State.values();
+        stateTimes = new LatencyHistogram[states.length];
+        transitions = new LongAdder[states.length];
+        for(CurrencyPairTrader.State state : states){
+            stateTimes[state.ordinal()] = registry.histogram("cryptobot_trader_state_seconds", TimeUnit.NANOSECONDS,
+                    "pair", pair.getName(), "state", state.name());
+            transitions[state.ordinal()] = registry.counter("cryptobot_trader_transitions_total",
+                    "pair", pair.getName(), "state", state.name());
+        }
+    }
+
+    public void recordDecision(long nanos) {
+        decision.record(nanos);
+    }
+
+    public void recordTickerAge(long millis) {
+        tickerAge.record(millis);
+    }
+
+    public void recordExecution() {
+        executions.increment();
+    }
+
+    /**
+     * @param nanos time spent in the state left
+     */
+    public void recordTransition(CurrencyPairTrader.State from, CurrencyPairTrader.State to, long nanos) {
+        stateTimes[from.ordinal()].record(nanos);
+        transitions[to.ordinal()].increment();
+    }
+}
@@ -0,0 +1,281 @@
+package com.freydema.cryptobot.simulator;
+
+import com.freydema.cryptobot.domain.Order;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Price-time priority limit order book of one pair. Prices and quantities are {@link com.freydema.cryptobot.domain.FixedPoint}
+ * units at the quote and base currency scales.
+ *
+ * Each side keeps its price levels in a sorted array with the best level last, so that the levels traded and
+ * created most often, at the top of the book, are removed and inserted with little or no shifting. Within a level
+ * the orders form a FIFO linked list: cancelling any order is O(1) once its entry is known.
+ *
+ * Not thread-safe: {@link SimulatedExchange} guards each book with its own lock.
+ */
+final class OrderBook {
+
+    private static final int INITIAL_LEVELS = 64;
+
+    private final BookSide bids = new BookSide(true);
+    private final BookSide asks = new BookSide(false);
+    // Client orders by id, the synthetic liquidity is only referenced by its entries
+    private final Map<String, Entry> clientOrders = new HashMap<>();
+
+    /**
+     * Match the order against the opposite side, then rest what is left of it.
+     * @param clientOrder the order placed by a client, null for synthetic liquidity
+     * @param matches receives one match per maker order traded against
+     * @return the resting entry, null if the order was completely filled
+     */
+    Entry submit(Order clientOrder, boolean buy, long price, long quantity, List<Match> matches) {
+        Entry taker = new Entry(clientOrder, buy, price, quantity);
+        BookSide opposite = buy ? asks : bids;
+        while(taker.remaining > 0 && !opposite.isEmpty() && crosses(buy, price, opposite.bestPrice())){
+            Level level = opposite.bestLevel();
+            Entry maker = level.head;
+            long traded = Math.min(taker.remaining, maker.remaining);
+            taker.remaining -= traded;
+            maker.remaining -= traded;
+            level.quantity -= traded;
+            matches.add(new Match(maker, taker, traded, level.price));
+            if(maker.remaining == 0){
+                remove(opposite, maker);
+            }
+        }
+        if(taker.remaining == 0){
+            return null;
+        }
+        (buy ? bids : asks).add(taker);
+        if(clientOrder != null){
+            clientOrders.put(clientOrder.getId(), taker);
+        }
+        return taker;
+    }
+
+    /**
+     * @return false if the client order is not resting (unknown, filled or already cancelled)
+     */
+    boolean cancel(String clientOrderId) {
+        Entry entry = clientOrders.get(clientOrderId);
+        return entry != null && cancel(entry);
+    }
+
+    /**
+     * @return false if the entry is no longer resting
+     */
+    boolean cancel(Entry entry) {
+        if(entry.level == null){
+            return false;
+        }
+        entry.level.quantity -= entry.remaining;
+        remove(entry.buy ? bids : asks, entry);
+        return true;
+    }
+
+    long bestBid() {
+        return bids.isEmpty() ? 0 : bids.bestPrice();
+    }
+
+    long bestBidQuantity() {
+        return bids.isEmpty() ? 0 : bids.bestLevel().quantity;
+    }
+
+    long bestAsk() {
+        return asks.isEmpty() ? 0 : asks.bestPrice();
+    }
+
+    long bestAskQuantity() {
+        return asks.isEmpty() ? 0 : asks.bestLevel().quantity;
+    }
+
+    int depth(boolean buy) {
+        return (buy ? bids : asks).size;
+    }
+
+    private static boolean crosses(boolean buy, long price, long oppositePrice) {
+        return buy ? oppositePrice <= price : oppositePrice >= price;
+    }
+
+    private void remove(BookSide side, Entry entry) {
+        Level level = entry.level;
+        level.unlink(entry);
+        if(level.head == null){
+            side.remove(level);
+        }
+        if(entry.clientOrder != null){
+            clientOrders.remove(entry.clientOrder.getId());
+        }
+    }
+
+
+    /**
+     * An order resting in the book, or being matched.
+     */
+    static final class Entry {
+
+        final Order clientOrder;
+        final boolean buy;
+        final long price;
+        long remaining;
+        private Level level;
+        private Entry previous;
+        private Entry next;
+
+        private Entry(Order clientOrder, boolean buy, long price, long quantity) {
+            this.clientOrder = clientOrder;
+            this.buy = buy;
+            this.price = price;
+            this.remaining = quantity;
+        }
+    }
+
+    /**
+     * A trade between a resting (maker) order and an incoming (taker) one, at the maker's price.
+     */
+    static final class Match {
+
+        final Entry maker;
+        final Entry taker;
+        final long quantity;
+        final long price;
+
+        private Match(Entry maker, Entry taker, long quantity, long price) {
+            this.maker = maker;
+            this.taker = taker;
+            this.quantity = quantity;
+            this.price = price;
+        }
+    }
+
+    private static final class Level {
+
+        private final long price;
+        private long quantity;
+        private Entry head;
+        private Entry tail;
+
+        private Level(long price) {
+            this.price = price;
+        }
+
+        private void append(Entry entry) {
+            entry.level = this;
+            entry.previous = tail;
+            if(tail == null){
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+            quantity += entry.remaining;
+        }
+
+        private void unlink(Entry entry) {
+            if(entry.previous == null){
+                head = entry.next;
+            } else {
+                entry.previous.next = entry.next;
+            }
+            if(entry.next == null){
+                tail = entry.previous;
+            } else {
+                entry.next.previous = entry.previous;
+            }
+            entry.level = null;
+            entry.previous = null;
+            entry.next = null;
+        }
+    }
+
+    /**
+     * Price levels of one side, sorted so that the best level is last: ascending prices for the bids, descending
+     * prices for the asks.
+     */
+    private static final class BookSide {
+
+        private final boolean bids;
+        private long[] prices = new long[INITIAL_LEVELS];
+        private Level[] levels = new Level[INITIAL_LEVELS];
+        private int size;
+
+        private BookSide(boolean bids) {
+            this.bids = bids;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private long bestPrice() {
+            return prices[size - 1];
+        }
+
+        private Level bestLevel() {
+            return levels[size - 1];
+        }
+
+        private void add(Entry entry) {
+            int index = find(entry.price);
+            Level level;
+            if(index < size && prices[index] == entry.price){
+                level = levels[index];
+            } else {
+                level = new Level(entry.price);
+                insert(index, level);
+            }
+            level.append(entry);
+        }
+
+        private void remove(Level level) {
+            int index = find(level.price);
+            System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+            System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+            levels[--size] = null;
+        }
+
+        /**
+         * @return the index of the level of the price, or where it would be inserted
+         */
+        private int find(long price) {
+            int low = 0;
+            int high = size - 1;
+            while(low <= high){
+                int middle = (low + high) >>> 1;
+                long middlePrice = prices[middle];
+                if(middlePrice == price){
+                    return middle;
+                }
+                if(isWorse(middlePrice, price)){
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return true when price is strictly worse than other, i.e. sorts before it
+         */
+        private boolean isWorse(long price, long other) {
+            return bids ? price < other : price > other;
+        }
+
+        private void insert(int index, Level level) {
+            if(size == prices.length){
+                prices = Arrays.copyOf(prices, size * 2);
+                levels = Arrays.copyOf(levels, size * 2);
+            }
+            System.arraycopy(prices, index, prices, index + 1, size - index);
+            System.arraycopy(levels, index, levels, index + 1, size - index);
+            prices[index] = level.price;
+            levels[index] = level;
+            size++;
+        }
+    }
+}
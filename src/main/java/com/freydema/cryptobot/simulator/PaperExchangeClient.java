@@ -0,0 +1,124 @@
+package com.freydema.cryptobot.simulator;
+
+import com.freydema.cryptobot.ExchangeClient;
+import com.freydema.cryptobot.ExecutionListener;
+import com.freydema.cryptobot.MarketDataClient;
+import com.freydema.cryptobot.backtest.BacktestExchangeClient;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Execution;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.Ticker;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Exchange trading on paper against the live market data of a {@link MarketDataClient}, e.g. the Kraken public
+ * tickers: every ticker fetched through this client moves the market of its pair, and the orders are filled against
+ * it as by a {@link BacktestExchangeClient}, crossing orders at the ticker price and resting ones at their limit.
+ *
+ * The matching is guarded by a single lock. Executions are delivered after it is released, on the thread that
+ * fetched the ticker or placed the order: listeners may place orders.
+ */
+public class PaperExchangeClient implements ExchangeClient {
+
+    private final MarketDataClient marketData;
+    // Guards itself and the executions it matched
+    private final BacktestExchangeClient matcher;
+    private final List<Execution> matched = new ArrayList<>();
+    private final List<List<ExecutionListener>> listeners = new ArrayList<>();
+
+    /**
+     * @param clock timestamps the executions
+     */
+    public PaperExchangeClient(MarketDataClient marketData, Clock clock) {
+        this.marketData = marketData;
+        this.matcher = new BacktestExchangeClient(clock);
+        for(CurrencyPair pair : CurrencyPair.values()){
+            listeners.add(new CopyOnWriteArrayList<>());
+            matcher.addExecutionListener(pair, matched::add);
+        }
+    }
+
+    /**
+     * @param feePercentage at {@link FixedPoint#RATIO_SCALE}, the fee the exchange would charge
+     */
+    public void setFeePercentage(CurrencyPair pair, long feePercentage) {
+        synchronized (matcher) {
+            matcher.setFeePercentage(pair, feePercentage);
+        }
+    }
+
+    @Override
+    public Ticker getTicker(CurrencyPair pair) {
+        Ticker ticker = marketData.getTicker(pair);
+        if(ticker != null){
+            onMarket(Collections.singletonMap(pair, ticker));
+        }
+        return ticker;
+    }
+
+    @Override
+    public Map<CurrencyPair, Ticker> getTickers(Collection<CurrencyPair> pairs) {
+        Map<CurrencyPair, Ticker> tickers = marketData.getTickers(pairs);
+        onMarket(tickers);
+        return tickers;
+    }
+
+    @Override
+    public CompletableFuture<Order> placeOrder(Order order) {
+        CompletableFuture<Order> placed;
+        List<Execution> executions;
+        synchronized (matcher) {
+            placed = matcher.placeOrder(order);
+            executions = drain();
+        }
+        deliver(executions);
+        return placed;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelOrder(Order order) {
+        synchronized (matcher) {
+            return matcher.cancelOrder(order);
+        }
+    }
+
+    @Override
+    public void addExecutionListener(CurrencyPair pair, ExecutionListener listener) {
+        listeners.get(pair.getId()).add(listener);
+    }
+
+    private void onMarket(Map<CurrencyPair, Ticker> tickers) {
+        List<Execution> executions;
+        synchronized (matcher) {
+            tickers.forEach(matcher::setTicker);
+            executions = drain();
+        }
+        deliver(executions);
+    }
+
+    private List<Execution> drain() {
+        if(matched.isEmpty()){
+            return Collections.emptyList();
+        }
+        List<Execution> executions = new ArrayList<>(matched);
+        matched.clear();
+        return executions;
+    }
+
+    private void deliver(List<Execution> executions) {
+        for(Execution execution : executions){
+            for(ExecutionListener listener : listeners.get(execution.getPair().getId())){
+                listener.onExecution(execution);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.freydema.cryptobot.simulator;
+
+import com.freydema.cryptobot.ExchangeClient;
+import com.freydema.cryptobot.ExecutionListener;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Execution;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.OrderSide;
+import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.indicator.RollingExtremes;
+
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process exchange matching limit orders in one price-time priority {@link OrderBook} per pair, for load and
+ * integration tests of the traders without Kraken.
+ *
+ * The books are fed by the clients' orders and by synthetic liquidity from a market flow such as
+ * {@link SyntheticMarketFlow} or {@link TickReplayFlow}. Only the clients' orders produce {@link Execution}s, charged
+ * the fee set for the pair whether they are maker or taker. Tickers are derived from the top of the books and the
+ * 24h low/high from the traded prices.
+ *
+ * Each book is guarded by its own lock, so that flows and traders of different pairs run in parallel. Executions
+ * are delivered after the lock is released, on the thread that caused the trade: listeners may place orders.
+ */
+public class SimulatedExchange implements ExchangeClient {
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int EXTREMES_BUCKETS = 1440;
+
+    private final Clock clock;
+    private final Book[] books = new Book[CurrencyPair.count()];
+    private final long[] feePercentages = new long[CurrencyPair.count()];
+    private final List<List<ExecutionListener>> listeners = new ArrayList<>();
+
+    public SimulatedExchange(Clock clock) {
+        this.clock = clock;
+        for(CurrencyPair pair : CurrencyPair.values()){
+            books[pair.getId()] = new Book();
+            listeners.add(new CopyOnWriteArrayList<>());
+        }
+    }
+
+    /**
+     * @param feePercentage at {@link FixedPoint#RATIO_SCALE}, typically the pair's {@code Configuration.tradeFeePercentage}
+     */
+    public void setFeePercentage(CurrencyPair pair, long feePercentage) {
+        feePercentages[pair.getId()] = feePercentage;
+    }
+
+    @Override
+    public Ticker getTicker(CurrencyPair pair) {
+        Book book = books[pair.getId()];
+        synchronized (book) {
+            OrderBook orders = book.orders;
+            if(orders.bestBid() == 0 && orders.bestAsk() == 0){
+                return null;
+            }
+            long timestamp = clock.millis();
+            book.tradedPrices.advanceTo(timestamp);
+            boolean traded = !book.tradedPrices.isEmpty();
+            return Ticker.builder()
+                    .bidPrice(orders.bestBid())
+                    .bidVolume(orders.bestBidQuantity())
+                    .askPrice(orders.bestAsk())
+                    .askVolume(orders.bestAskQuantity())
+                    .last24HLow(traded ? book.tradedPrices.getMin() : orders.bestBid())
+                    .last24HHigh(traded ? book.tradedPrices.getMax() : orders.bestAsk())
+                    .timestamp(timestamp)
+                    .build();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Order> placeOrder(Order order) {
+        if(order.getQuantity() <= 0 || order.getLimit() <= 0){
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid order: " + order));
+        }
+        submit(order.getPair(), order, order.getSide() == OrderSide.BUY, order.getLimit(), order.getQuantity());
+        return CompletableFuture.completedFuture(order);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelOrder(Order order) {
+        Book book = books[order.getPair().getId()];
+        synchronized (book) {
+            return CompletableFuture.completedFuture(book.orders.cancel(order.getId()));
+        }
+    }
+
+    @Override
+    public void addExecutionListener(CurrencyPair pair, ExecutionListener listener) {
+        listeners.get(pair.getId()).add(listener);
+    }
+
+    /**
+     * Submit synthetic liquidity.
+     * @return the entry resting in the book, to cancel it later, or null if it was completely filled
+     */
+    OrderBook.Entry submitLiquidity(CurrencyPair pair, boolean buy, long price, long quantity) {
+        return submit(pair, null, buy, price, quantity);
+    }
+
+    /**
+     * @return false if the entry was no longer resting
+     */
+    boolean cancelLiquidity(CurrencyPair pair, OrderBook.Entry entry) {
+        Book book = books[pair.getId()];
+        synchronized (book) {
+            return book.orders.cancel(entry);
+        }
+    }
+
+    /**
+     * @return the number of price levels of one side of the book of the pair
+     */
+    public int getDepth(CurrencyPair pair, OrderSide side) {
+        Book book = books[pair.getId()];
+        synchronized (book) {
+            return book.orders.depth(side == OrderSide.BUY);
+        }
+    }
+
+    private OrderBook.Entry submit(CurrencyPair pair, Order clientOrder, boolean buy, long price, long quantity) {
+        Book book = books[pair.getId()];
+        List<OrderBook.Match> matches = new ArrayList<>(4);
+        OrderBook.Entry entry;
+        long timestamp;
+        synchronized (book) {
+            entry = book.orders.submit(clientOrder, buy, price, quantity, matches);
+            // The traded prices window requires non decreasing timestamps
+            timestamp = Math.max(clock.millis(), book.lastTradeTimestamp);
+            for(OrderBook.Match match : matches){
+                book.tradedPrices.update(timestamp, match.price);
+                book.lastTradeTimestamp = timestamp;
+            }
+        }
+        for(OrderBook.Match match : matches){
+            if(match.maker.clientOrder != null){
+                notifyExecution(match.maker.clientOrder, match, timestamp);
+            }
+            if(match.taker.clientOrder != null){
+                notifyExecution(match.taker.clientOrder, match, timestamp);
+            }
+        }
+        return entry;
+    }
+
+    private void notifyExecution(Order order, OrderBook.Match match, long timestamp) {
+        CurrencyPair pair = order.getPair();
+        int quoteScale = pair.getQuote().getScale();
+        long amount = FixedPoint.multiply(match.quantity, pair.getBase().getScale(), match.price, quoteScale,
+                quoteScale, RoundingMode.HALF_EVEN);
+        Execution execution = Execution.builder()
+                .orderId(order.getId())
+                .pair(pair)
+                .side(order.getSide())
+                .quantity(match.quantity)
+                .price(match.price)
+                .amount(amount)
+                .fee(FixedPoint.percentOf(amount, feePercentages[pair.getId()], RoundingMode.UP))
+                .timestamp(timestamp)
+                .build();
+        for(ExecutionListener listener : listeners.get(pair.getId())){
+            listener.onExecution(execution);
+        }
+    }
+
+
+    private static final class Book {
+
+        private final OrderBook orders = new OrderBook();
+        private final RollingExtremes tradedPrices = new RollingExtremes(DAY_MILLIS, EXTREMES_BUCKETS);
+        private long lastTradeTimestamp;
+    }
+}
@@ -0,0 +1,94 @@
+package com.freydema.cryptobot.simulator;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Random order flow around a mid price following a random walk, to load a {@link SimulatedExchange}. Each
+ * {@link #step()} is one order event: a passive order a few ticks away from the mid price, an aggressive order
+ * crossing the spread, or the cancellation of a random resting order of the flow.
+ *
+ * Deterministic for a given seed. Not thread-safe: run one flow per thread, typically one per pair.
+ */
+public class SyntheticMarketFlow {
+
+    private static final int MAX_PASSIVE_OFFSET_TICKS = 10;
+
+    private final SimulatedExchange exchange;
+    private final CurrencyPair pair;
+    private final long tickSize;
+    private final long maxQuantity;
+    private final int maxResting;
+    private final SplittableRandom random;
+    private final List<OrderBook.Entry> resting = new ArrayList<>();
+    private long midPrice;
+
+    /**
+     * @param initialMidPrice and tickSize at the quote currency scale
+     * @param maxQuantity of an order, at the base currency scale
+     * @param maxResting number of resting orders above which the flow only cancels
+     */
+    public SyntheticMarketFlow(SimulatedExchange exchange, CurrencyPair pair, long initialMidPrice, long tickSize,
+                               long maxQuantity, int maxResting, long seed) {
+        if(tickSize <= 0 || initialMidPrice <= MAX_PASSIVE_OFFSET_TICKS * tickSize || maxQuantity <= 0){
+            throw new IllegalArgumentException("Invalid flow parameters");
+        }
+        this.exchange = exchange;
+        this.pair = pair;
+        this.tickSize = tickSize;
+        this.maxQuantity = maxQuantity;
+        this.maxResting = maxResting;
+        this.random = new SplittableRandom(seed);
+        this.midPrice = initialMidPrice;
+    }
+
+    public void step() {
+        int draw = random.nextInt(100);
+        if(draw < 5){
+            long move = random.nextBoolean() ? tickSize : -tickSize;
+            midPrice = Math.max(midPrice + move, (MAX_PASSIVE_OFFSET_TICKS + 1) * tickSize);
+        }
+        if((draw < 35 && !resting.isEmpty()) || resting.size() >= maxResting){
+            cancelRandom();
+        } else if(draw < 85){
+            long offset = (1 + random.nextInt(MAX_PASSIVE_OFFSET_TICKS)) * tickSize;
+            boolean buy = random.nextBoolean();
+            submit(buy, buy ? midPrice - offset : midPrice + offset);
+        } else {
+            long offset = MAX_PASSIVE_OFFSET_TICKS * tickSize;
+            boolean buy = random.nextBoolean();
+            submit(buy, buy ? midPrice + offset : midPrice - offset);
+        }
+    }
+
+    public void step(int events) {
+        for(int i = 0; i < events; i++){
+            step();
+        }
+    }
+
+    public long getMidPrice() {
+        return midPrice;
+    }
+
+    private void submit(boolean buy, long price) {
+        long quantity = 1 + random.nextLong(maxQuantity);
+        OrderBook.Entry entry = exchange.submitLiquidity(pair, buy, price, quantity);
+        if(entry != null){
+            resting.add(entry);
+        }
+    }
+
+    private void cancelRandom() {
+        int index = random.nextInt(resting.size());
+        OrderBook.Entry entry = resting.get(index);
+        int last = resting.size() - 1;
+        resting.set(index, resting.get(last));
+        resting.remove(last);
+        // Entries filled in the meantime are no longer resting: nothing is cancelled
+        exchange.cancelLiquidity(pair, entry);
+    }
+}
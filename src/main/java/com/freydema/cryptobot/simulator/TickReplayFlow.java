@@ -0,0 +1,44 @@
+package com.freydema.cryptobot.simulator;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.feed.TickerListener;
+
+/**
+ * Market flow replaying recorded tickers into a {@link SimulatedExchange}: on each ticker the synthetic quotes of
+ * the pair are replaced by a bid and an ask at the ticker prices and volumes. A new quote crossing a resting client
+ * order fills it at the order limit.
+ *
+ * Subscribed to a {@link com.freydema.cryptobot.feed.TickerFeed} before the traders, it moves the books before the
+ * traders see the tickers.
+ */
+public class TickReplayFlow implements TickerListener {
+
+    private final SimulatedExchange exchange;
+    private final long defaultQuantity;
+    private final OrderBook.Entry[] bids = new OrderBook.Entry[CurrencyPair.count()];
+    private final OrderBook.Entry[] asks = new OrderBook.Entry[CurrencyPair.count()];
+
+    /**
+     * @param defaultQuantity quoted, at the base currency scale, when the ticker carries no volume
+     */
+    public TickReplayFlow(SimulatedExchange exchange, long defaultQuantity) {
+        this.exchange = exchange;
+        this.defaultQuantity = defaultQuantity;
+    }
+
+    @Override
+    public synchronized void onTicker(CurrencyPair pair, Ticker ticker) {
+        int index = pair.getId();
+        if(bids[index] != null){
+            exchange.cancelLiquidity(pair, bids[index]);
+        }
+        if(asks[index] != null){
+            exchange.cancelLiquidity(pair, asks[index]);
+        }
+        bids[index] = exchange.submitLiquidity(pair, true, ticker.getBidPrice(),
+                ticker.getBidVolume() > 0 ? ticker.getBidVolume() : defaultQuantity);
+        asks[index] = exchange.submitLiquidity(pair, false, ticker.getAskPrice(),
+                ticker.getAskVolume() > 0 ? ticker.getAskVolume() : defaultQuantity);
+    }
+}
@@ -0,0 +1,132 @@
+package com.freydema.cryptobot.store;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.feed.TickerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * Append-only recorder of every observed {@link Ticker}, one directory of {@link TickSegment} files per pair.
+ * Subscribed to a {@link com.freydema.cryptobot.feed.TickerFeed} it records everything the traders see.
+ *
+ * Each pair is appended under its own lock, so recording different pairs from different threads does not contend.
+ * Recording resumes in the last segment of a pair when it is not full.
+ */
+public class TickRecorder implements TickerListener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TickRecorder.class);
+
+    public static final int DEFAULT_SEGMENT_CAPACITY = 1 << 20;
+
+    private final Path root;
+    private final int segmentCapacity;
+    private final Clock clock;
+    private final PairWriter[] writers = new PairWriter[CurrencyPair.count()];
+
+    public TickRecorder(Path root) {
+        this(root, DEFAULT_SEGMENT_CAPACITY, Clock.systemUTC());
+    }
+
+    /**
+     * @param clock timestamps the tickers received without one
+     */
+    public TickRecorder(Path root, int segmentCapacity, Clock clock) {
+        this.root = root;
+        this.segmentCapacity = segmentCapacity;
+        this.clock = clock;
+        for(CurrencyPair pair : CurrencyPair.values()){
+            writers[pair.getId()] = new PairWriter(pair);
+        }
+    }
+
+    @Override
+    public void onTicker(CurrencyPair pair, Ticker ticker) {
+        try {
+            record(pair, ticker);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException when the ticker is older than the last one recorded for the pair
+     */
+    public void record(CurrencyPair pair, Ticker ticker) throws IOException {
+        long timestamp = ticker.getTimestamp() != 0 ? ticker.getTimestamp() : clock.millis();
+        writers[pair.getId()].append(timestamp, ticker);
+    }
+
+    /**
+     * Flush the mapped segments to the storage device.
+     */
+    public void force() {
+        for(PairWriter writer : writers){
+            writer.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+
+    private class PairWriter {
+
+        private final CurrencyPair pair;
+        private TickSegment segment;
+        private int nextSequence;
+
+        private PairWriter(CurrencyPair pair) {
+            this.pair = pair;
+        }
+
+        synchronized void append(long timestamp, Ticker ticker) throws IOException {
+            if(segment == null){
+                openLastSegment();
+            }
+            if(segment != null && segment.getCount() > 0 && timestamp < segment.getLastTimestamp()){
+                throw new IllegalArgumentException("Ticks of " + pair + " must be recorded in timestamp order");
+            }
+            if(segment == null || segment.isFull()){
+                rollSegment();
+            }
+            segment.append(timestamp, ticker.getBidPrice(), ticker.getBidVolume(), ticker.getAskPrice(),
+                    ticker.getAskVolume(), ticker.getLast24HLow(), ticker.getLast24HHigh());
+        }
+
+        synchronized void force() {
+            if(segment != null){
+                segment.force();
+            }
+        }
+
+        private void openLastSegment() throws IOException {
+            Path directory = TickStore.pairDirectory(root, pair);
+            Files.createDirectories(directory);
+            List<Path> paths = TickStore.segmentPaths(directory);
+            nextSequence = paths.size();
+            if(!paths.isEmpty()){
+                segment = TickSegment.open(paths.get(paths.size() - 1), true);
+            }
+        }
+
+        private void rollSegment() throws IOException {
+            if(segment != null){
+                segment.force();
+            }
+            Path path = TickStore.segmentPath(TickStore.pairDirectory(root, pair), nextSequence++);
+            segment = TickSegment.create(path, segmentCapacity);
+            LOGGER.debug("Recording {} ticks in {}", pair, path);
+        }
+    }
+}
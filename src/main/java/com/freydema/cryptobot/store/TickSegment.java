@@ -0,0 +1,165 @@
+package com.freydema.cryptobot.store;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed capacity, memory mapped segment file holding the ticks of one pair in columnar layout:
+ *
+ * <pre>
+ *   header (64 bytes): magic, version, capacity, column count, tick count, first timestamp, last timestamp
+ *   column 0: capacity x timestamp   (epoch ms)
+ *   column 1: capacity x bid price   (FixedPoint, quote scale)
+ *   column 2: capacity x bid volume  (FixedPoint, base scale)
+ *   column 3: capacity x ask price
+ *   column 4: capacity x ask volume
+ *   column 5: capacity x 24h low
+ *   column 6: capacity x 24h high
+ * </pre>
+ *
+ * All values are little endian longs: 56 bytes per tick. The tick count is written last, after the columns, so a
+ * reader never sees a partially written tick.
+ */
+final class TickSegment {
+
+    static final String FILE_SUFFIX = ".ticks";
+    static final int COLUMNS = 7;
+    static final int TIMESTAMP = 0;
+    static final int BID_PRICE = 1;
+    static final int BID_VOLUME = 2;
+    static final int ASK_PRICE = 3;
+    static final int ASK_VOLUME = 4;
+    static final int LAST_24H_LOW = 5;
+    static final int LAST_24H_HIGH = 6;
+
+    private static final int MAGIC = 0x5449434B;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+    private static final int FIRST_TIMESTAMP_OFFSET = 24;
+    private static final int LAST_TIMESTAMP_OFFSET = 32;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final LongBuffer[] columns;
+    private final int capacity;
+
+    private TickSegment(Path path, MappedByteBuffer buffer, int capacity) {
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.columns = new LongBuffer[COLUMNS];
+        for(int column = 0; column < COLUMNS; column++){
+            buffer.position(HEADER_SIZE + column * capacity * Long.BYTES);
+            buffer.limit(HEADER_SIZE + (column + 1) * capacity * Long.BYTES);
+            columns[column] = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            buffer.clear();
+        }
+    }
+
+    static TickSegment create(Path path, int capacity) throws IOException {
+        if(capacity <= 0 || capacity > (Integer.MAX_VALUE - HEADER_SIZE) / (COLUMNS * Long.BYTES)){
+            throw new IllegalArgumentException("Invalid segment capacity: " + capacity);
+        }
+        long size = HEADER_SIZE + (long) COLUMNS * capacity * Long.BYTES;
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putInt(12, COLUMNS);
+            buffer.putLong(COUNT_OFFSET, 0);
+            return new TickSegment(path, buffer, capacity);
+        }
+    }
+
+    static TickSegment open(Path path, boolean writable) throws IOException {
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+        try(FileChannel channel = FileChannel.open(path, options)){
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(12) != COLUMNS){
+                throw new IOException("Not a tick segment: " + path);
+            }
+            return new TickSegment(path, buffer, buffer.getInt(CAPACITY_OFFSET));
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getCount() {
+        return (int) buffer.getLong(COUNT_OFFSET);
+    }
+
+    boolean isFull() {
+        return getCount() == capacity;
+    }
+
+    long getFirstTimestamp() {
+        return buffer.getLong(FIRST_TIMESTAMP_OFFSET);
+    }
+
+    long getLastTimestamp() {
+        return buffer.getLong(LAST_TIMESTAMP_OFFSET);
+    }
+
+    long get(int column, int index) {
+        return columns[column].get(index);
+    }
+
+    void append(long timestamp, long bidPrice, long bidVolume, long askPrice, long askVolume,
+                long last24HLow, long last24HHigh) {
+        int index = getCount();
+        columns[TIMESTAMP].put(index, timestamp);
+        columns[BID_PRICE].put(index, bidPrice);
+        columns[BID_VOLUME].put(index, bidVolume);
+        columns[ASK_PRICE].put(index, askPrice);
+        columns[ASK_VOLUME].put(index, askVolume);
+        columns[LAST_24H_LOW].put(index, last24HLow);
+        columns[LAST_24H_HIGH].put(index, last24HHigh);
+        if(index == 0){
+            buffer.putLong(FIRST_TIMESTAMP_OFFSET, timestamp);
+        }
+        buffer.putLong(LAST_TIMESTAMP_OFFSET, timestamp);
+        buffer.putLong(COUNT_OFFSET, index + 1);
+    }
+
+    /**
+     * @return the index of the first tick with a timestamp >= the given one, or the count if there is none
+     */
+    int lowerBound(long timestamp) {
+        int low = 0;
+        int high = getCount();
+        LongBuffer timestamps = columns[TIMESTAMP];
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(timestamps.get(middle) < timestamp){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    void force() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,94 @@
+package com.freydema.cryptobot.store;
+
+import com.freydema.cryptobot.backtest.TickHistory;
+import com.freydema.cryptobot.domain.CurrencyPair;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the tick files written by {@link TickRecorder}. Segments are memory mapped read-only and scanned in
+ * place; time range seeks skip whole segments using their header and binary search the timestamp column.
+ */
+public class TickStore {
+
+    private final Path root;
+
+    public TickStore(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Visit, in timestamp order, the ticks of the pair with from <= timestamp < to.
+     * @return the number of ticks visited
+     */
+    public long scan(CurrencyPair pair, long from, long to, TickVisitor visitor) throws IOException {
+        Path directory = pairDirectory(root, pair);
+        if(!Files.isDirectory(directory)){
+            return 0;
+        }
+        long visited = 0;
+        for(Path path : segmentPaths(directory)){
+            TickSegment segment = TickSegment.open(path, false);
+            int count = segment.getCount();
+            if(count == 0 || segment.getLastTimestamp() < from){
+                continue;
+            }
+            if(segment.getFirstTimestamp() >= to){
+                break;
+            }
+            for(int i = segment.lowerBound(from); i < count; i++){
+                long timestamp = segment.get(TickSegment.TIMESTAMP, i);
+                if(timestamp >= to){
+                    return visited;
+                }
+                visitor.onTick(timestamp,
+                        segment.get(TickSegment.BID_PRICE, i),
+                        segment.get(TickSegment.BID_VOLUME, i),
+                        segment.get(TickSegment.ASK_PRICE, i),
+                        segment.get(TickSegment.ASK_VOLUME, i),
+                        segment.get(TickSegment.LAST_24H_LOW, i),
+                        segment.get(TickSegment.LAST_24H_HIGH, i));
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    public long scan(CurrencyPair pair, TickVisitor visitor) throws IOException {
+        return scan(pair, Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Load the ticks of the given pairs with from <= timestamp < to into a {@link TickHistory} for backtesting.
+     */
+    public TickHistory loadHistory(List<CurrencyPair> pairs, long from, long to) throws IOException {
+        TickHistory.Builder builder = TickHistory.builder();
+        for(CurrencyPair pair : pairs){
+            scan(pair, from, to, (timestamp, bidPrice, bidVolume, askPrice, askVolume, low, high) ->
+                    builder.add(pair, timestamp, bidPrice, bidVolume, askPrice, askVolume, low, high));
+        }
+        return builder.build();
+    }
+
+    static Path pairDirectory(Path root, CurrencyPair pair) {
+        return root.resolve(pair.getName());
+    }
+
+    static Path segmentPath(Path directory, int sequence) {
+        return directory.resolve(String.format("%08d%s", sequence, TickSegment.FILE_SUFFIX));
+    }
+
+    static List<Path> segmentPaths(Path directory) throws IOException {
+        try(Stream<Path> paths = Files.list(directory)){
+            return paths.filter(path -> path.getFileName().toString().endsWith(TickSegment.FILE_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+}
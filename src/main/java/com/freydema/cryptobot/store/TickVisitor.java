@@ -0,0 +1,12 @@
+package com.freydema.cryptobot.store;
+
+/**
+ * Receives the ticks of a scan field by field, straight from the mapped segments: nothing is allocated per tick.
+ */
+@FunctionalInterface
+public interface TickVisitor {
+
+    void onTick(long timestamp, long bidPrice, long bidVolume, long askPrice, long askVolume,
+                long last24HLow, long last24HHigh);
+
+}
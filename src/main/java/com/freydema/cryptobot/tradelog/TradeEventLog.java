@@ -0,0 +1,366 @@
+package com.freydema.cryptobot.tradelog;
+
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.ExecutionListener;
+import com.freydema.cryptobot.TraderStateListener;
+import com.freydema.cryptobot.domain.AccountListener;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Execution;
+import com.freydema.cryptobot.domain.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured log of the trading activity: trader state transitions with their open order, executions and account
+ * holding changes, as compact binary records rendered to text offline by {@link TradeEventLogRenderer}.
+ *
+ * The listeners copy the event fields into a preallocated slot of a bounded ring buffer and return: no formatting,
+ * no allocation and no I/O on the trading threads. A background thread encodes the events and appends them to the
+ * file. When the writer falls behind and the ring is full, events are dropped and counted rather than blocking the
+ * traders.
+ *
+ * Each time the log is opened, a header describing the currencies, pairs and states is appended: records refer to
+ * them by index, and the file stays readable after they change.
+ */
+public class TradeEventLog implements TraderStateListener, ExecutionListener, AccountListener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TradeEventLog.class);
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    static final byte HEADER = 0;
+    static final byte STATE = 1;
+    static final byte EXECUTION = 2;
+    static final byte HOLDING = 3;
+
+    static final byte NO_ID = 0;
+    static final byte UUID_ID = 1;
+    static final byte TEXT_ID = 2;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final int MAX_RECORD_BYTES = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Clock clock;
+    private final FileChannel channel;
+    private final Event[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+
+    // Only accessed by the writer thread
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private long reportedDropped;
+
+    private volatile boolean closed;
+
+    public TradeEventLog(Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY, Clock.systemUTC());
+    }
+
+    /**
+     * Open the log, appending to the file if it exists.
+     * @param capacity number of events the ring buffer holds, rounded up to a power of two
+     * @param clock timestamps the state and holding events, executions carry their own timestamp
+     */
+    public TradeEventLog(Path file, int capacity, Clock clock) throws IOException {
+        this.clock = clock;
+        Path parent = file.toAbsolutePath().getParent();
+        if(parent != null){
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        ring = new Event[size];
+        mask = size - 1;
+        for(int i = 0; i < size; i++){
+            ring[i] = new Event(i - size);
+        }
+        writeHeader();
+        writer = new Thread(this::writeLoop, "trade-event-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void onStateChanged(CurrencyPair pair, CurrencyPairTrader.State state, Order buyOrder, Order sellOrder,
+                               long filledQuantity, long buyFeePercentage) {
+        long sequence = claim();
+        if(sequence < 0){
+            return;
+        }
+        Event event = ring[(int) sequence & mask];
+        event.type = STATE;
+        event.timestamp = clock.millis();
+        event.index = pair.getId();
+        event.code = state.ordinal();
+        Order order = sellOrder != null ? sellOrder : buyOrder;
+        if(order != null){
+            event.side = order.getSide().ordinal() + 1;
+            event.id = order.getId();
+            event.a = order.getQuantity();
+            event.b = order.getLimit();
+        } else {
+            event.side = 0;
+            event.id = null;
+            event.a = 0;
+            event.b = 0;
+        }
+        event.c = filledQuantity;
+        event.publish(sequence);
+    }
+
+    @Override
+    public void onExecution(Execution execution) {
+        long sequence = claim();
+        if(sequence < 0){
+            return;
+        }
+        Event event = ring[(int) sequence & mask];
+        event.type = EXECUTION;
+        event.timestamp = execution.getTimestamp();
+        event.index = execution.getPair().getId();
+        event.side = execution.getSide().ordinal();
+        event.id = execution.getOrderId();
+        event.a = execution.getQuantity();
+        event.b = execution.getPrice();
+        event.c = execution.getAmount();
+        event.d = execution.getFee();
+        event.publish(sequence);
+    }
+
+    @Override
+    public void onHoldingChanged(Currency currency, long balance, long blocked) {
+        long sequence = claim();
+        if(sequence < 0){
+            return;
+        }
+        Event event = ring[(int) sequence & mask];
+        event.type = HOLDING;
+        event.timestamp = clock.millis();
+        event.index = currency.getId();
+        event.a = balance;
+        event.b = blocked;
+        event.publish(sequence);
+    }
+
+    /**
+     * @return the number of events dropped because the ring buffer was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stop logging once every event published so far is written.
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed){
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * @return the sequence of the slot to fill, or -1 if the ring is full or the log closed
+     */
+    private long claim() {
+        while(!closed){
+            long sequence = claimed.get();
+            if(sequence - consumed.get() >= ring.length){
+                dropped.incrementAndGet();
+                return -1;
+            }
+            if(claimed.compareAndSet(sequence, sequence + 1)){
+                return sequence;
+            }
+        }
+        return -1;
+    }
+
+    private void writeLoop() {
+        long next = consumed.get();
+        try {
+            while(true){
+                Event event = ring[(int) next & mask];
+                if(event.sequence != next){
+                    // Nothing published yet: write what was encoded so far before waiting
+                    flush();
+                    if(closed && next == claimed.get()){
+                        return;
+                    }
+                    reportDropped();
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                encode(event);
+                event.id = null;
+                next++;
+                consumed.lazySet(next);
+                if(buffer.remaining() < MAX_RECORD_BYTES){
+                    flush();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Trade event log write failed, logging stopped", e);
+            closed = true;
+        }
+    }
+
+    private void reportDropped() {
+        long count = dropped.get();
+        if(count != reportedDropped){
+            LOGGER.warn("Dropped {} trade events, the log cannot keep up", count - reportedDropped);
+            reportedDropped = count;
+        }
+    }
+
+    private void encode(Event event) {
+        buffer.put(event.type);
+        buffer.putLong(event.timestamp);
+        buffer.putShort((short) event.index);
+        switch (event.type) {
+            case STATE:
+                buffer.put((byte) event.code);
+                buffer.putLong(event.c);
+                buffer.put((byte) event.side);
+                if(event.side != 0){
+                    putId(event.id);
+                    buffer.putLong(event.a);
+                    buffer.putLong(event.b);
+                }
+                break;
+            case EXECUTION:
+                buffer.put((byte) event.side);
+                putId(event.id);
+                buffer.putLong(event.a);
+                buffer.putLong(event.b);
+                buffer.putLong(event.c);
+                buffer.putLong(event.d);
+                break;
+            case HOLDING:
+                buffer.putLong(event.a);
+                buffer.putLong(event.b);
+                break;
+            default:
+                throw new IllegalStateException("Unknown event type " + event.type);
+        }
+    }
+
+    /**
+     * Order ids are UUIDs, written on 16 bytes. Other ids are written as text.
+     */
+    private void putId(String id) {
+        if(id == null){
+            buffer.put(NO_ID);
+            return;
+        }
+        if(id.length() == 36){
+            try {
+                UUID uuid = UUID.fromString(id);
+                if(uuid.toString().equals(id)){
+                    buffer.put(UUID_ID);
+                    buffer.putLong(uuid.getMostSignificantBits());
+                    buffer.putLong(uuid.getLeastSignificantBits());
+                    return;
+                }
+            } catch (IllegalArgumentException e) {
+                // Not a UUID
+            }
+        }
+        buffer.put(TEXT_ID);
+        putString(id);
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_RECORD_BYTES / 4);
+        buffer.putShort((short) length);
+        buffer.put(bytes, 0, length);
+    }
+
+    private void writeHeader() throws IOException {
+        buffer.put(HEADER);
+        buffer.putLong(clock.millis());
+        buffer.putShort((short) Currency.count());
+        for(Currency currency : Currency.values()){
+            putString(currency.getName());
+            buffer.put((byte) currency.getScale());
+        }
+        buffer.putShort((short) CurrencyPair.count());
+        for(CurrencyPair pair : CurrencyPair.values()){
+            putString(pair.getName());
+            buffer.putShort((short) pair.getBase().getId());
+            buffer.putShort((short) pair.getQuote().getId());
+        }
+        buffer.putShort((short) CurrencyPairTrader.State.values().length);
+        for(CurrencyPairTrader.State state : CurrencyPairTrader.State.values()){
+            putString(state.name());
+        }
+        flush();
+    }
+
+    private void flush() throws IOException {
+        if(buffer.position() == 0){
+            return;
+        }
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+
+    /**
+     * Ring buffer slot, reused for every event type. The fields are written by the claiming thread before the
+     * volatile write of the sequence, which publishes them to the writer.
+     */
+    private static final class Event {
+
+        private volatile long sequence;
+        private byte type;
+        private long timestamp;
+        private int index;
+        private int code;
+        private int side;
+        private String id;
+        private long a;
+        private long b;
+        private long c;
+        private long d;
+
+        private Event(long sequence) {
+            this.sequence = sequence;
+        }
+
+        private void publish(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
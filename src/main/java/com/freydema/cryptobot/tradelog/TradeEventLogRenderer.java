@@ -0,0 +1,163 @@
+package com.freydema.cryptobot.tradelog;
+
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.OrderSide;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Renders a {@link TradeEventLog} file as text, one line per event, e.g.
+ * <pre>
+ * 2019-03-01T10:15:30.120Z BTCEUR WAIT_FOR_BUY_ORDER_PLACED BUY 3b0c...e2 quantity=0.05 limit=3400.5 filled=0
+ * 2019-03-01T10:15:31.002Z BTCEUR EXECUTION BUY 3b0c...e2 quantity=0.05 price=3400.5 amount=170.025 fee=0.442065
+ * 2019-03-01T10:15:31.003Z EUR HOLDING balance=9829.532935 blocked=0
+ * </pre>
+ * A record truncated by a crash ends the rendering.
+ *
+ * Usage: {@code TradeEventLogRenderer <log file>}, the text is written to the standard output.
+ */
+public final class TradeEventLogRenderer {
+
+    private String[] currencies = new String[0];
+    private int[] scales = new int[0];
+    private String[] pairs = new String[0];
+    private int[] baseScales = new int[0];
+    private int[] quoteScales = new int[0];
+    private String[] states = new String[0];
+
+    private TradeEventLogRenderer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 1){
+            System.err.println("Usage: TradeEventLogRenderer <log file>");
+            System.exit(1);
+        }
+        PrintWriter output = new PrintWriter(System.out);
+        render(Paths.get(args[0]), output);
+        output.flush();
+    }
+
+    public static void render(Path file, Writer output) throws IOException {
+        new TradeEventLogRenderer().render(ByteBuffer.wrap(Files.readAllBytes(file)), output);
+    }
+
+    private void render(ByteBuffer records, Writer output) throws IOException {
+        StringBuilder line = new StringBuilder();
+        while(records.hasRemaining()){
+            line.setLength(0);
+            try {
+                renderRecord(records, line);
+            } catch (BufferUnderflowException e) {
+                return;
+            }
+            if(line.length() > 0){
+                output.write(line.append('\n').toString());
+            }
+        }
+    }
+
+    private void renderRecord(ByteBuffer records, StringBuilder line) {
+        byte type = records.get();
+        long timestamp = records.getLong();
+        if(type == TradeEventLog.HEADER){
+            readHeader(records);
+            return;
+        }
+        int index = records.getShort();
+        line.append(Instant.ofEpochMilli(timestamp)).append(' ');
+        switch (type) {
+            case TradeEventLog.STATE: {
+                int state = records.get();
+                long filled = records.getLong();
+                int side = records.get();
+                line.append(pairs[index]).append(' ').append(states[state]);
+                if(side != 0){
+                    line.append(' ').append(side(side - 1)).append(' ').append(readId(records));
+                    line.append(" quantity=").append(decimal(records.getLong(), baseScales[index]));
+                    line.append(" limit=").append(decimal(records.getLong(), quoteScales[index]));
+                    line.append(" filled=").append(decimal(filled, baseScales[index]));
+                }
+                break;
+            }
+            case TradeEventLog.EXECUTION: {
+                int side = records.get();
+                line.append(pairs[index]).append(" EXECUTION ").append(side(side)).append(' ').append(readId(records));
+                line.append(" quantity=").append(decimal(records.getLong(), baseScales[index]));
+                line.append(" price=").append(decimal(records.getLong(), quoteScales[index]));
+                line.append(" amount=").append(decimal(records.getLong(), quoteScales[index]));
+                line.append(" fee=").append(decimal(records.getLong(), quoteScales[index]));
+                break;
+            }
+            case TradeEventLog.HOLDING:
+                line.append(currencies[index]).append(" HOLDING");
+                line.append(" balance=").append(decimal(records.getLong(), scales[index]));
+                line.append(" blocked=").append(decimal(records.getLong(), scales[index]));
+                break;
+            default:
+                throw new IllegalStateException("Unknown trade event type " + type);
+        }
+    }
+
+    private void readHeader(ByteBuffer records) {
+        int currencyCount = records.getShort();
+        currencies = new String[currencyCount];
+        scales = new int[currencyCount];
+        for(int i = 0; i < currencyCount; i++){
+            currencies[i] = readString(records);
+            scales[i] = records.get();
+        }
+        int pairCount = records.getShort();
+        pairs = new String[pairCount];
+        baseScales = new int[pairCount];
+        quoteScales = new int[pairCount];
+        for(int i = 0; i < pairCount; i++){
+            pairs[i] = readString(records);
+            baseScales[i] = scales[records.getShort()];
+            quoteScales[i] = scales[records.getShort()];
+        }
+        int stateCount = records.getShort();
+        states = new String[stateCount];
+        for(int i = 0; i < stateCount; i++){
+            states[i] = readString(records);
+        }
+    }
+
+    private static String side(int ordinal) {
+        return OrderSide.values()[ordinal].name();
+    }
+
+    private static String decimal(long units, int scale) {
+        return FixedPoint.toBigDecimal(units, scale).stripTrailingZeros().toPlainString();
+    }
+
+    private static String readId(ByteBuffer records) {
+        byte kind = records.get();
+        switch (kind) {
+            case TradeEventLog.NO_ID:
+                return "-";
+            case TradeEventLog.UUID_ID:
+                return new UUID(records.getLong(), records.getLong()).toString();
+            case TradeEventLog.TEXT_ID:
+                return readString(records);
+            default:
+                throw new IllegalStateException("Unknown order id kind " + kind);
+        }
+    }
+
+    private static String readString(ByteBuffer records) {
+        byte[] bytes = new byte[records.getShort()];
+        records.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
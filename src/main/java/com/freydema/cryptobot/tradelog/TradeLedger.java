@@ -0,0 +1,312 @@
+package com.freydema.cryptobot.tradelog;
+
+import com.freydema.cryptobot.ExecutionListener;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Execution;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.OrderSide;
+
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory ledger of the fills, registered as an {@link ExecutionListener} of the traders, answering P&L, fee and
+ * exposure queries while trading continues.
+ *
+ * The fills are appended to primitive columns (timestamp, pair, side, quantity, price, amount, fee) and never
+ * modified. Every append also updates aggregates per pair and per quote currency: the open position at average
+ * cost, and the realized profit and fees in total and per UTC day over the last {@link #RETAINED_DAYS} days. Queries
+ * read the aggregates: their cost does not depend on the number of fills.
+ *
+ * Appends are serialized by a write lock. Queries read optimistically and only retry, under the read lock, when a
+ * fill was appended meanwhile: they never hold up the traders recording fills. The ledger is sized for the currencies
+ * and pairs registered when it is created.
+ */
+public class TradeLedger implements ExecutionListener {
+
+    public static final int RETAINED_DAYS = 32;
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    private final Clock clock;
+    private final StampedLock lock = new StampedLock();
+
+    // Columns in chunks of CHUNK_SIZE fills, appended under the write lock and readable up to size
+    private long[][] timestamps = new long[0][];
+    private int[][] pairIds = new int[0][];
+    private byte[][] sides = new byte[0][];
+    private long[][] quantities = new long[0][];
+    private long[][] prices = new long[0][];
+    private long[][] amounts = new long[0][];
+    private long[][] fees = new long[0][];
+    private volatile int size;
+
+    // Aggregates, guarded by the lock: open positions by pair id, open cost by quote currency id
+    private final long[] openQuantity = new long[CurrencyPair.count()];
+    private final long[] openCost = new long[CurrencyPair.count()];
+    private final long[] quoteOpenCost = new long[Currency.count()];
+    private final DailyTotals pairTotals = new DailyTotals(CurrencyPair.count());
+    private final DailyTotals quoteTotals = new DailyTotals(Currency.count());
+
+    public TradeLedger() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * @param clock defines "today" in the queries by day
+     */
+    public TradeLedger(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void onExecution(Execution execution) {
+        CurrencyPair pair = execution.getPair();
+        int pairId = pair.getId();
+        int quoteId = pair.getQuote().getId();
+        long day = Math.floorDiv(execution.getTimestamp(), MILLIS_PER_DAY);
+        long stamp = lock.writeLock();
+        try {
+            append(execution);
+            long realized = 0;
+            if(execution.getSide() == OrderSide.BUY){
+                long cost = execution.getAmount() + execution.getFee();
+                openCost[pairId] += cost;
+                quoteOpenCost[quoteId] += cost;
+                openQuantity[pairId] += execution.getQuantity();
+            } else {
+                // Average cost of the quantity sold, the open position never goes short
+                long soldQuantity = Math.min(execution.getQuantity(), openQuantity[pairId]);
+                long cost = soldQuantity == openQuantity[pairId] ? openCost[pairId]
+                        : FixedPoint.mulDiv(openCost[pairId], soldQuantity, openQuantity[pairId], RoundingMode.HALF_EVEN);
+                realized = execution.getAmount() - execution.getFee() - cost;
+                openCost[pairId] -= cost;
+                quoteOpenCost[quoteId] -= cost;
+                openQuantity[pairId] -= soldQuantity;
+            }
+            pairTotals.add(pairId, day, realized, execution.getFee());
+            quoteTotals.add(quoteId, day, realized, execution.getFee());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void append(Execution execution) {
+        int index = size;
+        int chunk = index >>> CHUNK_BITS;
+        if(chunk == timestamps.length){
+            timestamps = Arrays.copyOf(timestamps, chunk + 1);
+            timestamps[chunk] = new long[CHUNK_SIZE];
+            pairIds = Arrays.copyOf(pairIds, chunk + 1);
+            pairIds[chunk] = new int[CHUNK_SIZE];
+            sides = Arrays.copyOf(sides, chunk + 1);
+            sides[chunk] = new byte[CHUNK_SIZE];
+            quantities = Arrays.copyOf(quantities, chunk + 1);
+            quantities[chunk] = new long[CHUNK_SIZE];
+            prices = Arrays.copyOf(prices, chunk + 1);
+            prices[chunk] = new long[CHUNK_SIZE];
+            amounts = Arrays.copyOf(amounts, chunk + 1);
+            amounts[chunk] = new long[CHUNK_SIZE];
+            fees = Arrays.copyOf(fees, chunk + 1);
+            fees[chunk] = new long[CHUNK_SIZE];
+        }
+        int offset = index & (CHUNK_SIZE - 1);
+        timestamps[chunk][offset] = execution.getTimestamp();
+        pairIds[chunk][offset] = execution.getPair().getId();
+        sides[chunk][offset] = (byte) execution.getSide().ordinal();
+        quantities[chunk][offset] = execution.getQuantity();
+        prices[chunk][offset] = execution.getPrice();
+        amounts[chunk][offset] = execution.getAmount();
+        fees[chunk][offset] = execution.getFee();
+        // Publishes the fill to the readers of the columns
+        size = index + 1;
+    }
+
+    /**
+     * @return the number of fills recorded
+     */
+    public int getFillCount() {
+        return size;
+    }
+
+    /**
+     * Visit the fills recorded, in order, from the given index up to the last one recorded when called.
+     */
+    public void forEachFill(int from, FillVisitor visitor) {
+        int end = size;
+        OrderSide[] orderSides = OrderSide.values();
+        for(int index = from; index < end; index++){
+            int chunk = index >>> CHUNK_BITS;
+            int offset = index & (CHUNK_SIZE - 1);
+            visitor.onFill(timestamps[chunk][offset], CurrencyPair.byId(pairIds[chunk][offset]),
+                    orderSides[sides[chunk][offset]], quantities[chunk][offset], prices[chunk][offset],
+                    amounts[chunk][offset], fees[chunk][offset]);
+        }
+    }
+
+    /**
+     * @return the realized profit of the pair since the ledger was created, at the quote currency scale, net of fees
+     */
+    public long getRealizedProfit(CurrencyPair pair) {
+        return read(() -> pairTotals.realized[pair.getId()]);
+    }
+
+    /**
+     * @param days number of UTC days, today included, at most {@link #RETAINED_DAYS}: 1 for today
+     * @return the realized profit of the pair over the days, at the quote currency scale, net of fees
+     */
+    public long getRealizedProfit(CurrencyPair pair, int days) {
+        long today = today(days);
+        return read(() -> pairTotals.sum(pairTotals.dailyRealized, pair.getId(), today, days));
+    }
+
+    /**
+     * @return the realized profit of all the pairs quoted in the currency over the days, net of fees
+     */
+    public long getRealizedProfit(Currency quote, int days) {
+        long today = today(days);
+        return read(() -> quoteTotals.sum(quoteTotals.dailyRealized, quote.getId(), today, days));
+    }
+
+    public long getFees(CurrencyPair pair) {
+        return read(() -> pairTotals.fees[pair.getId()]);
+    }
+
+    /**
+     * @return the fees paid on the BUYs and SELLs of the pair over the days, at the quote currency scale
+     */
+    public long getFees(CurrencyPair pair, int days) {
+        long today = today(days);
+        return read(() -> pairTotals.sum(pairTotals.dailyFees, pair.getId(), today, days));
+    }
+
+    /**
+     * @return the fees paid on all the pairs quoted in the currency over the days
+     */
+    public long getFees(Currency quote, int days) {
+        long today = today(days);
+        return read(() -> quoteTotals.sum(quoteTotals.dailyFees, quote.getId(), today, days));
+    }
+
+    /**
+     * @return the base currency bought and not sold yet on the pair
+     */
+    public long getOpenQuantity(CurrencyPair pair) {
+        return read(() -> openQuantity[pair.getId()]);
+    }
+
+    /**
+     * @return the cost of the open position of the pair, fees included, at the quote currency scale
+     */
+    public long getOpenCost(CurrencyPair pair) {
+        return read(() -> openCost[pair.getId()]);
+    }
+
+    /**
+     * @return the cost of the open positions of all the pairs quoted in the currency
+     */
+    public long getOpenCost(Currency quote) {
+        return read(() -> quoteOpenCost[quote.getId()]);
+    }
+
+    /**
+     * @return the value of the open position of the pair at the given price, at the quote currency scale
+     */
+    public long getExposure(CurrencyPair pair, long price) {
+        int quoteScale = pair.getQuote().getScale();
+        return FixedPoint.multiply(getOpenQuantity(pair), pair.getBase().getScale(), price, quoteScale, quoteScale,
+                RoundingMode.HALF_EVEN);
+    }
+
+    private long today(int days) {
+        if(days < 1 || days > RETAINED_DAYS){
+            throw new IllegalArgumentException("Days out of range: " + days);
+        }
+        return Math.floorDiv(clock.millis(), MILLIS_PER_DAY);
+    }
+
+    private long read(LongSupplier query) {
+        for(int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++){
+            long stamp = lock.tryOptimisticRead();
+            if(stamp != 0){
+                long value = query.getAsLong();
+                if(lock.validate(stamp)){
+                    return value;
+                }
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return query.getAsLong();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Realized profit and fees by key, in total and per day in a ring of {@link #RETAINED_DAYS} buckets.
+     */
+    private static final class DailyTotals {
+
+        private final long[] realized;
+        private final long[] fees;
+        // Bucket (key * RETAINED_DAYS + day % RETAINED_DAYS): the day it holds and its sums
+        private final long[] bucketDays;
+        private final long[] dailyRealized;
+        private final long[] dailyFees;
+
+        DailyTotals(int keys) {
+            realized = new long[keys];
+            fees = new long[keys];
+            bucketDays = new long[keys * RETAINED_DAYS];
+            Arrays.fill(bucketDays, Long.MIN_VALUE);
+            dailyRealized = new long[keys * RETAINED_DAYS];
+            dailyFees = new long[keys * RETAINED_DAYS];
+        }
+
+        void add(int key, long day, long realizedProfit, long fee) {
+            realized[key] += realizedProfit;
+            fees[key] += fee;
+            int bucket = bucket(key, day);
+            if(bucketDays[bucket] != day){
+                if(bucketDays[bucket] > day){
+                    // Older than the days retained
+                    return;
+                }
+                bucketDays[bucket] = day;
+                dailyRealized[bucket] = 0;
+                dailyFees[bucket] = 0;
+            }
+            dailyRealized[bucket] += realizedProfit;
+            dailyFees[bucket] += fee;
+        }
+
+        long sum(long[] daily, int key, long today, int days) {
+            long sum = 0;
+            for(long day = today - days + 1; day <= today; day++){
+                int bucket = bucket(key, day);
+                if(bucketDays[bucket] == day){
+                    sum += daily[bucket];
+                }
+            }
+            return sum;
+        }
+
+        private static int bucket(int key, long day) {
+            return key * RETAINED_DAYS + Math.floorMod(day, RETAINED_DAYS);
+        }
+    }
+
+    @FunctionalInterface
+    public interface FillVisitor {
+
+        void onFill(long timestamp, CurrencyPair pair, OrderSide side, long quantity, long price, long amount, long fee);
+    }
+}
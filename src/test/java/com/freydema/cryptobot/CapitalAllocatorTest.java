@@ -0,0 +1,115 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.CompletableFuture;
+
+public class CapitalAllocatorTest {
+
+    private final Account account = new Account();
+    // Orders are never acknowledged: the traders keep their BUY funds blocked
+    private final ExchangeClient exchangeClient = new ExchangeClient() {
+        @Override
+        public Ticker getTicker(CurrencyPair pair) {
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<Order> placeOrder(Order order) {
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> cancelOrder(Order order) {
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public void addExecutionListener(CurrencyPair pair, ExecutionListener listener) {
+        }
+    };
+
+    @Test
+    public void bestCandidateIsFundedFirst() {
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(400)));
+        CapitalAllocator allocator = new CapitalAllocator(account, FixedPoint.ONE_HUNDRED_PERCENT * 6 / 10);
+        CurrencyPairTrader btc = trader(CurrencyPair.BTCEUR, allocator);
+        CurrencyPairTrader eth = trader(CurrencyPair.ETHEUR, allocator);
+        // Both trigger and need about 208 EUR, but the ETH range high is below its SELL target: ETH is submitted
+        // first and ranked last
+        eth.onTicker(CurrencyPair.ETHEUR, Ticker.of(CurrencyPair.ETHEUR, 10.01, 10.02, 10, 10.1));
+        btc.onTicker(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, btc.getState());
+        Assert.assertEquals(0, account.getBlocked(Currency.EUR));
+
+        Assert.assertEquals(1, allocator.allocate());
+
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_PLACED, btc.getState());
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, eth.getState());
+        Assert.assertEquals(reserveFor(btc.getBuyOrder()), account.getBlocked(Currency.EUR));
+        // Served candidates are not served twice
+        Assert.assertEquals(0, allocator.allocate());
+    }
+
+    @Test
+    public void candidatesAreCappedPerPair() {
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(400)));
+        CapitalAllocator allocator = new CapitalAllocator(account, FixedPoint.ONE_HUNDRED_PERCENT / 4);
+        CurrencyPairTrader btc = trader(CurrencyPair.BTCEUR, allocator);
+        btc.onTicker(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+
+        Assert.assertEquals(1, allocator.allocate());
+
+        // 25% of 400 EUR at 12 EUR, fee included: 100 / (12 * 1.0026) = 8.31172283 BTC
+        Assert.assertEquals(831_172_283L, btc.getBuyOrder().getQuantity());
+        Assert.assertEquals(reserveFor(btc.getBuyOrder()), account.getBlocked(Currency.EUR));
+        Assert.assertTrue(account.getBlocked(Currency.EUR) <= Currency.EUR.toUnits(BigDecimal.valueOf(100)));
+    }
+
+    @Test
+    public void candidateNoLongerTriggeringIsDeclined() {
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(400)));
+        CapitalAllocator allocator = new CapitalAllocator(account, FixedPoint.ONE_HUNDRED_PERCENT);
+        CurrencyPairTrader btc = trader(CurrencyPair.BTCEUR, allocator);
+        btc.onTicker(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+        btc.onTicker(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 12.9, 13, 10, 20));
+
+        Assert.assertEquals(0, allocator.allocate());
+
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, btc.getState());
+        Assert.assertEquals(0, account.getBlocked(Currency.EUR));
+    }
+
+    /**
+     * @return the order amount and its 0.26% fee, rounded up
+     */
+    private static long reserveFor(Order order) {
+        long amount = FixedPoint.multiply(order.getQuantity(), Currency.BTC.getScale(), order.getLimit(),
+                Currency.EUR.getScale(), Currency.EUR.getScale(), RoundingMode.UP);
+        return amount + FixedPoint.percentOf(amount, FixedPoint.of(BigDecimal.valueOf(0.26), FixedPoint.RATIO_SCALE),
+                RoundingMode.UP);
+    }
+
+    private CurrencyPairTrader trader(CurrencyPair pair, CapitalAllocator allocator) {
+        Configuration configuration = Configuration.builder()
+                .currencyPair(pair)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.ONE)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+        CurrencyPairTrader trader = new CurrencyPairTrader(configuration, account, exchangeClient);
+        trader.setCapitalAllocator(allocator);
+        trader.recover();
+        return trader;
+    }
+}
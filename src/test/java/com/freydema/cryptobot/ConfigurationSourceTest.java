@@ -0,0 +1,124 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.backtest.BacktestExchangeClient;
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Arrays;
+
+public class ConfigurationSourceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+    private Configuration defaults;
+
+    @Before
+    public void setup() {
+        file = folder.getRoot().toPath().resolve("trading.properties");
+        defaults = Configuration.builder()
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+    }
+
+    @Test
+    public void pairValuesOverrideTheDefaults() throws IOException {
+        write("default.tradeFeePercentage=0.16",
+                "ETHEUR.targetPriceGrowthPercentage=1.5",
+                "ETHEUR.priceWindowMillis=60000");
+        ConfigurationSource source = new ConfigurationSource(file,
+                Arrays.asList(CurrencyPair.BTCEUR, CurrencyPair.ETHEUR), defaults);
+        ConfigurationSource.Snapshot snapshot = source.getSnapshot();
+        Assert.assertEquals(1, snapshot.getVersion());
+        Configuration btc = snapshot.getConfiguration(CurrencyPair.BTCEUR);
+        Assert.assertEquals(CurrencyPair.BTCEUR, btc.getCurrencyPair());
+        Assert.assertEquals(percent("0.16"), btc.getTradeFeePercentage());
+        Assert.assertEquals(percent("1"), btc.getTargetPriceGrowthPercentage());
+        Configuration eth = snapshot.getConfiguration(CurrencyPair.ETHEUR);
+        Assert.assertEquals(percent("0.16"), eth.getTradeFeePercentage());
+        Assert.assertEquals(percent("1.5"), eth.getTargetPriceGrowthPercentage());
+        Assert.assertEquals(60_000, eth.getPriceWindowMillis());
+        Assert.assertNull(snapshot.getConfiguration(CurrencyPair.LTCEUR));
+    }
+
+    @Test
+    public void traderTakesTheReloadedConfigurationAtItsNextUpdate() throws IOException {
+        write("default.askPriceVsLast24HLowTriggerRatio=0.2");
+        ConfigurationSource source = new ConfigurationSource(file,
+                Arrays.asList(CurrencyPair.BTCEUR, CurrencyPair.ETHEUR), defaults);
+        CurrencyPairTrader trader = new CurrencyPairTrader(source.getSnapshot().getConfiguration(CurrencyPair.BTCEUR),
+                new Account(), new BacktestExchangeClient(Clock.systemUTC()));
+        trader.setConfigurationSource(source);
+        Configuration eth = source.getSnapshot().getConfiguration(CurrencyPair.ETHEUR);
+
+        write("default.askPriceVsLast24HLowTriggerRatio=0.2", "BTCEUR.askPriceVsLast24HLowTriggerRatio=0.4");
+        Assert.assertTrue(source.reload());
+        Assert.assertEquals(2, source.getSnapshot().getVersion());
+        // Unchanged pairs keep their configuration
+        Assert.assertSame(eth, source.getSnapshot().getConfiguration(CurrencyPair.ETHEUR));
+        Assert.assertEquals(percent("0.2"), trader.getConfiguration().getAskPriceVsLast24HLowTriggerRatio());
+        trader.onTicker(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 13.9, 14, 10, 20));
+        Assert.assertEquals(percent("0.4"), trader.getConfiguration().getAskPriceVsLast24HLowTriggerRatio());
+    }
+
+    @Test
+    public void invalidFileIsIgnored() throws IOException {
+        write("default.tradeFeePercentage=0.16");
+        ConfigurationSource source = new ConfigurationSource(file, Arrays.asList(CurrencyPair.BTCEUR), defaults);
+        ConfigurationSource.Snapshot snapshot = source.getSnapshot();
+        // Growth not covering the fees
+        write("default.tradeFeePercentage=0.16", "BTCEUR.targetPriceGrowthPercentage=0.2");
+        Assert.assertFalse(source.reload());
+        write("default.tradeFeePercentage=abc");
+        Assert.assertFalse(source.reload());
+        write("default.tradeFee=0.16");
+        Assert.assertFalse(source.reload());
+        write("XXXEUR.tradeFeePercentage=0.16");
+        Assert.assertFalse(source.reload());
+        // Not traded live
+        write("BTCEUR.ladderLevels=3");
+        Assert.assertFalse(source.reload());
+        Assert.assertSame(snapshot, source.getSnapshot());
+    }
+
+    @Test
+    public void changesAreWatched() throws Exception {
+        ConfigurationSource source = new ConfigurationSource(file, Arrays.asList(CurrencyPair.BTCEUR), defaults);
+        Assert.assertEquals(percent("0.26"), source.getSnapshot().getConfiguration(CurrencyPair.BTCEUR).getTradeFeePercentage());
+        source.start();
+        try {
+            write("BTCEUR.tradeFeePercentage=0.1");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while(source.getSnapshot().getVersion() == 1 && System.currentTimeMillis() < deadline){
+                Thread.sleep(20);
+            }
+            Assert.assertEquals(percent("0.1"), source.getSnapshot().getConfiguration(CurrencyPair.BTCEUR).getTradeFeePercentage());
+        } finally {
+            source.close();
+        }
+    }
+
+    private void write(String... lines) throws IOException {
+        Files.write(file, Arrays.asList(lines));
+    }
+
+    private static long percent(String value) {
+        return FixedPoint.of(new BigDecimal(value), FixedPoint.RATIO_SCALE);
+    }
+}
@@ -1,5 +1,6 @@
 package com.freydema.cryptobot;
 
+import com.freydema.cryptobot.backtest.BacktestExchangeClient;
 import com.freydema.cryptobot.domain.*;
 import org.junit.Assert;
 import org.junit.Before;
@@ -8,8 +9,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import static com.freydema.cryptobot.BigDecimalUtils.*;
 
 public class CurrencyPairTraderTest {
@@ -19,6 +25,7 @@ public class CurrencyPairTraderTest {
 
     private Account account;
     private Queue<Ticker> tickerQueue;
+    private TestExchangeClient exchangeClient;
     private CurrencyPairTrader trader;
 
     @Before
@@ -32,7 +39,7 @@ public class CurrencyPairTraderTest {
                 .build();
         account = new Account();
         tickerQueue = new LinkedList<>();
-        ExchangeClient exchangeClient = new TestExchangeClient(tickerQueue);
+        exchangeClient = new TestExchangeClient(tickerQueue);
         trader = new CurrencyPairTrader(configuration, account, exchangeClient);
     }
 
@@ -41,16 +48,16 @@ public class CurrencyPairTraderTest {
     public void test() {
 
         // Setup test data
-        account.addAsset(Currency.EUR, BigDecimal.valueOf(5000));
-        account.addAsset(Currency.BTC, BigDecimal.ZERO);
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        account.addAsset(Currency.BTC, 0);
 
         // Validate setup
         Assert.assertEquals(CurrencyPair.BTCEUR, trader.getPair());
         Assert.assertEquals(CurrencyPairTrader.State.START, trader.getState());
         Assert.assertNull(trader.getBuyOrder());
         Assert.assertNull(trader.getSellOrder());
-        Assert.assertEquals(BigDecimal.valueOf(5000), trader.getAccount().getBalance(Currency.EUR));
-        Assert.assertEquals(BigDecimal.valueOf(0), trader.getAccount().getBalance(Currency.BTC));
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.valueOf(5000)), trader.getAccount().getBalance(Currency.EUR));
+        Assert.assertEquals(0, trader.getAccount().getBalance(Currency.BTC));
 
         // Recover
         trader.recover();
@@ -59,64 +66,217 @@ public class CurrencyPairTraderTest {
         // Trade
 
         // Ticker 1: should not buy
-        tickerQueue.offer(Ticker.of(12.1, 12.2, 10, 20));
+        tickerQueue.offer(Ticker.of(CurrencyPair.BTCEUR, 12.1, 12.2, 10, 20));
         trader.update();
         Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, trader.getState());
         Assert.assertNull(trader.getBuyOrder());
 
         // Ticker 2: should buy
-        tickerQueue.offer(Ticker.of(11.9, 12, 10, 20));
+        tickerQueue.offer(Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
         trader.update();
-        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_EXECUTED, trader.getState());
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_PLACED, trader.getState());
         Order buyOrder = trader.getBuyOrder();
         Assert.assertNotNull(buyOrder);
         Assert.assertEquals(CurrencyPair.BTCEUR, buyOrder.getPair());
         Assert.assertEquals(OrderSide.BUY, buyOrder.getSide());
-        Assert.assertEquals(BigDecimal.valueOf(174.557), buyOrder.getQuantity());
-        Assert.assertEquals(BigDecimal.valueOf(12.0), buyOrder.getLimit());
+        Assert.assertEquals(new BigDecimal("174.55662616"), Currency.BTC.toBigDecimal(buyOrder.getQuantity()));
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.valueOf(12.0)), buyOrder.getLimit());
+        // 2094.679514 EUR plus the 0.26% fee it may be charged
+        Assert.assertEquals(Currency.EUR.toUnits(new BigDecimal("2100.125681")), account.getBlocked(Currency.EUR));
 
-        // Ticker 3: buy order should not be executed
-        tickerQueue.offer(Ticker.of(11.9, 12, 10, 20));
-        trader.update();
+        // Buy order accepted
+        exchangeClient.acknowledge(buyOrder);
         Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_EXECUTED, trader.getState());
 
-        // Ticker 4: buy order should be executed
-        tickerQueue.offer(Ticker.of(12, 12.1, 10, 20));
-        trader.update();
-        Assert.assertEquals(CurrencyPairTrader.State.TRY_SELL, trader.getState());
-
-        // Next update: sell order should be placed
-        trader.update();
-        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_SELL_ORDER_EXECUTED, trader.getState());
+        // Partial execution below the limit
+        exchangeClient.execute(buyOrder, new BigDecimal("100"), new BigDecimal("11.99"));
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_EXECUTED, trader.getState());
+        Assert.assertEquals(Currency.BTC.toUnits(new BigDecimal("100")), account.getBalance(Currency.BTC));
+        Assert.assertEquals(Currency.BTC.toUnits(new BigDecimal("100")), trader.getFilledQuantity());
+        // 1199 EUR plus 3.1174 EUR of fee
+        Assert.assertEquals(Currency.EUR.toUnits(new BigDecimal("3797.8826")), account.getBalance(Currency.EUR));
+        // The 1203.12 EUR reserved for 100 BTC are released, the 0.9826 EUR not spent are available again
+        Assert.assertEquals(Currency.EUR.toUnits(new BigDecimal("897.005681")), account.getBlocked(Currency.EUR));
+
+        // Remaining execution: the sell order is placed right away
+        exchangeClient.execute(buyOrder, new BigDecimal("74.55662616"), new BigDecimal("12"));
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_SELL_ORDER_PLACED, trader.getState());
+        Assert.assertEquals(0, account.getBlocked(Currency.EUR));
         Order sellOrder = trader.getSellOrder();
         Assert.assertNotNull(sellOrder);
         Assert.assertEquals(CurrencyPair.BTCEUR, sellOrder.getPair());
         Assert.assertEquals(OrderSide.SELL, sellOrder.getSide());
-        Assert.assertEquals(BigDecimal.valueOf(174.557), sellOrder.getQuantity());
-        //Assert.assertEquals(BigDecimal.valueOf(12.120), sellOrder.getLimit());
+        Assert.assertEquals(new BigDecimal("174.55662616"), Currency.BTC.toBigDecimal(sellOrder.getQuantity()));
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.valueOf(12.12)), sellOrder.getLimit());
+        Assert.assertEquals(sellOrder.getQuantity(), account.getBlocked(Currency.BTC));
 
-        // Ticker 5: sell order should be executed
-        tickerQueue.offer(Ticker.of(12, 12.1, 10, 20));
-        trader.update();
+        // Sell order accepted and executed
+        exchangeClient.acknowledge(sellOrder);
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_SELL_ORDER_EXECUTED, trader.getState());
+        exchangeClient.execute(sellOrder, new BigDecimal("174.55662616"), new BigDecimal("12.12"));
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, trader.getState());
+        Assert.assertNull(trader.getBuyOrder());
+        Assert.assertEquals(0, account.getBalance(Currency.BTC));
+        Assert.assertEquals(0, account.getBlocked(Currency.BTC));
+        // Roughly the 10 EUR target profit, plus the price improvement of the first execution
+        BigDecimal profit = Currency.EUR.toBigDecimal(account.getBalance(Currency.EUR)).subtract(BigDecimal.valueOf(5000));
+        Assert.assertTrue(profit.subtract(BigDecimal.valueOf(11)).abs().compareTo(BigDecimal.valueOf(0.01)) < 0);
+    }
 
-        Assert.assertEquals(CurrencyPairTrader.State.END_ROUND_TRIP, trader.getState());
+    @Test
+    public void rejectedBuyOrderReleasesFunds() {
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        trader.recover();
+        tickerQueue.offer(Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+        trader.update();
+        Assert.assertTrue(account.getBlocked(Currency.EUR) > 0);
+        exchangeClient.reject(trader.getBuyOrder());
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, trader.getState());
+        Assert.assertNull(trader.getBuyOrder());
+        Assert.assertEquals(0, account.getBlocked(Currency.EUR));
+    }
 
+    @Test
+    public void waitsForFundsReservedByOtherTraders() {
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        account.blockAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        trader.recover();
+        tickerQueue.offer(Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+        trader.update();
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, trader.getState());
 
+        account.unblockAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        tickerQueue.offer(Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+        trader.update();
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_PLACED, trader.getState());
     }
 
     @Test
     public void shouldBuyGivenTickerTest() {
         // Below ratio
-        Ticker ticker = Ticker.of(11, 11, 10, 20);
+        Ticker ticker = Ticker.of(CurrencyPair.BTCEUR, 11, 11, 10, 20);
         Assert.assertTrue(trader.shouldBuyGivenTicker(ticker));
         // At ratio
-        ticker = Ticker.of(12, 12, 10, 20);
+        ticker = Ticker.of(CurrencyPair.BTCEUR, 12, 12, 10, 20);
         Assert.assertTrue(trader.shouldBuyGivenTicker(ticker));
         // Above ratio
-        ticker = Ticker.of(12.1, 12.1, 10, 20);
+        ticker = Ticker.of(CurrencyPair.BTCEUR, 12.1, 12.1, 10, 20);
         Assert.assertFalse(trader.shouldBuyGivenTicker(ticker));
     }
 
+    @Test
+    public void shouldBuyGivenLocalPriceWindow() {
+        Configuration configuration = Configuration.builder()
+                .currencyPair(CurrencyPair.BTCEUR)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                // 1440 buckets of 10 ms
+                .priceWindowMillis(14_400)
+                .build();
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        CurrencyPairTrader windowTrader = new CurrencyPairTrader(configuration, account,
+                new BacktestExchangeClient(Clock.systemUTC()));
+        windowTrader.recover();
+        // The exchange 24h fields (0-1000) are ignored: the range is built from the observed ask prices
+        windowTrader.onTicker(CurrencyPair.BTCEUR, timedTicker(1_000, 9.9, 10));
+        windowTrader.onTicker(CurrencyPair.BTCEUR, timedTicker(5_000, 19.9, 20));
+        windowTrader.onTicker(CurrencyPair.BTCEUR, timedTicker(8_000, 14.9, 15));
+        // In the trigger range, but the ticks observed do not span the window yet
+        windowTrader.onTicker(CurrencyPair.BTCEUR, timedTicker(9_000, 11.9, 12));
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, windowTrader.getState());
+        windowTrader.onTicker(CurrencyPair.BTCEUR, timedTicker(15_390, 11.9, 12));
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_EXECUTED, windowTrader.getState());
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.valueOf(12)), windowTrader.getBuyOrder().getLimit());
+    }
+
+    private static Ticker timedTicker(long timestamp, double bid, double ask) {
+        Ticker ticker = Ticker.of(CurrencyPair.BTCEUR, bid, ask, 0, 1000);
+        return Ticker.builder()
+                .timestamp(timestamp)
+                .bidPrice(ticker.getBidPrice())
+                .askPrice(ticker.getAskPrice())
+                .last24HLow(ticker.getLast24HLow())
+                .last24HHigh(ticker.getLast24HHigh())
+                .build();
+    }
+
+    @Test
+    public void shouldNotBuyGivenFlatTicker() {
+        Ticker ticker = Ticker.of(CurrencyPair.BTCEUR, 10, 10, 10, 10);
+        Assert.assertFalse(trader.shouldBuyGivenTicker(ticker));
+    }
+
+    @Test
+    public void reconfigureAppliesFromTheNextTicker() {
+        Ticker ticker = Ticker.of(CurrencyPair.BTCEUR, 13.9, 14, 10, 20);
+        Assert.assertFalse(trader.shouldBuyGivenTicker(ticker));
+        Configuration wider = Configuration.builder()
+                .currencyPair(CurrencyPair.BTCEUR)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.4))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+        trader.reconfigure(wider);
+        Assert.assertSame(wider, trader.getConfiguration());
+        Assert.assertTrue(trader.shouldBuyGivenTicker(ticker));
+    }
+
+    @Test
+    public void invalidReconfigurationIsNotApplied() {
+        Configuration current = trader.getConfiguration();
+        // 0.52% covers twice the fees but not the fees on the SELL proceeds
+        Configuration tooTight = Configuration.builder()
+                .currencyPair(CurrencyPair.BTCEUR)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.valueOf(0.5201))
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+        try {
+            trader.reconfigure(tooTight);
+            Assert.fail("Configuration not covering the fees applied");
+        } catch (RuntimeException e) {
+            Assert.assertSame(current, trader.getConfiguration());
+        }
+    }
+
+    @Test
+    public void sellsOnlyTheQuantityBought() {
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        // Bought by the trader of another pair sharing the base currency
+        account.addAsset(Currency.BTC, Currency.BTC.toUnits(BigDecimal.valueOf(3)));
+        trader.recover();
+        tickerQueue.offer(Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+        trader.update();
+        Order buyOrder = trader.getBuyOrder();
+        exchangeClient.acknowledge(buyOrder);
+        exchangeClient.execute(buyOrder, Currency.BTC.toBigDecimal(buyOrder.getQuantity()), new BigDecimal("12"));
+
+        Order sellOrder = trader.getSellOrder();
+        Assert.assertEquals(buyOrder.getQuantity(), sellOrder.getQuantity());
+        // Rejected: placed again for the same quantity
+        exchangeClient.reject(sellOrder);
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_SELL, trader.getState());
+        trader.update();
+        Assert.assertEquals(buyOrder.getQuantity(), trader.getSellOrder().getQuantity());
+        Assert.assertEquals(buyOrder.getQuantity(), account.getBlocked(Currency.BTC));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void targetProfitInEURRequiresAPairQuotedInEUR() {
+        CurrencyPair ethBtc = CurrencyPair.register("ETHBTC", Currency.ETH, Currency.BTC);
+        new CurrencyPairTrader(Configuration.builder()
+                .currencyPair(ethBtc)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build(), account, exchangeClient);
+    }
+
     @Test
     public void calculateBuyQuantityGivenTest() {
         // Test case 1
@@ -124,9 +284,9 @@ public class CurrencyPairTraderTest {
         BigDecimal targetPriceMovePercentage = BigDecimal.ONE;
         BigDecimal feePercentage = BigDecimal.valueOf(0.25);
         BigDecimal buyPrice = BigDecimal.valueOf(100);
-        BigDecimal calculatedQuantity = CurrencyPairTrader.calculateBuyQuantityGiven(buyPrice, targetProfit, targetPriceMovePercentage, feePercentage);
+        BigDecimal calculatedQuantity = calculateBuyQuantityGiven(buyPrice, targetProfit, targetPriceMovePercentage, feePercentage);
         Assert.assertTrue(calculatedQuantity.signum() > 0);
-        Assert.assertEquals(BigDecimal.valueOf(20.1005), calculatedQuantity);
+        Assert.assertEquals(new BigDecimal("20.10050251"), calculatedQuantity);
         BigDecimal actualProfit = calculateActualProfit(buyPrice, targetPriceMovePercentage, calculatedQuantity, feePercentage);
         Assert.assertTrue(targetProfit.subtract(actualProfit).abs().compareTo(EPSILON) < 0);
         // Test case 2
@@ -134,12 +294,24 @@ public class CurrencyPairTraderTest {
         targetPriceMovePercentage = BigDecimal.valueOf(1);
         feePercentage = BigDecimal.valueOf(0.26);
         buyPrice = BigDecimal.valueOf(0.3);
-        calculatedQuantity = CurrencyPairTrader.calculateBuyQuantityGiven(buyPrice, targetProfit, targetPriceMovePercentage, feePercentage).abs();
+        calculatedQuantity = calculateBuyQuantityGiven(buyPrice, targetProfit, targetPriceMovePercentage, feePercentage).abs();
         Assert.assertTrue(calculatedQuantity.signum() > 0);
         actualProfit = calculateActualProfit(buyPrice, targetPriceMovePercentage, calculatedQuantity, feePercentage);
         Assert.assertTrue(targetProfit.subtract(actualProfit).abs().compareTo(EPSILON) < 0);
     }
 
+    private BigDecimal calculateBuyQuantityGiven(BigDecimal buyPrice,
+                                                 BigDecimal targetProfit,
+                                                 BigDecimal targetPriceMovePercentage,
+                                                 BigDecimal feePercentage) {
+        long quantity = CurrencyPairTrader.calculateBuyQuantityGiven(CurrencyPair.BTCEUR,
+                Currency.EUR.toUnits(buyPrice),
+                Currency.EUR.toUnits(targetProfit),
+                FixedPoint.of(targetPriceMovePercentage, FixedPoint.RATIO_SCALE),
+                FixedPoint.of(feePercentage, FixedPoint.RATIO_SCALE));
+        return Currency.BTC.toBigDecimal(quantity);
+    }
+
     private BigDecimal calculateActualProfit(BigDecimal buyPrice,
                                             BigDecimal targetPriceMovePercentage,
                                             BigDecimal quantity,
@@ -165,9 +337,14 @@ public class CurrencyPairTraderTest {
     }
 
 
+    /**
+     * Serves the queued tickers. Orders are acknowledged, rejected and executed on demand.
+     */
     private static class TestExchangeClient implements ExchangeClient {
 
         private final Queue<Ticker> tickers;
+        private final Map<String, CompletableFuture<Order>> placements = new HashMap<>();
+        private ExecutionListener listener;
 
 
         public TestExchangeClient(Queue<Ticker> tickers) {
@@ -179,6 +356,44 @@ public class CurrencyPairTraderTest {
             return tickers.poll();
         }
 
+        @Override
+        public CompletableFuture<Order> placeOrder(Order order) {
+            CompletableFuture<Order> placement = new CompletableFuture<>();
+            placements.put(order.getId(), placement);
+            return placement;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> cancelOrder(Order order) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        @Override
+        public void addExecutionListener(CurrencyPair pair, ExecutionListener listener) {
+            this.listener = listener;
+        }
+
+        void acknowledge(Order order) {
+            placements.get(order.getId()).complete(order);
+        }
+
+        void reject(Order order) {
+            placements.get(order.getId()).completeExceptionally(new IllegalStateException("Rejected"));
+        }
+
+        void execute(Order order, BigDecimal quantity, BigDecimal price) {
+            BigDecimal amount = quantity.multiply(price);
+            BigDecimal fee = amount.multiply(BigDecimal.valueOf(0.26)).divide(HUNDRED);
+            listener.onExecution(Execution.builder()
+                    .orderId(order.getId())
+                    .pair(order.getPair())
+                    .side(order.getSide())
+                    .quantity(Currency.BTC.toUnits(quantity))
+                    .price(Currency.EUR.toUnits(price))
+                    .amount(FixedPoint.of(amount, Currency.EUR.getScale(), RoundingMode.HALF_EVEN))
+                    .fee(FixedPoint.of(fee, Currency.EUR.getScale(), RoundingMode.UP))
+                    .build());
+        }
     }
 
 
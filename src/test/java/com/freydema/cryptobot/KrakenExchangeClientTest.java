@@ -0,0 +1,106 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class KrakenExchangeClientTest {
+
+    private static final long NOW = 1_551_435_330_000L;
+
+    private HttpServer server;
+    private final AtomicReference<byte[]> response = new AtomicReference<>();
+    private final AtomicReference<String> query = new AtomicReference<>();
+    private KrakenExchangeClient client;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/0/public/Ticker", exchange -> {
+            query.set(exchange.getRequestURI().getQuery());
+            byte[] body = response.get();
+            exchange.sendResponseHeaders(200, body.length);
+            try(OutputStream output = exchange.getResponseBody()){
+                output.write(body);
+            }
+        });
+        server.start();
+        URI uri = URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+        client = new KrakenExchangeClient(uri, CurrencyPair.values(), Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void fetchesTheTickersOfAllThePairsInOneRequest() throws IOException {
+        response.set(resource("/kraken/ticker.json"));
+
+        Map<CurrencyPair, Ticker> tickers = client.getTickers(Arrays.asList(CurrencyPair.values()));
+
+        Assert.assertTrue(query.get(), query.get().startsWith("pair=XBTEUR,ETHEUR,XRPEUR,BCHEUR,LTCEUR,ADAEUR,"));
+        Assert.assertEquals(16, tickers.size());
+        Ticker btc = tickers.get(CurrencyPair.BTCEUR);
+        Assert.assertEquals(3_403_900_000L, btc.getAskPrice());
+        Assert.assertEquals(100_000_000L, btc.getAskVolume());
+        Assert.assertEquals(3_400_500_000L, btc.getBidPrice());
+        Assert.assertEquals(1_250_000_000L, btc.getBidVolume());
+        Assert.assertEquals(3_230_500_000L, btc.getLast24HLow());
+        Assert.assertEquals(3_536_500_000L, btc.getLast24HHigh());
+        Assert.assertEquals(NOW, btc.getTimestamp());
+        // Key without the legacy prefixes
+        Assert.assertEquals(38_652L, tickers.get(CurrencyPair.ADAPEUR).getBidPrice());
+    }
+
+    @Test
+    public void extraDecimalsAreRoundedAndUnknownFieldsSkipped() {
+        response.set(("{\"error\":[],\"result\":{\"XXBTZEUR\":{\"o\":\"1.0\",\"x\":{\"y\":[1,true,null]},"
+                + "\"a\":[\"1.2345675\",\"1\",\"0.123456789\"],\"b\":[\"1.2345664\",\"3\",\"3\"],"
+                + "\"l\":[\"1\",\"0.5\"],\"h\":[\"1\",\"2\"]},\"XXBTZUSD\":{\"a\":[\"1\",\"1\",\"1\"]}}}")
+                .getBytes(StandardCharsets.UTF_8));
+
+        Map<CurrencyPair, Ticker> tickers = client.getTickers(Collections.singletonList(CurrencyPair.BTCEUR));
+
+        Assert.assertEquals(1, tickers.size());
+        Ticker btc = tickers.get(CurrencyPair.BTCEUR);
+        Assert.assertEquals(1_234_568L, btc.getAskPrice());
+        Assert.assertEquals(12_345_679L, btc.getAskVolume());
+        Assert.assertEquals(1_234_566L, btc.getBidPrice());
+        Assert.assertEquals(300_000_000L, btc.getBidVolume());
+        Assert.assertEquals(500_000L, btc.getLast24HLow());
+        Assert.assertEquals(2_000_000L, btc.getLast24HHigh());
+    }
+
+    @Test(expected = ExchangeThrottledException.class)
+    public void rateLimitErrorsAreReportedAsThrottling() {
+        response.set("{\"error\":[\"EAPI:Rate limit exceeded\"]}".getBytes(StandardCharsets.UTF_8));
+        client.getTicker(CurrencyPair.BTCEUR);
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try(InputStream input = KrakenExchangeClientTest.class.getResourceAsStream(name)){
+            return input.readAllBytes();
+        }
+    }
+}
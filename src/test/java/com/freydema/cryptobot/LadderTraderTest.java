@@ -0,0 +1,65 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.backtest.BacktestExchangeClient;
+import com.freydema.cryptobot.backtest.SimulatedClock;
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+public class LadderTraderTest {
+
+    private static final CurrencyPair PAIR = CurrencyPair.BTCEUR;
+    private static final long INITIAL_EUR = Currency.EUR.toUnits(BigDecimal.valueOf(10000));
+
+    @Test
+    public void levelsRoundTripIndependently() {
+        Configuration configuration = Configuration.builder()
+                .currencyPair(PAIR)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .ladderLevels(3)
+                .ladderSpacingPercentage(BigDecimal.ONE)
+                .build();
+        Account account = new Account();
+        account.addAsset(Currency.EUR, INITIAL_EUR);
+        account.addAsset(Currency.BTC, 0);
+        BacktestExchangeClient exchangeClient = new BacktestExchangeClient(new SimulatedClock());
+        exchangeClient.setFeePercentage(PAIR, configuration.getTradeFeePercentage());
+        LadderTrader trader = new LadderTrader(configuration, account, exchangeClient);
+        trader.recover();
+
+        // Triggers: BUYs at 12, 11.88 and 11.7612, the first one filled right away and its SELL placed at 12.12
+        tick(exchangeClient, trader, Ticker.of(PAIR, 11.9, 12, 10, 20));
+        Assert.assertEquals(3, trader.getOpenOrders());
+        Assert.assertTrue(account.getBalance(Currency.BTC) > 0);
+
+        // Second level filled, its SELL placed at 11.9988
+        tick(exchangeClient, trader, Ticker.of(PAIR, 11.7, 11.8, 10, 20));
+        Assert.assertEquals(3, trader.getOpenOrders());
+
+        // Both SELLs filled, the two levels BUY again below the ask
+        tick(exchangeClient, trader, Ticker.of(PAIR, 12.12, 12.13, 10, 20));
+        Assert.assertEquals(2, trader.getRoundTrips());
+        Assert.assertEquals(0, account.getBalance(Currency.BTC));
+        Assert.assertTrue(account.getBalance(Currency.EUR) > INITIAL_EUR);
+        Assert.assertEquals(3, trader.getOpenOrders());
+
+        // Away from the market, 1% above the top SELL price, with nothing held: the BUYs are cancelled and their
+        // funds released
+        tick(exchangeClient, trader, Ticker.of(PAIR, 12.25, 12.25, 10, 20));
+        Assert.assertEquals(0, trader.getOpenOrders());
+        Assert.assertEquals(0, account.getBlocked(Currency.EUR));
+    }
+
+    private static void tick(BacktestExchangeClient exchangeClient, LadderTrader trader, Ticker ticker) {
+        exchangeClient.setTicker(PAIR, ticker);
+        trader.onTicker(PAIR, ticker);
+    }
+}
@@ -0,0 +1,165 @@
+package com.freydema.cryptobot;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.OrderSide;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RateLimitedExchangeClientTest {
+
+    private static final Ticker BTC_TICKER = Ticker.of(CurrencyPair.BTCEUR, 10, 11, 9, 12);
+    private static final Ticker ETH_TICKER = Ticker.of(CurrencyPair.ETHEUR, 10, 11, 9, 12);
+
+    @Test
+    public void concurrentTickerRequestsOfAPairShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch respond = new CountDownLatch(1);
+        RateLimitedExchangeClient client = client(new StubExchangeClient() {
+            @Override
+            public Ticker getTicker(CurrencyPair pair) {
+                calls.incrementAndGet();
+                called.countDown();
+                await(respond);
+                return BTC_TICKER;
+            }
+        }, 10, Duration.ofMillis(1));
+        AtomicReference<Ticker> first = new AtomicReference<>();
+        AtomicReference<Ticker> second = new AtomicReference<>();
+        Thread firstCaller = new Thread(() -> first.set(client.getTicker(CurrencyPair.BTCEUR)));
+        Thread secondCaller = new Thread(() -> second.set(client.getTicker(CurrencyPair.BTCEUR)));
+        firstCaller.start();
+        called.await();
+        secondCaller.start();
+        awaitState(secondCaller, Thread.State.WAITING);
+        respond.countDown();
+        firstCaller.join();
+        secondCaller.join();
+
+        Assert.assertEquals(1, calls.get());
+        Assert.assertSame(BTC_TICKER, first.get());
+        Assert.assertSame(BTC_TICKER, second.get());
+    }
+
+    @Test
+    public void throttledRequestsAreRetriedAfterABackoff() throws Exception {
+        AtomicInteger tickerCalls = new AtomicInteger();
+        AtomicInteger orderCalls = new AtomicInteger();
+        RateLimitedExchangeClient client = client(new StubExchangeClient() {
+            @Override
+            public Ticker getTicker(CurrencyPair pair) {
+                if(tickerCalls.incrementAndGet() <= 2){
+                    throw new ExchangeThrottledException("EAPI:Rate limit exceeded");
+                }
+                return BTC_TICKER;
+            }
+
+            @Override
+            public CompletableFuture<Order> placeOrder(Order order) {
+                if(orderCalls.incrementAndGet() == 1){
+                    return CompletableFuture.failedFuture(new ExchangeThrottledException("EAPI:Rate limit exceeded"));
+                }
+                return CompletableFuture.completedFuture(order);
+            }
+        }, 10, Duration.ofMillis(1));
+
+        Assert.assertSame(BTC_TICKER, client.getTicker(CurrencyPair.BTCEUR));
+        Assert.assertEquals(3, tickerCalls.get());
+        Order order = order();
+        Assert.assertSame(order, client.placeOrder(order).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, orderCalls.get());
+        Assert.assertEquals(3, client.getThrottled());
+    }
+
+    @Test
+    public void orderActionsGoBeforeWaitingTickerRequests() throws Exception {
+        List<Object> requests = new CopyOnWriteArrayList<>();
+        RateLimitedExchangeClient client = client(new StubExchangeClient() {
+            @Override
+            public Ticker getTicker(CurrencyPair pair) {
+                requests.add(pair);
+                return pair == CurrencyPair.BTCEUR ? BTC_TICKER : ETH_TICKER;
+            }
+
+            @Override
+            public CompletableFuture<Order> placeOrder(Order order) {
+                requests.add(order);
+                return CompletableFuture.completedFuture(order);
+            }
+        }, 1, Duration.ofMillis(300));
+        // Takes the only token
+        client.getTicker(CurrencyPair.BTCEUR);
+        Thread poller = new Thread(() -> client.getTicker(CurrencyPair.ETHEUR));
+        poller.start();
+        awaitState(poller, Thread.State.TIMED_WAITING);
+        Order order = order();
+        CompletableFuture<Order> placed = client.placeOrder(order);
+        Assert.assertFalse(placed.isDone());
+        placed.get(5, TimeUnit.SECONDS);
+        poller.join();
+
+        Assert.assertEquals(List.of(CurrencyPair.BTCEUR, order, CurrencyPair.ETHEUR), requests);
+    }
+
+    private static RateLimitedExchangeClient client(ExchangeClient delegate, int capacity, Duration tokenInterval) {
+        return new RateLimitedExchangeClient(delegate, capacity, tokenInterval, Duration.ofMillis(1),
+                Duration.ofMillis(10), 3);
+    }
+
+    private static Order order() {
+        return Order.builder()
+                .id("order-1")
+                .pair(CurrencyPair.BTCEUR)
+                .side(OrderSide.BUY)
+                .quantity(100_000_000L)
+                .limit(10_000_000L)
+                .build();
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+        while(thread.getState() != state){
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class StubExchangeClient implements ExchangeClient {
+
+        @Override
+        public Ticker getTicker(CurrencyPair pair) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Order> placeOrder(Order order) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> cancelOrder(Order order) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addExecutionListener(CurrencyPair pair, ExecutionListener listener) {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.freydema.cryptobot.backtest;
+
+import com.freydema.cryptobot.Configuration;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+public class BacktesterTest {
+
+    @Test
+    public void replaysAllPairsInTimestampOrder() {
+        TickHistory history = TickHistory.builder()
+                // BTC: buy filled at the ask (sell placed), bid below the sell limit, sell filled
+                .add(CurrencyPair.BTCEUR, tick(CurrencyPair.BTCEUR, 1_000, 11.9, 12))
+                .add(CurrencyPair.BTCEUR, tick(CurrencyPair.BTCEUR, 3_000, 12, 12.1))
+                .add(CurrencyPair.BTCEUR, tick(CurrencyPair.BTCEUR, 5_000, 12.2, 12.3))
+                // ETH: never close enough to the 24h low
+                .add(CurrencyPair.ETHEUR, tick(CurrencyPair.ETHEUR, 2_000, 15, 15.1))
+                .add(CurrencyPair.ETHEUR, tick(CurrencyPair.ETHEUR, 4_000, 15, 15.1))
+                .build();
+        Assert.assertEquals(5, history.size());
+
+        Map<CurrencyPair, Configuration> configurations = new HashMap<>();
+        configurations.put(CurrencyPair.BTCEUR, configuration(CurrencyPair.BTCEUR));
+        configurations.put(CurrencyPair.ETHEUR, configuration(CurrencyPair.ETHEUR));
+        BacktestReport report = new Backtester(history, configurations,
+                Currency.EUR.toUnits(BigDecimal.valueOf(10000))).run();
+
+        Assert.assertEquals(5, report.getTicks());
+        Assert.assertEquals(1, report.getRoundTrips());
+        BacktestReport.PairResult btc = report.getPairResults().get(0);
+        Assert.assertEquals(CurrencyPair.BTCEUR, btc.getPair());
+        Assert.assertEquals(1, btc.getRoundTrips());
+        Assert.assertEquals(0, btc.getOpenCost());
+        Assert.assertTrue(btc.getFees() > 0);
+        // The sizing targets a 10 EUR profit per round trip
+        BigDecimal profit = Currency.EUR.toBigDecimal(btc.getRealizedProfit());
+        Assert.assertTrue(profit.subtract(BigDecimal.TEN).abs().compareTo(BigDecimal.valueOf(0.001)) < 0);
+        BacktestReport.PairResult eth = report.getPairResults().get(1);
+        Assert.assertEquals(0, eth.getRoundTrips());
+        Assert.assertEquals(0, eth.getFees());
+    }
+
+    @Test
+    public void sellFilledInPartsCountsOneRoundTrip() {
+        long bidVolume = Currency.BTC.toUnits(BigDecimal.valueOf(100));
+        TickHistory history = TickHistory.builder()
+                .add(CurrencyPair.BTCEUR, tick(CurrencyPair.BTCEUR, 1_000, 11.9, 12))
+                // The SELL (about 175 BTC) is filled over two ticks offering 100 BTC each
+                .add(CurrencyPair.BTCEUR, tick(CurrencyPair.BTCEUR, 2_000, 12.2, 12.3, bidVolume))
+                .add(CurrencyPair.BTCEUR, tick(CurrencyPair.BTCEUR, 3_000, 12.2, 12.3, bidVolume))
+                .build();
+        Map<CurrencyPair, Configuration> configurations = new HashMap<>();
+        configurations.put(CurrencyPair.BTCEUR, configuration(CurrencyPair.BTCEUR));
+        BacktestReport report = new Backtester(history, configurations,
+                Currency.EUR.toUnits(BigDecimal.valueOf(10000))).run();
+
+        BacktestReport.PairResult btc = report.getPairResults().get(0);
+        Assert.assertEquals(0, btc.getOpenQuantity());
+        Assert.assertEquals(1, btc.getRoundTrips());
+        Assert.assertEquals(1, report.getRoundTrips());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTicksOutOfOrder() {
+        TickHistory.builder()
+                .add(CurrencyPair.BTCEUR, tick(CurrencyPair.BTCEUR, 2_000, 11.9, 12))
+                .add(CurrencyPair.BTCEUR, tick(CurrencyPair.BTCEUR, 1_000, 11.9, 12));
+    }
+
+    private static Ticker tick(CurrencyPair pair, long timestamp, double bid, double ask) {
+        return tick(pair, timestamp, bid, ask, 0);
+    }
+
+    private static Ticker tick(CurrencyPair pair, long timestamp, double bid, double ask, long bidVolume) {
+        Ticker ticker = Ticker.of(pair, bid, ask, 10, 20);
+        return Ticker.builder()
+                .timestamp(timestamp)
+                .bidPrice(ticker.getBidPrice())
+                .bidVolume(bidVolume)
+                .askPrice(ticker.getAskPrice())
+                .last24HLow(ticker.getLast24HLow())
+                .last24HHigh(ticker.getLast24HHigh())
+                .build();
+    }
+
+    private static Configuration configuration(CurrencyPair pair) {
+        return Configuration.builder()
+                .currencyPair(pair)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+    }
+}
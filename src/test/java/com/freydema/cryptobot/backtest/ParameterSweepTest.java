@@ -0,0 +1,95 @@
+package com.freydema.cryptobot.backtest;
+
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class ParameterSweepTest {
+
+    private static final TickHistory HISTORY = TickHistory.builder()
+            .add(CurrencyPair.BTCEUR, tick(1_000, 11.9, 12))
+            .add(CurrencyPair.BTCEUR, tick(2_000, 12, 12.1))
+            .add(CurrencyPair.BTCEUR, tick(3_000, 12.3, 12.4))
+            .build();
+
+    @Test
+    public void gridTest() {
+        ParameterSpace space = grid();
+        Assert.assertEquals(8, space.size());
+        Assert.assertEquals(ratio(0.1), space.get(0).getAskPriceVsLast24HLowTriggerRatio());
+        Assert.assertEquals(ratio(0.2), space.get(7).getAskPriceVsLast24HLowTriggerRatio());
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.valueOf(20)), space.get(7).getTargetRoundTripProfitInEUR());
+        Assert.assertEquals(ratio(2), space.get(7).getTargetPriceGrowthPercentage());
+        Assert.assertEquals(ratio(1), space.get(6).getTargetPriceGrowthPercentage());
+    }
+
+    @Test
+    public void sweepRanksResultsByProfit() {
+        SweepRanking ranking = new SweepRanking(3);
+        new ParameterSweep(HISTORY, Currency.EUR.toUnits(BigDecimal.valueOf(10000))).run(grid(), ranking);
+
+        Assert.assertEquals(8, ranking.getCount());
+        List<SweepResult> best = ranking.getBest();
+        Assert.assertEquals(3, best.size());
+        for(int i = 1; i < best.size(); i++){
+            Assert.assertTrue(best.get(i - 1).getRealizedProfit() >= best.get(i).getRealizedProfit());
+        }
+        // Only the 0.2 trigger ratio buys at 12 in the 10-20 range: the best results aim for 20 EUR per round trip
+        Assert.assertEquals(ratio(0.2), best.get(0).getPoint().getAskPriceVsLast24HLowTriggerRatio());
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.valueOf(20)), best.get(0).getPoint().getTargetRoundTripProfitInEUR());
+    }
+
+    @Test
+    public void stoppedSweepSkipsRemainingPoints() {
+        SweepRanking ranking = new SweepRanking(3);
+        ParameterSweep sweep = new ParameterSweep(HISTORY, Currency.EUR.toUnits(BigDecimal.valueOf(10000)));
+        sweep.stop();
+        sweep.run(grid(), ranking);
+        Assert.assertEquals(0, ranking.getCount());
+    }
+
+    @Test
+    public void randomSpaceIsReproducible() {
+        SweepPoint min = SweepPoint.builder().askPriceVsLast24HLowTriggerRatio(ratio(0.1))
+                .targetRoundTripProfitInEUR(1).targetPriceGrowthPercentage(ratio(1)).tradeFeePercentage(ratio(0.26)).build();
+        SweepPoint max = SweepPoint.builder().askPriceVsLast24HLowTriggerRatio(ratio(0.5))
+                .targetRoundTripProfitInEUR(1).targetPriceGrowthPercentage(ratio(3)).tradeFeePercentage(ratio(0.26)).build();
+        ParameterSpace space = ParameterSpace.random(min, max, 100, 42);
+        for(int i = 0; i < space.size(); i++){
+            SweepPoint point = space.get(i);
+            Assert.assertEquals(point, ParameterSpace.random(min, max, 100, 42).get(i));
+            Assert.assertTrue(point.getAskPriceVsLast24HLowTriggerRatio() >= ratio(0.1));
+            Assert.assertTrue(point.getAskPriceVsLast24HLowTriggerRatio() <= ratio(0.5));
+            Assert.assertEquals(ratio(0.26), point.getTradeFeePercentage());
+        }
+    }
+
+    private static ParameterSpace grid() {
+        return ParameterSpace.grid(
+                new long[]{ratio(0.1), ratio(0.2)},
+                new long[]{Currency.EUR.toUnits(BigDecimal.TEN), Currency.EUR.toUnits(BigDecimal.valueOf(20))},
+                new long[]{ratio(1), ratio(2)},
+                new long[]{ratio(0.26)});
+    }
+
+    private static long ratio(double value) {
+        return FixedPoint.of(BigDecimal.valueOf(value), FixedPoint.RATIO_SCALE);
+    }
+
+    private static Ticker tick(long timestamp, double bid, double ask) {
+        Ticker ticker = Ticker.of(CurrencyPair.BTCEUR, bid, ask, 10, 20);
+        return Ticker.builder()
+                .timestamp(timestamp)
+                .bidPrice(ticker.getBidPrice())
+                .askPrice(ticker.getAskPrice())
+                .last24HLow(ticker.getLast24HLow())
+                .last24HHigh(ticker.getLast24HHigh())
+                .build();
+    }
+}
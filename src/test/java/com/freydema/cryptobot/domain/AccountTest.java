@@ -0,0 +1,55 @@
+package com.freydema.cryptobot.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AccountTest {
+
+    @Test
+    public void tryBlockAssetTest() {
+        Account account = new Account();
+        account.addAsset(Currency.EUR, 100);
+        Assert.assertTrue(account.tryBlockAsset(Currency.EUR, 60));
+        Assert.assertFalse(account.tryBlockAsset(Currency.EUR, 50));
+        Assert.assertEquals(60, account.getBlocked(Currency.EUR));
+        Assert.assertEquals(40, account.getAvailable(Currency.EUR));
+        account.settleBlockedAsset(Currency.EUR, 60, 61);
+        Assert.assertEquals(0, account.getBlocked(Currency.EUR));
+        Assert.assertEquals(39, account.getBalance(Currency.EUR));
+    }
+
+    @Test
+    public void concurrentReservationsNeverOverCommit() throws Exception {
+        Account account = new Account();
+        account.addAsset(Currency.EUR, 1000);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for(int i = 0; i < threads; i++){
+            futures.add(executor.submit(() -> {
+                start.await();
+                for(int j = 0; j < 1000; j++){
+                    if(account.tryBlockAsset(Currency.EUR, 1)){
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for(Future<?> future : futures){
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        Assert.assertEquals(1000, granted.get());
+        Assert.assertEquals(1000, account.getBlocked(Currency.EUR));
+        Assert.assertEquals(0, account.getAvailable(Currency.EUR));
+    }
+}
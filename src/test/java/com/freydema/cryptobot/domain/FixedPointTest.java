@@ -0,0 +1,68 @@
+package com.freydema.cryptobot.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+public class FixedPointTest {
+
+    @Test
+    public void conversionTest() {
+        Assert.assertEquals(12_100_000, FixedPoint.of(BigDecimal.valueOf(12.1), 6));
+        Assert.assertEquals(new BigDecimal("12.100000"), FixedPoint.toBigDecimal(12_100_000, 6));
+        Assert.assertEquals(122, FixedPoint.parse("1.225", 2));
+        Assert.assertEquals(124, FixedPoint.parse("1.235", 2));
+    }
+
+    @Test
+    public void multiplyAndDivideTest() {
+        // 174.55662616 BTC x 12.000000 EUR = 2094.679514 EUR (rounded)
+        Assert.assertEquals(2_094_679_514L, FixedPoint.multiply(17_455_662_616L, 8, 12_000_000, 6, 6, RoundingMode.HALF_EVEN));
+        // 10 / 3 at scale 4
+        Assert.assertEquals(33_333, FixedPoint.divide(10, 0, 3, 0, 4, RoundingMode.DOWN));
+        Assert.assertEquals(33_334, FixedPoint.divide(10, 0, 3, 0, 4, RoundingMode.UP));
+        Assert.assertEquals(-33_334, FixedPoint.divide(-10, 0, 3, 0, 4, RoundingMode.FLOOR));
+        Assert.assertEquals(2_600, FixedPoint.percentOf(1_000_000, 260_000, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    public void roundingModesTest() {
+        Assert.assertEquals(2, FixedPoint.mulDiv(5, 1, 2, RoundingMode.HALF_EVEN));
+        Assert.assertEquals(4, FixedPoint.mulDiv(7, 1, 2, RoundingMode.HALF_EVEN));
+        Assert.assertEquals(3, FixedPoint.mulDiv(5, 1, 2, RoundingMode.HALF_UP));
+        Assert.assertEquals(2, FixedPoint.mulDiv(5, 1, 2, RoundingMode.HALF_DOWN));
+        Assert.assertEquals(-3, FixedPoint.mulDiv(-5, 1, 2, RoundingMode.HALF_UP));
+        Assert.assertEquals(-2, FixedPoint.mulDiv(-5, 1, 2, RoundingMode.CEILING));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void roundingNecessaryTest() {
+        FixedPoint.mulDiv(1, 1, 3, RoundingMode.UNNECESSARY);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void overflowTest() {
+        FixedPoint.mulDiv(Long.MAX_VALUE, Long.MAX_VALUE, 2, RoundingMode.DOWN);
+    }
+
+    @Test
+    public void wideProductMatchesBigIntegerTest() {
+        Random random = new Random(42);
+        for(int i = 0; i < 10_000; i++){
+            long a = random.nextLong() >> random.nextInt(20);
+            long b = random.nextLong() >> random.nextInt(20);
+            long c = (random.nextLong() >> random.nextInt(40)) | 1;
+            BigInteger[] expected = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+                    .divideAndRemainder(BigInteger.valueOf(c));
+            if(expected[0].bitLength() > 62){
+                continue;
+            }
+            // DOWN truncates towards zero, like BigInteger division
+            Assert.assertEquals(expected[0].longValueExact(), FixedPoint.mulDiv(a, b, c, RoundingMode.DOWN));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.freydema.cryptobot.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+
+public class InstrumentsTest {
+
+    @Test
+    public void registerInstrumentsFromConfiguration() throws Exception {
+        List<CurrencyPair> pairs = Instruments.load(new StringReader(
+                "# currency,name,real name,scale\n"
+                        + "currency,TSTUSD,Test US Dollar,6\n"
+                        + "\n"
+                        + "pair,BTCTSTUSD,BTC,TSTUSD\n"
+                        + "pair,ETHBTC,ETH,BTC\n"
+                        + "pair,BTCEUR,BTC,EUR\n"));
+        Assert.assertEquals(3, pairs.size());
+        CurrencyPair btcUsd = pairs.get(0);
+        Currency usd = Currency.valueOf("TSTUSD");
+        Assert.assertSame(usd, btcUsd.getQuote());
+        Assert.assertSame(btcUsd, CurrencyPair.valueOf("BTCTSTUSD"));
+        Assert.assertSame(btcUsd, CurrencyPair.byId(btcUsd.getId()));
+        Assert.assertTrue(btcUsd.getId() >= 16 && btcUsd.getId() < CurrencyPair.count());
+        // Built-in instruments keep their instance and id
+        Assert.assertSame(CurrencyPair.BTCEUR, pairs.get(2));
+        Assert.assertEquals(0, CurrencyPair.BTCEUR.getId());
+
+        // Accounts created afterwards hold the new currencies
+        Account account = new Account();
+        account.addAsset(usd, usd.toUnits(BigDecimal.TEN));
+        Assert.assertEquals(10_000_000, account.getBalance(usd));
+
+        try {
+            Currency.register("TSTUSD", "Test US Dollar", 2);
+            Assert.fail("Re-registered with another scale");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            Instruments.load(new StringReader("pair,XXXEUR,XXX,EUR\n"));
+            Assert.fail("Registered a pair of an unknown currency");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.Configuration;
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.backtest.BacktestExchangeClient;
+import com.freydema.cryptobot.backtest.SimulatedClock;
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class AdaptivePollingTickerFeedTest {
+
+    @Test
+    public void pollPairsNearTheirTriggerMoreOften() {
+        SimulatedClock clock = new SimulatedClock();
+        List<List<CurrencyPair>> requests = new ArrayList<>();
+        BacktestExchangeClient exchangeClient = new BacktestExchangeClient(clock) {
+            @Override
+            public Map<CurrencyPair, Ticker> getTickers(Collection<CurrencyPair> pairs) {
+                requests.add(new ArrayList<>(pairs));
+                return super.getTickers(pairs);
+            }
+        };
+        exchangeClient.setTicker(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 10.9, 11, 10, 20));
+        exchangeClient.setTicker(CurrencyPair.ETHEUR, Ticker.of(CurrencyPair.ETHEUR, 19.9, 20, 10, 20));
+        AdaptivePollingTickerFeed feed = new AdaptivePollingTickerFeed(exchangeClient, Duration.ofMillis(500),
+                Duration.ofSeconds(1), Duration.ofSeconds(10), AdaptivePollingTickerFeed.DEFAULT_FAR_DISTANCE, 1, clock);
+        feed.subscribe(CurrencyPair.BTCEUR, (pair, ticker) -> { });
+        feed.subscribe(CurrencyPair.ETHEUR, (pair, ticker) -> { });
+        feed.addTriggerDistance(CurrencyPair.BTCEUR, ticker -> 0);
+        feed.addTriggerDistance(CurrencyPair.ETHEUR, ticker -> Long.MAX_VALUE);
+        // 1% away: polled every 1 + 9 * 1/5 s
+        feed.addTriggerDistance(CurrencyPair.ETHEUR, ticker -> 10_000);
+        Assert.assertEquals(2_800, feed.intervalFor(CurrencyPair.ETHEUR, null));
+        feed.addTriggerDistance(CurrencyPair.ETHEUR, ticker -> Long.MAX_VALUE);
+
+        // One pair per request: both are due, then each is polled once
+        feed.poll();
+        feed.poll();
+        Assert.assertEquals(2, requests.size());
+        Assert.assertTrue(requests.get(0).size() == 1 && requests.get(1).size() == 1);
+        Assert.assertNotEquals(requests.get(0), requests.get(1));
+        // Nothing due: no request
+        feed.poll();
+        Assert.assertEquals(2, requests.size());
+
+        // BTC is at its trigger: polled every second, ETH every 2.8 s and first when both are due
+        for(int second = 1; second <= 5; second++){
+            clock.setMillis(second * 1000);
+            feed.poll();
+            feed.poll();
+        }
+        CurrencyPair btc = CurrencyPair.BTCEUR;
+        CurrencyPair eth = CurrencyPair.ETHEUR;
+        Assert.assertEquals(List.of(List.of(btc), List.of(btc), List.of(eth), List.of(btc), List.of(btc), List.of(btc)),
+                requests.subList(2, requests.size()));
+    }
+
+    @Test
+    public void traderDistanceToTheBuyTrigger() {
+        BacktestExchangeClient exchangeClient = new BacktestExchangeClient(new SimulatedClock());
+        CurrencyPairTrader trader = trader(CurrencyPair.BTCEUR, exchangeClient);
+        Assert.assertEquals(Long.MAX_VALUE, trader.getTriggerDistance(Ticker.of(CurrencyPair.BTCEUR, 12.5, 12.6, 10, 20)));
+        trader.recover();
+        // Triggers at an ask of 12: 0.6 / 12.6 away
+        Assert.assertEquals(47_619, trader.getTriggerDistance(Ticker.of(CurrencyPair.BTCEUR, 12.5, 12.6, 10, 20)));
+        Assert.assertEquals(0, trader.getTriggerDistance(Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20)));
+        Assert.assertEquals(Long.MAX_VALUE, trader.getTriggerDistance(Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 12, 12)));
+    }
+
+    private static CurrencyPairTrader trader(CurrencyPair pair, BacktestExchangeClient exchangeClient) {
+        Configuration configuration = Configuration.builder()
+                .currencyPair(pair)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+        // No funds: the traders only watch the market
+        return new CurrencyPairTrader(configuration, new Account(), exchangeClient);
+    }
+}
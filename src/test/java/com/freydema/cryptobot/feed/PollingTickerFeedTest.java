@@ -0,0 +1,76 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.backtest.BacktestExchangeClient;
+import com.freydema.cryptobot.backtest.SimulatedClock;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PollingTickerFeedTest {
+
+    @Test
+    public void tickersRestampedWithoutMarketChangeAreNotPublished() {
+        SimulatedClock clock = new SimulatedClock();
+        Ticker[] market = {Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20)};
+        BacktestExchangeClient exchangeClient = new BacktestExchangeClient(clock) {
+            @Override
+            public Ticker getTicker(CurrencyPair pair) {
+                // Stamped on reception, as by the Kraken client
+                return stamped(market[0], clock.millis());
+            }
+        };
+        PollingTickerFeed feed = new PollingTickerFeed(exchangeClient, Duration.ofMillis(500));
+        List<Ticker> published = new ArrayList<>();
+        feed.subscribe(CurrencyPair.BTCEUR, (pair, ticker) -> published.add(ticker));
+
+        feed.poll();
+        clock.setMillis(500);
+        feed.poll();
+        Assert.assertEquals(1, published.size());
+
+        market[0] = Ticker.of(CurrencyPair.BTCEUR, 11.8, 11.9, 10, 20);
+        clock.setMillis(1_000);
+        feed.poll();
+        Assert.assertEquals(2, published.size());
+        Assert.assertEquals(1_000, published.get(1).getTimestamp());
+    }
+
+    @Test
+    public void failingPollDoesNotStopTheNextOnes() throws InterruptedException {
+        CountDownLatch polls = new CountDownLatch(3);
+        BacktestExchangeClient exchangeClient = new BacktestExchangeClient(new SimulatedClock());
+        exchangeClient.setTicker(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+        PollingTickerFeed feed = new PollingTickerFeed(exchangeClient, Duration.ofMillis(10)) {
+            @Override
+            protected void onPolled(List<CurrencyPair> pairs, Map<CurrencyPair, Ticker> tickers) {
+                polls.countDown();
+                throw new IllegalStateException("Scheduling failed");
+            }
+        };
+        feed.subscribe(CurrencyPair.BTCEUR, (pair, ticker) -> { });
+        feed.start();
+        try {
+            Assert.assertTrue(polls.await(10, TimeUnit.SECONDS));
+        } finally {
+            feed.stop();
+        }
+    }
+
+    private static Ticker stamped(Ticker ticker, long timestamp) {
+        return Ticker.builder()
+                .askPrice(ticker.getAskPrice())
+                .bidPrice(ticker.getBidPrice())
+                .last24HLow(ticker.getLast24HLow())
+                .last24HHigh(ticker.getLast24HHigh())
+                .timestamp(timestamp)
+                .build();
+    }
+}
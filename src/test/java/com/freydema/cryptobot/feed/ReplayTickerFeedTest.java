@@ -0,0 +1,71 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.Configuration;
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.backtest.BacktestExchangeClient;
+import com.freydema.cryptobot.domain.*;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+
+public class ReplayTickerFeedTest {
+
+    private Account account;
+    private CurrencyPairTrader trader;
+    private ReplayTickerFeed feed;
+
+    @Before
+    public void setup() {
+        Configuration configuration = Configuration.builder()
+                .currencyPair(CurrencyPair.BTCEUR)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+        account = new Account();
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        BacktestExchangeClient exchangeClient = new BacktestExchangeClient(Clock.systemUTC());
+        exchangeClient.setFeePercentage(CurrencyPair.BTCEUR, configuration.getTradeFeePercentage());
+        trader = new CurrencyPairTrader(configuration, account, exchangeClient);
+        feed = new ReplayTickerFeed();
+        // The exchange moves first so that the trader's orders are matched against the latest ticker
+        feed.subscribe(CurrencyPair.BTCEUR, exchangeClient);
+        feed.subscribe(CurrencyPair.BTCEUR, trader);
+    }
+
+    @Test
+    public void tradesOnlyWhenTickersArrive() {
+        trader.recover();
+        feed.add(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20))
+                .add(CurrencyPair.ETHEUR, Ticker.of(CurrencyPair.ETHEUR, 12, 12.1, 10, 20))
+                .add(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 12.2, 12.3, 10, 20));
+        feed.start();
+
+        // Buy executed at the ask: the sell order is placed without waiting for another ticker
+        Assert.assertTrue(feed.replayNext());
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_SELL_ORDER_EXECUTED, trader.getState());
+        Assert.assertNotNull(trader.getSellOrder());
+        // Ticker of another pair: nothing happens
+        Assert.assertTrue(feed.replayNext());
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_SELL_ORDER_EXECUTED, trader.getState());
+        // Bid above the sell limit: the round trip ends
+        Assert.assertTrue(feed.replayNext());
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, trader.getState());
+        Assert.assertTrue(account.getBalance(Currency.EUR) > Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        Assert.assertFalse(feed.replayNext());
+    }
+
+    @Test
+    public void unsubscribedTraderIsNotUpdated() {
+        trader.recover();
+        feed.unsubscribe(CurrencyPair.BTCEUR, trader);
+        feed.add(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+        feed.start();
+        Assert.assertEquals(1, feed.replay());
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, trader.getState());
+    }
+}
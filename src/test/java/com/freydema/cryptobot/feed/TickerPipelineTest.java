@@ -0,0 +1,103 @@
+package com.freydema.cryptobot.feed;
+
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TickerPipelineTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2019-03-01T10:15:30Z"), ZoneOffset.UTC);
+
+    @Test
+    public void ticksOfEachPairAreDeliveredInOrder() throws Exception {
+        int ticks = 2_000;
+        // Small rings: the stages keep waiting for each other
+        TickerPipeline pipeline = new TickerPipeline(8, 2, CLOCK);
+        CountDownLatch done = new CountDownLatch(3);
+        long[] previous = new long[CurrencyPair.count()];
+        boolean[] outOfOrder = new boolean[CurrencyPair.count()];
+        Set<Ticker> instances = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        for(CurrencyPair pair : new CurrencyPair[]{CurrencyPair.BTCEUR, CurrencyPair.ETHEUR, CurrencyPair.LTCEUR}){
+            pipeline.register(pair, (p, ticker) -> {
+                // Only read by the strategy thread of the pair
+                if(ticker.getAskPrice() != previous[p.getId()] + 1){
+                    outOfOrder[p.getId()] = true;
+                }
+                previous[p.getId()] = ticker.getAskPrice();
+                instances.add(ticker);
+                if(ticker.getAskPrice() == ticks){
+                    done.countDown();
+                }
+            });
+        }
+        pipeline.start();
+        try {
+            for(int i = 1; i <= ticks; i++){
+                pipeline.onTicker(CurrencyPair.BTCEUR, ticker(i, i));
+                pipeline.onTicker(CurrencyPair.ETHEUR, ticker(i, i));
+                pipeline.onTicker(CurrencyPair.LTCEUR, ticker(i, i));
+            }
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            pipeline.close();
+        }
+        Assert.assertFalse(outOfOrder[CurrencyPair.BTCEUR.getId()]);
+        Assert.assertFalse(outOfOrder[CurrencyPair.ETHEUR.getId()]);
+        Assert.assertFalse(outOfOrder[CurrencyPair.LTCEUR.getId()]);
+        // One pooled ticker per strategy thread
+        Assert.assertEquals(2, instances.size());
+        Assert.assertTrue(pipeline.getStalls() > 0);
+    }
+
+    @Test
+    public void invalidTicksAreDiscardedAndMissingTimestampsStamped() throws Exception {
+        TickerPipeline pipeline = new TickerPipeline(16, 1, CLOCK);
+        List<Long> timestamps = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(2);
+        pipeline.register(CurrencyPair.BTCEUR, (pair, ticker) -> {
+            timestamps.add(ticker.getTimestamp());
+            delivered.countDown();
+        });
+        pipeline.start();
+        try {
+            pipeline.onTicker(CurrencyPair.BTCEUR, ticker(100, 1_000));
+            // Crossed book, no bid, unregistered pair
+            pipeline.onTicker(CurrencyPair.BTCEUR, Ticker.builder().bidPrice(101).askPrice(100).build());
+            pipeline.onTicker(CurrencyPair.BTCEUR, Ticker.builder().askPrice(100).build());
+            pipeline.onTicker(CurrencyPair.ETHEUR, ticker(100, 1_000));
+            pipeline.onTicker(CurrencyPair.BTCEUR, ticker(100, 0));
+            Assert.assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        } finally {
+            pipeline.close();
+        }
+        Assert.assertEquals(List.of(1_000L, CLOCK.millis()), timestamps);
+        Assert.assertEquals(3, pipeline.getDiscarded());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void onePairOneListener() {
+        TickerPipeline pipeline = new TickerPipeline(1);
+        pipeline.register(CurrencyPair.BTCEUR, (pair, ticker) -> { });
+        pipeline.register(CurrencyPair.BTCEUR, (pair, ticker) -> { });
+    }
+
+    private static Ticker ticker(long askPrice, long timestamp) {
+        return Ticker.builder()
+                .bidPrice(askPrice - 1 > 0 ? askPrice - 1 : askPrice)
+                .askPrice(askPrice)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.freydema.cryptobot.indicator;
+
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class IndicatorSignalTest {
+
+    @Test
+    public void indicatorsMatchBruteForce() {
+        Random random = new Random(11);
+        int periods = 20;
+        Ema ema = new Ema(periods);
+        RollingVwap vwap = new RollingVwap(periods);
+        long[] prices = new long[2_000];
+        long[] volumes = new long[prices.length];
+        double expectedEma = 0;
+        long price = 40_000_000_000L;
+        for(int i = 0; i < prices.length; i++){
+            price += random.nextInt(20_000_001) - 10_000_000;
+            prices[i] = price;
+            volumes[i] = random.nextInt(1_000_000_000);
+            ema.update(price);
+            vwap.update(price, volumes[i]);
+            expectedEma = i == 0 ? price : expectedEma + (price - expectedEma) * 2 / (periods + 1);
+            Assert.assertEquals(expectedEma, ema.getValue(), 1);
+            int from = Math.max(0, i - periods + 1);
+            double weighted = 0;
+            double volume = 0;
+            double sum = 0;
+            for(int j = from; j <= i; j++){
+                weighted += (double) prices[j] * volumes[j];
+                volume += volumes[j];
+                sum += prices[j];
+            }
+            int size = i - from + 1;
+            double mean = sum / size;
+            double squares = 0;
+            for(int j = from; j <= i; j++){
+                squares += (prices[j] - mean) * (prices[j] - mean);
+            }
+            Assert.assertEquals(weighted / volume, vwap.getVwap(), 1);
+            Assert.assertEquals(Math.sqrt(squares / size), vwap.getStandardDeviation(), 1);
+            Assert.assertEquals(i >= periods - 1, vwap.isReady());
+        }
+    }
+
+    @Test
+    public void rsiFollowsTheDirection() {
+        Rsi rsi = new Rsi(14);
+        for(int i = 0; i < 14; i++){
+            Assert.assertFalse(rsi.isReady());
+            rsi.update(1_000 + i * 10);
+        }
+        rsi.update(1_140);
+        Assert.assertTrue(rsi.isReady());
+        Assert.assertEquals(FixedPoint.ONE_HUNDRED_PERCENT, rsi.getValue());
+        // Gains and losses of the same size alternate
+        for(int i = 0; i < 200; i++){
+            rsi.update(i % 2 == 0 ? 1_130 : 1_140);
+        }
+        Assert.assertEquals(FixedPoint.ONE_HUNDRED_PERCENT / 2, rsi.getValue(), FixedPoint.ONE_HUNDRED_PERCENT / 20);
+    }
+
+    @Test
+    public void buyIsGatedUntilTheConditionsHold() {
+        // Ask at least 1% below the VWAP of the last 10 ticks, RSI at most 30%
+        IndicatorSignal signal = IndicatorSignal.builder()
+                .vwapWindow(10)
+                .minVwapDiscountPercentage(FixedPoint.ONE_HUNDRED_PERCENT / 100)
+                .rsiPeriods(5)
+                .maxRsi(30 * FixedPoint.ONE_HUNDRED_PERCENT / 100)
+                .build();
+        Ticker flat = ticker(10_000);
+        for(int i = 0; i < 9; i++){
+            signal.update(flat);
+            Assert.assertFalse(signal.allowsBuy(flat));
+        }
+        // Warmed up, but no discount and a neutral RSI
+        signal.update(flat);
+        Assert.assertFalse(signal.allowsBuy(flat));
+        // Falling price: discount to the VWAP and oversold
+        Ticker dip = null;
+        for(int i = 1; i <= 5; i++){
+            dip = ticker(10_000 - i * 50);
+            signal.update(dip);
+        }
+        Assert.assertTrue(signal.allowsBuy(dip));
+        // Back up: the RSI and the VWAP catch up
+        Ticker rebound = ticker(10_100);
+        signal.update(rebound);
+        Assert.assertFalse(signal.allowsBuy(rebound));
+    }
+
+    @Test
+    public void volatilityCapsTheBuy() {
+        IndicatorSignal signal = IndicatorSignal.builder()
+                .atrPeriods(3)
+                .maxVolatilityPercentage(FixedPoint.ONE_HUNDRED_PERCENT / 100)
+                .build();
+        Ticker calm = ticker(10_000);
+        for(int i = 0; i < 3; i++){
+            signal.update(calm);
+        }
+        Assert.assertTrue(signal.allowsBuy(calm));
+        Ticker jump = ticker(10_400);
+        signal.update(jump);
+        Assert.assertFalse(signal.allowsBuy(jump));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fastEmaMustBeShorterThanSlowOne() {
+        IndicatorSignal.builder().emaFastPeriods(26).emaSlowPeriods(12).build();
+    }
+
+    private static Ticker ticker(long mid) {
+        return Ticker.builder()
+                .bidPrice(mid - 1)
+                .askPrice(mid + 1)
+                .bidVolume(1_000)
+                .askVolume(1_000)
+                .build();
+    }
+}
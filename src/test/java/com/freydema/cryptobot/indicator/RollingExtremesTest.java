@@ -0,0 +1,74 @@
+package com.freydema.cryptobot.indicator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class RollingExtremesTest {
+
+    @Test
+    public void extremesFollowTheWindow() {
+        // 10 s window in 10 buckets of 1 s
+        RollingExtremes extremes = new RollingExtremes(10_000, 10);
+        Assert.assertTrue(extremes.isEmpty());
+        extremes.update(0, 50);
+        extremes.update(500, 40);
+        extremes.update(3_000, 70);
+        extremes.update(6_000, 60);
+        Assert.assertEquals(40, extremes.getMin());
+        Assert.assertEquals(70, extremes.getMax());
+        // Bucket 0 (40 and 50) leaves the window
+        extremes.update(10_000, 65);
+        Assert.assertEquals(60, extremes.getMin());
+        Assert.assertEquals(70, extremes.getMax());
+        // Bucket 3 (70) leaves the window
+        extremes.advanceTo(13_000);
+        Assert.assertEquals(60, extremes.getMin());
+        Assert.assertEquals(65, extremes.getMax());
+        extremes.advanceTo(30_000);
+        Assert.assertTrue(extremes.isEmpty());
+    }
+
+    @Test
+    public void windowIsCoveredOnceItsHistoryWasObserved() {
+        RollingExtremes extremes = new RollingExtremes(10_000, 10);
+        extremes.update(2_500, 50);
+        extremes.update(8_000, 40);
+        Assert.assertFalse(extremes.coversWindow());
+        // Buckets 2 to 11
+        extremes.update(11_000, 60);
+        Assert.assertTrue(extremes.coversWindow());
+        Assert.assertEquals(40, extremes.getMin());
+        extremes.advanceTo(30_000);
+        Assert.assertFalse(extremes.coversWindow());
+    }
+
+    @Test
+    public void matchesBruteForce() {
+        Random random = new Random(7);
+        int buckets = 16;
+        long width = 100;
+        RollingExtremes extremes = new RollingExtremes(buckets * width, buckets);
+        long[] timestamps = new long[5_000];
+        long[] prices = new long[timestamps.length];
+        long timestamp = 0;
+        for(int i = 0; i < timestamps.length; i++){
+            timestamp += random.nextInt(60);
+            timestamps[i] = timestamp;
+            prices[i] = random.nextInt(1_000);
+            extremes.update(timestamp, prices[i]);
+            long oldestBucket = timestamp / width - buckets + 1;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for(int j = 0; j <= i; j++){
+                if(timestamps[j] / width >= oldestBucket){
+                    min = Math.min(min, prices[j]);
+                    max = Math.max(max, prices[j]);
+                }
+            }
+            Assert.assertEquals(min, extremes.getMin());
+            Assert.assertEquals(max, extremes.getMax());
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.freydema.cryptobot.journal;
+
+import com.freydema.cryptobot.Configuration;
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.ExchangeClient;
+import com.freydema.cryptobot.backtest.BacktestExchangeClient;
+import com.freydema.cryptobot.domain.Account;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Execution;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.OrderSide;
+import com.freydema.cryptobot.domain.Ticker;
+import com.freydema.cryptobot.simulator.PaperExchangeClient;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recoverPartiallyExecutedOrderAndBlockedFunds() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        CurrencyPairTrader trader;
+        try(Journal journal = new Journal(directory)){
+            Assert.assertTrue(journal.getRecoveredState().isEmpty());
+            Account account = new Account();
+            account.addListener(journal);
+            account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+            BacktestExchangeClient exchangeClient = new BacktestExchangeClient(Clock.systemUTC());
+            trader = newTrader(account, exchangeClient);
+            trader.addStateListener(journal);
+            journal.getRecoveredState().restore(trader);
+            // Only 100 BTC offered at the ask: the buy order is partially executed
+            Ticker ticker = Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20);
+            ticker = Ticker.builder()
+                    .bidPrice(ticker.getBidPrice())
+                    .askPrice(ticker.getAskPrice())
+                    .askVolume(Currency.BTC.toUnits(BigDecimal.valueOf(100)))
+                    .last24HLow(ticker.getLast24HLow())
+                    .last24HHigh(ticker.getLast24HHigh())
+                    .build();
+            exchangeClient.setTicker(CurrencyPair.BTCEUR, ticker);
+            trader.onTicker(CurrencyPair.BTCEUR, ticker);
+            Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_EXECUTED, trader.getState());
+            Assert.assertEquals(Currency.BTC.toUnits(BigDecimal.valueOf(100)), trader.getFilledQuantity());
+            journal.sync();
+            // A crash tears the last record
+            try(OutputStream output = Files.newOutputStream(directory.resolve(Journal.JOURNAL_FILE),
+                    StandardOpenOption.APPEND)){
+                output.write(new byte[]{0, 0, 0, 42, 1, 2});
+            }
+        }
+
+        try(Journal journal = new Journal(directory)){
+            JournalState recovered = journal.getRecoveredState();
+            Account account = new Account();
+            recovered.restore(account);
+            BacktestExchangeClient exchangeClient = new BacktestExchangeClient(Clock.systemUTC());
+            CurrencyPairTrader recoveredTrader = newTrader(account, exchangeClient);
+            recovered.restore(recoveredTrader);
+            // The BUY is not completed after the restart: the funds blocked for the rest are released and the
+            // quantity bought is sold
+            Order sellOrder = recoveredTrader.getSellOrder();
+            Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_SELL_ORDER_EXECUTED, recoveredTrader.getState());
+            Assert.assertEquals(trader.getBuyOrder(), recoveredTrader.getBuyOrder());
+            Assert.assertEquals(trader.getFilledQuantity(), sellOrder.getQuantity());
+            Assert.assertEquals(0, account.getBlocked(Currency.EUR));
+            Assert.assertEquals(trader.getAccount().getBalance(Currency.EUR), account.getBalance(Currency.EUR));
+            Assert.assertEquals(trader.getAccount().getBalance(Currency.BTC), account.getBalance(Currency.BTC));
+            Assert.assertEquals(sellOrder.getQuantity(), account.getBlocked(Currency.BTC));
+        }
+    }
+
+    @Test
+    public void roundTripInterruptedDuringTheBuyIsCompletedAfterARestart() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Map<CurrencyPair, Ticker> market = new HashMap<>();
+        long reserved;
+        try(Journal journal = new Journal(directory)){
+            Account account = new Account();
+            account.addListener(journal);
+            account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+            CurrencyPairTrader trader = newTrader(account, newPaperClient(market));
+            trader.addStateListener(journal);
+            journal.getRecoveredState().restore(trader);
+            // The BUY rests on the exchange, the bot stops before it is executed
+            trader.onTicker(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+            Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_EXECUTED, trader.getState());
+            reserved = account.getBlocked(Currency.EUR);
+            journal.sync();
+        }
+
+        try(Journal journal = new Journal(directory)){
+            Account account = new Account();
+            account.addListener(journal);
+            journal.getRecoveredState().restore(account);
+            Assert.assertEquals(reserved, account.getBlocked(Currency.EUR));
+            // The paper exchange of the new run does not know the orders of the previous one
+            PaperExchangeClient exchangeClient = newPaperClient(market);
+            CurrencyPairTrader trader = newTrader(account, exchangeClient);
+            trader.addStateListener(journal);
+            journal.getRecoveredState().restore(trader);
+            Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_EXECUTED, trader.getState());
+
+            market.put(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+            exchangeClient.getTicker(CurrencyPair.BTCEUR);
+            Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_SELL_ORDER_EXECUTED, trader.getState());
+            market.put(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 13, 13.1, 10, 20));
+            exchangeClient.getTicker(CurrencyPair.BTCEUR);
+            Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, trader.getState());
+            Assert.assertEquals(0, account.getBlocked(Currency.EUR));
+            Assert.assertEquals(0, account.getBalance(Currency.BTC));
+            Assert.assertEquals(0, account.getBlocked(Currency.BTC));
+            Assert.assertTrue(account.getBalance(Currency.EUR) > Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        }
+    }
+
+    @Test
+    public void compactIntoSnapshot() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try(Journal journal = new Journal(directory, 1024)){
+            Account account = new Account();
+            account.addListener(journal);
+            for(int i = 1; i <= 1000; i++){
+                account.addAsset(Currency.EUR, 1);
+                account.blockAsset(Currency.BTC, 2);
+            }
+            journal.sync();
+        }
+        Assert.assertTrue(Files.exists(directory.resolve(Journal.SNAPSHOT_FILE)));
+        Assert.assertTrue(Files.size(directory.resolve(Journal.JOURNAL_FILE)) < 1024);
+        try(Journal journal = new Journal(directory, 1024)){
+            Account account = new Account();
+            journal.getRecoveredState().restore(account);
+            Assert.assertEquals(1000, account.getBalance(Currency.EUR));
+            Assert.assertEquals(2000, account.getBlocked(Currency.BTC));
+        }
+    }
+
+    @Test
+    public void writeFailureStopsTheTraderWithoutBreakingItsExecutions() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        // Compacted after every write
+        Journal journal = new Journal(directory, 1);
+        Account account = new Account();
+        account.addListener(journal);
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        CurrencyPairTrader trader = newTrader(account, new BacktestExchangeClient(Clock.systemUTC()));
+        trader.addStateListener(journal);
+        journal.addFailureListener(e -> trader.stop());
+        trader.recover();
+        trader.onTicker(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20));
+        Order buyOrder = trader.getBuyOrder();
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_EXECUTED, trader.getState());
+        journal.sync();
+        // The compaction follows the write synced
+        long deadline = System.currentTimeMillis() + 10_000;
+        while(Files.size(directory.resolve(Journal.JOURNAL_FILE)) > 0 && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+
+        // The next compaction cannot write its snapshot
+        Files.createDirectory(directory.resolve(Journal.SNAPSHOT_TEMPORARY_FILE));
+        account.addAsset(Currency.BTC, 0);
+        deadline = System.currentTimeMillis() + 10_000;
+        // Stopped by the failure listener, on the writer thread
+        while(trader.getState() != CurrencyPairTrader.State.STOP && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(CurrencyPairTrader.State.STOP, trader.getState());
+        Assert.assertTrue(journal.isFailed());
+        try {
+            journal.sync();
+            Assert.fail("Journal failure not reported");
+        } catch (UncheckedIOException expected) {
+            // Failed
+        }
+
+        // An execution received meanwhile is settled, the trader does not resume
+        trader.onExecution(Execution.builder()
+                .orderId(buyOrder.getId())
+                .pair(CurrencyPair.BTCEUR)
+                .side(OrderSide.BUY)
+                .quantity(buyOrder.getQuantity())
+                .price(buyOrder.getLimit())
+                .amount(Currency.EUR.toUnits(
+                        Currency.BTC.toBigDecimal(buyOrder.getQuantity()).multiply(BigDecimal.valueOf(12))))
+                .build());
+        Assert.assertEquals(CurrencyPairTrader.State.STOP, trader.getState());
+        Assert.assertEquals(buyOrder.getQuantity(), account.getBalance(Currency.BTC));
+        Assert.assertEquals(0, account.getBlocked(Currency.EUR));
+        try {
+            journal.close();
+            Assert.fail("Journal failure not reported");
+        } catch (IOException expected) {
+            // Failed
+        }
+    }
+
+    @Test
+    public void recordOfAnUnknownInstrumentIsReportedWithItsOffset() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(payload);
+        // Holding of a currency no longer registered
+        output.writeByte(1);
+        output.writeUTF("XYZ");
+        output.writeLong(1);
+        output.writeLong(0);
+        CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+        ByteBuffer frame = ByteBuffer.allocate(8 + payload.size());
+        frame.putInt(payload.size()).putInt((int) crc.getValue()).put(payload.toByteArray());
+        Files.write(directory.resolve(Journal.JOURNAL_FILE), frame.array());
+        try {
+            new Journal(directory).close();
+            Assert.fail("Unknown currency not reported");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("offset 0"));
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("XYZ"));
+        }
+    }
+
+    private static PaperExchangeClient newPaperClient(Map<CurrencyPair, Ticker> market) {
+        PaperExchangeClient exchangeClient = new PaperExchangeClient(market::get, Clock.systemUTC());
+        exchangeClient.setFeePercentage(CurrencyPair.BTCEUR,
+                FixedPoint.of(BigDecimal.valueOf(0.26), FixedPoint.RATIO_SCALE));
+        return exchangeClient;
+    }
+
+    private static CurrencyPairTrader newTrader(Account account, ExchangeClient exchangeClient) {
+        Configuration configuration = Configuration.builder()
+                .currencyPair(CurrencyPair.BTCEUR)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+        return new CurrencyPairTrader(configuration, account, exchangeClient);
+    }
+}
@@ -0,0 +1,49 @@
+package com.freydema.cryptobot.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverTheRangeContiguously() {
+        Assert.assertEquals(0, LatencyHistogram.bucketOf(0));
+        Assert.assertEquals(31, LatencyHistogram.bucketOf(31));
+        int previous = 31;
+        for(long value = 32; value < 1 << 20; value++){
+            int bucket = LatencyHistogram.bucketOf(value);
+            Assert.assertTrue(bucket == previous || bucket == previous + 1);
+            previous = bucket;
+        }
+        Assert.assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentilesAreWithinThePrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(TimeUnit.NANOSECONDS);
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+        Random random = new Random(42);
+        long[] values = new long[100_000];
+        long sum = 0;
+        for(int i = 0; i < values.length; i++){
+            // Log-uniform between 1 us and 1 s
+            values[i] = (long) Math.pow(10, 3 + random.nextDouble() * 6);
+            histogram.record(values[i]);
+            sum += values[i];
+        }
+        Arrays.sort(values);
+        Assert.assertEquals(values.length, histogram.getCount());
+        Assert.assertEquals(sum, histogram.getSum());
+        Assert.assertEquals(values[values.length - 1], histogram.getMax());
+        for(double percentile : new double[]{1, 50, 90, 99, 99.9}){
+            long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long actual = histogram.getValueAtPercentile(percentile);
+            Assert.assertEquals("p" + percentile, expected, actual, expected / 32.0);
+        }
+        Assert.assertEquals(histogram.getMax(), histogram.getValueAtPercentile(100));
+    }
+}
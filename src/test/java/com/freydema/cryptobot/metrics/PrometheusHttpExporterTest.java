@@ -0,0 +1,48 @@
+package com.freydema.cryptobot.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+public class PrometheusHttpExporterTest {
+
+    @Test
+    public void servesTheMetricsInTheTextFormat() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_total", "pair", "BTCEUR").add(3);
+        LatencyHistogram histogram = registry.histogram("test_seconds", TimeUnit.MILLISECONDS, "pair", "BTCEUR");
+        histogram.record(2);
+        histogram.record(4);
+        // Same instruments on later lookups
+        Assert.assertSame(histogram, registry.histogram("test_seconds", TimeUnit.MILLISECONDS, "pair", "BTCEUR"));
+
+        PrometheusHttpExporter exporter = new PrometheusHttpExporter(registry,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        exporter.start();
+        try {
+            URL url = new URL("http", exporter.getAddress().getHostString(), exporter.getAddress().getPort(),
+                    PrometheusHttpExporter.PATH);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            Assert.assertEquals(200, connection.getResponseCode());
+            String body;
+            try(InputStream input = connection.getInputStream()){
+                body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            Assert.assertTrue(body, body.contains("# TYPE test_total counter\ntest_total{pair=\"BTCEUR\"} 3\n"));
+            Assert.assertTrue(body, body.contains("# TYPE test_seconds summary\n"));
+            Assert.assertTrue(body, body.contains("test_seconds{pair=\"BTCEUR\",quantile=\"0.5\"} 0.002\n"));
+            Assert.assertTrue(body, body.contains("test_seconds_count{pair=\"BTCEUR\"} 2\n"));
+            Assert.assertTrue(body, body.contains("test_seconds_sum{pair=\"BTCEUR\"} 0.006\n"));
+            Assert.assertTrue(body, body.contains("test_seconds_max{pair=\"BTCEUR\"} 0.004\n"));
+        } finally {
+            exporter.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.freydema.cryptobot.simulator;
+
+import com.freydema.cryptobot.domain.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PaperExchangeClientTest {
+
+    @Test
+    public void ordersAreFilledAgainstTheFetchedTickers() {
+        Map<CurrencyPair, Ticker> market = new HashMap<>();
+        PaperExchangeClient client = new PaperExchangeClient(market::get, Clock.systemUTC());
+        client.setFeePercentage(CurrencyPair.BTCEUR, FixedPoint.of(BigDecimal.valueOf(0.26), FixedPoint.RATIO_SCALE));
+        List<Execution> executions = new ArrayList<>();
+        client.addExecutionListener(CurrencyPair.BTCEUR, executions::add);
+
+        market.put(CurrencyPair.BTCEUR, ticker(101, 102));
+        client.getTicker(CurrencyPair.BTCEUR);
+        Order buy = order("buy", OrderSide.BUY, 100);
+        Assert.assertTrue(client.placeOrder(buy).isDone());
+        Assert.assertTrue(executions.isEmpty());
+
+        // The next ticker fetched crosses the resting BUY: filled at its limit
+        market.put(CurrencyPair.BTCEUR, ticker(99, 100));
+        Assert.assertEquals(1, client.getTickers(List.of(CurrencyPair.BTCEUR)).size());
+        Assert.assertEquals(1, executions.size());
+        Assert.assertEquals("buy", executions.get(0).getOrderId());
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.valueOf(100)), executions.get(0).getPrice());
+        Assert.assertEquals(Currency.EUR.toUnits(new BigDecimal("0.26")), executions.get(0).getFee());
+
+        // A SELL crossing the current ticker is filled when placed, at the bid price
+        client.placeOrder(order("sell", OrderSide.SELL, 98));
+        Assert.assertEquals(2, executions.size());
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.valueOf(99)), executions.get(1).getPrice());
+        Assert.assertFalse(client.cancelOrder(buy).join());
+    }
+
+    private static Ticker ticker(double bidPrice, double askPrice) {
+        return Ticker.builder()
+                .bidPrice(Currency.EUR.toUnits(BigDecimal.valueOf(bidPrice)))
+                .askPrice(Currency.EUR.toUnits(BigDecimal.valueOf(askPrice)))
+                .build();
+    }
+
+    private static Order order(String id, OrderSide side, double limit) {
+        return Order.builder()
+                .id(id)
+                .pair(CurrencyPair.BTCEUR)
+                .side(side)
+                .quantity(Currency.BTC.toUnits(BigDecimal.ONE))
+                .limit(Currency.EUR.toUnits(BigDecimal.valueOf(limit)))
+                .build();
+    }
+}
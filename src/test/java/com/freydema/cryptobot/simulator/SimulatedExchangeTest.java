@@ -0,0 +1,127 @@
+package com.freydema.cryptobot.simulator;
+
+import com.freydema.cryptobot.Configuration;
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.domain.*;
+import com.freydema.cryptobot.feed.ReplayTickerFeed;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SimulatedExchangeTest {
+
+    private SimulatedExchange exchange;
+    private List<Execution> executions;
+
+    @Before
+    public void setup() {
+        exchange = new SimulatedExchange(Clock.systemUTC());
+        exchange.setFeePercentage(CurrencyPair.BTCEUR, FixedPoint.of(BigDecimal.valueOf(0.26), FixedPoint.RATIO_SCALE));
+        executions = new ArrayList<>();
+        exchange.addExecutionListener(CurrencyPair.BTCEUR, executions::add);
+    }
+
+    @Test
+    public void matchesInPriceTimePriority() {
+        Order first = order("first", OrderSide.SELL, 1, 10);
+        Order second = order("second", OrderSide.SELL, 1, 10);
+        Order better = order("better", OrderSide.SELL, 1, 9.9);
+        exchange.placeOrder(first);
+        exchange.placeOrder(second);
+        exchange.placeOrder(better);
+        Assert.assertTrue(executions.isEmpty());
+        Assert.assertEquals(2, exchange.getDepth(CurrencyPair.BTCEUR, OrderSide.SELL));
+
+        Order buy = order("buy", OrderSide.BUY, 2.5, 10);
+        Assert.assertTrue(exchange.placeOrder(buy).isDone());
+
+        // Best price first, then time priority, each at the maker price: maker and taker executions
+        Assert.assertEquals(6, executions.size());
+        assertExecution(executions.get(0), "better", 1, 9.9);
+        assertExecution(executions.get(1), "buy", 1, 9.9);
+        assertExecution(executions.get(2), "first", 1, 10);
+        assertExecution(executions.get(3), "buy", 1, 10);
+        assertExecution(executions.get(4), "second", 0.5, 10);
+        assertExecution(executions.get(5), "buy", 0.5, 10);
+        // 0.26% of 9.9 EUR
+        Assert.assertEquals(Currency.EUR.toUnits(new BigDecimal("0.025740")), executions.get(0).getFee());
+
+        Ticker ticker = exchange.getTicker(CurrencyPair.BTCEUR);
+        Assert.assertEquals(0, ticker.getBidPrice());
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.TEN), ticker.getAskPrice());
+        Assert.assertEquals(Currency.BTC.toUnits(new BigDecimal("0.5")), ticker.getAskVolume());
+        Assert.assertEquals(Currency.EUR.toUnits(new BigDecimal("9.9")), ticker.getLast24HLow());
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.TEN), ticker.getLast24HHigh());
+
+        Assert.assertTrue(exchange.cancelOrder(second).join());
+        Assert.assertFalse(exchange.cancelOrder(first).join());
+        Assert.assertEquals(0, exchange.getDepth(CurrencyPair.BTCEUR, OrderSide.SELL));
+        Assert.assertNull(exchange.getTicker(CurrencyPair.BTCEUR));
+    }
+
+    @Test
+    public void syntheticFlowKeepsATwoSidedBook() {
+        SyntheticMarketFlow flow = new SyntheticMarketFlow(exchange, CurrencyPair.BTCEUR,
+                Currency.EUR.toUnits(BigDecimal.valueOf(100)), Currency.EUR.toUnits(new BigDecimal("0.01")),
+                Currency.BTC.toUnits(BigDecimal.ONE), 1000, 42);
+        flow.step(100_000);
+        Ticker ticker = exchange.getTicker(CurrencyPair.BTCEUR);
+        Assert.assertTrue(ticker.getBidPrice() > 0);
+        Assert.assertTrue(ticker.getBidPrice() < ticker.getAskPrice());
+        // Only client orders are executed
+        Assert.assertTrue(executions.isEmpty());
+    }
+
+    @Test
+    public void traderRoundTripAgainstReplayedTickers() {
+        Configuration configuration = Configuration.builder()
+                .currencyPair(CurrencyPair.BTCEUR)
+                .askPriceVsLast24HLowTriggerRatio(BigDecimal.valueOf(0.2))
+                .targetPriceGrowthPercentage(BigDecimal.ONE)
+                .targetRoundTripProfitInEUR(BigDecimal.TEN)
+                .tradeFeePercentage(BigDecimal.valueOf(0.26))
+                .build();
+        Account account = new Account();
+        account.addAsset(Currency.EUR, Currency.EUR.toUnits(BigDecimal.valueOf(5000)));
+        CurrencyPairTrader trader = new CurrencyPairTrader(configuration, account, exchange);
+        trader.recover();
+        ReplayTickerFeed feed = new ReplayTickerFeed();
+        feed.subscribe(CurrencyPair.BTCEUR, new TickReplayFlow(exchange, Currency.BTC.toUnits(BigDecimal.valueOf(1000))));
+        feed.subscribe(CurrencyPair.BTCEUR, trader);
+        feed.add(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 11.9, 12, 10, 20))
+                .add(CurrencyPair.BTCEUR, Ticker.of(CurrencyPair.BTCEUR, 12.2, 12.3, 10, 20));
+        feed.start();
+
+        // Buy taken at the ask, sell resting above
+        Assert.assertTrue(feed.replayNext());
+        Assert.assertEquals(CurrencyPairTrader.State.WAIT_FOR_SELL_ORDER_EXECUTED, trader.getState());
+        // The new bid crosses the sell: filled at its limit
+        Assert.assertTrue(feed.replayNext());
+        Assert.assertEquals(CurrencyPairTrader.State.TRY_BUY, trader.getState());
+        Assert.assertEquals(2, executions.size());
+        Assert.assertEquals(Currency.EUR.toUnits(new BigDecimal("12.12")), executions.get(1).getPrice());
+        BigDecimal profit = Currency.EUR.toBigDecimal(account.getBalance(Currency.EUR)).subtract(BigDecimal.valueOf(5000));
+        Assert.assertTrue(profit.subtract(BigDecimal.TEN).abs().compareTo(BigDecimal.valueOf(0.01)) < 0);
+    }
+
+    private static Order order(String id, OrderSide side, double quantity, double limit) {
+        return Order.builder()
+                .id(id)
+                .pair(CurrencyPair.BTCEUR)
+                .side(side)
+                .quantity(Currency.BTC.toUnits(BigDecimal.valueOf(quantity)))
+                .limit(Currency.EUR.toUnits(BigDecimal.valueOf(limit)))
+                .build();
+    }
+
+    private static void assertExecution(Execution execution, String orderId, double quantity, double price) {
+        Assert.assertEquals(orderId, execution.getOrderId());
+        Assert.assertEquals(Currency.BTC.toUnits(BigDecimal.valueOf(quantity)), execution.getQuantity());
+        Assert.assertEquals(Currency.EUR.toUnits(BigDecimal.valueOf(price)), execution.getPrice());
+    }
+}
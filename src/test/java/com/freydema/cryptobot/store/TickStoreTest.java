@@ -0,0 +1,89 @@
+package com.freydema.cryptobot.store;
+
+import com.freydema.cryptobot.backtest.TickHistory;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Ticker;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TickStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordAndScanAcrossSegments() throws Exception {
+        Path root = folder.getRoot().toPath();
+        try(TickRecorder recorder = new TickRecorder(root, 4, Clock.systemUTC())){
+            for(int i = 0; i < 6; i++){
+                recorder.record(CurrencyPair.BTCEUR, tick(i));
+            }
+        }
+        // Reopening resumes in the last, not yet full, segment
+        try(TickRecorder recorder = new TickRecorder(root, 4, Clock.systemUTC())){
+            for(int i = 6; i < 10; i++){
+                recorder.record(CurrencyPair.BTCEUR, tick(i));
+            }
+        }
+        Assert.assertEquals(3, Files.list(root.resolve("BTCEUR")).count());
+
+        TickStore store = new TickStore(root);
+        List<Long> timestamps = new ArrayList<>();
+        List<Long> askPrices = new ArrayList<>();
+        long count = store.scan(CurrencyPair.BTCEUR, (timestamp, bidPrice, bidVolume, askPrice, askVolume, low, high) -> {
+            timestamps.add(timestamp);
+            askPrices.add(askPrice);
+        });
+        Assert.assertEquals(10, count);
+        for(int i = 0; i < 10; i++){
+            Assert.assertEquals(1_000L * (i + 1), (long) timestamps.get(i));
+            Assert.assertEquals(tick(i).getAskPrice(), (long) askPrices.get(i));
+        }
+        Assert.assertEquals(0, store.scan(CurrencyPair.ETHEUR, (timestamp, bidPrice, bidVolume, askPrice, askVolume, low, high) -> {
+        }));
+    }
+
+    @Test
+    public void timeRangeSeek() throws Exception {
+        Path root = folder.getRoot().toPath();
+        try(TickRecorder recorder = new TickRecorder(root, 4, Clock.systemUTC())){
+            for(int i = 0; i < 10; i++){
+                recorder.record(CurrencyPair.BTCEUR, tick(i));
+            }
+        }
+        TickHistory history = new TickStore(root).loadHistory(Collections.singletonList(CurrencyPair.BTCEUR), 3_500, 8_000);
+        Assert.assertEquals(4, history.size(CurrencyPair.BTCEUR));
+        Assert.assertEquals(4_000, history.getTimestamp(CurrencyPair.BTCEUR, 0));
+        Assert.assertEquals(7_000, history.getTimestamp(CurrencyPair.BTCEUR, 3));
+        Assert.assertEquals(tick(3).getLast24HHigh(), history.getTicker(CurrencyPair.BTCEUR, 0).getLast24HHigh());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTicksOutOfOrder() throws Exception {
+        try(TickRecorder recorder = new TickRecorder(folder.getRoot().toPath(), 4, Clock.systemUTC())){
+            recorder.record(CurrencyPair.BTCEUR, tick(2));
+            recorder.record(CurrencyPair.BTCEUR, tick(1));
+        }
+    }
+
+    private static Ticker tick(int i) {
+        return Ticker.builder()
+                .timestamp(1_000L * (i + 1))
+                .bidPrice(100 + i)
+                .bidVolume(200 + i)
+                .askPrice(300 + i)
+                .askVolume(400 + i)
+                .last24HLow(500 + i)
+                .last24HHigh(600 + i)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.freydema.cryptobot.tradelog;
+
+import com.freydema.cryptobot.CurrencyPairTrader;
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Execution;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.Order;
+import com.freydema.cryptobot.domain.OrderSide;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+public class TradeEventLogTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2019-03-01T10:15:30Z"), ZoneOffset.UTC);
+    private static final String ORDER_ID = "3b0c4a8e-1d2f-4c5b-9a6e-7f8091a2b3c4";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void renderEventsAcrossReopenings() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("events.bin");
+        Order order = Order.builder()
+                .id(ORDER_ID)
+                .pair(CurrencyPair.BTCEUR)
+                .side(OrderSide.BUY)
+                .quantity(FixedPoint.parse("0.05", 8))
+                .limit(FixedPoint.parse("3400.5", 6))
+                .build();
+        try(TradeEventLog log = new TradeEventLog(file, 16, CLOCK)){
+            log.onStateChanged(CurrencyPair.BTCEUR, CurrencyPairTrader.State.WAIT_FOR_BUY_ORDER_PLACED, order, null, 0, 0);
+            log.onExecution(Execution.builder()
+                    .orderId(ORDER_ID)
+                    .pair(CurrencyPair.BTCEUR)
+                    .side(OrderSide.BUY)
+                    .quantity(FixedPoint.parse("0.05", 8))
+                    .price(FixedPoint.parse("3400.5", 6))
+                    .amount(FixedPoint.parse("170.025", 6))
+                    .fee(FixedPoint.parse("0.442065", 6))
+                    .timestamp(CLOCK.millis() + 1000)
+                    .build());
+            Assert.assertEquals(0, log.getDropped());
+        }
+        try(TradeEventLog log = new TradeEventLog(file, 16, CLOCK)){
+            log.onHoldingChanged(Currency.EUR, FixedPoint.parse("9829.532935", 6), 0);
+            log.onStateChanged(CurrencyPair.BTCEUR, CurrencyPairTrader.State.TRY_BUY, null, null, 0, 0);
+        }
+        String expected = "2019-03-01T10:15:30Z BTCEUR WAIT_FOR_BUY_ORDER_PLACED BUY " + ORDER_ID
+                + " quantity=0.05 limit=3400.5 filled=0\n"
+                + "2019-03-01T10:15:31Z BTCEUR EXECUTION BUY " + ORDER_ID
+                + " quantity=0.05 price=3400.5 amount=170.025 fee=0.442065\n"
+                + "2019-03-01T10:15:30Z EUR HOLDING balance=9829.532935 blocked=0\n"
+                + "2019-03-01T10:15:30Z BTCEUR TRY_BUY\n";
+        Assert.assertEquals(expected, render(file));
+
+        // A torn record ends the rendering
+        try(OutputStream output = Files.newOutputStream(file, StandardOpenOption.APPEND)){
+            output.write(new byte[]{TradeEventLog.HOLDING, 0, 0, 1});
+        }
+        Assert.assertEquals(expected, render(file));
+    }
+
+    private static String render(Path file) throws Exception {
+        StringWriter output = new StringWriter();
+        TradeEventLogRenderer.render(file, output);
+        return output.toString();
+    }
+}
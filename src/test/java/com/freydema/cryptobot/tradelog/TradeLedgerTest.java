@@ -0,0 +1,127 @@
+package com.freydema.cryptobot.tradelog;
+
+import com.freydema.cryptobot.domain.Currency;
+import com.freydema.cryptobot.domain.CurrencyPair;
+import com.freydema.cryptobot.domain.Execution;
+import com.freydema.cryptobot.domain.FixedPoint;
+import com.freydema.cryptobot.domain.OrderSide;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TradeLedgerTest {
+
+    private static final Instant NOW = Instant.parse("2019-03-08T10:15:30Z");
+    private static final long DAY = 86_400_000L;
+
+    @Test
+    public void profitFeesAndExposure() {
+        TradeLedger ledger = new TradeLedger(Clock.fixed(NOW, ZoneOffset.UTC));
+        long now = NOW.toEpochMilli();
+        // Last week: BTC round trip of 2 EUR net
+        ledger.onExecution(fill(CurrencyPair.BTCEUR, OrderSide.BUY, "1", "100", "0.5", now - 6 * DAY));
+        ledger.onExecution(fill(CurrencyPair.BTCEUR, OrderSide.SELL, "1", "103", "0.5", now - 6 * DAY));
+        // Today: buy 2 ETH, sell half
+        ledger.onExecution(fill(CurrencyPair.ETHEUR, OrderSide.BUY, "2", "50", "0.2", now - 1_000));
+        ledger.onExecution(fill(CurrencyPair.ETHEUR, OrderSide.SELL, "1", "52", "0.1", now));
+
+        Assert.assertEquals(4, ledger.getFillCount());
+        Assert.assertEquals(eur("2"), ledger.getRealizedProfit(CurrencyPair.BTCEUR));
+        Assert.assertEquals(0, ledger.getRealizedProfit(CurrencyPair.BTCEUR, 1));
+        Assert.assertEquals(eur("2"), ledger.getRealizedProfit(CurrencyPair.BTCEUR, 7));
+        // 52 - 0.1 - (100.2 / 2)
+        Assert.assertEquals(eur("1.8"), ledger.getRealizedProfit(CurrencyPair.ETHEUR, 1));
+        Assert.assertEquals(eur("3.8"), ledger.getRealizedProfit(Currency.EUR, 7));
+        Assert.assertEquals(eur("1.8"), ledger.getRealizedProfit(Currency.EUR, 6));
+
+        Assert.assertEquals(eur("1"), ledger.getFees(CurrencyPair.BTCEUR));
+        Assert.assertEquals(eur("0.3"), ledger.getFees(CurrencyPair.ETHEUR, 1));
+        Assert.assertEquals(eur("1.3"), ledger.getFees(Currency.EUR, 7));
+
+        Assert.assertEquals(0, ledger.getOpenQuantity(CurrencyPair.BTCEUR));
+        Assert.assertEquals(0, ledger.getOpenCost(CurrencyPair.BTCEUR));
+        Assert.assertEquals(FixedPoint.parse("1", Currency.ETH.getScale()), ledger.getOpenQuantity(CurrencyPair.ETHEUR));
+        Assert.assertEquals(eur("50.1"), ledger.getOpenCost(CurrencyPair.ETHEUR));
+        Assert.assertEquals(eur("50.1"), ledger.getOpenCost(Currency.EUR));
+        Assert.assertEquals(eur("55"), ledger.getExposure(CurrencyPair.ETHEUR, eur("55")));
+
+        List<OrderSide> sides = new ArrayList<>();
+        ledger.forEachFill(2, (timestamp, pair, side, quantity, price, amount, fee) -> {
+            Assert.assertEquals(CurrencyPair.ETHEUR, pair);
+            sides.add(side);
+        });
+        Assert.assertEquals(List.of(OrderSide.BUY, OrderSide.SELL), sides);
+    }
+
+    @Test
+    public void daysOutsideTheRingAreForgotten() {
+        TradeLedger ledger = new TradeLedger(Clock.fixed(NOW, ZoneOffset.UTC));
+        long now = NOW.toEpochMilli();
+        ledger.onExecution(fill(CurrencyPair.BTCEUR, OrderSide.BUY, "1", "100", "1", now - TradeLedger.RETAINED_DAYS * DAY));
+        ledger.onExecution(fill(CurrencyPair.BTCEUR, OrderSide.BUY, "1", "100", "2", now));
+        Assert.assertEquals(eur("2"), ledger.getFees(CurrencyPair.BTCEUR, TradeLedger.RETAINED_DAYS));
+        Assert.assertEquals(eur("3"), ledger.getFees(CurrencyPair.BTCEUR));
+        // A late fill of a day no longer retained does not overwrite a recent day
+        ledger.onExecution(fill(CurrencyPair.BTCEUR, OrderSide.BUY, "1", "100", "4", now - TradeLedger.RETAINED_DAYS * DAY));
+        Assert.assertEquals(eur("2"), ledger.getFees(CurrencyPair.BTCEUR, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void daysAreBounded() {
+        new TradeLedger().getFees(CurrencyPair.BTCEUR, TradeLedger.RETAINED_DAYS + 1);
+    }
+
+    @Test
+    public void queriesSeeConsistentAggregatesWhileFillsAreAppended() throws Exception {
+        TradeLedger ledger = new TradeLedger(Clock.fixed(NOW, ZoneOffset.UTC));
+        long now = NOW.toEpochMilli();
+        AtomicBoolean inconsistent = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for(int i = 0; i < 10_000; i++){
+                ledger.onExecution(fill(CurrencyPair.BTCEUR, OrderSide.BUY, "1", "10", "0.01", now));
+                ledger.onExecution(fill(CurrencyPair.BTCEUR, OrderSide.SELL, "1", "10", "0.01", now));
+            }
+        });
+        writer.start();
+        while(writer.isAlive()){
+            // Each round trip loses 0.02: the open cost is 0 or 10.01, the loss follows the round trips
+            long openCost = ledger.getOpenCost(CurrencyPair.BTCEUR);
+            if(openCost != 0 && openCost != eur("10.01")){
+                inconsistent.set(true);
+            }
+        }
+        writer.join();
+        Assert.assertFalse(inconsistent.get());
+        Assert.assertEquals(20_000, ledger.getFillCount());
+        Assert.assertEquals(-eur("200"), ledger.getRealizedProfit(CurrencyPair.BTCEUR, 1));
+    }
+
+    private static Execution fill(CurrencyPair pair, OrderSide side, String quantity, String price, String fee,
+                                  long timestamp) {
+        long q = FixedPoint.parse(quantity, pair.getBase().getScale());
+        long p = eur(price);
+        int quoteScale = pair.getQuote().getScale();
+        return Execution.builder()
+                .orderId("order")
+                .pair(pair)
+                .side(side)
+                .quantity(q)
+                .price(p)
+                .amount(FixedPoint.multiply(q, pair.getBase().getScale(), p, quoteScale, quoteScale,
+                        RoundingMode.HALF_EVEN))
+                .fee(eur(fee))
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private static long eur(String value) {
+        return FixedPoint.parse(value, Currency.EUR.getScale());
+    }
+}